@@ -0,0 +1,100 @@
+/*
+ *    BenchmarkData.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import moa.classifiers.Classifier;
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+import moa.streams.InstanceStream;
+
+/**
+ * Pre-generated data shared by the benchmarks, so that generating instances
+ * is not part of the measured time.
+ *
+ * @version $Revision: 7 $
+ */
+public class BenchmarkData {
+
+    /** Number of instances generated for a benchmark trial. */
+    public static final int NUM_INSTANCES = 100000;
+
+    /**
+     * Generates instances with a generator of moa.streams.generators.
+     *
+     * @param generator the generator class name, with options
+     * @param numInstances the number of instances
+     * @return the instances
+     */
+    public static Instance[] generate(String generator, int numInstances) throws Exception {
+        InstanceStream stream = (InstanceStream) ClassOption.cliStringToObject(
+                "generators." + generator, InstanceStream.class, null);
+        ((OptionHandler) stream).prepareForUse();
+        Instance[] instances = new Instance[numInstances];
+        for (int i = 0; i < numInstances; i++) {
+            instances[i] = stream.nextInstance().getData();
+        }
+        return instances;
+    }
+
+    /**
+     * Turns classification instances into regression instances, with the
+     * class label as numeric target. The target is a piecewise constant
+     * function of the other attributes that regressors can learn.
+     *
+     * @param instances the classification instances
+     * @return the regression instances
+     */
+    public static Instance[] toRegression(Instance[] instances) {
+        InstancesHeader header = new InstancesHeader(instances[0].dataset());
+        List<Attribute> attributes = new ArrayList<Attribute>();
+        for (int i = 0; i < header.numAttributes(); i++) {
+            attributes.add(i == header.classIndex() ? new Attribute("target") : header.attribute(i));
+        }
+        Instances regressionHeader = new Instances(header.getRelationName() + "-regression", attributes, 0);
+        regressionHeader.setClassIndex(header.classIndex());
+        regressionHeader = new InstancesHeader(regressionHeader);
+        Instance[] result = new Instance[instances.length];
+        for (int i = 0; i < instances.length; i++) {
+            result[i] = instances[i].copy();
+            result[i].setDataset(regressionHeader);
+        }
+        return result;
+    }
+
+    /**
+     * Creates and prepares a classifier of moa.classifiers.
+     *
+     * @param learner the classifier class name, with options
+     * @param instance an instance with the header of the data
+     * @return the classifier
+     */
+    public static Classifier createClassifier(String learner, Instance instance) throws Exception {
+        Classifier classifier = (Classifier) ClassOption.cliStringToObject(
+                learner, Classifier.class, null);
+        classifier.prepareForUse();
+        classifier.setModelContext(new InstancesHeader(instance.dataset()));
+        return classifier;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *    ChangeDetectorBenchmark.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.Classifier;
+import moa.classifiers.core.driftdetection.ChangeDetector;
+import moa.options.ClassOption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the change detectors. The input is the 0/1 error sequence of
+ * a naive Bayes classifier evaluated prequentially on pre-generated
+ * instances, which is what the detectors see inside drift-aware learners.
+ *
+ * @version $Revision: 7 $
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChangeDetectorBenchmark {
+
+    @Param({"ADWINChangeDetector", "DDM", "EDDM", "PageHinkleyDM", "CusumDM",
+        "EWMAChartDM", "GeometricMovingAverageDM", "HDDM_A_Test", "HDDM_W_Test",
+        "SEEDChangeDetector"})
+    public String detector;
+
+    @Param({"RandomRBFGenerator", "RandomTreeGenerator"})
+    public String generator;
+
+    protected double[] errors;
+
+    protected ChangeDetector changeDetector;
+
+    protected int nextIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Instance[] instances = BenchmarkData.generate(this.generator, BenchmarkData.NUM_INSTANCES);
+        Classifier classifier = BenchmarkData.createClassifier("bayes.NaiveBayes", instances[0]);
+        this.errors = new double[instances.length];
+        for (int i = 0; i < instances.length; i++) {
+            this.errors[i] = classifier.correctlyClassifies(instances[i]) ? 0.0 : 1.0;
+            classifier.trainOnInstance(instances[i]);
+        }
+        this.changeDetector = (ChangeDetector) ClassOption.cliStringToObject(
+                this.detector, ChangeDetector.class, null);
+        this.changeDetector.prepareForUse();
+    }
+
+    @Benchmark
+    public boolean input() {
+        this.changeDetector.input(this.errors[this.nextIndex]);
+        this.nextIndex = (this.nextIndex + 1) % this.errors.length;
+        return this.changeDetector.getChange();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    ClassifierBenchmark.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.Classifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of training and prediction of the main classifiers, on
+ * pre-generated instances. The model is first trained on half of the
+ * instances, so predictions are made with a grown model.
+ *
+ * @version $Revision: 7 $
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassifierBenchmark {
+
+    @Param({"trees.HoeffdingTree", "trees.HoeffdingAdaptiveTree", "meta.OzaBag",
+        "meta.LeveragingBag", "bayes.NaiveBayes", "functions.SGD", "lazy.kNN"})
+    public String learner;
+
+    @Param({"RandomRBFGenerator", "RandomTreeGenerator"})
+    public String generator;
+
+    protected Instance[] instances;
+
+    protected Classifier classifier;
+
+    protected int nextIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.instances = BenchmarkData.generate(this.generator, BenchmarkData.NUM_INSTANCES);
+        this.classifier = BenchmarkData.createClassifier(this.learner, this.instances[0]);
+        for (int i = 0; i < this.instances.length / 2; i++) {
+            this.classifier.trainOnInstance(this.instances[i]);
+        }
+        this.nextIndex = this.instances.length / 2;
+    }
+
+    protected Instance nextInstance() {
+        Instance inst = this.instances[this.nextIndex];
+        this.nextIndex = (this.nextIndex + 1) % this.instances.length;
+        return inst;
+    }
+
+    @Benchmark
+    public void trainOnInstance() {
+        this.classifier.trainOnInstance(nextInstance());
+    }
+
+    @Benchmark
+    public double[] getVotesForInstance() {
+        return this.classifier.getVotesForInstance(nextInstance());
+    }
+}
@@ -42,6 +42,13 @@ public class ArffLoader {
     //endregion
 
     //region Constructors
+    /**
+     * Instantiates a new arff loader without a tokenizer. Used by subclasses
+     * that read the data section themselves.
+     */
+    protected ArffLoader() {
+    }
+
     /**
      * Instantiates a new arff loader.
      *
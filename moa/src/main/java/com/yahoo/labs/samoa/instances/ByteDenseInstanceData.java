@@ -0,0 +1,211 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * The Class ByteDenseInstanceData. Dense instance data of nominal-only rows,
+ * stored with one byte per value: the index of the nominal value, from 0 to
+ * MAX_VALUE, or MISSING.
+ */
+public class ByteDenseInstanceData implements InstanceData {
+
+    /** The largest value that can be stored. */
+    public static final int MAX_VALUE = 254;
+
+    /** The code of missing values. */
+    protected static final byte MISSING = (byte) 255;
+
+    /**
+     * Instantiates a new byte dense instance data.
+     *
+     * @param array the array of codes
+     */
+    public ByteDenseInstanceData(byte[] array) {
+        this.attributeValues = array;
+    }
+
+    /**
+     * Instantiates a new byte dense instance data from double values.
+     *
+     * @param values the values
+     */
+    public ByteDenseInstanceData(double[] values) {
+        this.attributeValues = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            setValue(i, values[i]);
+        }
+    }
+
+    /**
+     * Instantiates a new byte dense instance data.
+     *
+     * @param length the length
+     */
+    public ByteDenseInstanceData(int length) {
+        this.attributeValues = new byte[length];
+    }
+
+    /**
+     * Checks if all the attributes of a header are nominal with at most
+     * MAX_VALUE + 1 values, so that its instances can be stored in bytes.
+     *
+     * @param header the header
+     * @return true, if instances can be stored in bytes
+     */
+    public static boolean canStore(Instances header) {
+        for (int i = 0; i < header.numAttributes(); i++) {
+            Attribute attribute = header.attribute(i);
+            if (!attribute.isNominal() || attribute.numValues() > MAX_VALUE + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //region Members
+    /**
+     * The attribute value codes.
+     */
+    protected byte[] attributeValues;
+    //endregion
+
+    /**
+     * Num attributes.
+     *
+     * @return the int
+     */
+    @Override
+    public int numAttributes() {
+        return this.attributeValues.length;
+    }
+
+    /**
+     * Value.
+     *
+     * @param indexAttribute the index attribute
+     * @return the double
+     */
+    @Override
+    public double value(int indexAttribute) {
+        byte code = this.attributeValues[indexAttribute];
+        return code == MISSING ? Double.NaN : code & 0xFF;
+    }
+
+    /**
+     * Checks if is missing.
+     *
+     * @param indexAttribute the index attribute
+     * @return true, if is missing
+     */
+    @Override
+    public boolean isMissing(int indexAttribute) {
+        return this.attributeValues[indexAttribute] == MISSING;
+    }
+
+    /**
+     * Num values.
+     *
+     * @return the int
+     */
+    @Override
+    public int numValues() {
+        return numAttributes();
+    }
+
+    /**
+     * Index.
+     *
+     * @param indexAttribute the index attribute
+     * @return the int
+     */
+    @Override
+    public int index(int indexAttribute) {
+        return indexAttribute;
+    }
+
+    /**
+     * Value sparse.
+     *
+     * @param indexAttribute the index attribute
+     * @return the double
+     */
+    @Override
+    public double valueSparse(int indexAttribute) {
+        return value(indexAttribute);
+    }
+
+    /**
+     * Checks if is missing sparse.
+     *
+     * @param indexAttribute the index attribute
+     * @return true, if is missing sparse
+     */
+    @Override
+    public boolean isMissingSparse(int indexAttribute) {
+        return isMissing(indexAttribute);
+    }
+
+    /**
+     * To double array.
+     *
+     * @return the double[]
+     */
+    @Override
+    public double[] toDoubleArray() {
+        double[] values = new double[this.attributeValues.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = value(i);
+        }
+        return values;
+    }
+
+    /**
+     * Sets the value.
+     *
+     * @param attributeIndex the attribute index
+     * @param d              the d, the index of a nominal value or NaN
+     * @throws IllegalArgumentException if the value cannot be stored in a byte
+     */
+    @Override
+    public void setValue(int attributeIndex, double d) {
+        if (Double.isNaN(d)) {
+            this.attributeValues[attributeIndex] = MISSING;
+        } else if (d >= 0 && d <= MAX_VALUE && d == (int) d) {
+            this.attributeValues[attributeIndex] = (byte) d;
+        } else {
+            throw new IllegalArgumentException("Value " + d + " of attribute "
+                    + attributeIndex + " cannot be stored in a byte.");
+        }
+    }
+
+    @Override
+    public void deleteAttributeAt(int index) {
+        byte[] newValues = new byte[attributeValues.length - 1];
+        System.arraycopy(attributeValues, 0, newValues, 0, index);
+        if (index < attributeValues.length - 1) {
+            System.arraycopy(attributeValues, index + 1, newValues, index,
+                    attributeValues.length - (index + 1));
+        }
+        attributeValues = newValues;
+    }
+
+    @Override
+    public InstanceData copy() {
+        return new ByteDenseInstanceData(this.attributeValues.clone());
+    }
+
+}
@@ -0,0 +1,693 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+package com.yahoo.labs.samoa.instances;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The Class FastArffLoader. Loads an Arff file with sparse or dense format
+ * directly from the bytes of an input stream.
+ *
+ * The header is handed to {@link ArffLoader}, so attributes and class index
+ * are identical. The data section is tokenized with the same rules as the
+ * StreamTokenizer of ArffLoader (whitespace and ',' separate values, '%'
+ * starts a comment, quotes delimit strings, '{' and '}' delimit sparse rows),
+ * but tokens stay in one reusable byte buffer: numbers are parsed in place and
+ * nominal values are looked up by their bytes, so no string is created per
+ * value. Numbers that can not be converted exactly by the fast path are handed
+ * to Double.parseDouble, which makes every value bit-identical to the ones
+ * produced by ArffLoader. Single-quoted values are read like double-quoted
+ * ones.
+ *
+ * @version $Revision: 7 $
+ */
+public class FastArffLoader extends ArffLoader {
+
+    /**
+     * The default size of the read buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    protected static final int TT_EOF = -1;
+
+    protected static final int TT_EOL = '\n';
+
+    protected static final int TT_WORD = -3;
+
+    protected static final int TT_QUOTE = '"';
+
+    /**
+     * Powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * Largest mantissa that is exactly representable as a double.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    protected InputStream input;
+
+    protected byte[] buffer;
+
+    protected int position;
+
+    protected int limit;
+
+    /**
+     * Start and end of the current token in the buffer.
+     */
+    protected int tokenStart;
+
+    protected int tokenEnd;
+
+    /**
+     * Position of the first data line in the input stream.
+     */
+    protected long dataOffset;
+
+    protected boolean[] numericAttributes;
+
+    protected NominalIndex[] nominalIndexes;
+
+    protected int[] sparseIndices;
+
+    protected double[] sparseValues;
+
+    /**
+     * Instantiates a new fast arff loader.
+     *
+     * @param input the input stream
+     * @param classAttribute the class attribute
+     */
+    public FastArffLoader(InputStream input, int classAttribute) {
+        this(input, classAttribute, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates a new fast arff loader.
+     *
+     * @param input the input stream
+     * @param classAttribute the class attribute
+     * @param bufferSize the initial size of the read buffer
+     */
+    public FastArffLoader(InputStream input, int classAttribute, int bufferSize) {
+        this.input = input;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+        ArffLoader headerLoader = new ArffLoader(new StringReader(readHeader()), classAttribute);
+        this.auxAttributes = headerLoader.auxAttributes;
+        initStructure(headerLoader.getStructure());
+    }
+
+    /**
+     * Instantiates a new fast arff loader for a stream that only contains
+     * data lines, e.g. a part of the data section of a file.
+     *
+     * @param input the input stream positioned at the start of a line
+     * @param structure the structure of the instances
+     * @param bufferSize the initial size of the read buffer
+     */
+    public FastArffLoader(InputStream input, InstanceInformation structure, int bufferSize) {
+        this.input = input;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+        initStructure(structure);
+    }
+
+    private void initStructure(InstanceInformation structure) {
+        this.instanceInformation = structure;
+        int numAttributes = this.instanceInformation.numAttributes();
+        this.numericAttributes = new boolean[numAttributes];
+        this.nominalIndexes = new NominalIndex[numAttributes];
+        for (int i = 0; i < numAttributes; i++) {
+            Attribute attribute = this.instanceInformation.attribute(i);
+            this.numericAttributes[i] = attribute.isNumeric();
+            if (attribute.isNominal()) {
+                this.nominalIndexes[i] = new NominalIndex(attribute);
+            }
+        }
+        this.sparseIndices = new int[16];
+        this.sparseValues = new double[16];
+    }
+
+    /**
+     * Gets the position of the first data line in the input stream.
+     *
+     * @return the number of bytes before the data section
+     */
+    public long getDataOffset() {
+        return this.dataOffset;
+    }
+
+    /**
+     * Reads instance. It detects if it is dense or sparse.
+     *
+     * @return the instance, or null at the end of the stream
+     */
+    @Override
+    public Instance readInstance() {
+        return readInstance(null);
+    }
+
+    /**
+     * Reads instance, refilling the given dense instance if the row is dense.
+     * Sparse rows are read into a new instance.
+     *
+     * @param reuse the dense instance to refill, or null for a new instance
+     * @return the instance, or null at the end of the stream
+     */
+    public Instance readInstance(Instance reuse) {
+        try {
+            int type = nextToken();
+            while (type == TT_EOL) {
+                type = nextToken();
+            }
+            if (type == TT_EOF) {
+                return null;
+            }
+            if (type == '{') {
+                return readSparse();
+            }
+            return readDense(type, reuse);
+        } catch (IOException ex) {
+            Logger.getLogger(FastArffLoader.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a dense instance, starting at the given token.
+     *
+     * @param type the type of the first token of the line
+     * @param instance the instance to refill, or null for a new instance
+     * @return the instance
+     * @throws IOException if reading fails
+     */
+    protected Instance readDense(int type, Instance instance) throws IOException {
+        int numAttributes = this.instanceInformation.numAttributes();
+        boolean reused = instance != null;
+        if (!reused) {
+            instance = newDenseInstance(numAttributes);
+        }
+        int numAttribute = 0;
+        while (true) {
+            while (type != TT_EOL && type != TT_EOF) {
+                if (type == TT_WORD || type == TT_QUOTE) {
+                    instance.setValue(numAttribute, parseValue(numAttribute));
+                    numAttribute++;
+                }
+                type = nextToken();
+            }
+            if (numAttribute > 0 || type == TT_EOF) {
+                break;
+            }
+            type = nextToken();
+        }
+        if (reused) {
+            // values missing at the end of the line are zero, as in a new instance
+            for (int i = numAttribute; i < numAttributes; i++) {
+                instance.setValue(i, 0.0);
+            }
+        }
+        return (numAttribute > 0) ? instance : null;
+    }
+
+    /**
+     * Reads a sparse instance. The opening '{' has been consumed.
+     *
+     * @return the instance
+     * @throws IOException if reading fails
+     */
+    protected Instance readSparse() throws IOException {
+        int numValues = 0;
+        int type = nextToken();
+        while (type == TT_WORD || type == TT_QUOTE) {
+            int index = parseIndex();
+            type = nextToken();
+            if (type != TT_WORD && type != TT_QUOTE) {
+                break;
+            }
+            if (numValues == this.sparseIndices.length) {
+                this.sparseIndices = Arrays.copyOf(this.sparseIndices, numValues * 2);
+                this.sparseValues = Arrays.copyOf(this.sparseValues, numValues * 2);
+            }
+            this.sparseIndices[numValues] = index;
+            this.sparseValues[numValues] = parseValue(index);
+            numValues++;
+            type = nextToken();
+        }
+        while (type != TT_EOL && type != TT_EOF) {
+            type = nextToken();
+        }
+        return new SparseInstance(1.0, Arrays.copyOf(this.sparseValues, numValues),
+                Arrays.copyOf(this.sparseIndices, numValues),
+                this.instanceInformation.numAttributes());
+    }
+
+    /**
+     * Converts the current token to the value of an attribute.
+     *
+     * @param numAttribute the index of the attribute
+     * @return the value
+     */
+    protected double parseValue(int numAttribute) {
+        if (this.tokenEnd - this.tokenStart == 1 && this.buffer[this.tokenStart] == '?') {
+            return Double.NaN;
+        }
+        if (this.numericAttributes[numAttribute]) {
+            return parseDouble(this.buffer, this.tokenStart, this.tokenEnd);
+        }
+        NominalIndex index = this.nominalIndexes[numAttribute];
+        return index == null ? -1 : index.indexOf(this.buffer, this.tokenStart, this.tokenEnd);
+    }
+
+    /**
+     * Converts the current token to an attribute index of a sparse row.
+     *
+     * @return the index
+     */
+    protected int parseIndex() {
+        int result = 0;
+        int i = this.tokenStart;
+        if (i < this.tokenEnd && i + 10 > this.tokenEnd) {
+            for (; i < this.tokenEnd; i++) {
+                int digit = this.buffer[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                result = result * 10 + digit;
+            }
+        }
+        if (i == this.tokenEnd && this.tokenEnd > this.tokenStart) {
+            return result;
+        }
+        return Integer.parseInt(tokenString());
+    }
+
+    /**
+     * Parses a double from the bytes given. Plain decimal numbers whose
+     * mantissa and power of ten are both exact doubles are converted with a
+     * single correctly rounded operation; everything else goes through
+     * Double.parseDouble.
+     *
+     * @param bytes the bytes
+     * @param start the first byte of the number
+     * @param end the end of the number (exclusive)
+     * @return the double
+     */
+    public static double parseDouble(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int numDigits = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            numDigits++;
+            if (mantissa != 0 || digit != 0) {
+                if (++significantDigits > 18) {
+                    exact = false;
+                }
+                mantissa = mantissa * 10 + digit;
+            }
+        }
+        if (i < end && bytes[i] == '.') {
+            i++;
+            for (; i < end; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                numDigits++;
+                exponent--;
+                if (mantissa != 0 || digit != 0) {
+                    if (++significantDigits > 18) {
+                        exact = false;
+                    }
+                    mantissa = mantissa * 10 + digit;
+                }
+            }
+        }
+        if (numDigits > 0 && i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int exponentDigits = 0;
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                if (++exponentDigits > 5) {
+                    exact = false;
+                } else {
+                    explicitExponent = explicitExponent * 10 + digit;
+                }
+            }
+            if (exponentDigits == 0) {
+                exact = false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (exact && numDigits > 0 && i == end && mantissa <= MAX_EXACT_MANTISSA) {
+            double value;
+            if (mantissa == 0) {
+                value = 0.0;
+            } else if (exponent == 0) {
+                value = mantissa;
+            } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+                value = mantissa * POWERS_OF_TEN[exponent];
+            } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+                value = mantissa / POWERS_OF_TEN[-exponent];
+            } else {
+                return Double.parseDouble(new String(bytes, start, end - start));
+            }
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(bytes, start, end - start));
+    }
+
+    /**
+     * Returns the current token as a string, only used for error handling
+     * and uncommon number formats.
+     *
+     * @return the token
+     */
+    protected String tokenString() {
+        return new String(this.buffer, this.tokenStart, this.tokenEnd - this.tokenStart);
+    }
+
+    /**
+     * Reads the next token of the data section.
+     *
+     * @return the type of the token
+     * @throws IOException if reading fails
+     */
+    protected int nextToken() throws IOException {
+        while (true) {
+            this.tokenStart = this.position;
+            this.tokenEnd = this.position;
+            if (this.position >= this.limit && !fill()) {
+                return TT_EOF;
+            }
+            int c = this.buffer[this.position] & 0xFF;
+            if (c == '\n') {
+                this.position++;
+                return TT_EOL;
+            }
+            if (c == '\r') {
+                this.position++;
+                this.tokenStart = this.position;
+                if ((this.position < this.limit || fill()) && this.buffer[this.position] == '\n') {
+                    this.position++;
+                }
+                return TT_EOL;
+            }
+            if (c <= ' ' || c == ',') {
+                this.position++;
+            } else if (c == '%') {
+                skipComment();
+            } else if (c == '{' || c == '}') {
+                this.position++;
+                return c;
+            } else if (c == '"' || c == '\'') {
+                readQuoted(c);
+                return TT_QUOTE;
+            } else {
+                readWord();
+                return TT_WORD;
+            }
+        }
+    }
+
+    private void skipComment() throws IOException {
+        while (true) {
+            this.tokenStart = this.position;
+            if (this.position >= this.limit && !fill()) {
+                return;
+            }
+            byte c = this.buffer[this.position];
+            if (c == '\n' || c == '\r') {
+                return;
+            }
+            this.position++;
+        }
+    }
+
+    private void readWord() throws IOException {
+        this.tokenStart = this.position;
+        while (this.position < this.limit || fill()) {
+            int c = this.buffer[this.position] & 0xFF;
+            if (c <= ' ' || c == ',' || c == '%' || c == '"' || c == '\''
+                    || c == '{' || c == '}') {
+                break;
+            }
+            this.position++;
+        }
+        this.tokenEnd = this.position;
+    }
+
+    /**
+     * Reads a quoted string, decoding the escape sequences of StreamTokenizer.
+     * The decoded bytes are written back over the token in the buffer.
+     */
+    private void readQuoted(int quote) throws IOException {
+        this.position++;
+        this.tokenStart = this.position;
+        this.tokenEnd = this.position;
+        while (this.position < this.limit || fill()) {
+            int c = this.buffer[this.position] & 0xFF;
+            if (c == quote) {
+                this.position++;
+                return;
+            }
+            if (c == '\n' || c == '\r') {
+                return;
+            }
+            this.position++;
+            if (c == '\\') {
+                if (this.position >= this.limit && !fill()) {
+                    this.buffer[this.tokenEnd++] = (byte) c;
+                    return;
+                }
+                c = this.buffer[this.position++] & 0xFF;
+                if (c >= '0' && c <= '7') {
+                    int first = c;
+                    c = c - '0';
+                    if ((this.position < this.limit || fill())
+                            && this.buffer[this.position] >= '0' && this.buffer[this.position] <= '7') {
+                        c = (c << 3) + (this.buffer[this.position++] - '0');
+                        if (first <= '3' && (this.position < this.limit || fill())
+                                && this.buffer[this.position] >= '0' && this.buffer[this.position] <= '7') {
+                            c = (c << 3) + (this.buffer[this.position++] - '0');
+                        }
+                    }
+                } else {
+                    switch (c) {
+                        case 'a':
+                            c = 0x7;
+                            break;
+                        case 'b':
+                            c = '\b';
+                            break;
+                        case 'f':
+                            c = 0xC;
+                            break;
+                        case 'n':
+                            c = '\n';
+                            break;
+                        case 'r':
+                            c = '\r';
+                            break;
+                        case 't':
+                            c = '\t';
+                            break;
+                        case 'v':
+                            c = 0xB;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+            this.buffer[this.tokenEnd++] = (byte) c;
+        }
+    }
+
+    /**
+     * Reads more bytes into the buffer, keeping the current token. The
+     * buffer grows only if a single token does not fit in it.
+     *
+     * @return false if the end of the stream has been reached
+     * @throws IOException if reading fails
+     */
+    protected boolean fill() throws IOException {
+        int shift = this.tokenStart;
+        if (shift > 0) {
+            System.arraycopy(this.buffer, shift, this.buffer, 0, this.limit - shift);
+            this.limit -= shift;
+            this.position -= shift;
+            this.tokenStart = 0;
+            this.tokenEnd -= shift;
+        }
+        if (this.limit == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        }
+        int read = this.input.read(this.buffer, this.limit, this.buffer.length - this.limit);
+        if (read <= 0) {
+            return false;
+        }
+        this.limit += read;
+        return true;
+    }
+
+    /**
+     * Reads the header up to and including the line that starts with
+     * "@data", and leaves the buffer positioned on the first data line.
+     *
+     * @return the header text
+     */
+    private String readHeader() {
+        try {
+            boolean lineStart = true;
+            while (this.position < this.limit || fill()) {
+                byte c = this.buffer[this.position];
+                if (c == '\n' || c == '\r') {
+                    lineStart = true;
+                } else if (lineStart && c == '@' && startsWithData()) {
+                    while ((this.position < this.limit || fill())
+                            && this.buffer[this.position] != '\n' && this.buffer[this.position] != '\r') {
+                        this.position++;
+                    }
+                    break;
+                } else if (c > ' ') {
+                    lineStart = false;
+                }
+                this.position++;
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(FastArffLoader.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        this.dataOffset = this.position;
+        String header = new String(this.buffer, 0, this.position, Charset.defaultCharset());
+        this.tokenStart = this.position;
+        this.tokenEnd = this.position;
+        return header;
+    }
+
+    private boolean startsWithData() throws IOException {
+        while (this.limit - this.position < 5) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return (this.buffer[this.position + 1] | 0x20) == 'd'
+                && (this.buffer[this.position + 2] | 0x20) == 'a'
+                && (this.buffer[this.position + 3] | 0x20) == 't'
+                && (this.buffer[this.position + 4] | 0x20) == 'a';
+    }
+
+    /**
+     * Maps the encoded labels of a nominal attribute to their index without
+     * creating strings.
+     */
+    protected static class NominalIndex {
+
+        protected byte[][] labels;
+
+        protected int[] table;
+
+        protected int mask;
+
+        public NominalIndex(Attribute attribute) {
+            int numValues = attribute.numValues();
+            this.labels = new byte[numValues][];
+            int size = 4;
+            while (size < numValues * 2) {
+                size <<= 1;
+            }
+            this.table = new int[size];
+            Arrays.fill(this.table, -1);
+            this.mask = size - 1;
+            for (int i = 0; i < numValues; i++) {
+                byte[] label = attribute.value(i).getBytes(Charset.defaultCharset());
+                this.labels[i] = label;
+                if (indexOf(label, 0, label.length) < 0) {
+                    int slot = hash(label, 0, label.length) & this.mask;
+                    while (this.table[slot] >= 0) {
+                        slot = (slot + 1) & this.mask;
+                    }
+                    this.table[slot] = i;
+                }
+            }
+        }
+
+        /**
+         * Returns the index of the label stored in the bytes given.
+         *
+         * @return the index, or -1 if the label is unknown
+         */
+        public int indexOf(byte[] bytes, int start, int end) {
+            int slot = hash(bytes, start, end) & this.mask;
+            int index;
+            while ((index = this.table[slot]) >= 0) {
+                byte[] label = this.labels[index];
+                if (label.length == end - start && equals(label, bytes, start)) {
+                    return index;
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            return -1;
+        }
+
+        private static boolean equals(byte[] label, byte[] bytes, int start) {
+            for (int i = 0; i < label.length; i++) {
+                if (label[i] != bytes[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(byte[] bytes, int start, int end) {
+            int h = 0x811C9DC5;
+            for (int i = start; i < end; i++) {
+                h = (h ^ bytes[i]) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * The Class FloatDenseInstanceData. Dense instance data stored in single
+ * precision, using half the memory of DenseInstanceData. Values are rounded
+ * to the nearest float when they are set.
+ */
+public class FloatDenseInstanceData implements InstanceData {
+
+    /**
+     * Instantiates a new float dense instance data.
+     *
+     * @param array the array
+     */
+    public FloatDenseInstanceData(float[] array) {
+        this.attributeValues = array;
+    }
+
+    /**
+     * Instantiates a new float dense instance data from double values.
+     *
+     * @param values the values
+     */
+    public FloatDenseInstanceData(double[] values) {
+        this.attributeValues = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            this.attributeValues[i] = (float) values[i];
+        }
+    }
+
+    /**
+     * Instantiates a new float dense instance data.
+     *
+     * @param length the length
+     */
+    public FloatDenseInstanceData(int length) {
+        this.attributeValues = new float[length];
+    }
+
+    //region Members
+    /**
+     * The attribute values.
+     */
+    protected float[] attributeValues;
+    //endregion
+
+    /**
+     * Num attributes.
+     *
+     * @return the int
+     */
+    @Override
+    public int numAttributes() {
+        return this.attributeValues.length;
+    }
+
+    /**
+     * Value.
+     *
+     * @param indexAttribute the index attribute
+     * @return the double
+     */
+    @Override
+    public double value(int indexAttribute) {
+        return this.attributeValues[indexAttribute];
+    }
+
+    /**
+     * Checks if is missing.
+     *
+     * @param indexAttribute the index attribute
+     * @return true, if is missing
+     */
+    @Override
+    public boolean isMissing(int indexAttribute) {
+        return Float.isNaN(this.attributeValues[indexAttribute]);
+    }
+
+    /**
+     * Num values.
+     *
+     * @return the int
+     */
+    @Override
+    public int numValues() {
+        return numAttributes();
+    }
+
+    /**
+     * Index.
+     *
+     * @param indexAttribute the index attribute
+     * @return the int
+     */
+    @Override
+    public int index(int indexAttribute) {
+        return indexAttribute;
+    }
+
+    /**
+     * Value sparse.
+     *
+     * @param indexAttribute the index attribute
+     * @return the double
+     */
+    @Override
+    public double valueSparse(int indexAttribute) {
+        return value(indexAttribute);
+    }
+
+    /**
+     * Checks if is missing sparse.
+     *
+     * @param indexAttribute the index attribute
+     * @return true, if is missing sparse
+     */
+    @Override
+    public boolean isMissingSparse(int indexAttribute) {
+        return isMissing(indexAttribute);
+    }
+
+    /**
+     * To double array.
+     *
+     * @return the double[]
+     */
+    @Override
+    public double[] toDoubleArray() {
+        double[] values = new double[this.attributeValues.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.attributeValues[i];
+        }
+        return values;
+    }
+
+    /**
+     * Sets the value.
+     *
+     * @param attributeIndex the attribute index
+     * @param d              the d
+     */
+    @Override
+    public void setValue(int attributeIndex, double d) {
+        this.attributeValues[attributeIndex] = (float) d;
+    }
+
+    @Override
+    public void deleteAttributeAt(int index) {
+        float[] newValues = new float[attributeValues.length - 1];
+        System.arraycopy(attributeValues, 0, newValues, 0, index);
+        if (index < attributeValues.length - 1) {
+            System.arraycopy(attributeValues, index + 1, newValues, index,
+                    attributeValues.length - (index + 1));
+        }
+        attributeValues = newValues;
+    }
+
+    @Override
+    public InstanceData copy() {
+        return new FloatDenseInstanceData(this.attributeValues.clone());
+    }
+
+}
@@ -181,6 +181,14 @@ public interface Instance extends Serializable {
      */
     Instance copy();
 
+    /**
+     * Weighted view. The view shares the values of this instance, so it is
+     * cheaper than a copy, but values must not be changed through it.
+     * @param weight the weight of the view
+     * @return the instance
+     */
+    Instance weightedView(double weight);
+
     /**
      * Sets the dataset.
      * @param dataset the new dataset
@@ -101,6 +101,19 @@ public class InstanceImpl implements MultiLabelInstance {
         this.instanceHeader = header;
         this.instanceData = new DenseInstanceData(res);
     }
+
+    /**
+     * Instantiates a new instance.
+     *
+     * @param weight the weight
+     * @param header the header
+     * @param instanceData the instance data
+     */
+    public InstanceImpl(double weight, InstancesHeader header, InstanceData instanceData) {
+        this.weight = weight;
+        this.instanceHeader = header;
+        this.instanceData = instanceData;
+    }
     //endregion
 
     //region Weight Property
@@ -341,6 +354,18 @@ public class InstanceImpl implements MultiLabelInstance {
     public Instance copy() {
         return new InstanceImpl(this);
     }
+
+    /**
+     * Weighted view, sharing the instance data and header of this instance.
+     * @param weight the weight of the view
+     * @return the instance
+     */
+    @Override
+    public Instance weightedView(double weight) {
+        InstanceImpl view = new InstanceImpl(weight, this.instanceData);
+        view.instanceHeader = this.instanceHeader;
+        return view;
+    }
     //endregion
 
     //region Dataset Property
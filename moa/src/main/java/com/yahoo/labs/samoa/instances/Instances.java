@@ -93,6 +93,16 @@ public class Instances implements Serializable {
         this.instances = new ArrayList<Instance>();
     }
 
+    /**
+     * Instantiates a new instances.
+     * @param loader the loader that reads the instances
+     */
+    public Instances(ArffLoader loader) {
+        this.arff = loader;
+        this.instanceInformation = arff.getStructure();
+        this.instances = new ArrayList<Instance>();
+    }
+
     /**
      * Instantiates a new instances.
      *
@@ -255,6 +265,15 @@ public class Instances implements Serializable {
         this.instances.add(inst.copy());
     }
 
+    /**
+     * Adds the instances to the Instances. Unlike add(Instance), the
+     * instances are not copied.
+     * @param insts the insts
+     */
+    public void addAll(List<Instance> insts) {
+        this.instances.addAll(insts);
+    }
+
     /**
      * Randomize.
      * @param random the random
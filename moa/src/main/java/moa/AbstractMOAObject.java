@@ -19,7 +19,7 @@
  */
 package moa;
 
-import moa.core.SerializeUtils;
+import moa.core.DeepCopier;
 import moa.core.SizeOf;
 
 /**
@@ -62,7 +62,7 @@ public abstract class AbstractMOAObject implements MOAObject {
      */
     public static MOAObject copy(MOAObject obj) {
         try {
-            return (MOAObject) SerializeUtils.copyObject(obj);
+            return DeepCopier.copyObject(obj);
         } catch (Exception e) {
             throw new RuntimeException("Object copy failed.", e);
         }
@@ -77,4 +77,24 @@ public abstract class AbstractMOAObject implements MOAObject {
     public static int measureByteSize(MOAObject obj) {
         return (int) SizeOf.fullSizeOf(obj);
     }
+
+    /**
+     * Gets the approximate memory size of an array of objects, measuring each
+     * object with its own measureByteSize.
+     *
+     * @param objs array of objects to measure the memory size, can be null
+     * @return the memory size of the array and its objects
+     */
+    public static int measureByteSize(MOAObject[] objs) {
+        if (objs == null) {
+            return 0;
+        }
+        long byteSize = SizeOf.shallowSizeOf(objs);
+        for (MOAObject obj : objs) {
+            if (obj != null) {
+                byteSize += obj.measureByteSize();
+            }
+        }
+        return (int) byteSize;
+    }
 }
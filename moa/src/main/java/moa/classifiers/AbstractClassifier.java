@@ -23,6 +23,7 @@ package moa.classifiers;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.*;
 import moa.MOAObject;
+import moa.classifiers.core.VoteBuffer;
 import moa.core.*;
 import moa.gui.AWTRenderer;
 import moa.learners.Learner;
@@ -88,6 +89,16 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
     @Override
     public abstract double[] getVotesForInstance(Instance inst);
 
+    /**
+     * Copies the votes of getVotesForInstance(Instance) to the buffer.
+     * Classifiers that can write their votes directly override this method.
+     */
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        double[] votes = getVotesForInstance(inst);
+        return VoteBuffer.copyVotes(votes, votes.length, out);
+    }
+
     @Override
     public Prediction getPredictionForInstance(Example<Instance> example){
 		return getPredictionForInstance(example.getData());
@@ -151,14 +162,61 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
 
     @Override
     public void trainOnInstance(Instance inst) {
+        if (isTrainingInstance(inst)) {
+            this.trainingWeightSeenByModel += inst.weight();
+            trainOnInstanceImpl(inst);
+        }
+    }
+
+    /**
+     * Gets whether trainOnInstance learns from an instance: it must have a
+     * positive weight and, unless this learner is semi-supervised, a class.
+     *
+     * @param inst the instance
+     * @return true if the instance is used for training
+     */
+    protected boolean isTrainingInstance(Instance inst) {
         boolean isTraining = (inst.weight() > 0.0);
         if (!(this instanceof SemiSupervisedLearner) && inst.classIsMissing()){
             isTraining = false;
         }
-        if (isTraining) {
-            this.trainingWeightSeenByModel += inst.weight();
-            trainOnInstanceImpl(inst);
+        return isTraining;
+    }
+
+    @Override
+    public void trainOnInstances(Instances batch) {
+        for (int i = 0; i < batch.numInstances(); i++) {
+            trainOnInstance(batch.instance(i));
+        }
+    }
+
+    @Override
+    public double[][] getVotesForInstances(Instances batch) {
+        double[][] votes = new double[batch.numInstances()][];
+        for (int i = 0; i < votes.length; i++) {
+            votes[i] = getVotesForInstance(batch.instance(i));
+        }
+        return votes;
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst) {
+        double[] votes = getVotesForInstance(inst);
+        trainOnInstance(inst);
+        return votes;
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst, double[] out) {
+        int numVotes = getVotesForInstance(inst, out);
+        if (numVotes > out.length) {
+            out = new double[numVotes];
+            getVotesForInstance(inst, out);
+        } else if (numVotes < out.length) {
+            out = Arrays.copyOf(out, numVotes);
         }
+        trainOnInstance(inst);
+        return out;
     }
 
     @Override
@@ -20,6 +20,7 @@
 package moa.classifiers;
 
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.Prediction;
 import moa.core.Example;
 import moa.learners.Learner;
@@ -68,6 +69,58 @@ public interface Classifier extends Learner<Example<Instance>> {
      */
     double[] getVotesForInstance(Instance inst);
 
+    /**
+     * Predicts the class memberships for a given instance into a buffer, so
+     * that repeated predictions need not allocate. The buffer holds the
+     * votes of getVotesForInstance(Instance) followed by zeros. If the buffer
+     * is too short, its content is undefined and the prediction must be
+     * repeated with a buffer of the returned length.
+     * @param inst the instance to be classified
+     * @param out the buffer for the votes
+     * @return the number of votes, the length of the array that
+     * getVotesForInstance(Instance) returns
+     */
+    int getVotesForInstance(Instance inst, double[] out);
+
+    /**
+     * Trains this learner incrementally using the instances of a batch, in
+     * order. The model is the same as if trainOnInstance was called on each
+     * instance.
+     * @param batch the instances to be used for training
+     */
+    void trainOnInstances(Instances batch);
+
+    /**
+     * Predicts the class memberships for the instances of a batch, as
+     * getVotesForInstance does for each instance.
+     * @param batch the instances to be classified
+     * @return an array containing the votes of each instance
+     */
+    double[][] getVotesForInstances(Instances batch);
+
+    /**
+     * Predicts the class memberships for a given instance and then trains on
+     * it. The votes are those getVotesForInstance returns before training,
+     * and the model is the same as after trainOnInstance. Ensembles reuse the
+     * predictions of their members for the instance while training.
+     * @param inst the instance to be classified and used for training
+     * @return the votes of the instance before training
+     */
+    double[] testThenTrain(Instance inst);
+
+    /**
+     * Predicts the class memberships for a given instance into a buffer and
+     * then trains on it, as testThenTrain(Instance) does. The votes are
+     * stored in the buffer if they have its length, and otherwise in a new
+     * array of their length, so the returned array has the length of the
+     * votes of testThenTrain(Instance) and can be passed again for the next
+     * instance.
+     * @param inst the instance to be classified and used for training
+     * @param out the buffer for the votes
+     * @return the buffer, or a new array if the votes do not have its length
+     */
+    double[] testThenTrain(Instance inst, double[] out);
+
     /**
      * Sets the reference to the header of the data stream. The header of the
      * data stream is extended from WEKA
@@ -20,6 +20,7 @@
 package moa.classifiers.bayes;
 
 import moa.classifiers.AbstractClassifier;
+import moa.classifiers.core.VoteBuffer;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
@@ -83,6 +84,12 @@ public class NaiveBayes extends AbstractClassifier {
                 this.attributeObservers);
     }
 
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        return doNaiveBayesPrediction(inst, this.observedClassDistribution,
+                this.attributeObservers, out);
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return null;
@@ -131,8 +138,31 @@ public class NaiveBayes extends AbstractClassifier {
             DoubleVector observedClassDistribution,
             AutoExpandVector<AttributeClassObserver> attributeObservers) {
         double[] votes = new double[observedClassDistribution.numValues()];
+        doNaiveBayesPrediction(inst, observedClassDistribution,
+                attributeObservers, votes);
+        return votes;
+    }
+
+    /**
+     * Computes the votes of doNaiveBayesPrediction into a buffer, as
+     * Classifier.getVotesForInstance(Instance, double[]) does.
+     *
+     * @param inst the instance
+     * @param observedClassDistribution the class distribution
+     * @param attributeObservers the attribute observers
+     * @param votes the buffer for the votes
+     * @return the number of votes
+     */
+    public static int doNaiveBayesPrediction(Instance inst,
+            DoubleVector observedClassDistribution,
+            AutoExpandVector<AttributeClassObserver> attributeObservers,
+            double[] votes) {
+        int numVotes = observedClassDistribution.numValues();
+        if (numVotes > votes.length) {
+            return numVotes;
+        }
         double observedClassSum = observedClassDistribution.sumOfValues();
-        for (int classIndex = 0; classIndex < votes.length; classIndex++) {
+        for (int classIndex = 0; classIndex < numVotes; classIndex++) {
             votes[classIndex] = observedClassDistribution.getValue(classIndex)
                     / observedClassSum;
             for (int attIndex = 0; attIndex < inst.numAttributes() - 1; attIndex++) {
@@ -145,7 +175,7 @@ public class NaiveBayes extends AbstractClassifier {
             }
         }
         // TODO: need logic to prevent underflow?
-        return votes;
+        return VoteBuffer.clearAfterVotes(votes, numVotes);
     }
 
     // Naive Bayes Prediction using log10 for VFDR rules 
@@ -0,0 +1,269 @@
+/*
+ *    NaiveBayesCache.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.bayes;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.io.Serializable;
+import java.util.Arrays;
+import moa.classifiers.core.VoteBuffer;
+import moa.classifiers.core.attributeclassobservers.ArrayGaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
+import moa.core.AutoExpandVector;
+import moa.core.DoubleVector;
+import moa.core.GaussianEstimator;
+
+/**
+ * Cache of the terms of naive Bayes predictions. For each class and
+ * attribute it keeps the scale and variance term of the gaussian estimator,
+ * or the table of probabilities of the nominal values, so a prediction does
+ * not call probabilityOfAttributeValueGivenClass of every observer. The
+ * probabilities are computed as the observers compute them and multiplied in
+ * the same order, so the votes are exactly those of
+ * NaiveBayes.doNaiveBayesPrediction.
+ *
+ * The entries of a class are rebuilt lazily after invalidateClass is called,
+ * so the owner must call it whenever the observers see an instance of the
+ * class. Observers of other types are queried at prediction time.
+ *
+ * @version $Revision: 7 $
+ */
+public class NaiveBayesCache implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** No observer: the attribute is ignored. */
+    protected static final byte NONE = 0;
+
+    /** Class not observed: probability 0. */
+    protected static final byte UNOBSERVED = 1;
+
+    protected static final byte GAUSSIAN = 2;
+
+    /** Gaussian with no deviation: probability 1 at the mean, 0 elsewhere. */
+    protected static final byte POINT = 3;
+
+    protected static final byte NOMINAL = 4;
+
+    protected static final byte OTHER = 5;
+
+    protected int numAttributes = -1;
+
+    protected boolean[] valid = new boolean[0];
+
+    /** Kind of the entry of each class and attribute. */
+    protected byte[][] kind = new byte[0][];
+
+    protected double[][] mean = new double[0][];
+
+    /** Normalizing constant of gaussians, or probability of unseen nominal values. */
+    protected double[][] scale = new double[0][];
+
+    protected double[][] twoVariance = new double[0][];
+
+    protected double[][][] nominalProbabilities = new double[0][][];
+
+    /**
+     * Marks the entries of a class as stale.
+     *
+     * @param classVal the class
+     */
+    public void invalidateClass(int classVal) {
+        if (classVal < this.valid.length) {
+            this.valid[classVal] = false;
+        }
+    }
+
+    public void invalidate() {
+        Arrays.fill(this.valid, false);
+    }
+
+    protected void ensureSize(int numClasses, int numAttributes) {
+        if (numAttributes != this.numAttributes) {
+            this.numAttributes = numAttributes;
+            this.valid = new boolean[0];
+            this.kind = new byte[0][];
+            this.mean = new double[0][];
+            this.scale = new double[0][];
+            this.twoVariance = new double[0][];
+            this.nominalProbabilities = new double[0][][];
+        }
+        int oldNumClasses = this.valid.length;
+        if (numClasses > oldNumClasses) {
+            this.valid = Arrays.copyOf(this.valid, numClasses);
+            this.kind = Arrays.copyOf(this.kind, numClasses);
+            this.mean = Arrays.copyOf(this.mean, numClasses);
+            this.scale = Arrays.copyOf(this.scale, numClasses);
+            this.twoVariance = Arrays.copyOf(this.twoVariance, numClasses);
+            this.nominalProbabilities = Arrays.copyOf(this.nominalProbabilities, numClasses);
+            for (int i = oldNumClasses; i < numClasses; i++) {
+                this.kind[i] = new byte[numAttributes];
+                this.mean[i] = new double[numAttributes];
+                this.scale[i] = new double[numAttributes];
+                this.twoVariance[i] = new double[numAttributes];
+                this.nominalProbabilities[i] = new double[numAttributes][];
+            }
+        }
+    }
+
+    protected void buildClass(int classVal,
+            AutoExpandVector<AttributeClassObserver> attributeObservers) {
+        for (int attIndex = 0; attIndex < this.numAttributes; attIndex++) {
+            AttributeClassObserver obs = attributeObservers.get(attIndex);
+            this.nominalProbabilities[classVal][attIndex] = null;
+            if (obs == null) {
+                this.kind[classVal][attIndex] = NONE;
+            } else if (obs instanceof ArrayGaussianNumericAttributeClassObserver) {
+                ArrayGaussianNumericAttributeClassObserver gaussianObs = (ArrayGaussianNumericAttributeClassObserver) obs;
+                if (gaussianObs.isObserved(classVal)) {
+                    setGaussian(classVal, attIndex, gaussianObs.getWeight(classVal),
+                            gaussianObs.getMean(classVal), gaussianObs.getStdDev(classVal));
+                } else {
+                    this.kind[classVal][attIndex] = UNOBSERVED;
+                }
+            } else if (obs instanceof GaussianNumericAttributeClassObserver) {
+                GaussianEstimator estimator = ((GaussianNumericAttributeClassObserver) obs).getEstimator(classVal);
+                if (estimator != null) {
+                    setGaussian(classVal, attIndex, estimator.getTotalWeightObserved(),
+                            estimator.getMean(), estimator.getStdDev());
+                } else {
+                    this.kind[classVal][attIndex] = UNOBSERVED;
+                }
+            } else if (obs instanceof NominalAttributeClassObserver) {
+                DoubleVector valDist = ((NominalAttributeClassObserver) obs).attValDistPerClass.get(classVal);
+                if (valDist != null) {
+                    // as in NominalAttributeClassObserver.probabilityOfAttributeValueGivenClass
+                    double[] probabilities = new double[valDist.numValues()];
+                    double denominator = valDist.sumOfValues() + valDist.numValues();
+                    for (int i = 0; i < probabilities.length; i++) {
+                        probabilities[i] = (valDist.getValue(i) + 1.0) / denominator;
+                    }
+                    this.kind[classVal][attIndex] = NOMINAL;
+                    this.nominalProbabilities[classVal][attIndex] = probabilities;
+                    this.scale[classVal][attIndex] = 1.0 / denominator;
+                } else {
+                    this.kind[classVal][attIndex] = UNOBSERVED;
+                }
+            } else {
+                this.kind[classVal][attIndex] = OTHER;
+            }
+        }
+        this.valid[classVal] = true;
+    }
+
+    // as in GaussianEstimator.probabilityDensity
+    protected void setGaussian(int classVal, int attIndex, double weight,
+            double mean, double stdDev) {
+        if (weight <= 0.0) {
+            this.kind[classVal][attIndex] = UNOBSERVED;
+        } else if (stdDev > 0.0) {
+            this.kind[classVal][attIndex] = GAUSSIAN;
+            this.mean[classVal][attIndex] = mean;
+            this.scale[classVal][attIndex] = 1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev);
+            this.twoVariance[classVal][attIndex] = 2.0 * stdDev * stdDev;
+        } else {
+            this.kind[classVal][attIndex] = POINT;
+            this.mean[classVal][attIndex] = mean;
+        }
+    }
+
+    /**
+     * Computes the naive Bayes votes of an instance, rebuilding the entries
+     * of the invalidated classes first.
+     *
+     * @param inst the instance
+     * @param observedClassDistribution the class distribution of the observers
+     * @param attributeObservers the attribute observers
+     * @return the votes, as NaiveBayes.doNaiveBayesPrediction
+     */
+    public double[] getVotesForInstance(Instance inst,
+            DoubleVector observedClassDistribution,
+            AutoExpandVector<AttributeClassObserver> attributeObservers) {
+        double[] votes = new double[observedClassDistribution.numValues()];
+        getVotesForInstance(inst, observedClassDistribution, attributeObservers, votes);
+        return votes;
+    }
+
+    /**
+     * Computes the naive Bayes votes of an instance into a buffer, as
+     * Classifier.getVotesForInstance(Instance, double[]) does.
+     *
+     * @param inst the instance
+     * @param observedClassDistribution the class distribution of the observers
+     * @param attributeObservers the attribute observers
+     * @param votes the buffer for the votes
+     * @return the number of votes
+     */
+    public int getVotesForInstance(Instance inst,
+            DoubleVector observedClassDistribution,
+            AutoExpandVector<AttributeClassObserver> attributeObservers,
+            double[] votes) {
+        int numAttributes = inst.numAttributes() - 1;
+        int numVotes = observedClassDistribution.numValues();
+        if (numVotes > votes.length) {
+            return numVotes;
+        }
+        ensureSize(numVotes, numAttributes);
+        double observedClassSum = observedClassDistribution.sumOfValues();
+        int classIndex = inst.classIndex();
+        for (int classVal = 0; classVal < numVotes; classVal++) {
+            if (!this.valid[classVal]) {
+                buildClass(classVal, attributeObservers);
+            }
+            byte[] kind = this.kind[classVal];
+            double[] mean = this.mean[classVal];
+            double[] scale = this.scale[classVal];
+            double[] twoVariance = this.twoVariance[classVal];
+            double vote = observedClassDistribution.getValue(classVal)
+                    / observedClassSum;
+            for (int attIndex = 0; attIndex < numAttributes; attIndex++) {
+                if (kind[attIndex] == NONE) {
+                    continue;
+                }
+                // as in AbstractClassifier.modelAttIndexToInstanceAttIndex
+                int instAttIndex = classIndex > attIndex ? attIndex : attIndex + 1;
+                if (inst.isMissing(instAttIndex)) {
+                    continue;
+                }
+                double value = inst.value(instAttIndex);
+                switch (kind[attIndex]) {
+                    case GAUSSIAN:
+                        double diff = value - mean[attIndex];
+                        vote *= scale[attIndex] * Math.exp(-(diff * diff / twoVariance[attIndex]));
+                        break;
+                    case POINT:
+                        vote *= value == mean[attIndex] ? 1.0 : 0.0;
+                        break;
+                    case NOMINAL:
+                        double[] probabilities = this.nominalProbabilities[classVal][attIndex];
+                        int attVal = (int) value;
+                        vote *= attVal >= 0 && attVal < probabilities.length ? probabilities[attVal] : scale[attIndex];
+                        break;
+                    case UNOBSERVED:
+                        vote *= 0.0;
+                        break;
+                    default:
+                        vote *= attributeObservers.get(attIndex).probabilityOfAttributeValueGivenClass(value, classVal);
+                }
+            }
+            votes[classVal] = vote;
+        }
+        return VoteBuffer.clearAfterVotes(votes, numVotes);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *    AttributeSplitEvaluator.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.AutoExpandVector;
+
+/**
+ * Evaluates the best split suggestion of every attribute observer of a leaf,
+ * either sequentially or concurrently on a fork-join pool shared by all the
+ * trees. The suggestions are added in attribute order in both cases, so a
+ * tree grows the same way whichever evaluation it uses.
+ *
+ * @version $Revision: 7 $
+ */
+public class AttributeSplitEvaluator {
+
+    /** Number of attributes below which a task evaluates its range itself. */
+    protected static final int MIN_ATTRIBUTES_PER_TASK = 8;
+
+    private static ForkJoinPool pool;
+
+    /**
+     * Gets the pool shared by the concurrent tasks of the learners.
+     *
+     * @return the pool
+     */
+    public static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool();
+        }
+        return pool;
+    }
+
+    /**
+     * Adds the best split suggestion of each attribute observer to a list.
+     *
+     * @param suggestions the list receiving the suggestions
+     * @param observers the attribute observers, possibly with null entries
+     * @param criterion the split criterion
+     * @param preSplitDist the class distribution before the split
+     * @param binaryOnly true to use binary splits
+     * @param parallel true to evaluate the observers concurrently
+     */
+    public static void addBestSplitSuggestions(
+            List<AttributeSplitSuggestion> suggestions,
+            AutoExpandVector<AttributeClassObserver> observers,
+            SplitCriterion criterion, double[] preSplitDist,
+            boolean binaryOnly, boolean parallel) {
+        AttributeSplitSuggestion[] bestSuggestions = new AttributeSplitSuggestion[observers.size()];
+        EvaluationTask task = new EvaluationTask(observers, criterion,
+                preSplitDist, binaryOnly, bestSuggestions, 0, bestSuggestions.length);
+        if (parallel && bestSuggestions.length > MIN_ATTRIBUTES_PER_TASK) {
+            getPool().invoke(task);
+        } else {
+            task.evaluate();
+        }
+        for (AttributeSplitSuggestion bestSuggestion : bestSuggestions) {
+            if (bestSuggestion != null) {
+                suggestions.add(bestSuggestion);
+            }
+        }
+    }
+
+    protected static class EvaluationTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final AutoExpandVector<AttributeClassObserver> observers;
+
+        protected final SplitCriterion criterion;
+
+        protected final double[] preSplitDist;
+
+        protected final boolean binaryOnly;
+
+        protected final AttributeSplitSuggestion[] bestSuggestions;
+
+        protected final int from;
+
+        protected final int to;
+
+        public EvaluationTask(AutoExpandVector<AttributeClassObserver> observers,
+                SplitCriterion criterion, double[] preSplitDist, boolean binaryOnly,
+                AttributeSplitSuggestion[] bestSuggestions, int from, int to) {
+            this.observers = observers;
+            this.criterion = criterion;
+            this.preSplitDist = preSplitDist;
+            this.binaryOnly = binaryOnly;
+            this.bestSuggestions = bestSuggestions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= MIN_ATTRIBUTES_PER_TASK) {
+                evaluate();
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new EvaluationTask(this.observers, this.criterion,
+                        this.preSplitDist, this.binaryOnly, this.bestSuggestions,
+                        this.from, middle),
+                        new EvaluationTask(this.observers, this.criterion,
+                        this.preSplitDist, this.binaryOnly, this.bestSuggestions,
+                        middle, this.to));
+            }
+        }
+
+        protected void evaluate() {
+            for (int i = this.from; i < this.to; i++) {
+                AttributeClassObserver obs = this.observers.get(i);
+                if (obs != null) {
+                    this.bestSuggestions[i] = obs.getBestEvaluatedSplitSuggestion(
+                            this.criterion, this.preSplitDist, i, this.binaryOnly);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *    VoteBuffer.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.util.Arrays;
+import moa.classifiers.Classifier;
+
+/**
+ * Votes kept in an array that is reused from one prediction to the next, so
+ * ensembles can combine the votes of their members without allocating. The
+ * methods compute the same values as the DoubleVector methods of the same
+ * name. The array can be longer than the votes, the values past the votes
+ * are zero.
+ *
+ * @version $Revision: 7 $
+ */
+public class VoteBuffer {
+
+    protected double[] values = new double[0];
+
+    protected int numValues;
+
+    /**
+     * Sets the votes to those of a classifier for an instance.
+     *
+     * @param classifier the classifier
+     * @param inst the instance
+     */
+    public void setToVotes(Classifier classifier, Instance inst) {
+        int n = classifier.getVotesForInstance(inst, this.values);
+        if (n > this.values.length) {
+            this.values = new double[n];
+            n = classifier.getVotesForInstance(inst, this.values);
+        }
+        this.numValues = n;
+    }
+
+    /**
+     * Removes the votes, to combine new ones.
+     */
+    public void clear() {
+        Arrays.fill(this.values, 0, this.numValues, 0.0);
+        this.numValues = 0;
+    }
+
+    public int numValues() {
+        return this.numValues;
+    }
+
+    public double getValue(int i) {
+        return ((i >= 0) && (i < this.numValues)) ? this.values[i] : 0.0;
+    }
+
+    public void addToValue(int i, double v) {
+        if (i >= this.numValues) {
+            setNumValues(i + 1);
+        }
+        this.values[i] += v;
+    }
+
+    public void addValues(VoteBuffer toAdd) {
+        if (toAdd.numValues > this.numValues) {
+            setNumValues(toAdd.numValues);
+        }
+        for (int i = 0; i < toAdd.numValues; i++) {
+            this.values[i] += toAdd.values[i];
+        }
+    }
+
+    public void addValues(double[] toAdd, int numToAdd) {
+        if (numToAdd > this.numValues) {
+            setNumValues(numToAdd);
+        }
+        for (int i = 0; i < numToAdd; i++) {
+            this.values[i] += toAdd[i];
+        }
+    }
+
+    public void scaleValues(double multiplier) {
+        for (int i = 0; i < this.numValues; i++) {
+            this.values[i] = this.values[i] * multiplier;
+        }
+    }
+
+    public double sumOfValues() {
+        double sum = 0.0;
+        for (int i = 0; i < this.numValues; i++) {
+            sum += this.values[i];
+        }
+        return sum;
+    }
+
+    public void normalize() {
+        scaleValues(1.0 / sumOfValues());
+    }
+
+    public int maxIndex() {
+        int max = -1;
+        for (int i = 0; i < this.numValues; i++) {
+            if ((max < 0) || (this.values[i] > this.values[max])) {
+                max = i;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Copies the votes to a buffer, as Classifier.getVotesForInstance(Instance,
+     * double[]) does.
+     *
+     * @param out the buffer
+     * @return the number of votes
+     */
+    public int getVotes(double[] out) {
+        return copyVotes(this.values, this.numValues, out);
+    }
+
+    protected void setNumValues(int n) {
+        if (n > this.values.length) {
+            this.values = Arrays.copyOf(this.values, Math.max(n, 2 * this.values.length));
+        }
+        this.numValues = n;
+    }
+
+    /**
+     * Copies votes to a buffer and fills the rest of the buffer with zeros,
+     * as Classifier.getVotesForInstance(Instance, double[]) does. Nothing is
+     * copied if the buffer is too short.
+     *
+     * @param votes the votes
+     * @param numVotes the number of votes
+     * @param out the buffer
+     * @return the number of votes
+     */
+    public static int copyVotes(double[] votes, int numVotes, double[] out) {
+        if (numVotes <= out.length) {
+            System.arraycopy(votes, 0, out, 0, numVotes);
+            Arrays.fill(out, numVotes, out.length, 0.0);
+        }
+        return numVotes;
+    }
+
+    /**
+     * Stores votes as Classifier.testThenTrain(Instance, double[]) does: in
+     * the buffer if they have its length, and otherwise in the array of the
+     * votes itself.
+     *
+     * @param votes the votes
+     * @param out the buffer
+     * @return the buffer, or the votes if they do not have its length
+     */
+    public static double[] storeVotes(double[] votes, double[] out) {
+        if (votes.length != out.length) {
+            return votes;
+        }
+        System.arraycopy(votes, 0, out, 0, votes.length);
+        return out;
+    }
+
+    /**
+     * Fills the rest of a buffer with zeros, after the votes written by a
+     * classifier.
+     *
+     * @param out the buffer
+     * @param numVotes the number of votes
+     * @return the number of votes
+     */
+    public static int clearAfterVotes(double[] out, int numVotes) {
+        if (numVotes < out.length) {
+            Arrays.fill(out, numVotes, out.length, 0.0);
+        }
+        return numVotes;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *    ArrayGaussianNumericAttributeClassObserver.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import java.util.Arrays;
+import com.github.javacliparser.IntOption;
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.DeepCopier;
+import moa.core.DeepCopyable;
+import moa.core.GaussianEstimator;
+import moa.core.ObjectRepository;
+import moa.core.SizeOf;
+import moa.core.Statistics;
+import moa.core.Utils;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Class for observing the class data distribution for a numeric attribute
+ * using gaussian estimators, stored in primitive arrays indexed by class.
+ * It keeps the same statistics and makes the same predictions and split
+ * suggestions as GaussianNumericAttributeClassObserver, with a fraction of its
+ * memory, and evaluates the candidate split points without allocating.
+ *
+ * @version $Revision: 7 $
+ */
+public class ArrayGaussianNumericAttributeClassObserver extends AbstractOptionHandler
+        implements NumericAttributeClassObserver, DeepCopyable {
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption numBinsOption = new IntOption("numBins", 'n',
+            "The number of bins.", 10, 1, Integer.MAX_VALUE);
+
+    protected double[] weightSum = new double[0];
+
+    protected double[] mean = new double[0];
+
+    protected double[] varianceSum = new double[0];
+
+    /** Minimum value per class, NaN for classes not observed. */
+    protected double[] minValue = new double[0];
+
+    protected double[] maxValue = new double[0];
+
+    protected transient double[][] splitDists;
+
+    protected transient int lhsLength;
+
+    protected transient int rhsLength;
+
+    @Override
+    public Object deepCopy(DeepCopier copier) {
+        ArrayGaussianNumericAttributeClassObserver copy = new ArrayGaussianNumericAttributeClassObserver();
+        // options are not changed once the observer is used, copies share them
+        copy.numBinsOption = this.numBinsOption;
+        copy.config = this.config;
+        copy.weightSum = this.weightSum.clone();
+        copy.mean = this.mean.clone();
+        copy.varianceSum = this.varianceSum.clone();
+        copy.minValue = this.minValue.clone();
+        copy.maxValue = this.maxValue.clone();
+        return copy;
+    }
+
+    protected void ensureNumClasses(int numClasses) {
+        int oldLength = this.minValue.length;
+        if (numClasses > oldLength) {
+            this.weightSum = Arrays.copyOf(this.weightSum, numClasses);
+            this.mean = Arrays.copyOf(this.mean, numClasses);
+            this.varianceSum = Arrays.copyOf(this.varianceSum, numClasses);
+            this.minValue = Arrays.copyOf(this.minValue, numClasses);
+            this.maxValue = Arrays.copyOf(this.maxValue, numClasses);
+            Arrays.fill(this.minValue, oldLength, numClasses, Double.NaN);
+        }
+    }
+
+    public boolean isObserved(int classVal) {
+        return classVal < this.minValue.length && !Double.isNaN(this.minValue[classVal]);
+    }
+
+    @Override
+    public void observeAttributeClass(double attVal, int classVal, double weight) {
+        if (Utils.isMissingValue(attVal)) {
+            return;
+        }
+        if (!isObserved(classVal)) {
+            ensureNumClasses(classVal + 1);
+            this.minValue[classVal] = attVal;
+            this.maxValue[classVal] = attVal;
+        } else {
+            if (attVal < this.minValue[classVal]) {
+                this.minValue[classVal] = attVal;
+            }
+            if (attVal > this.maxValue[classVal]) {
+                this.maxValue[classVal] = attVal;
+            }
+        }
+        // as in GaussianEstimator.addObservation
+        if (Double.isInfinite(attVal)) {
+            return;
+        }
+        if (this.weightSum[classVal] > 0.0) {
+            this.weightSum[classVal] += weight;
+            double lastMean = this.mean[classVal];
+            this.mean[classVal] += weight * (attVal - lastMean) / this.weightSum[classVal];
+            this.varianceSum[classVal] += weight * (attVal - lastMean) * (attVal - this.mean[classVal]);
+        } else {
+            this.mean[classVal] = attVal;
+            this.weightSum[classVal] = weight;
+        }
+    }
+
+    public double getWeight(int classVal) {
+        return this.weightSum[classVal];
+    }
+
+    public double getMean(int classVal) {
+        return this.mean[classVal];
+    }
+
+    public double getStdDev(int classVal) {
+        double w = this.weightSum[classVal];
+        return Math.sqrt(w > 1.0 ? this.varianceSum[classVal] / (w - 1.0) : 0.0);
+    }
+
+    protected double probabilityDensity(int classVal, double value) {
+        if (this.weightSum[classVal] > 0.0) {
+            double stdDev = getStdDev(classVal);
+            if (stdDev > 0.0) {
+                double diff = value - this.mean[classVal];
+                return (1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev))
+                        * Math.exp(-(diff * diff / (2.0 * stdDev * stdDev)));
+            }
+            return value == this.mean[classVal] ? 1.0 : 0.0;
+        }
+        return 0.0;
+    }
+
+    @Override
+    public double probabilityOfAttributeValueGivenClass(double attVal,
+            int classVal) {
+        return isObserved(classVal) ? probabilityDensity(classVal, attVal) : 0.0;
+    }
+
+    @Override
+    public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
+            SplitCriterion criterion, double[] preSplitDist, int attIndex,
+            boolean binaryOnly) {
+        double minValue = Double.POSITIVE_INFINITY;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.minValue.length; i++) {
+            if (isObserved(i)) {
+                if (this.minValue[i] < minValue) {
+                    minValue = this.minValue[i];
+                }
+                if (this.maxValue[i] > maxValue) {
+                    maxValue = this.maxValue[i];
+                }
+            }
+        }
+        if (minValue == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (this.splitDists == null || this.splitDists[0].length != this.minValue.length) {
+            this.splitDists = new double[2][this.minValue.length];
+        }
+        AttributeSplitSuggestion bestSuggestion = null;
+        int numBins = this.numBinsOption.getValue();
+        double range = maxValue - minValue;
+        double lastSplitValue = Double.NaN;
+        // the split values increase with i, in the order of the original sorted set
+        for (int i = 0; i < numBins; i++) {
+            double splitValue = range / (numBins + 1.0) * (i + 1) + minValue;
+            if ((splitValue > minValue) && (splitValue < maxValue)
+                    && splitValue != lastSplitValue) {
+                lastSplitValue = splitValue;
+                computeClassDistsResultingFromBinarySplit(splitValue);
+                double merit = criterion.getMeritOfSplit(preSplitDist, this.splitDists);
+                if ((bestSuggestion == null) || (merit > bestSuggestion.merit)) {
+                    bestSuggestion = new AttributeSplitSuggestion(
+                            new NumericAttributeBinaryTest(attIndex, splitValue, true),
+                            new double[][]{Arrays.copyOf(this.splitDists[0], this.lhsLength),
+                                Arrays.copyOf(this.splitDists[1], this.rhsLength)},
+                            merit);
+                }
+            }
+        }
+        return bestSuggestion;
+    }
+
+    // assume all values equal to splitValue go to lhs
+    protected void computeClassDistsResultingFromBinarySplit(double splitValue) {
+        double[] lhsDist = this.splitDists[0];
+        double[] rhsDist = this.splitDists[1];
+        Arrays.fill(lhsDist, 0.0);
+        Arrays.fill(rhsDist, 0.0);
+        this.lhsLength = 0;
+        this.rhsLength = 0;
+        for (int i = 0; i < this.minValue.length; i++) {
+            if (!isObserved(i)) {
+                continue;
+            }
+            double weight = this.weightSum[i];
+            if (splitValue < this.minValue[i]) {
+                rhsDist[i] = weight;
+                this.rhsLength = i + 1;
+            } else if (splitValue >= this.maxValue[i]) {
+                lhsDist[i] = weight;
+                this.lhsLength = i + 1;
+            } else {
+                // as in GaussianEstimator.estimatedWeight_LessThan_EqualTo_GreaterThan_Value
+                double equalToWeight = probabilityDensity(i, splitValue) * weight;
+                double stdDev = getStdDev(i);
+                double lessThanWeight = stdDev > 0.0
+                        ? Statistics.normalProbability((splitValue - this.mean[i]) / stdDev)
+                        * weight - equalToWeight
+                        : (splitValue < this.mean[i] ? weight - equalToWeight : 0.0);
+                double greaterThanWeight = weight - equalToWeight - lessThanWeight;
+                if (greaterThanWeight < 0.0) {
+                    greaterThanWeight = 0.0;
+                }
+                lhsDist[i] = lessThanWeight + equalToWeight;
+                rhsDist[i] = greaterThanWeight;
+                this.lhsLength = i + 1;
+                this.rhsLength = i + 1;
+            }
+        }
+    }
+
+    @Override
+    public int measureByteSize() {
+        return (int) (SizeOf.shallowSizeOf(this)
+                + 5 * SizeOf.sizeOfArray(this.minValue.length, 8));
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+    }
+
+    @Override
+    public void observeAttributeTarget(double attVal, double target) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+}
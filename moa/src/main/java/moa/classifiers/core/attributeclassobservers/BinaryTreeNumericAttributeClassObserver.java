@@ -26,6 +26,7 @@ import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.DoubleVector;
 import moa.core.ObjectRepository;
+import moa.core.SizeOf;
 import moa.options.AbstractOptionHandler;
 import moa.tasks.TaskMonitor;
 
@@ -68,6 +69,7 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
                 this.classCountsLeft.addToValue(label, weight);
                 if (this.left == null) {
                     this.left = new Node(val, label, weight);
+                    numNodes++;
                 } else {
                     this.left.insertValue(val, label, weight);
                 }
@@ -75,6 +77,7 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
                 this.classCountsRight.addToValue(label, weight);
                 if (this.right == null) {
                     this.right = new Node(val, label, weight);
+                    numNodes++;
                 } else {
                     this.right.insertValue(val, label, weight);
                 }
@@ -84,12 +87,16 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
 
     public Node root = null;
 
+    /** The number of nodes of the tree, maintained for size accounting. */
+    protected int numNodes = 0;
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
         if (Double.isNaN(attVal)) { //Instance.isMissingValue(attVal)
         } else {
             if (this.root == null) {
                 this.root = new Node(attVal, classVal, weight);
+                this.numNodes = 1;
             } else {
                 this.root.insertValue(attVal, classVal, weight);
             }
@@ -165,6 +172,18 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
         return currentBestOption;
     }
 
+    @Override
+    public int measureByteSize() {
+        // the distributions of the root are the largest, so this is an upper bound
+        long byteSize = SizeOf.shallowSizeOf(this);
+        if (this.root != null) {
+            byteSize += this.numNodes * (SizeOf.shallowSizeOf(this.root)
+                    + this.root.classCountsLeft.measureByteSize()
+                    + this.root.classCountsRight.measureByteSize());
+        }
+        return (int) byteSize;
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
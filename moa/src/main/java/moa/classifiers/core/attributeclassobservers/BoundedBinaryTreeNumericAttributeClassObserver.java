@@ -0,0 +1,124 @@
+/*
+ *    BoundedBinaryTreeNumericAttributeClassObserver.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import com.github.javacliparser.IntOption;
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.ObjectRepository;
+import moa.core.SizeOf;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Class for observing the class data distribution for a numeric attribute
+ * using a binary tree with a bounded number of nodes. Like
+ * BinaryTreeNumericAttributeClassObserver, it evaluates every observed value
+ * as a split point, until the number of distinct values exceeds the budget:
+ * then the closest values are merged (see BoundedValueBins). The nodes are
+ * kept in value order in arrays and the split search is a single pass.
+ *
+ * @version $Revision: 7 $
+ */
+public class BoundedBinaryTreeNumericAttributeClassObserver extends AbstractOptionHandler
+        implements NumericAttributeClassObserver {
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption maxNodesOption = new IntOption("maxNodes", 'm',
+            "The maximum number of nodes, or split points, kept.", 1000, 2,
+            Integer.MAX_VALUE);
+
+    protected BoundedValueBins bins;
+
+    @Override
+    public void observeAttributeClass(double attVal, int classVal, double weight) {
+        if (Double.isNaN(attVal)) {
+            return;
+        }
+        if (this.bins == null) {
+            this.bins = new BoundedValueBins(this.maxNodesOption.getValue(), classVal + 1);
+        }
+        this.bins.ensureWidth(classVal + 1);
+        int row = this.bins.binFor(attVal);
+        this.bins.statistics()[row + classVal] += weight;
+    }
+
+    @Override
+    public double probabilityOfAttributeValueGivenClass(double attVal,
+            int classVal) {
+        // as in BinaryTreeNumericAttributeClassObserver
+        return 0.0;
+    }
+
+    @Override
+    public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
+            SplitCriterion criterion, double[] preSplitDist, int attIndex,
+            boolean binaryOnly) {
+        if (this.bins == null || this.bins.numBins() == 0) {
+            return null;
+        }
+        int numBins = this.bins.numBins();
+        int width = this.bins.width();
+        double[] statistics = this.bins.statistics();
+        double[] total = new double[width];
+        for (int i = 0; i < numBins * width; i += width) {
+            for (int j = 0; j < width; j++) {
+                total[j] += statistics[i + j];
+            }
+        }
+        double[] leftDist = new double[width];
+        double[] rightDist = new double[width];
+        double[][] postSplitDists = new double[][]{leftDist, rightDist};
+        AttributeSplitSuggestion bestSuggestion = null;
+        for (int bin = 0; bin < numBins; bin++) {
+            int row = bin * width;
+            for (int j = 0; j < width; j++) {
+                leftDist[j] += statistics[row + j];
+                rightDist[j] = total[j] - leftDist[j];
+            }
+            double merit = criterion.getMeritOfSplit(preSplitDist, postSplitDists);
+            if ((bestSuggestion == null) || (merit > bestSuggestion.merit)) {
+                bestSuggestion = new AttributeSplitSuggestion(
+                        new NumericAttributeBinaryTest(attIndex, this.bins.value(bin), true),
+                        new double[][]{leftDist.clone(), rightDist.clone()}, merit);
+            }
+        }
+        return bestSuggestion;
+    }
+
+    @Override
+    public int measureByteSize() {
+        return (int) (SizeOf.shallowSizeOf(this)
+                + (this.bins != null ? this.bins.measureByteSize() : 0));
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+    }
+
+    @Override
+    public void observeAttributeTarget(double attVal, double target) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+}
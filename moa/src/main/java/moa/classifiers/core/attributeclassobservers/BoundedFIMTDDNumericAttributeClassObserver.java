@@ -0,0 +1,105 @@
+/*
+ *    BoundedFIMTDDNumericAttributeClassObserver.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.SizeOf;
+
+/**
+ * E-BST attribute observer of FIMTDD with a bounded number of nodes. It keeps
+ * the count, sum and sum of squares of the target for the values less than or
+ * equal to each split point, as FIMTDDNumericAttributeClassObserver does,
+ * until the number of distinct values exceeds the budget: then the closest
+ * values are merged (see BoundedValueBins). The nodes are kept in value order
+ * in arrays and the FindBestSplit search is a single pass.
+ *
+ * @version $Revision: 7 $
+ */
+public class BoundedFIMTDDNumericAttributeClassObserver extends FIMTDDNumericAttributeClassObserver {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int maxNodes;
+
+    protected BoundedValueBins bins;
+
+    public BoundedFIMTDDNumericAttributeClassObserver(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    @Override
+    public void observeAttributeClass(double attVal, double classVal, double weight) {
+        if (Double.isNaN(attVal)) {
+            return;
+        }
+        if (this.bins == null) {
+            this.bins = new BoundedValueBins(this.maxNodes, 3);
+        }
+        int row = this.bins.binFor(attVal);
+        double[] statistics = this.bins.statistics();
+        statistics[row] += 1;
+        statistics[row + 1] += classVal;
+        statistics[row + 2] += classVal * classVal;
+    }
+
+    @Override
+    public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(SplitCriterion criterion, double[] preSplitDist, int attIndex, boolean binaryOnly) {
+        if (this.bins == null) {
+            return null;
+        }
+        double countLeft = 0;
+        double sumLeft = 0;
+        double sumSqLeft = 0;
+        double countRight = preSplitDist[0];
+        double sumRight = preSplitDist[1];
+        double sumSqRight = preSplitDist[2];
+        double[] statistics = this.bins.statistics();
+        AttributeSplitSuggestion bestSuggestion = null;
+        for (int bin = 0; bin < this.bins.numBins() && countRight != 0.0; bin++) {
+            int row = bin * 3;
+            countLeft += statistics[row];
+            countRight -= statistics[row];
+            sumLeft += statistics[row + 1];
+            sumRight -= statistics[row + 1];
+            sumSqLeft += statistics[row + 2];
+            sumSqRight -= statistics[row + 2];
+            double[][] postSplitDists = new double[][]{{countLeft, sumLeft, sumSqLeft}, {countRight, sumRight, sumSqRight}};
+            double[] splitDist = new double[]{countLeft + countRight, sumLeft + sumRight, sumSqLeft + sumSqRight};
+            double merit = criterion.getMeritOfSplit(splitDist, postSplitDists);
+            if ((bestSuggestion == null) || (merit > bestSuggestion.merit)) {
+                bestSuggestion = new AttributeSplitSuggestion(
+                        new NumericAttributeBinaryTest(attIndex, this.bins.value(bin), true),
+                        postSplitDists, merit);
+            }
+        }
+        return bestSuggestion;
+    }
+
+    @Override
+    public void removeBadSplits(SplitCriterion criterion, double lastCheckRatio, double lastCheckSDR, double lastCheckE) {
+        // the number of nodes is bounded by merging instead
+    }
+
+    @Override
+    public int measureByteSize() {
+        return (int) (SizeOf.shallowSizeOf(this)
+                + (this.bins != null ? this.bins.measureByteSize() : 0));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *    BoundedValueBins.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import moa.core.SizeOf;
+
+/**
+ * Statistics of the values of a numeric attribute, kept in bins sorted by
+ * value, with at most a given number of bins. This is the in-order sequence
+ * of the nodes of an extended binary search tree (E-BST), stored in arrays:
+ * each bin has a cut point and a row of statistics of the values that are
+ * less than or equal to the cut point and greater than the cut point of the
+ * previous bin.
+ *
+ * Each distinct value gets its own bin until the budget is reached. Then
+ * the bins closest to their next bin are merged into it, keeping the larger
+ * cut point, so the statistics of the remaining cut points stay exact.
+ * Values falling inside the range of a merged bin are added to that bin.
+ *
+ * @version $Revision: 7 $
+ */
+public class BoundedValueBins implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int maxBins;
+
+    protected int width;
+
+    protected int numBins;
+
+    /** Cut points, in increasing order. */
+    protected double[] values = new double[0];
+
+    /** Whether each bin also holds values below its cut point. */
+    protected boolean[] merged = new boolean[0];
+
+    /** Statistics of the bins, one row of width values per bin. */
+    protected double[] statistics = new double[0];
+
+    public BoundedValueBins(int maxBins, int width) {
+        this.maxBins = Math.max(2, maxBins);
+        this.width = width;
+    }
+
+    public int numBins() {
+        return this.numBins;
+    }
+
+    public int width() {
+        return this.width;
+    }
+
+    public double value(int bin) {
+        return this.values[bin];
+    }
+
+    /**
+     * Gets the statistics of all the bins, the row of a bin starting at
+     * bin * width. The array is replaced when bins are added.
+     *
+     * @return the statistics
+     */
+    public double[] statistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Widens the rows of statistics, filling the new columns with zeros.
+     *
+     * @param newWidth the new width
+     */
+    public void ensureWidth(int newWidth) {
+        if (newWidth > this.width) {
+            double[] newStatistics = new double[this.values.length * newWidth];
+            for (int i = 0; i < this.numBins; i++) {
+                System.arraycopy(this.statistics, i * this.width, newStatistics,
+                        i * newWidth, this.width);
+            }
+            this.statistics = newStatistics;
+            this.width = newWidth;
+        }
+    }
+
+    /**
+     * Gets the bin of a value, adding a bin for it if needed.
+     *
+     * @param value the value
+     * @return the offset of the row of the bin in the statistics
+     */
+    public int binFor(double value) {
+        int pos = Arrays.binarySearch(this.values, 0, this.numBins, value);
+        if (pos < 0 && -pos - 1 < this.numBins && this.merged[-pos - 1]) {
+            pos = -pos - 1;
+        }
+        if (pos < 0 && this.numBins == this.maxBins) {
+            compact();
+            pos = Arrays.binarySearch(this.values, 0, this.numBins, value);
+            if (pos < 0 && -pos - 1 < this.numBins && this.merged[-pos - 1]) {
+                pos = -pos - 1;
+            }
+        }
+        if (pos >= 0) {
+            return pos * this.width;
+        }
+        int bin = -pos - 1;
+        if (this.numBins == this.values.length) {
+            int capacity = Math.min(this.maxBins, Math.max(8, this.numBins * 2));
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.merged = Arrays.copyOf(this.merged, capacity);
+            this.statistics = Arrays.copyOf(this.statistics, capacity * this.width);
+        }
+        int moved = this.numBins - bin;
+        System.arraycopy(this.values, bin, this.values, bin + 1, moved);
+        System.arraycopy(this.merged, bin, this.merged, bin + 1, moved);
+        System.arraycopy(this.statistics, bin * this.width, this.statistics,
+                (bin + 1) * this.width, moved * this.width);
+        this.values[bin] = value;
+        this.merged[bin] = false;
+        Arrays.fill(this.statistics, bin * this.width, (bin + 1) * this.width, 0.0);
+        this.numBins++;
+        return bin * this.width;
+    }
+
+    /**
+     * Merges a quarter of the bins into their next bin, choosing the bins
+     * with the smallest distance to the next cut point.
+     */
+    protected void compact() {
+        int numMerges = Math.max(1, this.maxBins / 4);
+        double[] gaps = new double[this.numBins - 1];
+        for (int i = 0; i < gaps.length; i++) {
+            gaps[i] = this.values[i + 1] - this.values[i];
+        }
+        Arrays.sort(gaps);
+        double maxGap = gaps[numMerges - 1];
+        int merges = 0;
+        int kept = 0;
+        for (int i = 0; i < this.numBins; i++) {
+            if (i < this.numBins - 1 && merges < numMerges
+                    && this.values[i + 1] - this.values[i] <= maxGap) {
+                int from = i * this.width;
+                int to = from + this.width;
+                for (int j = 0; j < this.width; j++) {
+                    this.statistics[to + j] += this.statistics[from + j];
+                }
+                this.merged[i + 1] = true;
+                merges++;
+            } else {
+                this.values[kept] = this.values[i];
+                this.merged[kept] = this.merged[i];
+                System.arraycopy(this.statistics, i * this.width, this.statistics,
+                        kept * this.width, this.width);
+                kept++;
+            }
+        }
+        this.numBins = kept;
+    }
+
+    public long measureByteSize() {
+        return SizeOf.shallowSizeOf(this)
+                + SizeOf.sizeOfArray(this.values.length, 8)
+                + SizeOf.sizeOfArray(this.merged.length, 1)
+                + SizeOf.sizeOfArray(this.statistics.length, 8);
+    }
+}
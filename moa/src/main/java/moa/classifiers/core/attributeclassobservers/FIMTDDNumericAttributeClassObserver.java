@@ -228,6 +228,12 @@ public class FIMTDDNumericAttributeClassObserver extends BinaryTreeNumericAttrib
         return false;
     }
 
+    @Override
+    public int measureByteSize() {
+        // the tree is not the one counted by the superclass
+        return measureByteSize(this);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
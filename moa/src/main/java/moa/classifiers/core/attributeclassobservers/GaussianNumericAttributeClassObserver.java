@@ -32,6 +32,7 @@ import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
 import moa.core.GaussianEstimator;
+import moa.core.SizeOf;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.IntOption;
 
@@ -79,6 +80,16 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
         }
     }
 
+    /**
+     * Gets the estimator of the values of a class.
+     *
+     * @param classVal the class
+     * @return the estimator, or null if the class was not observed
+     */
+    public GaussianEstimator getEstimator(int classVal) {
+        return this.attValDistPerClass.get(classVal);
+    }
+
     @Override
     public double probabilityOfAttributeValueGivenClass(double attVal,
             int classVal) {
@@ -159,6 +170,14 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
         return new double[][]{lhsDist.getArrayRef(), rhsDist.getArrayRef()};
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this)
+                + this.minValueObservedPerClass.measureByteSize()
+                + this.maxValueObservedPerClass.measureByteSize()
+                + this.attValDistPerClass.measureByteSize();
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
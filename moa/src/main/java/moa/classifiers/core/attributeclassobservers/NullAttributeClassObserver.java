@@ -22,6 +22,7 @@ package moa.classifiers.core.attributeclassobservers;
 import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.ObjectRepository;
+import moa.core.SizeOf;
 import moa.options.AbstractOptionHandler;
 import moa.tasks.TaskMonitor;
 
@@ -56,6 +57,11 @@ public class NullAttributeClassObserver extends AbstractOptionHandler implements
         return 0.0;
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -21,6 +21,7 @@ package moa.classifiers.core.conditionaltests;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import com.yahoo.labs.samoa.instances.Instance;
+import moa.core.SizeOf;
 
 /**
  * Nominal binary conditional test for instances to use to split nodes in Hoeffding trees.
@@ -60,6 +61,11 @@ public class NominalAttributeBinaryTest extends InstanceConditionalBinaryTest {
         throw new IndexOutOfBoundsException();
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -69,4 +75,8 @@ public class NominalAttributeBinaryTest extends InstanceConditionalBinaryTest {
     public int[] getAttsTestDependsOn() {
         return new int[]{this.attIndex};
     }
+
+    public int getAttValue() {
+        return this.attValue;
+    }
 }
@@ -21,6 +21,7 @@ package moa.classifiers.core.conditionaltests;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import com.yahoo.labs.samoa.instances.Instance;
+import moa.core.SizeOf;
 
 /**
  * Nominal multi way conditional test for instances to use to split nodes in Hoeffding trees.
@@ -58,6 +59,11 @@ public class NominalAttributeMultiwayTest extends InstanceConditionalTest {
         return -1;
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -20,6 +20,9 @@
 package moa.classifiers.core.driftdetection;
 
 import moa.AbstractMOAObject;
+import moa.core.DeepCopier;
+import moa.core.DeepCopyable;
+import moa.core.SizeOf;
 
 /**
  * ADaptive sliding WINdow method. This method is a change detector and estimator.
@@ -32,7 +35,7 @@ import moa.AbstractMOAObject;
  * @author Albert Bifet (abifet at cs dot waikato dot ac dot nz)
  * @version $Revision: 7 $
  */
-public class ADWIN extends AbstractMOAObject {
+public class ADWIN extends AbstractMOAObject implements DeepCopyable {
 
     private class List extends AbstractMOAObject {
 
@@ -48,6 +51,16 @@ public class ADWIN extends AbstractMOAObject {
             addToHead();
         }
 
+        public List(List toCopy) {
+//			post: initializes the list with copies of the items of the given list.
+            clear();
+            for (ListItem item = toCopy.head; item != null; item = item.next()) {
+                addToTail();
+                this.tail.copyBuckets(item);
+            }
+            this.count = toCopy.count;
+        }
+
         /* Interface Store Methods */
         public int size() {
             //	post: returns the number of elements in the list.
@@ -182,6 +195,14 @@ public class ADWIN extends AbstractMOAObject {
             clear();
         }
 
+        public void copyBuckets(ListItem toCopy) {
+//			post: copies the buckets of the given node.
+            this.bucketSizeRow = toCopy.bucketSizeRow;
+            this.MAXBUCKETS = toCopy.MAXBUCKETS;
+            this.bucketTotal = toCopy.bucketTotal.clone();
+            this.bucketVariance = toCopy.bucketVariance.clone();
+        }
+
         public void insertBucket(double Value, double Variance) {
 //			insert a Bucket at the end
             int k = bucketSizeRow;
@@ -595,6 +616,44 @@ public class ADWIN extends AbstractMOAObject {
         mintClock = cl;
     }
 
+    protected ADWIN(ADWIN toCopy) {
+        mdbldelta = toCopy.mdbldelta;
+        mintTime = toCopy.mintTime;
+        mintClock = toCopy.mintClock;
+        mdblWidth = toCopy.mdblWidth;
+        lastBucketRow = toCopy.lastBucketRow;
+        TOTAL = toCopy.TOTAL;
+        VARIANCE = toCopy.VARIANCE;
+        WIDTH = toCopy.WIDTH;
+        BucketNumber = toCopy.BucketNumber;
+        Detect = toCopy.Detect;
+        numberDetections = toCopy.numberDetections;
+        DetectTwice = toCopy.DetectTwice;
+        blnBucketDeleted = toCopy.blnBucketDeleted;
+        BucketNumberMAX = toCopy.BucketNumberMAX;
+        mintMinWinLength = toCopy.mintMinWinLength;
+        listRowBuckets = new List(toCopy.listRowBuckets);
+    }
+
+    @Override
+    public Object deepCopy(DeepCopier copier) {
+        // the bucket list is copied iteratively, it can be too long to copy recursively
+        return new ADWIN(this);
+    }
+
+    @Override
+    public int measureByteSize() {
+        // all bucket rows have the same size
+        long byteSize = SizeOf.shallowSizeOf(this) + SizeOf.shallowSizeOf(listRowBuckets);
+        ListItem item = listRowBuckets.head();
+        if (item != null) {
+            byteSize += listRowBuckets.size() * (SizeOf.shallowSizeOf(item)
+                    + SizeOf.shallowSizeOf(item.bucketTotal)
+                    + SizeOf.shallowSizeOf(item.bucketVariance));
+        }
+        return (int) byteSize;
+    }
+
     public String getEstimatorInfo() {
         return "ADWIN;;";
     }
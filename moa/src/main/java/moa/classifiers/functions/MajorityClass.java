@@ -20,6 +20,7 @@
 package moa.classifiers.functions;
 
 import moa.classifiers.AbstractClassifier;
+import moa.classifiers.core.VoteBuffer;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.StringUtils;
@@ -56,6 +57,12 @@ public class MajorityClass extends AbstractClassifier {
         return this.observedClassDistribution.getArrayCopy();
     }
 
+    @Override
+    public int getVotesForInstance(Instance i, double[] out) {
+        return VoteBuffer.copyVotes(this.observedClassDistribution.getArrayRef(),
+                this.observedClassDistribution.numValues(), out);
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return null;
@@ -20,8 +20,10 @@
 package moa.classifiers.functions;
 
 import moa.classifiers.AbstractClassifier;
+import moa.classifiers.core.VoteBuffer;
 import moa.core.Measurement;
 import moa.core.Utils;
+import java.util.Arrays;
 import com.github.javacliparser.FloatOption;
 import com.yahoo.labs.samoa.instances.Instance;
 
@@ -126,17 +128,30 @@ public class Perceptron extends AbstractClassifier {
     @Override
     public double[] getVotesForInstance(Instance inst) {
         double[] votes = new double[inst.numClasses()];
+        getVotesForInstance(inst, votes);
+        return votes;
+    }
+
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        int numVotes = inst.numClasses();
+        if (numVotes > out.length) {
+            return numVotes;
+        }
         if (this.reset == false) {
-            for (int i = 0; i < votes.length; i++) {
-                votes[i] = prediction(inst, i);
+            for (int i = 0; i < numVotes; i++) {
+                out[i] = prediction(inst, i);
             }
+            VoteBuffer.clearAfterVotes(out, numVotes);
             try {
-                Utils.normalize(votes);
+                Utils.normalize(out);
             } catch (Exception e) {
                 // ignore all zero votes error
             }
+        } else {
+            Arrays.fill(out, 0.0);
         }
-        return votes;
+        return numVotes;
     }
 
     @Override
@@ -36,6 +36,7 @@ import com.github.javacliparser.MultiChoiceOption;
 import moa.classifiers.Regressor;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.Utils;
+import java.util.Arrays;
 
 /**
 <!-- globalinfo-start -->
@@ -279,13 +280,24 @@ public class SGD extends AbstractClassifier implements Regressor{
      */
     @Override
     public double[] getVotesForInstance(Instance inst) {
+        double[] result = new double[m_weights == null ? inst.numClasses()
+                : inst.classAttribute().isNominal() ? 2 : 1];
+        getVotesForInstance(inst, result);
+        return result;
+    }
+
+    @Override
+    public int getVotesForInstance(Instance inst, double[] result) {
 
         if (m_weights == null) {
-            return new double[inst.numClasses()];
+            Arrays.fill(result, 0.0);
+            return inst.numClasses();
+        }
+        int numVotes = inst.classAttribute().isNominal() ? 2 : 1;
+        if (numVotes > result.length) {
+            return numVotes;
         }
-        double[] result = (inst.classAttribute().isNominal())
-                ? new double[2]
-                : new double[1];
+        Arrays.fill(result, 0.0);
 
 
         double wx = dotProd(inst, m_weights, inst.classIndex());// * m_wScale;
@@ -293,7 +305,7 @@ public class SGD extends AbstractClassifier implements Regressor{
 
         if (inst.classAttribute().isNumeric()) {
             result[0] = z;
-            return result;
+            return numVotes;
         }
 
         if (z <= 0) {
@@ -312,7 +324,7 @@ public class SGD extends AbstractClassifier implements Regressor{
                 result[1] = 1;
             }
         }
-        return result;
+        return numVotes;
     }
 
     @Override
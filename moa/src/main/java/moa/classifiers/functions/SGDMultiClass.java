@@ -36,6 +36,7 @@ import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.Utils;
+import java.util.Arrays;
 
 
 /**
@@ -295,19 +296,30 @@ public class SGDMultiClass extends AbstractClassifier implements Regressor{
      */
     @Override
     public double[] getVotesForInstance(Instance inst) {
+        double[] result = new double[m_weights == null || inst.classAttribute().isNominal()
+                ? inst.numClasses() : 1];
+        getVotesForInstance(inst, result);
+        return result;
+    }
+
+    @Override
+    public int getVotesForInstance(Instance inst, double[] result) {
 
         if (m_weights == null) {
-            return new double[inst.numClasses()];
+            Arrays.fill(result, 0.0);
+            return inst.numClasses();
+        }
+        int numVotes = inst.classAttribute().isNominal() ? inst.numClasses() : 1;
+        if (numVotes > result.length) {
+            return numVotes;
         }
-        double[] result = (inst.classAttribute().isNominal())
-                ? new double[inst.numClasses()]
-                : new double[1];
+        Arrays.fill(result, 0.0);
         
         if (inst.classAttribute().isNumeric()) {
             double wx = dotProd(inst, m_weights[0], inst.classIndex());// * m_wScale;
             double z = (wx + m_bias[0]);
             result[0] = z;
-            return result;
+            return numVotes;
         }
 
         for (int i = 0; i < m_weights.length; i++){
@@ -334,7 +346,7 @@ public class SGDMultiClass extends AbstractClassifier implements Regressor{
                 }
             }
         }
-        return result;
+        return numVotes;
     }
 
     @Override
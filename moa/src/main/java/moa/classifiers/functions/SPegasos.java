@@ -32,6 +32,7 @@ import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.Utils;
+import java.util.Arrays;
 
 /**
  * <!-- globalinfo-start --> Implements the stochastic variant of the Pegasos
@@ -261,12 +262,22 @@ public class SPegasos extends AbstractClassifier {
      */
     @Override
     public double[] getVotesForInstance(Instance inst) {
+        double[] result = new double[m_weights == null ? inst.numAttributes() + 1 : 2];
+        getVotesForInstance(inst, result);
+        return result;
+    }
+
+    @Override
+    public int getVotesForInstance(Instance inst, double[] result) {
 
         if (m_weights == null) {
-            return new double[inst.numAttributes() + 1];
+            Arrays.fill(result, 0.0);
+            return inst.numAttributes() + 1;
         }
-
-        double[] result = new double[2];
+        if (result.length < 2) {
+            return 2;
+        }
+        Arrays.fill(result, 0.0);
 
         double wx = dotProd(inst, m_weights, inst.classIndex());// * m_wScale;
         double z = (wx + m_weights[m_weights.length - 1]);
@@ -288,7 +299,7 @@ public class SPegasos extends AbstractClassifier {
                 result[1] = 1;
             }
         }
-        return result;
+        return 2;
     }
 
     @Override
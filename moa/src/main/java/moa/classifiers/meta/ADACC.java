@@ -117,7 +117,7 @@ public class ADACC extends DACC {
     	if (recentChunk.size() < this.tau_size)
     		recentChunk.add(inst);
     	else
-    		recentChunk.set(this.nbInstances % this.tau_size,inst);
+    		recentChunk.set(this.nbInstances % this.tau_size,inst.copy());
 	    	  
     	trainAndClassify(inst);
     	
@@ -26,6 +26,7 @@ import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
 import moa.options.ClassOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import moa.tasks.TaskMonitor;
@@ -92,6 +93,11 @@ public class AccuracyWeightedEnsemble extends AbstractClassifier {
      */
     public IntOption numFoldsOption = new IntOption("numFolds", 'f', "Number of cross-validation folds for candidate classifier testing.", 10, 1, Integer.MAX_VALUE);
 
+    /**
+     * Whether chunks are processed concurrently.
+     */
+    public FlagOption parallelOption = new FlagOption("parallel", 'p', "Cross-validate the candidate classifier and weight the stored classifiers concurrently.");
+
     protected long[] classDistributions;
 
     protected Classifier[] ensemble;
@@ -187,10 +193,15 @@ public class AccuracyWeightedEnsemble extends AbstractClassifier {
      */
     protected void processChunk() {
         // Compute weights
-        double candidateClassifierWeight = this.computeCandidateWeight(this.candidateClassifier, this.currentChunk, this.numFolds);
+        double candidateClassifierWeight;
+        if (this.parallelOption.isSet()) {
+            candidateClassifierWeight = this.computeWeightsConcurrently();
+        } else {
+            candidateClassifierWeight = this.computeCandidateWeight(this.candidateClassifier, this.currentChunk, this.numFolds);
 
-        for (int i = 0; i < this.storedLearners.length; i++) {
-            this.storedWeights[i][0] = this.computeWeight(this.storedLearners[(int) this.storedWeights[i][1]], this.currentChunk);
+            for (int i = 0; i < this.storedLearners.length; i++) {
+                this.storedWeights[i][0] = this.computeWeight(this.storedLearners[(int) this.storedWeights[i][1]], this.currentChunk);
+            }
         }
 
         if (this.storedLearners.length < this.maxStoredCount) {
@@ -243,7 +254,55 @@ public class AccuracyWeightedEnsemble extends AbstractClassifier {
      * @return Candidate classifier weight.
      */
     protected double computeCandidateWeight(Classifier candidate, Instances chunk, int numFolds) {
-        double candidateWeight = 0.0;
+        Instances[][] folds = this.createFolds(chunk, numFolds);
+        double[] foldWeights = new double[numFolds];
+
+        for (int n = 0; n < numFolds; n++) {
+            foldWeights[n] = this.computeFoldWeight(candidate.copy(), folds[0][n], folds[1][n]);
+        }
+
+        return this.averageFoldWeights(foldWeights);
+    }
+
+    /**
+     * Computes the weights of the candidate classifier and of the stored
+     * classifiers on the current chunk, as computeCandidateWeight and
+     * computeWeight do. The folds of the cross-validation and the stored
+     * classifiers are trained and weighted by concurrent tasks.
+     *
+     * @return Candidate classifier weight.
+     */
+    protected double computeWeightsConcurrently() {
+        final Instances[][] folds = this.createFolds(this.currentChunk, this.numFolds);
+        final Classifier[] foldLearners = new Classifier[this.numFolds];
+        for (int n = 0; n < this.numFolds; n++) {
+            foldLearners[n] = this.candidateClassifier.copy();
+        }
+        final double[] foldWeights = new double[this.numFolds];
+
+        MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+            @Override
+            public void update(int task) {
+                if (task < foldWeights.length) {
+                    foldWeights[task] = computeFoldWeight(foldLearners[task], folds[0][task], folds[1][task]);
+                } else {
+                    int i = task - foldWeights.length;
+                    storedWeights[i][0] = computeWeight(storedLearners[(int) storedWeights[i][1]], currentChunk);
+                }
+            }
+        }, this.numFolds + this.storedLearners.length);
+
+        return this.averageFoldWeights(foldWeights);
+    }
+
+    /**
+     * Splits a chunk into the training and test sets of the cross-validation.
+     *
+     * @param chunk Data chunk of examples.
+     * @param numFolds Number of folds in candidate classifier cross-validation.
+     * @return The training sets of the folds in the first row, their test sets in the second.
+     */
+    protected Instances[][] createFolds(Instances chunk, int numFolds) {
         Random random = new Random(1);
         Instances randData = new Instances(chunk);
         randData.randomize(random);
@@ -251,20 +310,43 @@ public class AccuracyWeightedEnsemble extends AbstractClassifier {
             randData.stratify(numFolds);
         }
 
+        Instances[][] folds = new Instances[2][numFolds];
         for (int n = 0; n < numFolds; n++) {
-            Instances train = randData.trainCV(numFolds, n, random);
-            Instances test = randData.testCV(numFolds, n);
+            folds[0][n] = randData.trainCV(numFolds, n, random);
+            folds[1][n] = randData.testCV(numFolds, n);
+        }
+        return folds;
+    }
 
-            Classifier learner = candidate.copy();
+    /**
+     * Trains a copy of the candidate classifier on a fold and computes its weight.
+     *
+     * @param learner Copy of the candidate classifier.
+     * @param train Training set of the fold.
+     * @param test Test set of the fold.
+     * @return The weight of the trained classifier on the test set.
+     */
+    protected double computeFoldWeight(Classifier learner, Instances train, Instances test) {
+        for (int num = 0; num < train.numInstances(); num++) {
+            learner.trainOnInstance(train.instance(num));
+        }
 
-            for (int num = 0; num < train.numInstances(); num++) {
-                learner.trainOnInstance(train.instance(num));
-            }
+        return computeWeight(learner, test);
+    }
 
-            candidateWeight += computeWeight(learner, test);
+    /**
+     * Averages the weights of the candidate classifier on the folds.
+     *
+     * @param foldWeights The weights on each fold.
+     * @return Candidate classifier weight.
+     */
+    protected double averageFoldWeights(double[] foldWeights) {
+        double candidateWeight = 0.0;
+        for (double foldWeight : foldWeights) {
+            candidateWeight += foldWeight;
         }
 
-        double resultWeight = candidateWeight / numFolds;
+        double resultWeight = candidateWeight / foldWeights.length;
 
         if (Double.isInfinite(resultWeight)) {
             return Double.MAX_VALUE;
@@ -25,8 +25,10 @@ import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
+import moa.core.Utils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -100,6 +102,21 @@ public class DACC extends AbstractClassifier {
      * Number of instances from the stream 
      */
     protected int nbInstances = 0;
+    /**
+     * Votes of the classifiers for the instance of testThenTrain, before
+     * training (null outside testThenTrain)
+     */
+    protected transient double[][] testedMemberVotes;
+
+    /**
+     * Votes of a member and of the ensemble, and the sorted weights, reused
+     * by getVotesForInstance(Instance, double[]).
+     */
+    protected transient VoteBuffer memberVoteBuffer;
+
+    protected transient VoteBuffer combinedVoteBuffer;
+
+    protected transient Pair[] sortedWeights;
     
 
     /**
@@ -136,6 +153,24 @@ public class DACC extends AbstractClassifier {
     	trainAndClassify(inst);
     }
 
+    @Override
+    public double[] testThenTrain(Instance inst) {
+        this.testedMemberVotes = new double[this.ensemble.length][];
+        try {
+            double[] votes = getVotesForInstance(inst);
+            trainOnInstance(inst);
+            return votes;
+        } finally {
+            this.testedMemberVotes = null;
+        }
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst, double[] out) {
+        // training reuses the votes of the members kept by testThenTrain
+        return VoteBuffer.storeVotes(testThenTrain(inst), out);
+    }
+
     @Override 
     public double[] getVotesForInstance(Instance inst) {
 
@@ -155,7 +190,10 @@ public class DACC extends AbstractClassifier {
             for (int i = 0; i < arr.size(); i++) {
                 if (this.ensembleWeights[arr.get(i)].val > 0.0) {
 
-                    DoubleVector vote = new DoubleVector(this.ensemble[arr.get(i)].getVotesForInstance(inst));
+                    double[] memberVote = this.ensemble[arr.get(i)].getVotesForInstance(inst);
+                    if (this.testedMemberVotes != null)
+                        this.testedMemberVotes[arr.get(i)] = memberVote;
+                    DoubleVector vote = new DoubleVector(memberVote);
 
                     if (vote.sumOfValues() > 0.0) {
                         vote.normalize();
@@ -168,6 +206,44 @@ public class DACC extends AbstractClassifier {
         return combinedVote.getArrayRef();
     }
 
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        if (this.combinedVoteBuffer == null) {
+            this.memberVoteBuffer = new VoteBuffer();
+            this.combinedVoteBuffer = new VoteBuffer();
+        }
+        this.combinedVoteBuffer.clear();
+
+        // the classifiers of getMAXIndexes or getWVDIndexes, in the same order
+        int nbActive = getNbActiveClassifiers();
+        if (this.sortedWeights == null || this.sortedWeights.length < nbActive) {
+            this.sortedWeights = new Pair[nbActive];
+        }
+        System.arraycopy(this.ensembleWeights, 0, this.sortedWeights, 0, nbActive);
+        Arrays.sort(this.sortedWeights, 0, nbActive);
+        double maxWVal = this.sortedWeights[nbActive - 1].val;
+        double med = (maxWVal - this.sortedWeights[0].val) * 1.0 / 2;
+        boolean max = this.combinationOption.getChosenIndex() == 0;
+
+        if (this.trainingWeightSeenByModel > 0.0) {
+            for (int i = nbActive - 1; i >= 0; i--) {
+                if (max ? this.sortedWeights[i].val != maxWVal : this.sortedWeights[i].val < med) {
+                    break;
+                }
+                int index = this.sortedWeights[i].index;
+                if (this.ensembleWeights[index].val > 0.0) {
+                    this.memberVoteBuffer.setToVotes(this.ensemble[index], inst);
+                    if (this.memberVoteBuffer.sumOfValues() > 0.0) {
+                        this.memberVoteBuffer.normalize();
+                        this.memberVoteBuffer.scaleValues(this.ensembleWeights[index].val);
+                        this.combinedVoteBuffer.addValues(this.memberVoteBuffer);
+                    }
+                }
+            }
+        }
+        return this.combinedVoteBuffer.getVotes(out);
+    }
+
     
     /**
      * Receives a training instance from the stream and 
@@ -194,10 +270,16 @@ public class DACC extends AbstractClassifier {
         	if (this.nbInstances >= this.ensembleWeights[i].index + 1){
         
         		// train adaptive learners
-        		if (i < getNbAdaptiveClassifiers())
+        		boolean trained = i < getNbAdaptiveClassifiers();
+        		if (trained)
         			this.ensemble[i].trainOnInstance(inst);
         
-        		int val = this.ensemble[i].correctlyClassifies(inst)?1:0;
+        		// the vote of testThenTrain is still valid if not trained
+        		int val;
+        		if (!trained && this.testedMemberVotes != null && this.testedMemberVotes[i] != null)
+        			val = Utils.maxIndex(this.testedMemberVotes[i]) == (int) inst.classValue() ? 1 : 0;
+        		else
+        			val = this.ensemble[i].correctlyClassifies(inst)?1:0;
             	double sum = updateEvaluationWindow(i, val);  
             	this.ensembleWeights[i].val = sum;
         		this.ensembleAges[i] = this.ensembleAges[i]+1;
@@ -27,11 +27,15 @@ import com.github.javacliparser.MultiChoiceOption;
 import moa.classifiers.core.driftdetection.ADWIN;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import com.yahoo.labs.samoa.instances.Instance;
 
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.SizeOf;
+import moa.core.Utils;
+import java.util.Random;
 import moa.options.*;
 
 /**
@@ -80,6 +84,9 @@ public class LeveragingBag extends AbstractClassifier {
                 "Leveraging Subagging using resampling without replacement."
             }, 0);
 
+    public FlagOption parallelOption = new FlagOption("parallel", 'p',
+            "Update the members concurrently, each with its own random generator.");
+
     protected Classifier[] ensemble;
 
     protected ADWIN[] ADError;
@@ -90,26 +97,55 @@ public class LeveragingBag extends AbstractClassifier {
 
     protected boolean initMatrixCodes = false;
 
+    /**
+     * Votes of the members for the instance of testThenTrain, before
+     * training. Null outside testThenTrain.
+     */
+    protected transient double[][] testedMemberVotes;
+
+    /**
+     * Random generators of the members, used instead of classifierRandom
+     * when the members are updated concurrently. Created on first use.
+     */
+    protected Random[] memberRandoms;
+
+    /**
+     * Creates the members and their change detectors, including those that
+     * replace the members for which change is detected.
+     */
+    protected MemberFactory memberFactory;
+
     @Override
     public void resetLearningImpl() {
-        this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
-        Classifier baseLearner = (Classifier) getPreparedClassOption(this.baseLearnerOption);
-        baseLearner.resetLearning();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            this.ensemble[i] = baseLearner.copy();
-        }
-        this.ADError = new ADWIN[this.ensemble.length];
-        for (int i = 0; i < this.ensemble.length; i++) {
-            this.ADError[i] = new ADWIN((double) this.deltaAdwinOption.getValue());
-        }
+        this.memberFactory = new MemberFactory(
+                (Classifier) getPreparedClassOption(this.baseLearnerOption),
+                this.deltaAdwinOption.getValue());
+        this.ensemble = this.memberFactory.newMembers(this.ensembleSizeOption.getValue());
+        this.ADError = this.memberFactory.newDetectors(this.ensemble.length);
         this.numberOfChangesDetected = 0;
         if (this.outputCodesOption.isSet()) {
             this.initMatrixCodes = true;
         }
+        this.memberRandoms = null;
+    }
+
+    /**
+     * Gets the random generators of the members, derived from the random
+     * seed, so the weights drawn by a member do not depend on the number of
+     * threads.
+     *
+     * @return the generators, one per member
+     */
+    protected Random[] getMemberRandoms() {
+        if (this.memberRandoms == null) {
+            this.memberRandoms = MemberUpdateTask.createMemberRandoms(
+                    this.randomSeed, this.ensemble.length);
+        }
+        return this.memberRandoms;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance inst) {
+    public void trainOnInstanceImpl(final Instance inst) {
         int numClasses = inst.numClasses();
         //Output Codes
         if (this.initMatrixCodes == true) {
@@ -143,45 +179,28 @@ public class LeveragingBag extends AbstractClassifier {
 
 
         boolean Change = false;
-        Instance weightedInst = (Instance) inst.copy();
-        double w = this.weightShrinkOption.getValue();
-
-        //Train ensemble of classifiers
-        for (int i = 0; i < this.ensemble.length; i++) {
-            double k = 0.0;
-            switch (this.leveraginBagAlgorithmOption.getChosenIndex()) {
-                case 0: //LeveragingBag
-                    k = MiscUtils.poisson(w, this.classifierRandom);
-                    break;
-                case 1: //LeveragingBagME
-                    double error = this.ADError[i].getEstimation();
-                    k = !this.ensemble[i].correctlyClassifies(weightedInst) ? 1.0 : (this.classifierRandom.nextDouble() < (error / (1.0 - error)) ? 1.0 : 0.0);
-                    break;
-                case 2: //LeveragingBagHalf
-                    w = 1.0;
-                    k = this.classifierRandom.nextBoolean() ? 0.0 : w;
-                    break;
-                case 3: //LeveragingBagWT
-                    w = 1.0;
-                    k = 1.0 + MiscUtils.poisson(w, this.classifierRandom);
-                    break;
-                case 4: //LeveragingSubag
-                    w = 1.0;
-                    k = MiscUtils.poisson(1, this.classifierRandom);
-                    k = (k > 0) ? w : 0;
-                    break;
-            }
-            if (k > 0) {
-                if (this.outputCodesOption.isSet()) {
-                    weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
+        if (this.parallelOption.isSet()) {
+            final Random[] randoms = getMemberRandoms();
+            final boolean[] changes = new boolean[this.ensemble.length];
+            MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+                @Override
+                public void update(int i) {
+                    Instance weightedInst = outputCodesOption.isSet() ? inst.copy()
+                            : inst.weightedView(inst.weight());
+                    changes[i] = trainMember(i, inst, weightedInst, randoms[i]);
                 }
-                weightedInst.setWeight(inst.weight() * k);
-                this.ensemble[i].trainOnInstance(weightedInst);
+            }, this.ensemble.length);
+            for (int i = 0; i < this.ensemble.length; i++) {
+                Change |= changes[i];
             }
-            boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(weightedInst);
-            double ErrEstim = this.ADError[i].getEstimation();
-            if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
-                if (this.ADError[i].getEstimation() > ErrEstim) {
+        } else {
+            // output codes change the class value, so they need a copy
+            Instance weightedInst = this.outputCodesOption.isSet() ? inst.copy()
+                    : inst.weightedView(inst.weight());
+
+            //Train ensemble of classifiers
+            for (int i = 0; i < this.ensemble.length; i++) {
+                if (trainMember(i, inst, weightedInst, this.classifierRandom)) {
                     Change = true;
                 }
             }
@@ -197,11 +216,123 @@ public class LeveragingBag extends AbstractClassifier {
                 }
             }
             if (imax != -1) {
-                this.ensemble[imax].resetLearning();
+                this.ensemble[imax] = this.memberFactory.newMember();
                 //this.ensemble[imax].trainOnInstance(inst);
-                this.ADError[imax] = new ADWIN((double) this.deltaAdwinOption.getValue());
+                this.ADError[imax] = this.memberFactory.newDetector();
+            }
+        }
+    }
+
+    /**
+     * Trains a member on an instance with the weight of the chosen algorithm
+     * and updates its error estimation.
+     *
+     * @param i the index of the member
+     * @param inst the instance
+     * @param weightedInst the instance to train on, its class and weight are
+     * set for the member
+     * @param random the generator of the weight
+     * @return true if the error estimation of the member increased
+     */
+    protected boolean trainMember(int i, Instance inst, Instance weightedInst,
+            Random random) {
+        double w = this.weightShrinkOption.getValue();
+        double k = 0.0;
+        switch (this.leveraginBagAlgorithmOption.getChosenIndex()) {
+            case 0: //LeveragingBag
+                k = MiscUtils.poisson(w, random);
+                break;
+            case 1: //LeveragingBagME
+                double error = this.ADError[i].getEstimation();
+                k = !memberCorrectlyClassifies(i, weightedInst, false) ? 1.0 : (random.nextDouble() < (error / (1.0 - error)) ? 1.0 : 0.0);
+                break;
+            case 2: //LeveragingBagHalf
+                w = 1.0;
+                k = random.nextBoolean() ? 0.0 : w;
+                break;
+            case 3: //LeveragingBagWT
+                w = 1.0;
+                k = 1.0 + MiscUtils.poisson(w, random);
+                break;
+            case 4: //LeveragingSubag
+                w = 1.0;
+                k = MiscUtils.poisson(1, random);
+                k = (k > 0) ? w : 0;
+                break;
+        }
+        if (k > 0) {
+            if (this.outputCodesOption.isSet()) {
+                weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
+            }
+            weightedInst.setWeight(inst.weight() * k);
+            this.ensemble[i].trainOnInstance(weightedInst);
+        }
+        boolean correctlyClassifies = memberCorrectlyClassifies(i, weightedInst, k > 0);
+        double ErrEstim = this.ADError[i].getEstimation();
+        if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
+            if (this.ADError[i].getEstimation() > ErrEstim) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Gets the votes of the members for an instance, computed concurrently.
+     * With output codes, each member votes on a copy of the instance with
+     * the class of its code.
+     *
+     * @param inst the instance
+     * @return the votes of each member
+     */
+    protected double[][] getMemberVotesConcurrently(final Instance inst) {
+        final double[][] memberVotes = new double[this.ensemble.length][];
+        MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+            @Override
+            public void update(int i) {
+                Instance memberInst = inst;
+                if (outputCodesOption.isSet()) {
+                    memberInst = inst.copy();
+                    memberInst.setClassValue((double) matrixCodes[i][(int) inst.classValue()]);
+                }
+                memberVotes[i] = ensemble[i].getVotesForInstance(memberInst);
+            }
+        }, this.ensemble.length);
+        return memberVotes;
+    }
+
+    /**
+     * Gets whether a member classifies an instance correctly, using its vote
+     * of testThenTrain when the member was not trained on the instance.
+     *
+     * @param i the index of the member
+     * @param inst the instance
+     * @param trained whether the member was trained on the instance
+     * @return true if the member predicts the class of the instance
+     */
+    protected boolean memberCorrectlyClassifies(int i, Instance inst, boolean trained) {
+        if (!trained && this.testedMemberVotes != null && this.testedMemberVotes[i] != null) {
+            return Utils.maxIndex(this.testedMemberVotes[i]) == (int) inst.classValue();
+        }
+        return this.ensemble[i].correctlyClassifies(inst);
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst) {
+        this.testedMemberVotes = new double[this.ensemble.length][];
+        try {
+            double[] votes = getVotesForInstance(inst);
+            trainOnInstance(inst);
+            return votes;
+        } finally {
+            this.testedMemberVotes = null;
+        }
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst, double[] out) {
+        // training reuses the votes of the members kept by testThenTrain
+        return VoteBuffer.storeVotes(testThenTrain(inst), out);
     }
 
     @Override
@@ -210,8 +341,15 @@ public class LeveragingBag extends AbstractClassifier {
             return getVotesForInstanceBinary(inst);
         }
         DoubleVector combinedVote = new DoubleVector();
+        double[][] memberVotes = this.parallelOption.isSet()
+                ? getMemberVotesConcurrently(inst) : null;
         for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+            double[] memberVote = memberVotes != null
+                    ? memberVotes[i] : this.ensemble[i].getVotesForInstance(inst);
+            if (this.testedMemberVotes != null) {
+                this.testedMemberVotes[i] = memberVote;
+            }
+            DoubleVector vote = new DoubleVector(memberVote);
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 combinedVote.addValues(vote);
@@ -224,12 +362,20 @@ public class LeveragingBag extends AbstractClassifier {
         double combinedVote[] = new double[(int) inst.numClasses()];
         Instance weightedInst = (Instance) inst.copy();
         if (this.initMatrixCodes == false) {
+            double[][] memberVotes = this.parallelOption.isSet()
+                    ? getMemberVotesConcurrently(inst) : null;
             for (int i = 0; i < this.ensemble.length; i++) {
-                //Replace class by OC
-                weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
-
                 double vote[];
-                vote = this.ensemble[i].getVotesForInstance(weightedInst);
+                if (memberVotes != null) {
+                    vote = memberVotes[i];
+                } else {
+                    //Replace class by OC
+                    weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
+                    vote = this.ensemble[i].getVotesForInstance(weightedInst);
+                }
+                if (this.testedMemberVotes != null) {
+                    this.testedMemberVotes[i] = vote;
+                }
                 //Binary Case
                 int voteClass = 0;
                 if (vote.length == 2) {
@@ -256,6 +402,12 @@ public class LeveragingBag extends AbstractClassifier {
         // TODO Auto-generated method stub
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this) + measureByteSize(this.ensemble)
+                + measureByteSize(this.ADError);
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return new Measurement[]{new Measurement("ensemble size",
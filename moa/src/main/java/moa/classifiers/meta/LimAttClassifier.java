@@ -24,6 +24,7 @@ import moa.classifiers.trees.LimAttHoeffdingTree;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.Utils;
 
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.Arrays;
 import moa.classifiers.core.driftdetection.ADWIN;
@@ -94,7 +95,7 @@ public class LimAttClassifier extends AbstractClassifier {
      *
      *  @author Michael Gilleland (megilleland@yahoo.com)
      */
-    public class CombinationGenerator {
+    public class CombinationGenerator implements Serializable {
 
         private int[] a;
 
@@ -226,10 +227,28 @@ public class LimAttClassifier extends AbstractClassifier {
     public FlagOption adwinReplaceWorstClassifierOption = new FlagOption("adwinReplaceWorstClassifier", 'z',
             "When one Adwin detects change, replace worst classifier.");
 
+    public FlagOption lazyMembersOption = new FlagOption("lazyMembers", 'y',
+            "Train at most numEnsemblePruning trees, created from the attribute combinations as needed. When change is detected, replace the tree with the lowest stacking weight by a tree on the next combination.");
+
     protected Classifier[] ensemble;
 
     protected ADWIN[] ADError;
 
+    /**
+     * Creates the members and their change detectors, including those that
+     * replace the members for which change is detected.
+     */
+    protected MemberFactory memberFactory;
+
+    /** The attribute combinations of the trees, generated as needed. */
+    protected CombinationGenerator combinations;
+
+    /**
+     * Observers of the roots of the trees created with the ensemble, until
+     * all these roots are split.
+     */
+    protected LimAttHoeffdingTree.SharedRootObservers sharedRootObservers;
+
     protected int numberOfChangesDetected;
 
     protected int[][] matrixCodes;
@@ -246,6 +265,7 @@ public class LimAttClassifier extends AbstractClassifier {
     public void resetLearningImpl() {
         this.initClassifiers = true;
         this.reset = true;
+        this.sharedRootObservers = null;
     }
 
     @Override
@@ -257,25 +277,26 @@ public class LimAttClassifier extends AbstractClassifier {
             if (bigTreesOption.isSet()) {
                 numberAttributes = inst.numAttributes() - 1 - numAttributesOption.getValue();
             }
-            CombinationGenerator x = new CombinationGenerator(inst.numAttributes() - 1, this.numberAttributes);
-            int numberClassifiers = x.getTotal().intValue();
-            this.ensemble = new Classifier[numberClassifiers];
-            Classifier baseLearner = (Classifier) getPreparedClassOption(this.baseLearnerOption);
-            baseLearner.resetLearning();
-            for (int i = 0; i < this.ensemble.length; i++) {
-                this.ensemble[i] = baseLearner.copy();
-            }
-            this.ADError = new ADWIN[this.ensemble.length];
-            for (int i = 0; i < this.ensemble.length; i++) {
-                this.ADError[i] = new ADWIN((double) this.deltaAdwinOption.getValue());
+            this.combinations = new CombinationGenerator(inst.numAttributes() - 1, this.numberAttributes);
+            int numberClassifiers = this.combinations.getTotal().intValue();
+            if (this.lazyMembersOption.isSet() && this.combinations.getTotal().compareTo(
+                    BigInteger.valueOf(this.numEnsemblePruningOption.getValue())) > 0) {
+                numberClassifiers = this.numEnsemblePruningOption.getValue();
             }
+            this.memberFactory = new MemberFactory(
+                    (Classifier) getPreparedClassOption(this.baseLearnerOption),
+                    this.deltaAdwinOption.getValue());
+            this.ensemble = this.memberFactory.newMembers(numberClassifiers);
+            this.ADError = this.memberFactory.newDetectors(this.ensemble.length);
             this.numberOfChangesDetected = 0;
             //Prepare combinations
-            int i = 0;
-            if (baseLearner instanceof LimAttHoeffdingTree) {
-                while (x.hasMore()) {
-                    ((LimAttHoeffdingTree) this.ensemble[i]).setlistAttributes(x.getNext());
-                    i++;
+            if (this.memberFactory.getPrototype() instanceof LimAttHoeffdingTree) {
+                this.sharedRootObservers = new LimAttHoeffdingTree.SharedRootObservers(
+                        (LimAttHoeffdingTree) this.memberFactory.getPrototype());
+                for (int i = 0; i < this.ensemble.length; i++) {
+                    LimAttHoeffdingTree tree = (LimAttHoeffdingTree) this.ensemble[i];
+                    tree.setlistAttributes(this.combinations.getNext());
+                    tree.setSharedRootObservers(this.sharedRootObservers);
                 }
             }
 
@@ -314,7 +335,7 @@ public class LimAttClassifier extends AbstractClassifier {
             }
         }
 
-        if (adwinReplaceWorstClassifierOption.isSet() == false) {
+        if (adwinReplaceWorstClassifierOption.isSet() == false && lazyMembersOption.isSet() == false) {
             //Train ensemble of classifiers
             for (int i = 0; i < this.ensemble.length; i++) {
                 boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(weightedInst);
@@ -325,8 +346,7 @@ public class LimAttClassifier extends AbstractClassifier {
                         Change = true;
                         //Replace classifier if ADWIN has detected change
                         numberOfChangesDetected++;
-                        this.ensemble[i].resetLearning();
-                        this.ADError[i] = new ADWIN((double) this.deltaAdwinOption.getValue());
+                        replaceMember(i);
                         for (int ii = 0; ii < inst.numClasses(); ii++) {
                             weightAttribute[ii][i] = 0.0;// 0.2 * Math.random() - 0.1;
                         }
@@ -345,19 +365,23 @@ public class LimAttClassifier extends AbstractClassifier {
                 }
             }
             //Replace classifier with higher error if ADWIN has detected change
+            //or, with lazy members, the one with the lowest stacking weight
             if (Change) {
                 numberOfChangesDetected++;
                 double max = 0.0;
                 int imax = -1;
-                for (int i = 0; i < this.ensemble.length; i++) {
-                    if (max < this.ADError[i].getEstimation()) {
-                        max = this.ADError[i].getEstimation();
-                        imax = i;
+                if (lazyMembersOption.isSet()) {
+                    imax = getWeakestMember();
+                } else {
+                    for (int i = 0; i < this.ensemble.length; i++) {
+                        if (max < this.ADError[i].getEstimation()) {
+                            max = this.ADError[i].getEstimation();
+                            imax = i;
+                        }
                     }
                 }
                 if (imax != -1) {
-                    this.ensemble[imax].resetLearning();
-                    this.ADError[imax] = new ADWIN((double) this.deltaAdwinOption.getValue());
+                    replaceMember(imax);
                     for (int ii = 0; ii < inst.numClasses(); ii++) {
                         weightAttribute[ii][imax] = 0.0;
                     }
@@ -367,6 +391,9 @@ public class LimAttClassifier extends AbstractClassifier {
 
         trainOnInstanceImplPerceptron(inst.numClasses(), (int) inst.classValue(), votes);
 
+        if (this.sharedRootObservers != null) {
+            observeAtSharedRoots(inst);
+        }
         for (int i = 0; i < this.ensemble.length; i++) {
             this.ensemble[i].trainOnInstance(inst);
         }
@@ -381,29 +408,16 @@ public class LimAttClassifier extends AbstractClassifier {
 
         int sizeEnsemble = this.ensemble.length;
         if (pruneOption.isSet()) {
-            sizeEnsemble = this.numEnsemblePruningOption.getValue();
+            sizeEnsemble = Math.min(this.numEnsemblePruningOption.getValue(), this.ensemble.length);
         }
 
         double[][] votes = new double[sizeEnsemble + 1][numClasses];
-        int[] bestClassifiers = new int[sizeEnsemble];
+        int[] bestClassifiers;
         if (pruneOption.isSet()) {
             //Check for the best classifiers
-            double[] weight = new double[this.ensemble.length];
-            for (int i = 0; i < numClasses; i++) {
-                for (int j = 0; j < this.ensemble.length; j++) {
-                    weight[j] += weightAttribute[i][j];
-                }
-            }
-            Arrays.sort(weight);
-            double cutValue = weight[this.ensemble.length - sizeEnsemble]; //reverse order
-            int ii = 0;
-            for (int j = 0; j < this.ensemble.length; j++) {
-                if (weight[j] >= cutValue && ii < sizeEnsemble) {
-                    bestClassifiers[ii] = j;
-                    ii++;
-                }
-            }
+            bestClassifiers = getBestMembers(sizeEnsemble);
         } else { //Not pruning: all classifiers
+            bestClassifiers = new int[sizeEnsemble];
             for (int ii = 0; ii < sizeEnsemble; ii++) {
                 bestClassifiers[ii] = ii;
             }
@@ -462,6 +476,132 @@ public class LimAttClassifier extends AbstractClassifier {
         return this.ensemble.clone();
     }
 
+    /**
+     * Replaces a member for which change is detected by an untrained member
+     * with a new change detector. The new member is restricted to the same
+     * attributes, or with lazy members to the next attribute combination.
+     *
+     * @param i the index of the member
+     */
+    protected void replaceMember(int i) {
+        Classifier member = this.memberFactory.newMember();
+        if (member instanceof LimAttHoeffdingTree) {
+            int[] listAttributes = ((LimAttHoeffdingTree) this.ensemble[i]).getlistAttributes();
+            if (this.lazyMembersOption.isSet() && this.combinations.getTotal().compareTo(
+                    BigInteger.valueOf(this.ensemble.length)) > 0) {
+                listAttributes = nextUnusedCombination();
+            }
+            ((LimAttHoeffdingTree) member).setlistAttributes(listAttributes);
+        }
+        this.ensemble[i] = member;
+        this.ADError[i] = this.memberFactory.newDetector();
+    }
+
+    /**
+     * Gets the next attribute combination not used by a member, starting
+     * over when all the combinations were generated. There must be more
+     * combinations than members.
+     *
+     * @return the indices of the attributes
+     */
+    protected int[] nextUnusedCombination() {
+        while (true) {
+            if (!this.combinations.hasMore()) {
+                this.combinations.reset();
+            }
+            int[] listAttributes = this.combinations.getNext();
+            boolean isUsed = false;
+            for (int i = 0; i < this.ensemble.length && !isUsed; i++) {
+                isUsed = Arrays.equals(listAttributes,
+                        ((LimAttHoeffdingTree) this.ensemble[i]).getlistAttributes());
+            }
+            if (!isUsed) {
+                return listAttributes;
+            }
+        }
+    }
+
+    /**
+     * Gets the stacking weight of a member, summed over the classes.
+     *
+     * @param j the index of the member
+     * @return the weight
+     */
+    protected double getMemberWeight(int j) {
+        double weight = 0.0;
+        for (int i = 0; i < this.weightAttribute.length; i++) {
+            weight += this.weightAttribute[i][j];
+        }
+        return weight;
+    }
+
+    /**
+     * Gets the members with the highest stacking weights, in the order of the
+     * ensemble.
+     *
+     * @param numMembers the number of members
+     * @return the indices of the members
+     */
+    protected int[] getBestMembers(int numMembers) {
+        double[] weight = new double[this.ensemble.length];
+        for (int j = 0; j < this.ensemble.length; j++) {
+            weight[j] = getMemberWeight(j);
+        }
+        double[] sortedWeight = weight.clone();
+        Arrays.sort(sortedWeight);
+        double cutValue = sortedWeight[this.ensemble.length - numMembers]; //reverse order
+        int[] bestMembers = new int[numMembers];
+        int ii = 0;
+        for (int j = 0; j < this.ensemble.length; j++) {
+            if (weight[j] >= cutValue && ii < numMembers) {
+                bestMembers[ii] = j;
+                ii++;
+            }
+        }
+        return bestMembers;
+    }
+
+    /**
+     * Gets the member with the lowest stacking weight, the first to prune.
+     *
+     * @return the index of the member, or -1 before the weights are learned
+     */
+    protected int getWeakestMember() {
+        if (this.weightAttribute == null) {
+            return -1;
+        }
+        int weakest = -1;
+        double min = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < this.ensemble.length; j++) {
+            double weight = getMemberWeight(j);
+            if (weight < min) {
+                min = weight;
+                weakest = j;
+            }
+        }
+        return weakest;
+    }
+
+    /**
+     * Prepares the roots that use the shared observers, then lets the shared
+     * observers observe the instance, once for all these roots.
+     *
+     * @param inst the training instance
+     */
+    protected void observeAtSharedRoots(Instance inst) {
+        boolean isUsed = false;
+        for (int i = 0; i < this.ensemble.length; i++) {
+            if (((LimAttHoeffdingTree) this.ensemble[i]).prepareSharedRoot(inst)) {
+                isUsed = true;
+            }
+        }
+        if (isUsed) {
+            this.sharedRootObservers.observe(inst);
+        } else {
+            this.sharedRootObservers = null;
+        }
+    }
+
     //Perceptron
     public FloatOption learningRatioOption = new FloatOption("learningRatio", 'r', "Learning ratio", 1);
 
@@ -0,0 +1,119 @@
+/*
+ *    MemberFactory.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.meta;
+
+import java.io.Serializable;
+import moa.classifiers.Classifier;
+import moa.classifiers.core.driftdetection.ADWIN;
+
+/**
+ * Creates the members of an ensemble, and the change detectors that monitor
+ * them, from a prototype. The prototype is the base learner prepared from the
+ * options of the ensemble. It is reset once, when the factory is created, and
+ * never trained, so a new member is a copy of it: the options are not looked
+ * up again and the member does not need to be reset.
+ *
+ * Ensembles create their factory when they are reset and use it to replace
+ * the members for which change is detected.
+ *
+ * @version $Revision: 7 $
+ */
+public class MemberFactory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected Classifier prototype;
+
+    protected double detectorDelta;
+
+    /**
+     * Creates a factory whose detectors use the default ADWIN confidence.
+     *
+     * @param prototype the base learner prepared from the options
+     */
+    public MemberFactory(Classifier prototype) {
+        this(prototype, ADWIN.DELTA);
+    }
+
+    /**
+     * Creates a factory.
+     *
+     * @param prototype the base learner prepared from the options
+     * @param detectorDelta the confidence of the ADWIN detectors
+     */
+    public MemberFactory(Classifier prototype, double detectorDelta) {
+        prototype.resetLearning();
+        this.prototype = prototype;
+        this.detectorDelta = detectorDelta;
+    }
+
+    /**
+     * Gets the prototype of the members. It must not be trained.
+     *
+     * @return the prototype
+     */
+    public Classifier getPrototype() {
+        return this.prototype;
+    }
+
+    /**
+     * Creates an untrained member.
+     *
+     * @return the member
+     */
+    public Classifier newMember() {
+        return this.prototype.copy();
+    }
+
+    /**
+     * Creates untrained members.
+     *
+     * @param numMembers the number of members
+     * @return the members
+     */
+    public Classifier[] newMembers(int numMembers) {
+        Classifier[] members = new Classifier[numMembers];
+        for (int i = 0; i < numMembers; i++) {
+            members[i] = newMember();
+        }
+        return members;
+    }
+
+    /**
+     * Creates a change detector for a member.
+     *
+     * @return the detector
+     */
+    public ADWIN newDetector() {
+        return new ADWIN(this.detectorDelta);
+    }
+
+    /**
+     * Creates change detectors for members.
+     *
+     * @param numMembers the number of members
+     * @return the detectors
+     */
+    public ADWIN[] newDetectors(int numMembers) {
+        ADWIN[] detectors = new ADWIN[numMembers];
+        for (int i = 0; i < numMembers; i++) {
+            detectors[i] = newDetector();
+        }
+        return detectors;
+    }
+}
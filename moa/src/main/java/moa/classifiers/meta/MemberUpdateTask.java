@@ -0,0 +1,104 @@
+/*
+ *    MemberUpdateTask.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.meta;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import moa.classifiers.core.AttributeSplitEvaluator;
+
+/**
+ * Task that updates the members of an ensemble concurrently. It runs on the
+ * fork-join pool of the calling task, if any, or on the pool shared by the
+ * learners, and returns once every member is updated. Each member is updated
+ * by a single thread, so an update can modify the member and the state kept
+ * for it by the ensemble, but nothing shared with the other members.
+ *
+ * Members that draw random numbers while they are updated use their own
+ * generator, see createMemberRandoms, so the results do not depend on the
+ * number of threads or on the order in which the members are updated.
+ *
+ * @version $Revision: 7 $
+ */
+public class MemberUpdateTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Update of a member of an ensemble.
+     */
+    public interface MemberUpdate {
+
+        void update(int member);
+    }
+
+    protected MemberUpdate update;
+
+    protected int from;
+
+    protected int to;
+
+    public MemberUpdateTask(MemberUpdate update, int from, int to) {
+        this.update = update;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from > 1) {
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new MemberUpdateTask(this.update, this.from, middle),
+                    new MemberUpdateTask(this.update, middle, this.to));
+        } else if (this.to > this.from) {
+            this.update.update(this.from);
+        }
+    }
+
+    /**
+     * Updates the members of an ensemble concurrently.
+     *
+     * @param update the update of a member
+     * @param numMembers the number of members
+     */
+    public static void updateMembers(MemberUpdate update, int numMembers) {
+        MemberUpdateTask task = new MemberUpdateTask(update, 0, numMembers);
+        if (ForkJoinTask.inForkJoinPool()) {
+            task.invoke();
+        } else {
+            AttributeSplitEvaluator.getPool().invoke(task);
+        }
+    }
+
+    /**
+     * Creates a random generator per member, derived from the seed of the
+     * ensemble.
+     *
+     * @param seed the seed of the ensemble
+     * @param numMembers the number of members
+     * @return the generators
+     */
+    public static Random[] createMemberRandoms(int seed, int numMembers) {
+        Random seeds = new Random(seed);
+        Random[] randoms = new Random[numMembers];
+        for (int i = 0; i < numMembers; i++) {
+            randoms[i] = new Random(seeds.nextLong());
+        }
+        return randoms;
+    }
+}
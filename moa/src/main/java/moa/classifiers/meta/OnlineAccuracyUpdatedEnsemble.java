@@ -25,6 +25,7 @@ import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import moa.classifiers.trees.HoeffdingTree;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
@@ -104,6 +105,11 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
 	 * Candidate classifier.
 	 */
 	protected ClassifierWithMemory candidate;
+
+	/**
+	 * Creates the candidate classifiers, from the learner prepared once.
+	 */
+	protected MemberFactory memberFactory;
 	
 	/**
 	 * Current window of instance class values.
@@ -119,12 +125,26 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
 	 * Window size.
 	 */
 	protected int windowSize = 0;
+
+	/**
+	 * Votes of the ensemble classifiers for the instance of testThenTrain,
+	 * before training. Null outside testThenTrain.
+	 */
+	protected transient double[][] testedMemberVotes;
+
+	/**
+	 * Votes of a member and of the ensemble, reused by
+	 * getVotesForInstance(Instance, double[]).
+	 */
+	protected transient VoteBuffer memberVoteBuffer;
+
+	protected transient VoteBuffer combinedVoteBuffer;
 	
 	@Override
 	public void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
 		this.windowSize = (int)this.windowSizeOption.getValue();
-		this.candidate = new ClassifierWithMemory(((Classifier) getPreparedClassOption(this.learnerOption)).copy(), this.windowSize);
-		this.candidate.classifier.resetLearning();
+		this.memberFactory = null;
+		this.candidate = this.createCandidate();
 
 		super.prepareForUseImpl(monitor, repository);
 	}
@@ -137,8 +157,20 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
 		this.processedInstances = 0;
 		this.ensemble = new ClassifierWithMemory[0];
 
-		this.candidate = new ClassifierWithMemory(((Classifier) getPreparedClassOption(this.learnerOption)).copy(), this.windowSize);
-		this.candidate.classifier.resetLearning();
+		this.memberFactory = null;
+		this.candidate = this.createCandidate();
+	}
+
+	/**
+	 * Creates an untrained candidate classifier.
+	 * 
+	 * @return the candidate
+	 */
+	protected ClassifierWithMemory createCandidate() {
+		if (this.memberFactory == null) {
+			this.memberFactory = new MemberFactory((Classifier) getPreparedClassOption(this.learnerOption));
+		}
+		return new ClassifierWithMemory(this.memberFactory.newMember(), this.windowSize);
 	}
 
 	@Override
@@ -181,6 +213,24 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
 		return false;
 	}
 
+	@Override
+	public double[] testThenTrain(Instance inst) {
+		this.testedMemberVotes = new double[this.ensemble.length][];
+		try {
+			double[] votes = getVotesForInstance(inst);
+			trainOnInstance(inst);
+			return votes;
+		} finally {
+			this.testedMemberVotes = null;
+		}
+	}
+
+	@Override
+	public double[] testThenTrain(Instance inst, double[] out) {
+		// training reuses the votes of the members kept by testThenTrain
+		return VoteBuffer.storeVotes(testThenTrain(inst), out);
+	}
+
 	/**
 	 * Predicts a class for an example.
 	 */
@@ -190,7 +240,11 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
 		if (this.trainingWeightSeenByModel > 0.0) {
 			for (int i = 0; i < this.ensemble.length; i++) {
 				if (this.weights[i][0] > 0.0) {
-					DoubleVector vote = new DoubleVector(this.ensemble[(int) this.weights[i][1]].classifier.getVotesForInstance(inst));
+					double[] memberVote = this.ensemble[(int) this.weights[i][1]].classifier.getVotesForInstance(inst);
+					if (this.testedMemberVotes != null) {
+						this.testedMemberVotes[(int) this.weights[i][1]] = memberVote;
+					}
+					DoubleVector vote = new DoubleVector(memberVote);
 
 					if (vote.sumOfValues() > 0.0) {
 						vote.normalize();
@@ -206,6 +260,31 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
 		return combinedVote.getArrayRef();
 	}
 
+	@Override
+	public int getVotesForInstance(Instance inst, double[] out) {
+		if (this.combinedVoteBuffer == null) {
+			this.memberVoteBuffer = new VoteBuffer();
+			this.combinedVoteBuffer = new VoteBuffer();
+		}
+		this.combinedVoteBuffer.clear();
+
+		if (this.trainingWeightSeenByModel > 0.0) {
+			for (int i = 0; i < this.ensemble.length; i++) {
+				if (this.weights[i][0] > 0.0) {
+					this.memberVoteBuffer.setToVotes(this.ensemble[(int) this.weights[i][1]].classifier, inst);
+
+					if (this.memberVoteBuffer.sumOfValues() > 0.0) {
+						this.memberVoteBuffer.normalize();
+						// scale weight and prevent overflow
+						this.memberVoteBuffer.scaleValues(this.weights[i][0] / (1.0 * this.ensemble.length + 1.0));
+						this.combinedVoteBuffer.addValues(this.memberVoteBuffer);
+					}
+				}
+			}
+		}
+		return this.combinedVoteBuffer.getVotes(out);
+	}
+
 	@Override
 	public void getModelDescription(StringBuilder out, int indent) {
 	}
@@ -257,8 +336,7 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
 			}
 		}
 
-    	this.candidate = new ClassifierWithMemory(((Classifier) getPreparedClassOption(this.learnerOption)).copy(), this.windowSize);
-		this.candidate.classifier.resetLearning();
+    	this.candidate = this.createCandidate();
 		
 		this.enforceMemoryLimit();
     }
@@ -306,7 +384,9 @@ public class OnlineAccuracyUpdatedEnsemble extends AbstractClassifier {
         double voteSum = 0;
         
         try{
-	        double[] votes = this.ensemble[i].classifier.getVotesForInstance(example);
+	        // the classifiers are trained after their weights are computed
+	        double[] votes = this.testedMemberVotes != null && this.testedMemberVotes[i] != null
+	        		? this.testedMemberVotes[i] : this.ensemble[i].classifier.getVotesForInstance(example);
 	        
 	        for (double element : votes) {
 	            voteSum += element;
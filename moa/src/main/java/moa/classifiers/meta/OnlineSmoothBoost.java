@@ -94,8 +94,7 @@ public class OnlineSmoothBoost extends AbstractClassifier {
         for (int i = 0; i < this.ensemble.length; i++) {
             zt += (this.ensemble[i].correctlyClassifies(inst) ? 1 : -1) - theta;
                     //normalized_predict(ex.x) * ex.y - theta;
-            Instance weightedInst = (Instance) inst.copy();
-            weightedInst.setWeight(weight);
+            Instance weightedInst = inst.weightedView(weight);
             this.ensemble[i].trainOnInstance(weightedInst);
             weight = (zt<=0)? 1.0 : Math.pow(1.0-gamma, zt/2.0);
         }
@@ -21,12 +21,19 @@ package moa.classifiers.meta;
 
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.SizeOf;
 import moa.options.ClassOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 
 /**
@@ -44,7 +51,8 @@ import com.github.javacliparser.IntOption;
  *
  * <p>Parameters:</p> <ul>
  * <li>-l : Classiﬁer to train</li>
- * <li>-s : The number of models in the bag</li> </ul>
+ * <li>-s : The number of models in the bag</li>
+ * <li>-p : Update the members concurrently</li> </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
@@ -64,8 +72,25 @@ public class OzaBag extends AbstractClassifier {
     public IntOption ensembleSizeOption = new IntOption("ensembleSize", 's',
             "The number of models in the bag.", 10, 1, Integer.MAX_VALUE);
 
+    public FlagOption parallelOption = new FlagOption("parallel", 'p',
+            "Update the members concurrently, each with its own random generator.");
+
     protected Classifier[] ensemble;
 
+    /**
+     * Random generators of the members, used instead of classifierRandom
+     * when the members are updated concurrently. Created on first use.
+     */
+    protected Random[] memberRandoms;
+
+    /**
+     * Votes of a member and of the ensemble, reused by
+     * getVotesForInstance(Instance, double[]).
+     */
+    protected transient VoteBuffer memberVoteBuffer;
+
+    protected transient VoteBuffer combinedVoteBuffer;
+
     @Override
     public void resetLearningImpl() {
         this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
@@ -74,15 +99,60 @@ public class OzaBag extends AbstractClassifier {
         for (int i = 0; i < this.ensemble.length; i++) {
             this.ensemble[i] = baseLearner.copy();
         }
+        this.memberRandoms = null;
+    }
+
+    /**
+     * Gets the random generators of the members, derived from the random
+     * seed, so the weights drawn by a member do not depend on the number of
+     * threads.
+     *
+     * @return the generators, one per member
+     */
+    protected Random[] getMemberRandoms() {
+        if (this.memberRandoms == null) {
+            this.memberRandoms = MemberUpdateTask.createMemberRandoms(
+                    this.randomSeed, this.ensemble.length);
+        }
+        return this.memberRandoms;
+    }
+
+    /**
+     * Gets the votes of the members for an instance, computed concurrently.
+     *
+     * @param inst the instance
+     * @return the votes of each member
+     */
+    protected double[][] getMemberVotesConcurrently(final Instance inst) {
+        final double[][] memberVotes = new double[this.ensemble.length][];
+        MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+            @Override
+            public void update(int i) {
+                memberVotes[i] = ensemble[i].getVotesForInstance(inst);
+            }
+        }, this.ensemble.length);
+        return memberVotes;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance inst) {
+    public void trainOnInstanceImpl(final Instance inst) {
+        if (this.parallelOption.isSet()) {
+            final Random[] randoms = getMemberRandoms();
+            MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+                @Override
+                public void update(int i) {
+                    int k = MiscUtils.poisson(1.0, randoms[i]);
+                    if (k > 0) {
+                        ensemble[i].trainOnInstance(inst.weightedView(inst.weight() * k));
+                    }
+                }
+            }, this.ensemble.length);
+            return;
+        }
         for (int i = 0; i < this.ensemble.length; i++) {
             int k = MiscUtils.poisson(1.0, this.classifierRandom);
             if (k > 0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
+                Instance weightedInst = inst.weightedView(inst.weight() * k);
                 this.ensemble[i].trainOnInstance(weightedInst);
             }
         }
@@ -91,8 +161,11 @@ public class OzaBag extends AbstractClassifier {
     @Override
     public double[] getVotesForInstance(Instance inst) {
         DoubleVector combinedVote = new DoubleVector();
+        double[][] memberVotes = this.parallelOption.isSet()
+                ? getMemberVotesConcurrently(inst) : null;
         for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+            DoubleVector vote = new DoubleVector(memberVotes != null
+                    ? memberVotes[i] : this.ensemble[i].getVotesForInstance(inst));
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 combinedVote.addValues(vote);
@@ -101,6 +174,145 @@ public class OzaBag extends AbstractClassifier {
         return combinedVote.getArrayRef();
     }
 
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        if (!isBatchProcessingSupported() || this.parallelOption.isSet()) {
+            return super.getVotesForInstance(inst, out);
+        }
+        if (this.combinedVoteBuffer == null) {
+            this.memberVoteBuffer = new VoteBuffer();
+            this.combinedVoteBuffer = new VoteBuffer();
+        }
+        this.combinedVoteBuffer.clear();
+        for (int i = 0; i < this.ensemble.length; i++) {
+            this.memberVoteBuffer.setToVotes(this.ensemble[i], inst);
+            if (this.memberVoteBuffer.sumOfValues() > 0.0) {
+                this.memberVoteBuffer.normalize();
+                this.combinedVoteBuffer.addValues(this.memberVoteBuffer);
+            }
+        }
+        return this.combinedVoteBuffer.getVotes(out);
+    }
+
+    /**
+     * Gets whether trainOnInstances and getVotesForInstances can process
+     * batches member by member, and getVotesForInstance(Instance, double[])
+     * can combine the votes of the members in place. Subclasses that
+     * override trainOnInstanceImpl or getVotesForInstance return false, to
+     * process one instance at a time.
+     *
+     * @return true if batches are processed member by member
+     */
+    protected boolean isBatchProcessingSupported() {
+        return true;
+    }
+
+    /**
+     * Trains on a batch member by member. The weights of the instances are
+     * drawn in the same order as trainOnInstanceImpl does, so each member
+     * trains on the same instances as with trainOnInstance. When the members
+     * are updated concurrently, each member draws the weights of the batch
+     * from its own generator and the members train on their batches
+     * concurrently.
+     *
+     * @param batch the instances to be used for training
+     */
+    @Override
+    public void trainOnInstances(final Instances batch) {
+        if (!isBatchProcessingSupported()) {
+            super.trainOnInstances(batch);
+            return;
+        }
+        final List<Instance> trainingInstances = new ArrayList<Instance>(batch.numInstances());
+        for (int j = 0; j < batch.numInstances(); j++) {
+            Instance inst = batch.instance(j);
+            if (isTrainingInstance(inst)) {
+                trainingInstances.add(inst);
+                this.trainingWeightSeenByModel += inst.weight();
+            }
+        }
+        if (this.parallelOption.isSet()) {
+            final Random[] randoms = getMemberRandoms();
+            MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+                @Override
+                public void update(int i) {
+                    Instances memberBatch = new Instances(batch, 0);
+                    for (Instance inst : trainingInstances) {
+                        int k = MiscUtils.poisson(1.0, randoms[i]);
+                        if (k > 0) {
+                            memberBatch.add(inst.weightedView(inst.weight() * k));
+                        }
+                    }
+                    ensemble[i].trainOnInstances(memberBatch);
+                }
+            }, this.ensemble.length);
+            return;
+        }
+        List<List<Instance>> memberInstances = new ArrayList<List<Instance>>(this.ensemble.length);
+        for (int i = 0; i < this.ensemble.length; i++) {
+            memberInstances.add(new ArrayList<Instance>());
+        }
+        for (Instance inst : trainingInstances) {
+            for (int i = 0; i < this.ensemble.length; i++) {
+                int k = MiscUtils.poisson(1.0, this.classifierRandom);
+                if (k > 0) {
+                    memberInstances.get(i).add(inst.weightedView(inst.weight() * k));
+                }
+            }
+        }
+        for (int i = 0; i < this.ensemble.length; i++) {
+            Instances memberBatch = new Instances(batch, 0);
+            memberBatch.addAll(memberInstances.get(i));
+            this.ensemble[i].trainOnInstances(memberBatch);
+        }
+    }
+
+    /**
+     * Gets the votes of the members for a batch, computed concurrently.
+     *
+     * @param batch the instances
+     * @return the votes of each member for each instance
+     */
+    protected double[][][] getMemberVotesConcurrently(final Instances batch) {
+        final double[][][] memberVotes = new double[this.ensemble.length][][];
+        MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+            @Override
+            public void update(int i) {
+                memberVotes[i] = ensemble[i].getVotesForInstances(batch);
+            }
+        }, this.ensemble.length);
+        return memberVotes;
+    }
+
+    @Override
+    public double[][] getVotesForInstances(Instances batch) {
+        if (!isBatchProcessingSupported()) {
+            return super.getVotesForInstances(batch);
+        }
+        DoubleVector[] combinedVotes = new DoubleVector[batch.numInstances()];
+        for (int j = 0; j < combinedVotes.length; j++) {
+            combinedVotes[j] = new DoubleVector();
+        }
+        double[][][] batchVotes = this.parallelOption.isSet()
+                ? getMemberVotesConcurrently(batch) : null;
+        for (int i = 0; i < this.ensemble.length; i++) {
+            double[][] memberVotes = batchVotes != null
+                    ? batchVotes[i] : this.ensemble[i].getVotesForInstances(batch);
+            for (int j = 0; j < combinedVotes.length; j++) {
+                DoubleVector vote = new DoubleVector(memberVotes[j]);
+                if (vote.sumOfValues() > 0.0) {
+                    vote.normalize();
+                    combinedVotes[j].addValues(vote);
+                }
+            }
+        }
+        double[][] votes = new double[combinedVotes.length][];
+        for (int j = 0; j < votes.length; j++) {
+            votes[j] = combinedVotes[j].getArrayRef();
+        }
+        return votes;
+    }
+
     @Override
     public boolean isRandomizable() {
         return true;
@@ -111,6 +323,11 @@ public class OzaBag extends AbstractClassifier {
         // TODO Auto-generated method stub
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this) + measureByteSize(this.ensemble);
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return new Measurement[]{new Measurement("ensemble size",
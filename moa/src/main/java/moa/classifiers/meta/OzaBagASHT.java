@@ -27,6 +27,7 @@ import com.github.javacliparser.IntOption;
 import com.github.javacliparser.FlagOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.Utils;
+import java.util.Random;
 
 /**
  * Bagging using trees of different size.
@@ -121,30 +122,58 @@ public class OzaBagASHT extends OzaBag {
             }
             pow *= 2; //EXTENSION TO ASHT
         }
+        this.memberRandoms = null;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance inst) {
-        int trueClass = (int) inst.classValue();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            if (k > 0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
-                if (Utils.maxIndex(this.ensemble[i].getVotesForInstance(inst)) == trueClass) {
-                    this.error[i] += alpha * (0.0 - this.error[i]); //EWMA
-                } else {
-                    this.error[i] += alpha * (1.0 - this.error[i]); //EWMA
+    protected boolean isBatchProcessingSupported() {
+        // members are weighted by their error on each instance
+        return false;
+    }
+
+    @Override
+    public void trainOnInstanceImpl(final Instance inst) {
+        if (this.parallelOption.isSet()) {
+            final Random[] randoms = getMemberRandoms();
+            MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+                @Override
+                public void update(int i) {
+                    trainMember(i, inst, MiscUtils.poisson(1.0, randoms[i]));
                 }
-                this.ensemble[i].trainOnInstance(weightedInst);
+            }, this.ensemble.length);
+            return;
+        }
+        for (int i = 0; i < this.ensemble.length; i++) {
+            trainMember(i, inst, MiscUtils.poisson(1.0, this.classifierRandom));
+        }
+    }
+
+    /**
+     * Updates the error of a member and trains it, if it has to be trained.
+     *
+     * @param i the index of the member
+     * @param inst the instance
+     * @param k the weight of the instance for the member
+     */
+    protected void trainMember(int i, Instance inst, int k) {
+        if (k > 0) {
+            Instance weightedInst = inst.weightedView(inst.weight() * k);
+            if (Utils.maxIndex(this.ensemble[i].getVotesForInstance(inst)) == (int) inst.classValue()) {
+                this.error[i] += alpha * (0.0 - this.error[i]); //EWMA
+            } else {
+                this.error[i] += alpha * (1.0 - this.error[i]); //EWMA
             }
+            this.ensemble[i].trainOnInstance(weightedInst);
         }
     }
 
     public double[] getVotesForInstance(Instance inst) {
         DoubleVector combinedVote = new DoubleVector();
+        double[][] memberVotes = this.parallelOption.isSet()
+                ? getMemberVotesConcurrently(inst) : null;
         for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+            DoubleVector vote = new DoubleVector(memberVotes != null
+                    ? memberVotes[i] : this.ensemble[i].getVotesForInstance(inst));
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 if ((this.useWeightOption != null)
@@ -22,13 +22,18 @@ package moa.classifiers.meta;
 import moa.classifiers.core.driftdetection.ADWIN;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import com.yahoo.labs.samoa.instances.Instance;
 
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.SizeOf;
+import moa.core.Utils;
 import moa.options.ClassOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import java.util.Random;
 
 /**
  * Bagging for evolving data streams using ADWIN.
@@ -74,7 +79,8 @@ import com.github.javacliparser.IntOption;
  * <code>OzaBagAdwin -l HoeffdingTreeNBAdaptive -s 10</code>
  * <p>Parameters:</p> <ul>
  * <li>-l : Classiﬁer to train</li>
- * <li>-s : The number of models in the bag</li> </ul>
+ * <li>-s : The number of models in the bag</li>
+ * <li>-p : Update the members concurrently</li> </ul>
  *
  * @author Albert Bifet (abifet at cs dot waikato dot ac dot nz)
  * @version $Revision: 7 $
@@ -94,38 +100,73 @@ public class OzaBagAdwin extends AbstractClassifier {
     public IntOption ensembleSizeOption = new IntOption("ensembleSize", 's',
             "The number of models in the bag.", 10, 1, Integer.MAX_VALUE);
 
+    public FlagOption parallelOption = new FlagOption("parallel", 'p',
+            "Update the members concurrently, each with its own random generator.");
+
     protected Classifier[] ensemble;
 
     protected ADWIN[] ADError;
 
+    /**
+     * Votes of the members for the instance of testThenTrain, before
+     * training. Null outside testThenTrain.
+     */
+    protected transient double[][] testedMemberVotes;
+
+    /**
+     * Random generators of the members, used instead of classifierRandom
+     * when the members are updated concurrently. Created on first use.
+     */
+    protected Random[] memberRandoms;
+
+    /**
+     * Creates the members and their change detectors, including those that
+     * replace the members for which change is detected.
+     */
+    protected MemberFactory memberFactory;
+
     @Override
     public void resetLearningImpl() {
-        this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
-        Classifier baseLearner = (Classifier) getPreparedClassOption(this.baseLearnerOption);
-        baseLearner.resetLearning();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            this.ensemble[i] = baseLearner.copy();
-        }
-        this.ADError = new ADWIN[this.ensemble.length];
-        for (int i = 0; i < this.ensemble.length; i++) {
-            this.ADError[i] = new ADWIN();
+        this.memberFactory = new MemberFactory(
+                (Classifier) getPreparedClassOption(this.baseLearnerOption));
+        this.ensemble = this.memberFactory.newMembers(this.ensembleSizeOption.getValue());
+        this.ADError = this.memberFactory.newDetectors(this.ensemble.length);
+        this.memberRandoms = null;
+    }
+
+    /**
+     * Gets the random generators of the members, derived from the random
+     * seed, so the weights drawn by a member do not depend on the number of
+     * threads.
+     *
+     * @return the generators, one per member
+     */
+    protected Random[] getMemberRandoms() {
+        if (this.memberRandoms == null) {
+            this.memberRandoms = MemberUpdateTask.createMemberRandoms(
+                    this.randomSeed, this.ensemble.length);
         }
+        return this.memberRandoms;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance inst) {
+    public void trainOnInstanceImpl(final Instance inst) {
         boolean Change = false;
-        for (int i = 0; i < this.ensemble.length; i++) {
-            int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            if (k > 0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
-                this.ensemble[i].trainOnInstance(weightedInst);
+        if (this.parallelOption.isSet()) {
+            final Random[] randoms = getMemberRandoms();
+            final boolean[] changes = new boolean[this.ensemble.length];
+            MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+                @Override
+                public void update(int i) {
+                    changes[i] = trainMember(i, inst, randoms[i]);
+                }
+            }, this.ensemble.length);
+            for (int i = 0; i < this.ensemble.length; i++) {
+                Change |= changes[i];
             }
-            boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(inst);
-            double ErrEstim = this.ADError[i].getEstimation();
-            if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
-                if (this.ADError[i].getEstimation() > ErrEstim) {
+        } else {
+            for (int i = 0; i < this.ensemble.length; i++) {
+                if (trainMember(i, inst, this.classifierRandom)) {
                     Change = true;
                 }
             }
@@ -140,18 +181,101 @@ public class OzaBagAdwin extends AbstractClassifier {
                 }
             }
             if (imax != -1) {
-                this.ensemble[imax].resetLearning();
+                this.ensemble[imax] = this.memberFactory.newMember();
                 //this.ensemble[imax].trainOnInstance(inst);
-                this.ADError[imax] = new ADWIN();
+                this.ADError[imax] = this.memberFactory.newDetector();
+            }
+        }
+    }
+
+    /**
+     * Trains a member on an instance with a Poisson(1) weight and updates its
+     * error estimation.
+     *
+     * @param i the index of the member
+     * @param inst the instance
+     * @param random the generator of the weight
+     * @return true if the error estimation of the member increased
+     */
+    protected boolean trainMember(int i, Instance inst, Random random) {
+        int k = MiscUtils.poisson(1.0, random);
+        if (k > 0) {
+            Instance weightedInst = inst.weightedView(inst.weight() * k);
+            this.ensemble[i].trainOnInstance(weightedInst);
+        }
+        boolean correctlyClassifies = memberCorrectlyClassifies(i, inst, k > 0);
+        double ErrEstim = this.ADError[i].getEstimation();
+        if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
+            if (this.ADError[i].getEstimation() > ErrEstim) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Gets the votes of the members for an instance, computed concurrently.
+     *
+     * @param inst the instance
+     * @return the votes of each member
+     */
+    protected double[][] getMemberVotesConcurrently(final Instance inst) {
+        final double[][] memberVotes = new double[this.ensemble.length][];
+        MemberUpdateTask.updateMembers(new MemberUpdateTask.MemberUpdate() {
+            @Override
+            public void update(int i) {
+                memberVotes[i] = ensemble[i].getVotesForInstance(inst);
+            }
+        }, this.ensemble.length);
+        return memberVotes;
+    }
+
+    /**
+     * Gets whether a member classifies an instance correctly, using its vote
+     * of testThenTrain when the member was not trained on the instance.
+     *
+     * @param i the index of the member
+     * @param inst the instance
+     * @param trained whether the member was trained on the instance
+     * @return true if the member predicts the class of the instance
+     */
+    protected boolean memberCorrectlyClassifies(int i, Instance inst, boolean trained) {
+        if (!trained && this.testedMemberVotes != null && this.testedMemberVotes[i] != null) {
+            return Utils.maxIndex(this.testedMemberVotes[i]) == (int) inst.classValue();
+        }
+        return this.ensemble[i].correctlyClassifies(inst);
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst) {
+        this.testedMemberVotes = new double[this.ensemble.length][];
+        try {
+            double[] votes = getVotesForInstance(inst);
+            trainOnInstance(inst);
+            return votes;
+        } finally {
+            this.testedMemberVotes = null;
+        }
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst, double[] out) {
+        // training reuses the votes of the members kept by testThenTrain
+        return VoteBuffer.storeVotes(testThenTrain(inst), out);
     }
 
     @Override
     public double[] getVotesForInstance(Instance inst) {
         DoubleVector combinedVote = new DoubleVector();
+        double[][] memberVotes = this.parallelOption.isSet()
+                ? getMemberVotesConcurrently(inst) : null;
         for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+            double[] memberVote = memberVotes != null
+                    ? memberVotes[i] : this.ensemble[i].getVotesForInstance(inst);
+            if (this.testedMemberVotes != null) {
+                this.testedMemberVotes[i] = memberVote;
+            }
+            DoubleVector vote = new DoubleVector(memberVote);
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 combinedVote.addValues(vote);
@@ -170,6 +294,12 @@ public class OzaBagAdwin extends AbstractClassifier {
         // TODO Auto-generated method stub
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this) + measureByteSize(this.ensemble)
+                + measureByteSize(this.ADError);
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return new Measurement[]{new Measurement("ensemble size",
@@ -21,11 +21,14 @@ package moa.classifiers.meta;
 
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import com.yahoo.labs.samoa.instances.Instance;
 
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.SizeOf;
+import moa.core.Utils;
 import moa.options.ClassOption;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
@@ -75,6 +78,20 @@ public class OzaBoost extends AbstractClassifier {
 
     protected double[] swms;
 
+    /**
+     * Votes of the members for the instance of testThenTrain, before
+     * training. Null outside testThenTrain.
+     */
+    protected transient double[][] testedMemberVotes;
+
+    /**
+     * Votes of a member and of the ensemble, reused by
+     * getVotesForInstance(Instance, double[]).
+     */
+    protected transient VoteBuffer memberVoteBuffer;
+
+    protected transient VoteBuffer combinedVoteBuffer;
+
     @Override
     public void resetLearningImpl() {
         this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
@@ -93,11 +110,10 @@ public class OzaBoost extends AbstractClassifier {
         for (int i = 0; i < this.ensemble.length; i++) {
             double k = this.pureBoostOption.isSet() ? lambda_d : MiscUtils.poisson(lambda_d, this.classifierRandom);
             if (k > 0.0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
+                Instance weightedInst = inst.weightedView(inst.weight() * k);
                 this.ensemble[i].trainOnInstance(weightedInst);
             }
-            if (this.ensemble[i].correctlyClassifies(inst)) {
+            if (memberCorrectlyClassifies(i, inst, k > 0.0)) {
                 this.scms[i] += lambda_d;
                 lambda_d *= this.trainingWeightSeenByModel / (2 * this.scms[i]);
             } else {
@@ -116,12 +132,50 @@ public class OzaBoost extends AbstractClassifier {
         return Math.log(1.0 / Bm);
     }
 
+    /**
+     * Gets whether a member classifies an instance correctly, using its vote
+     * of testThenTrain when the member was not trained on the instance.
+     *
+     * @param i the index of the member
+     * @param inst the instance
+     * @param trained whether the member was trained on the instance
+     * @return true if the member predicts the class of the instance
+     */
+    protected boolean memberCorrectlyClassifies(int i, Instance inst, boolean trained) {
+        if (!trained && this.testedMemberVotes != null && this.testedMemberVotes[i] != null) {
+            return Utils.maxIndex(this.testedMemberVotes[i]) == (int) inst.classValue();
+        }
+        return this.ensemble[i].correctlyClassifies(inst);
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst) {
+        this.testedMemberVotes = new double[this.ensemble.length][];
+        try {
+            double[] votes = getVotesForInstance(inst);
+            trainOnInstance(inst);
+            return votes;
+        } finally {
+            this.testedMemberVotes = null;
+        }
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst, double[] out) {
+        // training reuses the votes of the members kept by testThenTrain
+        return VoteBuffer.storeVotes(testThenTrain(inst), out);
+    }
+
     public double[] getVotesForInstance(Instance inst) {
         DoubleVector combinedVote = new DoubleVector();
         for (int i = 0; i < this.ensemble.length; i++) {
             double memberWeight = getEnsembleMemberWeight(i);
             if (memberWeight > 0.0) {
-                DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+                double[] memberVote = this.ensemble[i].getVotesForInstance(inst);
+                if (this.testedMemberVotes != null) {
+                    this.testedMemberVotes[i] = memberVote;
+                }
+                DoubleVector vote = new DoubleVector(memberVote);
                 if (vote.sumOfValues() > 0.0) {
                     vote.normalize();
                     vote.scaleValues(memberWeight);
@@ -134,6 +188,29 @@ public class OzaBoost extends AbstractClassifier {
         return combinedVote.getArrayRef();
     }
 
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        if (this.combinedVoteBuffer == null) {
+            this.memberVoteBuffer = new VoteBuffer();
+            this.combinedVoteBuffer = new VoteBuffer();
+        }
+        this.combinedVoteBuffer.clear();
+        for (int i = 0; i < this.ensemble.length; i++) {
+            double memberWeight = getEnsembleMemberWeight(i);
+            if (memberWeight > 0.0) {
+                this.memberVoteBuffer.setToVotes(this.ensemble[i], inst);
+                if (this.memberVoteBuffer.sumOfValues() > 0.0) {
+                    this.memberVoteBuffer.normalize();
+                    this.memberVoteBuffer.scaleValues(memberWeight);
+                    this.combinedVoteBuffer.addValues(this.memberVoteBuffer);
+                }
+            } else {
+                break;
+            }
+        }
+        return this.combinedVoteBuffer.getVotes(out);
+    }
+
     public boolean isRandomizable() {
         return true;
     }
@@ -143,6 +220,15 @@ public class OzaBoost extends AbstractClassifier {
         // TODO Auto-generated method stub
     }
 
+    @Override
+    public int measureByteSize() {
+        long byteSize = SizeOf.shallowSizeOf(this) + measureByteSize(this.ensemble);
+        if (this.scms != null) {
+            byteSize += SizeOf.shallowSizeOf(this.scms) + SizeOf.shallowSizeOf(this.swms);
+        }
+        return (int) byteSize;
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return new Measurement[]{new Measurement("ensemble size",
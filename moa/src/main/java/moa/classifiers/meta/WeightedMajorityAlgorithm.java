@@ -21,6 +21,7 @@ package moa.classifiers.meta;
 
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
@@ -77,6 +78,14 @@ public class WeightedMajorityAlgorithm extends AbstractClassifier {
 
     protected double[] ensembleWeights;
 
+    /**
+     * Votes of a member and of the ensemble, reused by
+     * getVotesForInstance(Instance, double[]).
+     */
+    protected transient VoteBuffer memberVoteBuffer;
+
+    protected transient VoteBuffer combinedVoteBuffer;
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -152,6 +161,28 @@ public class WeightedMajorityAlgorithm extends AbstractClassifier {
         return combinedVote.getArrayRef();
     }
 
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        if (this.combinedVoteBuffer == null) {
+            this.memberVoteBuffer = new VoteBuffer();
+            this.combinedVoteBuffer = new VoteBuffer();
+        }
+        this.combinedVoteBuffer.clear();
+        if (this.trainingWeightSeenByModel > 0.0) {
+            for (int i = 0; i < this.ensemble.length; i++) {
+                if (this.ensembleWeights[i] > 0.0) {
+                    this.memberVoteBuffer.setToVotes(this.ensemble[i], inst);
+                    if (this.memberVoteBuffer.sumOfValues() > 0.0) {
+                        this.memberVoteBuffer.normalize();
+                        this.memberVoteBuffer.scaleValues(this.ensembleWeights[i]);
+                        this.combinedVoteBuffer.addValues(this.memberVoteBuffer);
+                    }
+                }
+            }
+        }
+        return this.combinedVoteBuffer.getVotes(out);
+    }
+
     @Override
     public void getModelDescription(StringBuilder out, int indent) {
         // TODO Auto-generated method stub
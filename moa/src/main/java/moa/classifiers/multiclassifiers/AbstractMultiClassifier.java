@@ -2,11 +2,13 @@ package moa.classifiers.multiclassifiers;
 
 import com.github.javacliparser.Options;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import com.yahoo.labs.samoa.instances.Prediction;
 import moa.MOAObject;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.VoteBuffer;
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
@@ -78,6 +80,34 @@ public class AbstractMultiClassifier<T extends AbstractClassifier> implements Cl
         return new double[0];
     }
 
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        double[] votes = getVotesForInstance(inst);
+        return VoteBuffer.copyVotes(votes, votes.length, out);
+    }
+
+    @Override
+    public void trainOnInstances(Instances batch) {
+
+    }
+
+    @Override
+    public double[][] getVotesForInstances(Instances batch) {
+        return new double[batch.numInstances()][0];
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst) {
+        double[] votes = getVotesForInstance(inst);
+        trainOnInstance(inst);
+        return votes;
+    }
+
+    @Override
+    public double[] testThenTrain(Instance inst, double[] out) {
+        return VoteBuffer.storeVotes(testThenTrain(inst), out);
+    }
+
     @Override
     public Prediction getPredictionForInstance(Instance inst) {
         return null;
@@ -74,6 +74,14 @@ public class HoeffdingTreeClassifLeaves extends HoeffdingTree {
             return super.getClassVotes(inst, ht);
         }
 
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            if (getWeightSeen() >= ((HoeffdingTreeClassifLeaves) ht).nbThresholdOption.getValue()) {
+                return this.classifier.getVotesForInstance(inst, out);
+            }
+            return super.getClassVotes(inst, ht, out);
+        }
+
         @Override
         public void disableAttribute(int attIndex) {
             // should not disable poor atts - they are used in NB calc
@@ -172,11 +180,7 @@ public class HoeffdingTreeClassifLeaves extends HoeffdingTree {
                     this.activeLeafNodeCount--;
                     this.decisionNodeCount++;
                     this.activeLeafNodeCount += splitDecision.numSplits();
-                    if (parent == null) {
-                        this.treeRoot = newSplit;
-                    } else {
-                        parent.setChild(parentIndex, newSplit);
-                    }
+                    replaceNode(parent, parentIndex, newSplit);
                 }
                 // manage memory
                 enforceTrackerLimit();
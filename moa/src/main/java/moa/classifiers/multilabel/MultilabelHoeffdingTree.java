@@ -20,6 +20,7 @@
 package moa.classifiers.multilabel;
 
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.List;
 import moa.classifiers.Classifier;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
@@ -132,6 +133,15 @@ public class MultilabelHoeffdingTree extends HoeffdingTreeClassifLeaves implemen
 			return this.classifier.getVotesForInstance(inst); 			
 		}
 
+		@Override
+		public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+			if (this.classifier == null) {
+				Arrays.fill(out, 0.0);
+				return m_L;
+			}
+			return this.classifier.getVotesForInstance(inst, out);
+		}
+
 		@Override
 		public void disableAttribute(int attIndex) {
 			// should not disable poor atts - they are used in NB calc
@@ -189,11 +199,7 @@ public class MultilabelHoeffdingTree extends HoeffdingTreeClassifLeaves implemen
 			SplitNode parent, int parentBranch) {
 		Node newLeaf = new MultilabelInactiveLearningNode(toDeactivate
 				.getObservedClassDistribution());
-		if (parent == null) {
-			this.treeRoot = newLeaf;
-		} else {
-			parent.setChild(parentBranch, newLeaf);
-		}
+		replaceNode(parent, parentBranch, newLeaf);
 		this.activeLeafNodeCount--;
 		this.inactiveLeafNodeCount++;
 	}
@@ -229,6 +235,16 @@ public class MultilabelHoeffdingTree extends HoeffdingTreeClassifLeaves implemen
 		// Return empty array (this should only happen once! -- before we build the root node).
 		return new double[this.m_L];
 	}
+
+	@Override
+	public int getVotesForInstance(Instance inst, double[] out) {
+		m_L = inst.classIndex() + 1;
+		if (this.treeRoot != null) {
+			return findVotingNode(inst).getClassVotes(inst, this, out);
+		}
+		Arrays.fill(out, 0.0);
+		return this.m_L;
+	}
         
 
 	@Override
@@ -54,6 +54,7 @@ public class MLOzaBag extends OzaBag implements MultiLabelLearner, MultiTargetRe
         for (int i = 0; i < this.ensemble.length; i++) {
             this.ensemble[i] = baseLearner.copy();
         }
+        this.memberRandoms = null;
     }
 
     @Override
@@ -88,8 +89,11 @@ public class MLOzaBag extends OzaBag implements MultiLabelLearner, MultiTargetRe
 
         double y[] = new double[m_L];
 
+        double[][] memberVotes = this.parallelOption.isSet()
+                ? getMemberVotesConcurrently(x) : null;
         for (int i = 0; i < this.ensemble.length; i++) {
-            double w[] = this.ensemble[i].getVotesForInstance(x);
+            double w[] = memberVotes != null
+                    ? memberVotes[i] : this.ensemble[i].getVotesForInstance(x);
             for (int j = 0; j < w.length; j++) {
                 y[j] += w[j];
             }
@@ -98,6 +102,12 @@ public class MLOzaBag extends OzaBag implements MultiLabelLearner, MultiTargetRe
         return y;
     }
 
+    @Override
+    protected boolean isBatchProcessingSupported() {
+        // the votes of the members are combined without normalizing them
+        return false;
+    }
+
     @Override
     public void trainOnInstanceImpl(MultiLabelInstance instance) {
         trainOnInstanceImpl((Instance) instance);
@@ -19,8 +19,6 @@
  */
 package moa.classifiers.multilabel.meta;
 
-import moa.classifiers.Classifier;
-import moa.classifiers.core.driftdetection.ADWIN;
 import moa.classifiers.meta.OzaBagAdwin;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.MiscUtils;
@@ -65,8 +63,7 @@ public class MLOzaBagAdwin extends OzaBagAdwin implements MultiLabelLearner, Mul
         for (int i = 0; i < this.ensemble.length; i++) {
             int k = MiscUtils.poisson(1.0, this.classifierRandom);
             if (k > 0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
+                Instance weightedInst = inst.weightedView(inst.weight() * k);
                 this.ensemble[i].trainOnInstance(weightedInst);
             }
             double[] prediction = this.ensemble[i].getVotesForInstance(inst);
@@ -126,11 +123,10 @@ public class MLOzaBagAdwin extends OzaBagAdwin implements MultiLabelLearner, Mul
             }
             if (imax != -1) {
 
-                this.ensemble[imax] = null;
-                this.ensemble[imax] = (Classifier) getPreparedClassOption(this.baseLearnerOption);
+                this.ensemble[imax] = this.memberFactory.newMember();
                 this.ensemble[imax].setModelContext(this.modelContext);
                 this.ensemble[imax].trainOnInstance(inst);
-                this.ADError[imax] = new ADWIN();
+                this.ADError[imax] = this.memberFactory.newDetector();
             }
         }
     }
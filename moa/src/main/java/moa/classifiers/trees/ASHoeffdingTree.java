@@ -91,6 +91,8 @@ public class ASHoeffdingTree extends HoeffdingTree {
     @Override
     public void resetLearningImpl() {
         this.treeRoot = null;
+        this.compiledTree = null;
+        this.compiledTreeWeight = 0.0;
         this.decisionNodeCount = 0;
         this.activeLeafNodeCount = 0;
         this.inactiveLeafNodeCount = 0;
@@ -100,17 +102,23 @@ public class ASHoeffdingTree extends HoeffdingTree {
         this.growthAllowed = true;
     }
 
+    @Override
+    protected boolean isBatchProcessingSupported() {
+        // the tree may be resized after a split
+        return false;
+    }
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
         if (this.treeRoot == null) {
-            this.treeRoot = newLearningNode();
+            replaceNode(null, -1, newLearningNode());
             this.activeLeafNodeCount = 1;
         }
         FoundNode foundNode = this.treeRoot.filterInstanceToLeaf(inst, null, -1);
         Node leafNode = foundNode.node;
         if (leafNode == null) {
             leafNode = newLearningNode();
-            foundNode.parent.setChild(foundNode.parentBranch, leafNode);
+            replaceNode(foundNode.parent, foundNode.parentBranch, leafNode);
             this.activeLeafNodeCount++;
         }
         if (leafNode instanceof LearningNode) {
@@ -129,7 +137,7 @@ public class ASHoeffdingTree extends HoeffdingTree {
                     while (this.decisionNodeCount >= this.maxSize && this.treeRoot instanceof SplitNode) {
                         if (this.resetTree == false) {
                             resizeTree(this.treeRoot, ((SplitNode) this.treeRoot).instanceChildIndex(inst));
-                            this.treeRoot = ((SplitNode) this.treeRoot).getChild(((SplitNode) this.treeRoot).instanceChildIndex(inst));
+                            replaceNode(null, -1, ((SplitNode) this.treeRoot).getChild(((SplitNode) this.treeRoot).instanceChildIndex(inst)));
                         } else {
                             resetLearningImpl();
                         }
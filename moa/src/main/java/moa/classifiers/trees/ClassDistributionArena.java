@@ -0,0 +1,254 @@
+/*
+ *    ClassDistributionArena.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import moa.core.SizeOf;
+import moa.core.StringUtils;
+
+/**
+ * Class distributions of many nodes of a tree, packed in a single array with
+ * one row per node. A row stores what a DoubleVector would, without the two
+ * objects per node, so trees keep the distributions of their inactive leaves
+ * here. Each row keeps its number of values, so the row methods return the
+ * same as the DoubleVector methods of the same name.
+ *
+ * Rows are identified by their index, which does not change while the row is
+ * in use. Removed rows are reused by the rows added later.
+ *
+ * @version $Revision: 7 $
+ */
+public class ClassDistributionArena implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int width;
+
+    /** Number of rows allocated, in use or free. */
+    protected int numRows;
+
+    /** Values of the rows, one row of width values per row index. */
+    protected double[] values = new double[0];
+
+    /** Number of values of each row, -1 for free rows. */
+    protected int[] lengths = new int[0];
+
+    protected int[] freeRows = new int[0];
+
+    protected int numFreeRows;
+
+    /**
+     * Adds a row.
+     *
+     * @param classObservations the initial values of the row
+     * @return the index of the row
+     */
+    public int add(double[] classObservations) {
+        ensureWidth(classObservations.length);
+        int row;
+        if (this.numFreeRows > 0) {
+            row = this.freeRows[--this.numFreeRows];
+        } else {
+            if (this.numRows == this.lengths.length) {
+                int capacity = Math.max(8, this.numRows * 2);
+                this.values = Arrays.copyOf(this.values, capacity * this.width);
+                this.lengths = Arrays.copyOf(this.lengths, capacity);
+            }
+            row = this.numRows++;
+        }
+        int offset = row * this.width;
+        System.arraycopy(classObservations, 0, this.values, offset,
+                classObservations.length);
+        Arrays.fill(this.values, offset + classObservations.length,
+                offset + this.width, 0.0);
+        this.lengths[row] = classObservations.length;
+        return row;
+    }
+
+    /**
+     * Removes a row, making its index available to the rows added later.
+     *
+     * @param row the index of the row
+     */
+    public void remove(int row) {
+        if (this.lengths[row] < 0) {
+            return;
+        }
+        this.lengths[row] = -1;
+        if (this.numFreeRows == this.freeRows.length) {
+            this.freeRows = Arrays.copyOf(this.freeRows,
+                    Math.max(8, this.numFreeRows * 2));
+        }
+        this.freeRows[this.numFreeRows++] = row;
+    }
+
+    /**
+     * Removes the rows in use that are not marked as live.
+     *
+     * @param live whether each row is still used, indexed by row
+     */
+    public void retainRows(boolean[] live) {
+        for (int row = 0; row < this.numRows; row++) {
+            if (this.lengths[row] >= 0 && (row >= live.length || !live[row])) {
+                remove(row);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows allocated, in use or free. Row indices are
+     * less than this number.
+     *
+     * @return the number of rows
+     */
+    public int numRows() {
+        return this.numRows;
+    }
+
+    /**
+     * Gets the number of rows in use.
+     *
+     * @return the number of rows
+     */
+    public int numRowsInUse() {
+        return this.numRows - this.numFreeRows;
+    }
+
+    /**
+     * Widens the rows, filling the new values with zeros.
+     *
+     * @param newWidth the new width
+     */
+    public void ensureWidth(int newWidth) {
+        if (newWidth > this.width) {
+            double[] newValues = new double[this.lengths.length * newWidth];
+            for (int row = 0; row < this.numRows; row++) {
+                System.arraycopy(this.values, row * this.width, newValues,
+                        row * newWidth, this.width);
+            }
+            this.values = newValues;
+            this.width = newWidth;
+        }
+    }
+
+    public void addToValue(int row, int i, double value) {
+        if (i >= this.width) {
+            ensureWidth(i + 1);
+        }
+        if (i >= this.lengths[row]) {
+            this.lengths[row] = i + 1;
+        }
+        this.values[row * this.width + i] += value;
+    }
+
+    public double getValue(int row, int i) {
+        return ((i >= 0) && (i < this.lengths[row]))
+                ? this.values[row * this.width + i] : 0.0;
+    }
+
+    public int numValues(int row) {
+        return this.lengths[row];
+    }
+
+    public double[] getArrayCopy(int row) {
+        int offset = row * this.width;
+        return Arrays.copyOfRange(this.values, offset, offset + this.lengths[row]);
+    }
+
+    /**
+     * Copies the values of a row to a buffer and fills the rest of the buffer
+     * with zeros. Nothing is copied if the buffer is too short.
+     *
+     * @param row the index of the row
+     * @param out the buffer
+     * @return the number of values of the row
+     */
+    public int getValues(int row, double[] out) {
+        int length = this.lengths[row];
+        if (length <= out.length) {
+            System.arraycopy(this.values, row * this.width, out, 0, length);
+            Arrays.fill(out, length, out.length, 0.0);
+        }
+        return length;
+    }
+
+    public double sumOfValues(int row) {
+        double sum = 0.0;
+        int offset = row * this.width;
+        for (int i = offset; i < offset + this.lengths[row]; i++) {
+            sum += this.values[i];
+        }
+        return sum;
+    }
+
+    public int maxIndex(int row) {
+        int max = -1;
+        int offset = row * this.width;
+        for (int i = 0; i < this.lengths[row]; i++) {
+            if ((max < 0) || (this.values[offset + i] > this.values[offset + max])) {
+                max = i;
+            }
+        }
+        return max;
+    }
+
+    public int numNonZeroEntries(int row) {
+        int count = 0;
+        int offset = row * this.width;
+        for (int i = offset; i < offset + this.lengths[row]; i++) {
+            if (this.values[i] != 0.0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void getSingleLineDescription(int row, StringBuilder out, int numValues) {
+        out.append("{");
+        for (int i = 0; i < numValues; i++) {
+            if (i > 0) {
+                out.append("|");
+            }
+            out.append(StringUtils.doubleToString(getValue(row, i), 3));
+        }
+        out.append("}");
+    }
+
+    /**
+     * Gets the size of a row.
+     *
+     * @return the size of the values and the length of a row
+     */
+    public int measureRowByteSize() {
+        return this.width * 8 + 4;
+    }
+
+    /**
+     * Gets the size of the arena not taken by the rows in use.
+     *
+     * @return the size of the arena less that of the rows in use
+     */
+    public int measureSpareByteSize() {
+        return (int) (SizeOf.shallowSizeOf(this)
+                + SizeOf.sizeOfArray(this.values.length, 8)
+                + SizeOf.sizeOfArray(this.lengths.length, 4)
+                + SizeOf.sizeOfArray(this.freeRows.length, 4))
+                - numRowsInUse() * measureRowByteSize();
+    }
+}
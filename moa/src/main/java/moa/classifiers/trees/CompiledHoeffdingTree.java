@@ -0,0 +1,246 @@
+/*
+ *    CompiledHoeffdingTree.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import moa.AbstractMOAObject;
+import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
+import moa.classifiers.core.conditionaltests.NominalAttributeBinaryTest;
+import moa.classifiers.core.conditionaltests.NominalAttributeMultiwayTest;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.trees.HoeffdingTree.Node;
+import moa.classifiers.trees.HoeffdingTree.SplitNode;
+
+/**
+ * Flat-array form of a Hoeffding tree for fast predictions. The split tests
+ * of the tree are stored in parallel primitive arrays indexed by node, so
+ * sorting an instance to its leaf is a loop over arrays instead of a walk of
+ * node objects with virtual test calls. Leaves keep a reference to the node
+ * of the tree, which computes the votes as the tree does, so predictions are
+ * identical to those of the tree until its structure changes.
+ *
+ * @version $Revision: 7 $
+ */
+public class CompiledHoeffdingTree extends AbstractMOAObject {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final byte LEAF = 0;
+
+    protected static final byte NUMERIC_LESS_OR_EQUAL = 1;
+
+    protected static final byte NUMERIC_LESS = 2;
+
+    protected static final byte NOMINAL_BINARY = 3;
+
+    protected static final byte NOMINAL_MULTIWAY = 4;
+
+    protected static final byte OTHER = 5;
+
+    protected HoeffdingTree tree;
+
+    protected byte[] testType;
+
+    protected int[] attIndex;
+
+    protected double[] splitValue;
+
+    /** Offset of the first child of each split node in childNodes. */
+    protected int[] firstChild;
+
+    protected int[] numChildren;
+
+    /** Child node indices of the split nodes, -1 for missing children. */
+    protected int[] childNodes;
+
+    /** Nodes of the tree, which compute the votes at leaves and missing values. */
+    protected Node[] nodes;
+
+    /** Tests of the split nodes of type OTHER. */
+    protected InstanceConditionalTest[] otherTests;
+
+    public CompiledHoeffdingTree(HoeffdingTree tree) {
+        this.tree = tree;
+        List<Node> nodeList = new ArrayList<Node>();
+        if (tree.treeRoot != null) {
+            collectNodes(tree.treeRoot, nodeList);
+        }
+        int numNodes = nodeList.size();
+        this.nodes = nodeList.toArray(new Node[numNodes]);
+        this.testType = new byte[numNodes];
+        this.attIndex = new int[numNodes];
+        this.splitValue = new double[numNodes];
+        this.firstChild = new int[numNodes];
+        this.numChildren = new int[numNodes];
+        this.otherTests = new InstanceConditionalTest[numNodes];
+        int numChildNodes = 0;
+        for (Node node : this.nodes) {
+            if (node instanceof SplitNode) {
+                numChildNodes += ((SplitNode) node).numChildren();
+            }
+        }
+        this.childNodes = new int[numChildNodes];
+        Map<Node, Integer> nodeIndices = new IdentityHashMap<Node, Integer>();
+        for (int i = 0; i < numNodes; i++) {
+            nodeIndices.put(this.nodes[i], i);
+        }
+        int nextChild = 0;
+        for (int i = 0; i < numNodes; i++) {
+            if (!(this.nodes[i] instanceof SplitNode)) {
+                this.testType[i] = LEAF;
+                continue;
+            }
+            SplitNode splitNode = (SplitNode) this.nodes[i];
+            compileTest(i, splitNode.splitTest);
+            this.firstChild[i] = nextChild;
+            this.numChildren[i] = splitNode.numChildren();
+            for (int branch = 0; branch < splitNode.numChildren(); branch++) {
+                Node child = splitNode.getChild(branch);
+                this.childNodes[nextChild++] = child == null ? -1 : nodeIndices.get(child);
+            }
+        }
+    }
+
+    protected static void collectNodes(Node node, List<Node> nodeList) {
+        nodeList.add(node);
+        if (node instanceof SplitNode) {
+            SplitNode splitNode = (SplitNode) node;
+            for (int branch = 0; branch < splitNode.numChildren(); branch++) {
+                Node child = splitNode.getChild(branch);
+                if (child != null) {
+                    collectNodes(child, nodeList);
+                }
+            }
+        }
+    }
+
+    protected void compileTest(int node, InstanceConditionalTest test) {
+        if (test instanceof NumericAttributeBinaryTest) {
+            NumericAttributeBinaryTest numericTest = (NumericAttributeBinaryTest) test;
+            this.testType[node] = numericTest.isEqualsPassesTest() ? NUMERIC_LESS_OR_EQUAL : NUMERIC_LESS;
+            this.attIndex[node] = numericTest.getAttsTestDependsOn()[0];
+            this.splitValue[node] = numericTest.getSplitValue();
+        } else if (test instanceof NominalAttributeBinaryTest) {
+            NominalAttributeBinaryTest nominalTest = (NominalAttributeBinaryTest) test;
+            this.testType[node] = NOMINAL_BINARY;
+            this.attIndex[node] = nominalTest.getAttsTestDependsOn()[0];
+            this.splitValue[node] = nominalTest.getAttValue();
+        } else if (test instanceof NominalAttributeMultiwayTest) {
+            this.testType[node] = NOMINAL_MULTIWAY;
+            this.attIndex[node] = test.getAttsTestDependsOn()[0];
+        } else {
+            this.testType[node] = OTHER;
+            this.otherTests[node] = test;
+        }
+    }
+
+    public int numNodes() {
+        return this.nodes.length;
+    }
+
+    public double[] getVotesForInstance(Instance inst) {
+        if (this.nodes.length == 0) {
+            return new double[inst.dataset().numClasses()];
+        }
+        return findVotingNode(inst).getClassVotes(inst, this.tree);
+    }
+
+    /**
+     * Writes the votes for an instance to a buffer, as
+     * Classifier.getVotesForInstance(Instance, double[]) does.
+     *
+     * @param inst the instance
+     * @param out the buffer for the votes
+     * @return the number of votes
+     */
+    public int getVotesForInstance(Instance inst, double[] out) {
+        if (this.nodes.length == 0) {
+            Arrays.fill(out, 0.0);
+            return inst.dataset().numClasses();
+        }
+        return findVotingNode(inst).getClassVotes(inst, this.tree, out);
+    }
+
+    /**
+     * Finds the node whose class votes are those of the tree for an
+     * instance: the leaf the instance reaches, or the split node whose
+     * branch for the instance has no child.
+     *
+     * @param inst the instance
+     * @return the node
+     */
+    protected Node findVotingNode(Instance inst) {
+        int classIndex = inst.classIndex();
+        int node = 0;
+        while (true) {
+            int branch;
+            int att = this.attIndex[node];
+            switch (this.testType[node]) {
+                case LEAF:
+                    return this.nodes[node];
+                case NUMERIC_LESS_OR_EQUAL:
+                    if (inst.isMissing(att)) {
+                        branch = -1;
+                    } else {
+                        branch = inst.value(att) <= this.splitValue[node] ? 0 : 1;
+                    }
+                    break;
+                case NUMERIC_LESS:
+                    if (inst.isMissing(att)) {
+                        branch = -1;
+                    } else {
+                        branch = inst.value(att) < this.splitValue[node] ? 0 : 1;
+                    }
+                    break;
+                case NOMINAL_BINARY:
+                    // as in NominalAttributeBinaryTest, the index skips the class
+                    if (att >= classIndex) {
+                        att++;
+                    }
+                    if (inst.isMissing(att)) {
+                        branch = -1;
+                    } else {
+                        branch = (int) inst.value(att) == (int) this.splitValue[node] ? 0 : 1;
+                    }
+                    break;
+                case NOMINAL_MULTIWAY:
+                    branch = inst.isMissing(att) ? -1 : (int) inst.value(att);
+                    break;
+                default:
+                    branch = this.otherTests[node].branchForInstance(inst);
+            }
+            if (branch < 0 || branch >= this.numChildren[node]) {
+                return this.nodes[node];
+            }
+            int child = this.childNodes[this.firstChild[node] + branch];
+            if (child < 0) {
+                return this.nodes[node];
+            }
+            node = child;
+        }
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+}
@@ -34,6 +34,7 @@ import moa.options.ClassOption;
 import moa.AbstractMOAObject;
 import moa.classifiers.Regressor;
 import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.attributeclassobservers.BoundedFIMTDDNumericAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.FIMTDDNumericAttributeClassObserver;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
@@ -118,6 +119,10 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 	public FlagOption learningRatioConstOption = new FlagOption(
 			"learningRatioConst", 'p', "Keep learning rate constant instead of decaying.");
 
+	public IntOption maxObserverNodesOption = new IntOption(
+			"maxObserverNodes", 'b', "Maximum number of split points kept by each attribute observer, 0 for no limit.",
+			0, 0, Integer.MAX_VALUE);
+
 	//endregion ================ OPTIONS ================
 
 	//region ================ CLASSES ================
@@ -833,6 +838,9 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 	// region --- Object instatiation methods
 
 	protected FIMTDDNumericAttributeClassObserver newNumericClassObserver() {
+		if (this.maxObserverNodesOption.getValue() > 0) {
+			return new BoundedFIMTDDNumericAttributeClassObserver(this.maxObserverNodesOption.getValue());
+		}
 		return new FIMTDDNumericAttributeClassObserver();
 	}
 
@@ -22,7 +22,7 @@ package moa.classifiers.trees;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
-import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.core.VoteBuffer;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.driftdetection.ADWIN;
 import moa.core.DoubleVector;
@@ -81,6 +81,14 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
 
         public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht, SplitNode parent, int parentBranch);
 
+        /**
+         * Learns from an instance, given the class predicted for it by the
+         * leaf it reaches in this subtree. Every node on the path of a tree
+         * feeds its error estimator with the prediction of the same leaf, so
+         * it is computed once at the top of each tree and passed down.
+         */
+        public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht, SplitNode parent, int parentBranch, int classPrediction);
+
         public void filterInstanceToLeaves(Instance inst, SplitNode myparent, int parentBranch, List<FoundNode> foundNodes,
                 boolean updateSplitterCounts);
     }
@@ -167,20 +175,18 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
         // Parent nodes are allways SplitNodes
         @Override
         public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht, SplitNode parent, int parentBranch) {
-            int trueClass = (int) inst.classValue();
-            //New option vore
-            int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            Instance weightedInst = (Instance) inst.copy();
-            if (k > 0) {
-                //weightedInst.setWeight(inst.weight() * k);
-            }
             //Compute ClassPrediction using filterInstanceToLeaf
-            //int ClassPrediction = Utils.maxIndex(filterInstanceToLeaf(inst, null, -1).node.getClassVotes(inst, ht));
             int ClassPrediction = 0;
-            if (filterInstanceToLeaf(inst, parent, parentBranch).node != null) {
-                ClassPrediction = Utils.maxIndex(filterInstanceToLeaf(inst, parent, parentBranch).node.getClassVotes(inst, ht));
+            Node leaf = filterInstanceToLeaf(inst, parent, parentBranch).node;
+            if (leaf != null) {
+                ClassPrediction = Utils.maxIndex(leaf.getClassVotes(inst, ht));
             }
+            learnFromInstance(inst, ht, parent, parentBranch, ClassPrediction);
+        }
 
+        @Override
+        public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht, SplitNode parent, int parentBranch, int ClassPrediction) {
+            int trueClass = (int) inst.classValue();
             boolean blCorrect = (trueClass == ClassPrediction);
 
             if (this.estimationErrorWeight == null) {
@@ -239,13 +245,15 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
             }
             //}
             //learnFromInstance alternate Tree and Child nodes
+            // the alternate tree predicts with its own leaf, the child with
+            // the leaf of this path
             if (this.alternateTree != null) {
-                ((NewNode) this.alternateTree).learnFromInstance(weightedInst, ht, parent, parentBranch);
+                ((NewNode) this.alternateTree).learnFromInstance(inst, ht, parent, parentBranch);
             }
             int childBranch = this.instanceChildIndex(inst);
             Node child = this.getChild(childBranch);
             if (child != null) {
-                ((NewNode) child).learnFromInstance(weightedInst, ht, this, childBranch);
+                ((NewNode) child).learnFromInstance(inst, ht, this, childBranch, ClassPrediction);
             }
         }
 
@@ -354,15 +362,15 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
 
         @Override
         public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht, SplitNode parent, int parentBranch) {
+            learnFromInstance(inst, ht, parent, parentBranch, Utils.maxIndex(this.getClassVotes(inst, ht)));
+        }
+
+        @Override
+        public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht, SplitNode parent, int parentBranch, int ClassPrediction) {
             int trueClass = (int) inst.classValue();
             //New option vore
             int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            Instance weightedInst = (Instance) inst.copy();
-            if (k > 0) {
-                weightedInst.setWeight(inst.weight() * k);
-            }
-            //Compute ClassPrediction using filterInstanceToLeaf
-            int ClassPrediction = Utils.maxIndex(this.getClassVotes(inst, ht));
+            Instance weightedInst = inst.weightedView(k > 0 ? inst.weight() * k : inst.weight());
 
             boolean blCorrect = (trueClass == ClassPrediction);
 
@@ -406,14 +414,12 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
             if (predictionOption == 0) { //MC
                 dist = this.observedClassDistribution.getArrayCopy();
             } else if (predictionOption == 1) { //NB
-                dist = NaiveBayes.doNaiveBayesPrediction(inst,
-                        this.observedClassDistribution, this.attributeObservers);
+                dist = doNaiveBayesPrediction(inst);
             } else { //NBAdaptive
                 if (this.mcCorrectWeight > this.nbCorrectWeight) {
                     dist = this.observedClassDistribution.getArrayCopy();
                 } else {
-                    dist = NaiveBayes.doNaiveBayesPrediction(inst,
-                            this.observedClassDistribution, this.attributeObservers);
+                    dist = doNaiveBayesPrediction(inst);
                 }
             }
             //New for option votes
@@ -424,6 +430,30 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
             return dist;
         }
 
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            int numVotes;
+            int predictionOption = ((HoeffdingAdaptiveTree) ht).leafpredictionOption.getChosenIndex();
+            if (predictionOption == 0
+                    || (predictionOption == 2 && this.mcCorrectWeight > this.nbCorrectWeight)) {
+                numVotes = VoteBuffer.copyVotes(this.observedClassDistribution.getArrayRef(),
+                        this.observedClassDistribution.numValues(), out);
+            } else {
+                numVotes = doNaiveBayesPrediction(inst, out);
+            }
+            if (numVotes > out.length) {
+                return numVotes;
+            }
+            double distSum = 0.0;
+            for (int i = 0; i < numVotes; i++) {
+                distSum += out[i];
+            }
+            if (distSum * this.getErrorEstimation() * this.getErrorEstimation() > 0.0) {
+                Utils.normalize(out, distSum * this.getErrorEstimation() * this.getErrorEstimation());
+            }
+            return numVotes;
+        }
+
         //New for option votes
         @Override
         public void filterInstanceToLeaves(Instance inst,
@@ -457,6 +487,17 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
         return new AdaSplitNode(splitTest, classObservations);
     }
 
+    public HoeffdingAdaptiveTree() {
+        // predictions combine the alternate trees, which are not compiled
+        this.compilePeriodOption = null;
+    }
+
+    @Override
+    protected boolean isBatchProcessingSupported() {
+        // instances are learned and voted on by every path of the tree
+        return false;
+    }
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
         if (this.treeRoot == null) {
@@ -505,4 +546,61 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
         }
         return new double[0];
     }
+
+    /** Votes of the leaf being added by getVotesForInstance(Instance, double[]). */
+    protected transient double[] leafVotes;
+
+    protected transient VoteBuffer combinedVotes;
+
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        if (this.treeRoot != null) {
+            if (this.combinedVotes == null) {
+                this.leafVotes = new double[0];
+                this.combinedVotes = new VoteBuffer();
+            }
+            this.combinedVotes.clear();
+            addVotes(this.treeRoot, -1, inst);
+            return this.combinedVotes.getVotes(out);
+        }
+        return VoteBuffer.clearAfterVotes(out, 0);
+    }
+
+    /**
+     * Adds the votes of the nodes that filterInstanceToLeaves finds under a
+     * node to the combined votes, in the same order as getVotesForInstance
+     * adds them.
+     *
+     * @param node the node
+     * @param parentBranch the branch of the node in its parent
+     * @param inst the instance
+     */
+    protected void addVotes(Node node, int parentBranch, Instance inst) {
+        if (node instanceof AdaSplitNode) {
+            AdaSplitNode splitNode = (AdaSplitNode) node;
+            int childIndex = splitNode.instanceChildIndex(inst);
+            if (childIndex >= 0) {
+                Node child = splitNode.getChild(childIndex);
+                if (child != null) {
+                    addVotes(child, childIndex, inst);
+                } else {
+                    addNodeVotes(splitNode, inst);
+                }
+            }
+            if (splitNode.alternateTree != null) {
+                addVotes(splitNode.alternateTree, -999, inst);
+            }
+        } else if (parentBranch != -999) {
+            addNodeVotes(node, inst);
+        }
+    }
+
+    protected void addNodeVotes(Node node, Instance inst) {
+        int numVotes = node.getClassVotes(inst, this, this.leafVotes);
+        if (numVotes > this.leafVotes.length) {
+            this.leafVotes = new double[numVotes];
+            numVotes = node.getClassVotes(inst, this, this.leafVotes);
+        }
+        this.combinedVotes.addValues(this.leafVotes, numVotes);
+    }
 }
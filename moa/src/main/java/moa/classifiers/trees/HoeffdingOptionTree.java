@@ -22,12 +22,14 @@ package moa.classifiers.trees;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.RecursiveAction;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
@@ -36,6 +38,7 @@ import com.github.javacliparser.MultiChoiceOption;
 import moa.AbstractMOAObject;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.core.AttributeSplitEvaluator;
 import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.DiscreteAttributeClassObserver;
@@ -88,6 +91,7 @@ import com.yahoo.labs.samoa.instances.Instance;
  * adaptive (NBAdaptive).</li>
  *  <li> -q : The number of instances a leaf should observe before
  * permitting Naive Bayes</li>
+ *  <li> -P : Evaluate the split suggestions of the attributes concurrently</li>
  * </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
@@ -169,6 +173,14 @@ public class HoeffdingOptionTree extends AbstractClassifier {
     public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
             "Disable pre-pruning.");
 
+    public FlagOption parallelSplitEvaluationOption = new FlagOption(
+            "parallelSplitEvaluation", 'P',
+            "Evaluate the split suggestions of the attributes concurrently.");
+
+    public FlagOption parallelOptionPathsOption = new FlagOption(
+            "parallelOptionPaths", 'a',
+            "Update the leaves of the option paths of an instance concurrently.");
+
     public FileOption dumpFileOption = new FileOption("dumpFile", 'f',
             "File to append option table to.", null, "csv", true);
 
@@ -200,8 +212,15 @@ public class HoeffdingOptionTree extends AbstractClassifier {
             this.observedClassDistribution = new DoubleVector(classObservations);
         }
 
+        /**
+         * Creates a node that keeps its class distribution elsewhere, and
+         * overrides the methods that use it.
+         */
+        protected Node() {
+        }
+
         public int calcByteSize() {
-            return (int) (SizeOf.sizeOf(this) + SizeOf.fullSizeOf(this.observedClassDistribution));
+            return (int) SizeOf.shallowSizeOf(this) + this.observedClassDistribution.measureByteSize();
         }
 
         public int calcByteSizeIncludingSubtree() {
@@ -214,7 +233,7 @@ public class HoeffdingOptionTree extends AbstractClassifier {
 
         public FoundNode[] filterInstanceToLeaves(Instance inst,
                 SplitNode parent, int parentBranch, boolean updateSplitterCounts) {
-            List<FoundNode> nodes = new LinkedList<FoundNode>();
+            List<FoundNode> nodes = new ArrayList<FoundNode>();
             filterInstanceToLeaves(inst, parent, parentBranch, nodes,
                     updateSplitterCounts);
             return nodes.toArray(new FoundNode[nodes.size()]);
@@ -251,7 +270,7 @@ public class HoeffdingOptionTree extends AbstractClassifier {
             out.append(ht.getClassLabelString(this.observedClassDistribution.maxIndex()));
             out.append(" weights: ");
             this.observedClassDistribution.getSingleLineDescription(out,
-                    ht.treeRoot.observedClassDistribution.numValues());
+                    ht.treeRoot.getObservedClassDistribution().length);
             StringUtils.appendNewline(out);
         }
 
@@ -287,7 +306,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
         @Override
         public int calcByteSize() {
             return super.calcByteSize()
-                    + (int) (SizeOf.sizeOf(this.children) + SizeOf.fullSizeOf(this.splitTest));
+                    + (int) (SizeOf.shallowSizeOf(this.children)
+                    + SizeOf.sizeOfArray(this.children.size(), SizeOf.REFERENCE_SIZE))
+                    + this.splitTest.measureByteSize();
         }
 
         @Override
@@ -479,6 +500,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
                 this.nextOption = null;
                 hot.activeLeafNodeCount--;
             } else if (this.nextOption instanceof InactiveLearningNode) {
+                if (this.nextOption instanceof PackedInactiveLearningNode) {
+                    ((PackedInactiveLearningNode) this.nextOption).release();
+                }
                 this.nextOption = null;
                 hot.inactiveLeafNodeCount--;
             }
@@ -501,6 +525,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
             super(initialClassObservations);
         }
 
+        protected LearningNode() {
+        }
+
         public abstract void learnFromInstance(Instance inst,
                 HoeffdingOptionTree ht);
     }
@@ -513,6 +540,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
             super(initialClassObservations);
         }
 
+        protected InactiveLearningNode() {
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingOptionTree ht) {
             this.observedClassDistribution.addToValue((int) inst.classValue(),
@@ -520,6 +550,84 @@ public class HoeffdingOptionTree extends AbstractClassifier {
         }
     }
 
+    /**
+     * Inactive leaf whose class distribution is a row of the inactive leaf
+     * arena of the tree, as HoeffdingTree.PackedInactiveLearningNode.
+     */
+    public static class PackedInactiveLearningNode extends InactiveLearningNode {
+
+        private static final long serialVersionUID = 1L;
+
+        protected ClassDistributionArena arena;
+
+        protected int row;
+
+        public PackedInactiveLearningNode(ClassDistributionArena arena,
+                double[] initialClassObservations) {
+            this.arena = arena;
+            this.row = arena.add(initialClassObservations);
+        }
+
+        /**
+         * Removes the class distribution of this node from the arena, once
+         * the node is replaced.
+         */
+        public void release() {
+            this.arena.remove(this.row);
+        }
+
+        @Override
+        public int calcByteSize() {
+            return (int) SizeOf.shallowSizeOf(this) + this.arena.measureRowByteSize();
+        }
+
+        @Override
+        public double[] getObservedClassDistribution() {
+            return this.arena.getArrayCopy(this.row);
+        }
+
+        @Override
+        public double[] getClassVotes(Instance inst, HoeffdingOptionTree ht) {
+            double[] dist = this.arena.getArrayCopy(this.row);
+            double distSum = Utils.sum(dist);
+            if (distSum > 0.0) {
+                Utils.normalize(dist, distSum);
+            }
+            return dist;
+        }
+
+        @Override
+        public boolean observedClassDistributionIsPure() {
+            return this.arena.numNonZeroEntries(this.row) < 2;
+        }
+
+        @Override
+        public void describeSubtree(HoeffdingOptionTree ht, StringBuilder out,
+                int indent) {
+            StringUtils.appendIndented(out, indent, "Leaf ");
+            out.append(ht.getClassNameString());
+            out.append(" = ");
+            out.append(ht.getClassLabelString(this.arena.maxIndex(this.row)));
+            out.append(" weights: ");
+            this.arena.getSingleLineDescription(this.row, out,
+                    ht.treeRoot.getObservedClassDistribution().length);
+            StringUtils.appendNewline(out);
+        }
+
+        @Override
+        public double calculatePromise() {
+            double totalSeen = this.arena.sumOfValues(this.row);
+            return totalSeen > 0.0 ? (totalSeen - this.arena.getValue(this.row, this.arena.maxIndex(this.row)))
+                    : 0.0;
+        }
+
+        @Override
+        public void learnFromInstance(Instance inst, HoeffdingOptionTree ht) {
+            this.arena.addToValue(this.row, (int) inst.classValue(),
+                    inst.weight());
+        }
+    }
+
     public static class ActiveLearningNode extends LearningNode {
 
         private static final long serialVersionUID = 1L;
@@ -536,7 +644,7 @@ public class HoeffdingOptionTree extends AbstractClassifier {
         @Override
         public int calcByteSize() {
             return super.calcByteSize()
-                    + (int) (SizeOf.fullSizeOf(this.attributeObservers));
+                    + this.attributeObservers.measureByteSize();
         }
 
         @Override
@@ -577,16 +685,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
                         preSplitDist,
                         new double[][]{preSplitDist})));
             }
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
-                AttributeClassObserver obs = this.attributeObservers.get(i);
-                if (obs != null) {
-                    AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-                            preSplitDist, i, ht.binarySplitsOption.isSet());
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
-                }
-            }
+            AttributeSplitEvaluator.addBestSplitSuggestions(bestSuggestions,
+                    this.attributeObservers, criterion, preSplitDist,
+                    ht.binarySplitsOption.isSet(), ht.parallelSplitEvaluationOption.isSet());
             return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
         }
 
@@ -604,6 +705,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
 
     protected int inactiveLeafNodeCount;
 
+    /** Class distributions of the inactive leaves. */
+    protected ClassDistributionArena inactiveLeafArena;
+
     protected double inactiveLeafByteSizeEstimate;
 
     protected double activeLeafByteSizeEstimate;
@@ -612,11 +716,17 @@ public class HoeffdingOptionTree extends AbstractClassifier {
 
     protected int maxPredictionPaths;
 
+    /** Maximum number of branches of a split, computed from the model context. */
+    protected transient int maxSplitBranches;
+
     public int calcByteSize() {
-        int size = (int) SizeOf.sizeOf(this);
+        int size = (int) SizeOf.shallowSizeOf(this);
         if (this.treeRoot != null) {
             size += this.treeRoot.calcByteSizeIncludingSubtree();
         }
+        if (this.inactiveLeafArena != null) {
+            size += this.inactiveLeafArena.measureSpareByteSize();
+        }
         return size;
     }
 
@@ -631,10 +741,12 @@ public class HoeffdingOptionTree extends AbstractClassifier {
         this.decisionNodeCount = 0;
         this.activeLeafNodeCount = 0;
         this.inactiveLeafNodeCount = 0;
+        this.inactiveLeafArena = null;
         this.inactiveLeafByteSizeEstimate = 0.0;
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
         this.maxPredictionPaths = 0;
+        this.maxSplitBranches = 0;
         if (this.leafpredictionOption.getChosenIndex() > 0) {
             this.removePoorAttsOption = null;
         }
@@ -648,6 +760,19 @@ public class HoeffdingOptionTree extends AbstractClassifier {
         }
         FoundNode[] foundNodes = this.treeRoot.filterInstanceToLeaves(inst,
                 null, -1, true);
+        boolean concurrent = this.parallelOptionPathsOption.isSet()
+                && foundNodes.length > 1 && !canReachMemoryLimit(inst, foundNodes.length);
+        if (concurrent) {
+            for (FoundNode foundNode : foundNodes) {
+                if (foundNode.node == null) {
+                    foundNode.node = newLearningNode();
+                    foundNode.parent.setChild(foundNode.parentBranch, foundNode.node);
+                    this.activeLeafNodeCount++;
+                }
+            }
+            AttributeSplitEvaluator.getPool().invoke(
+                    new LearningTask(this, inst, foundNodes, 0, foundNodes.length));
+        }
         for (FoundNode foundNode : foundNodes) {
             // option leaves will have a parentBranch of -999
             // option splits will have an option count of -999
@@ -659,7 +784,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
             }
             if (leafNode instanceof LearningNode) {
                 LearningNode learningNode = (LearningNode) leafNode;
-                learningNode.learnFromInstance(inst, this);
+                if (!concurrent) {
+                    learningNode.learnFromInstance(inst, this);
+                }
                 if (learningNode instanceof ActiveLearningNode) {
                     ActiveLearningNode activeLearningNode = (ActiveLearningNode) learningNode;
                     double weightSeen = activeLearningNode.getWeightSeen();
@@ -678,12 +805,82 @@ public class HoeffdingOptionTree extends AbstractClassifier {
         }
     }
 
+    /**
+     * Gets whether the splits attempted while learning an instance may make
+     * enforceTrackerLimit deactivate or activate leaves. The leaves of the
+     * paths of the instance can only be learned concurrently, before any
+     * split is attempted, when they cannot be replaced by those splits.
+     *
+     * @param inst the instance
+     * @param numPaths the number of paths of the instance
+     * @return true if the memory limit may be enforced
+     */
+    protected boolean canReachMemoryLimit(Instance inst, int numPaths) {
+        if (this.inactiveLeafNodeCount > 0) {
+            return true;
+        }
+        if (this.maxSplitBranches == 0) {
+            int maxBranches = 2;
+            for (int i = 0; i < inst.numAttributes(); i++) {
+                if (i != inst.classIndex() && inst.attribute(i).isNominal()) {
+                    maxBranches = Math.max(maxBranches, inst.attribute(i).numValues());
+                }
+            }
+            this.maxSplitBranches = maxBranches;
+        }
+        double maxActiveLeaves = this.activeLeafNodeCount
+                + (double) numPaths * (this.maxSplitBranches + 1);
+        return maxActiveLeaves * this.activeLeafByteSizeEstimate
+                * this.byteSizeEstimateOverheadFraction > this.maxByteSizeOption.getValue();
+    }
+
+    /**
+     * Task that learns an instance at a range of the leaves it is sorted to.
+     * The leaves are disjoint and learning only updates the leaf itself.
+     */
+    protected static class LearningTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        protected HoeffdingOptionTree tree;
+
+        protected Instance inst;
+
+        protected FoundNode[] foundNodes;
+
+        protected int from;
+
+        protected int to;
+
+        public LearningTask(HoeffdingOptionTree tree, Instance inst,
+                FoundNode[] foundNodes, int from, int to) {
+            this.tree = tree;
+            this.inst = inst;
+            this.foundNodes = foundNodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new LearningTask(this.tree, this.inst, this.foundNodes, this.from, middle),
+                        new LearningTask(this.tree, this.inst, this.foundNodes, middle, this.to));
+            } else if (this.foundNodes[this.from].node instanceof LearningNode) {
+                ((LearningNode) this.foundNodes[this.from].node).learnFromInstance(this.inst, this.tree);
+            }
+        }
+    }
+
     @Override
     public double[] getVotesForInstance(Instance inst) {
         if (this.treeRoot != null) {
             FoundNode[] foundNodes = this.treeRoot.filterInstanceToLeaves(inst,
                     null, -1, false);
-            DoubleVector result = new DoubleVector();
+            double[] result = new double[getModelContext() != null
+                    ? getModelContext().numClasses() : 0];
+            int resultLength = 0;
             int predictionPaths = 0;
             for (FoundNode foundNode : foundNodes) {
                 if (foundNode.parentBranch != -999) {
@@ -697,14 +894,21 @@ public class HoeffdingOptionTree extends AbstractClassifier {
                     //if (distSum > 0.0) {
                     //	Utils.normalize(dist, distSum);
                     //}
-                    result.addValues(dist);
+                    // as DoubleVector.addValues
+                    if (dist.length > result.length) {
+                        result = Arrays.copyOf(result, dist.length);
+                    }
+                    for (int i = 0; i < dist.length; i++) {
+                        result[i] += dist[i];
+                    }
+                    resultLength = Math.max(resultLength, dist.length);
                     predictionPaths++;
                 }
             }
             if (predictionPaths > this.maxPredictionPaths) {
                 this.maxPredictionPaths++;
             }
-            return result.getArrayRef();
+            return resultLength == result.length ? result : Arrays.copyOf(result, resultLength);
         }
         return new double[0];
     }
@@ -1022,9 +1226,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
         long totalInactiveSize = 0;
         for (FoundNode foundNode : learningNodes) {
             if (foundNode.node instanceof ActiveLearningNode) {
-                totalActiveSize += SizeOf.fullSizeOf(foundNode.node);
+                totalActiveSize += foundNode.node.calcByteSize();
             } else {
-                totalInactiveSize += SizeOf.fullSizeOf(foundNode.node);
+                totalInactiveSize += foundNode.node.calcByteSize();
             }
         }
         if (totalActiveSize > 0) {
@@ -1059,7 +1263,11 @@ public class HoeffdingOptionTree extends AbstractClassifier {
 
     protected void deactivateLearningNode(ActiveLearningNode toDeactivate,
             SplitNode parent, int parentBranch) {
-        Node newLeaf = new InactiveLearningNode(toDeactivate.getObservedClassDistribution());
+        if (this.inactiveLeafArena == null) {
+            this.inactiveLeafArena = new ClassDistributionArena();
+        }
+        Node newLeaf = new PackedInactiveLearningNode(this.inactiveLeafArena,
+                toDeactivate.getObservedClassDistribution());
         if (parent == null) {
             this.treeRoot = newLeaf;
         } else {
@@ -1076,6 +1284,9 @@ public class HoeffdingOptionTree extends AbstractClassifier {
     protected void activateLearningNode(InactiveLearningNode toActivate,
             SplitNode parent, int parentBranch) {
         Node newLeaf = newLearningNode(toActivate.getObservedClassDistribution());
+        if (toActivate instanceof PackedInactiveLearningNode) {
+            ((PackedInactiveLearningNode) toActivate).release();
+        }
         if (parent == null) {
             this.treeRoot = newLeaf;
         } else {
@@ -31,8 +31,10 @@ import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import moa.AbstractMOAObject;
 import moa.classifiers.AbstractClassifier;
-import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.bayes.NaiveBayesCache;
+import moa.classifiers.core.AttributeSplitEvaluator;
 import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.VoteBuffer;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.DiscreteAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
@@ -40,6 +42,8 @@ import moa.classifiers.core.attributeclassobservers.NumericAttributeClassObserve
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.AutoExpandVector;
+import moa.core.DeepCopier;
+import moa.core.DeepCopyable;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.SizeOf;
@@ -47,6 +51,7 @@ import moa.core.StringUtils;
 import moa.core.Utils;
 import moa.options.ClassOption;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * Hoeffding Tree or VFDT.
@@ -87,6 +92,9 @@ import com.yahoo.labs.samoa.instances.Instance;
  * adaptive (NBAdaptive).</li>
  *  <li> -q : The number of instances a leaf should observe before
  * permitting Naive Bayes</li>
+ *  <li> -P : Evaluate the split suggestions of the attributes concurrently</li>
+ *  <li> -C : The number of instances between compilations of the tree into
+ * flat arrays used for predictions, 0 to predict with the tree nodes</li>
  * </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
@@ -118,7 +126,7 @@ public class HoeffdingTree extends AbstractClassifier {
      */
     public ClassOption numericEstimatorOption = new ClassOption("numericEstimator",
             'n', "Numeric estimator to use.", NumericAttributeClassObserver.class,
-            "GaussianNumericAttributeClassObserver");
+            "ArrayGaussianNumericAttributeClassObserver");
 
     public ClassOption nominalEstimatorOption = new ClassOption("nominalEstimator",
             'd', "Nominal estimator to use.", DiscreteAttributeClassObserver.class,
@@ -162,6 +170,16 @@ public class HoeffdingTree extends AbstractClassifier {
     public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
             "Disable pre-pruning.");
 
+    public FlagOption parallelSplitEvaluationOption = new FlagOption(
+            "parallelSplitEvaluation", 'P',
+            "Evaluate the split suggestions of the attributes concurrently.");
+
+    public IntOption compilePeriodOption = new IntOption(
+            "compilePeriod",
+            'C',
+            "The number of instances between compilations of the tree into flat arrays used for predictions, 0 to predict with the tree nodes.",
+            0, 0, Integer.MAX_VALUE);
+
     public static class FoundNode {
 
         public Node node;
@@ -177,7 +195,7 @@ public class HoeffdingTree extends AbstractClassifier {
         }
     }
 
-    public static class Node extends AbstractMOAObject {
+    public static class Node extends AbstractMOAObject implements DeepCopyable {
 
         private static final long serialVersionUID = 1L;
 
@@ -187,8 +205,25 @@ public class HoeffdingTree extends AbstractClassifier {
             this.observedClassDistribution = new DoubleVector(classObservations);
         }
 
+        /**
+         * Creates a node that keeps its class distribution elsewhere, and
+         * overrides the methods that use it.
+         */
+        protected Node() {
+        }
+
+        protected Node(Node toCopy, DeepCopier copier) {
+            copier.register(toCopy, this);
+            this.observedClassDistribution = copier.copy(toCopy.observedClassDistribution);
+        }
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            return new Node(this, copier);
+        }
+
         public int calcByteSize() {
-            return (int) (SizeOf.sizeOf(this) + SizeOf.fullSizeOf(this.observedClassDistribution));
+            return (int) SizeOf.shallowSizeOf(this) + this.observedClassDistribution.measureByteSize();
         }
 
         public int calcByteSizeIncludingSubtree() {
@@ -212,6 +247,21 @@ public class HoeffdingTree extends AbstractClassifier {
             return this.observedClassDistribution.getArrayCopy();
         }
 
+        /**
+         * Writes the votes of getClassVotes to a buffer, as
+         * Classifier.getVotesForInstance(Instance, double[]) does. Nodes that
+         * override getClassVotes override this method too.
+         *
+         * @param inst the instance
+         * @param ht the tree
+         * @param out the buffer for the votes
+         * @return the number of votes
+         */
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            return VoteBuffer.copyVotes(this.observedClassDistribution.getArrayRef(),
+                    this.observedClassDistribution.numValues(), out);
+        }
+
         public boolean observedClassDistributionIsPure() {
             return this.observedClassDistribution.numNonZeroEntries() < 2;
         }
@@ -224,7 +274,7 @@ public class HoeffdingTree extends AbstractClassifier {
             out.append(ht.getClassLabelString(this.observedClassDistribution.maxIndex()));
             out.append(" weights: ");
             this.observedClassDistribution.getSingleLineDescription(out,
-                    ht.treeRoot.observedClassDistribution.numValues());
+                    ht.treeRoot.getObservedClassDistribution().length);
             StringUtils.appendNewline(out);
         }
 
@@ -255,7 +305,9 @@ public class HoeffdingTree extends AbstractClassifier {
         @Override
         public int calcByteSize() {
             return super.calcByteSize()
-                    + (int) (SizeOf.sizeOf(this.children) + SizeOf.fullSizeOf(this.splitTest));
+                    + (int) (SizeOf.shallowSizeOf(this.children)
+                    + SizeOf.sizeOfArray(this.children.size(), SizeOf.REFERENCE_SIZE))
+                    + this.splitTest.measureByteSize();
         }
 
         @Override
@@ -283,6 +335,17 @@ public class HoeffdingTree extends AbstractClassifier {
             this.children = new AutoExpandVector<Node>();
         }
 
+        protected SplitNode(SplitNode toCopy, DeepCopier copier) {
+            super(toCopy, copier);
+            this.splitTest = copier.copy(toCopy.splitTest);
+            this.children = copier.copy(toCopy.children);
+        }
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            return new SplitNode(this, copier);
+        }
+
 
         public int numChildren() {
             return this.children.size();
@@ -362,6 +425,13 @@ public class HoeffdingTree extends AbstractClassifier {
             super(initialClassObservations);
         }
 
+        protected LearningNode() {
+        }
+
+        protected LearningNode(LearningNode toCopy, DeepCopier copier) {
+            super(toCopy, copier);
+        }
+
         public abstract void learnFromInstance(Instance inst, HoeffdingTree ht);
     }
 
@@ -373,6 +443,18 @@ public class HoeffdingTree extends AbstractClassifier {
             super(initialClassObservations);
         }
 
+        protected InactiveLearningNode() {
+        }
+
+        protected InactiveLearningNode(InactiveLearningNode toCopy, DeepCopier copier) {
+            super(toCopy, copier);
+        }
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            return new InactiveLearningNode(this, copier);
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
             this.observedClassDistribution.addToValue((int) inst.classValue(),
@@ -380,6 +462,100 @@ public class HoeffdingTree extends AbstractClassifier {
         }
     }
 
+    /**
+     * Inactive leaf whose class distribution is a row of the inactive leaf
+     * arena of the tree. It has no DoubleVector of its own, so it takes a
+     * fraction of the memory of an InactiveLearningNode.
+     */
+    public static class PackedInactiveLearningNode extends InactiveLearningNode {
+
+        private static final long serialVersionUID = 1L;
+
+        protected ClassDistributionArena arena;
+
+        protected int row;
+
+        public PackedInactiveLearningNode(ClassDistributionArena arena,
+                double[] initialClassObservations) {
+            this.arena = arena;
+            this.row = arena.add(initialClassObservations);
+        }
+
+        protected PackedInactiveLearningNode(PackedInactiveLearningNode toCopy, DeepCopier copier) {
+            copier.register(toCopy, this);
+            this.arena = copier.copy(toCopy.arena);
+            this.row = toCopy.row;
+        }
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            return new PackedInactiveLearningNode(this, copier);
+        }
+
+        public int getRow() {
+            return this.row;
+        }
+
+        /**
+         * Removes the class distribution of this node from the arena, once
+         * the node is replaced.
+         */
+        public void release() {
+            this.arena.remove(this.row);
+        }
+
+        @Override
+        public int calcByteSize() {
+            return (int) SizeOf.shallowSizeOf(this) + this.arena.measureRowByteSize();
+        }
+
+        @Override
+        public double[] getObservedClassDistribution() {
+            return this.arena.getArrayCopy(this.row);
+        }
+
+        @Override
+        public double[] getClassVotes(Instance inst, HoeffdingTree ht) {
+            return this.arena.getArrayCopy(this.row);
+        }
+
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            return this.arena.getValues(this.row, out);
+        }
+
+        @Override
+        public boolean observedClassDistributionIsPure() {
+            return this.arena.numNonZeroEntries(this.row) < 2;
+        }
+
+        @Override
+        public void describeSubtree(HoeffdingTree ht, StringBuilder out,
+                int indent) {
+            StringUtils.appendIndented(out, indent, "Leaf ");
+            out.append(ht.getClassNameString());
+            out.append(" = ");
+            out.append(ht.getClassLabelString(this.arena.maxIndex(this.row)));
+            out.append(" weights: ");
+            this.arena.getSingleLineDescription(this.row, out,
+                    ht.treeRoot.getObservedClassDistribution().length);
+            StringUtils.appendNewline(out);
+        }
+
+        @Override
+        public double calculatePromise() {
+            double totalSeen = this.arena.sumOfValues(this.row);
+            return totalSeen > 0.0 ? (totalSeen - this.arena.getValue(this.row, this.arena.maxIndex(this.row)))
+                    : 0.0;
+        }
+
+        @Override
+        public void learnFromInstance(Instance inst, HoeffdingTree ht) {
+            this.arena.addToValue(this.row, (int) inst.classValue(),
+                    inst.weight());
+        }
+    }
+
     public static class ActiveLearningNode extends LearningNode {
 
         private static final long serialVersionUID = 1L;
@@ -396,10 +572,22 @@ public class HoeffdingTree extends AbstractClassifier {
             this.isInitialized = false;
         }
 
+        protected ActiveLearningNode(ActiveLearningNode toCopy, DeepCopier copier) {
+            super(toCopy, copier);
+            this.weightSeenAtLastSplitEvaluation = toCopy.weightSeenAtLastSplitEvaluation;
+            this.attributeObservers = copier.copy(toCopy.attributeObservers);
+            this.isInitialized = toCopy.isInitialized;
+        }
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            return new ActiveLearningNode(this, copier);
+        }
+
         @Override
         public int calcByteSize() {
             return super.calcByteSize()
-                    + (int) (SizeOf.fullSizeOf(this.attributeObservers));
+                    + this.attributeObservers.measureByteSize();
         }
 
         @Override
@@ -444,16 +632,9 @@ public class HoeffdingTree extends AbstractClassifier {
                         preSplitDist,
                         new double[][]{preSplitDist})));
             }
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
-                AttributeClassObserver obs = this.attributeObservers.get(i);
-                if (obs != null) {
-                    AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-                            preSplitDist, i, ht.binarySplitsOption.isSet());
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
-                }
-            }
+            AttributeSplitEvaluator.addBestSplitSuggestions(bestSuggestions,
+                    this.attributeObservers, criterion, preSplitDist,
+                    ht.binarySplitsOption.isSet(), ht.parallelSplitEvaluationOption.isSet());
             return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
         }
 
@@ -465,12 +646,19 @@ public class HoeffdingTree extends AbstractClassifier {
 
     protected Node treeRoot;
 
+    protected transient CompiledHoeffdingTree compiledTree;
+
+    protected transient double compiledTreeWeight;
+
     protected int decisionNodeCount;
 
     protected int activeLeafNodeCount;
 
     protected int inactiveLeafNodeCount;
 
+    /** Class distributions of the inactive leaves. */
+    protected ClassDistributionArena inactiveLeafArena;
+
     protected double inactiveLeafByteSizeEstimate;
 
     protected double activeLeafByteSizeEstimate;
@@ -480,10 +668,13 @@ public class HoeffdingTree extends AbstractClassifier {
     protected boolean growthAllowed;
 
     public int calcByteSize() {
-        int size = (int) SizeOf.sizeOf(this);
+        int size = (int) SizeOf.shallowSizeOf(this);
         if (this.treeRoot != null) {
             size += this.treeRoot.calcByteSizeIncludingSubtree();
         }
+        if (this.inactiveLeafArena != null) {
+            size += this.inactiveLeafArena.measureSpareByteSize();
+        }
         return size;
     }
 
@@ -495,9 +686,12 @@ public class HoeffdingTree extends AbstractClassifier {
     @Override
     public void resetLearningImpl() {
         this.treeRoot = null;
+        this.compiledTree = null;
+        this.compiledTreeWeight = 0.0;
         this.decisionNodeCount = 0;
         this.activeLeafNodeCount = 0;
         this.inactiveLeafNodeCount = 0;
+        this.inactiveLeafArena = null;
         this.inactiveLeafByteSizeEstimate = 0.0;
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
@@ -510,14 +704,23 @@ public class HoeffdingTree extends AbstractClassifier {
     @Override
     public void trainOnInstanceImpl(Instance inst) {
         if (this.treeRoot == null) {
-            this.treeRoot = newLearningNode();
+            replaceNode(null, -1, newLearningNode());
             this.activeLeafNodeCount = 1;
         }
-        FoundNode foundNode = this.treeRoot.filterInstanceToLeaf(inst, null, -1);
+        trainOnFoundNode(inst, this.treeRoot.filterInstanceToLeaf(inst, null, -1));
+    }
+
+    /**
+     * Learns from an instance already sorted into the tree.
+     *
+     * @param inst the instance
+     * @param foundNode the node the instance is sorted to
+     */
+    protected void trainOnFoundNode(Instance inst, FoundNode foundNode) {
         Node leafNode = foundNode.node;
         if (leafNode == null) {
             leafNode = newLearningNode();
-            foundNode.parent.setChild(foundNode.parentBranch, leafNode);
+            replaceNode(foundNode.parent, foundNode.parentBranch, leafNode);
             this.activeLeafNodeCount++;
         }
         if (leafNode instanceof LearningNode) {
@@ -541,8 +744,116 @@ public class HoeffdingTree extends AbstractClassifier {
         }
     }
 
+    /**
+     * Gets whether trainOnInstances and getVotesForInstances can sort batches
+     * into the tree themselves. Subclasses that override trainOnInstanceImpl
+     * or getVotesForInstance return false, to process one instance at a time.
+     *
+     * @return true if batches are sorted level by level
+     */
+    protected boolean isBatchProcessingSupported() {
+        return true;
+    }
+
+    /**
+     * Sorts the instances of a batch from a given index to their nodes,
+     * moving all of them down the tree one level at a time. The nodes are as
+     * those found by filterInstanceToLeaf.
+     *
+     * @param batch the instances
+     * @param from the index of the first instance to sort
+     * @param foundNodes the array where the nodes are stored, by instance index
+     */
+    protected void filterInstancesToLeaves(Instances batch, int from,
+            FoundNode[] foundNodes) {
+        int[] pending = new int[batch.numInstances() - from];
+        int numPending = 0;
+        for (int i = from; i < batch.numInstances(); i++) {
+            foundNodes[i] = new FoundNode(this.treeRoot, null, -1);
+            pending[numPending++] = i;
+        }
+        while (numPending > 0) {
+            int stillPending = 0;
+            for (int p = 0; p < numPending; p++) {
+                int i = pending[p];
+                FoundNode foundNode = foundNodes[i];
+                if (foundNode.node instanceof SplitNode) {
+                    SplitNode splitNode = (SplitNode) foundNode.node;
+                    int childIndex = splitNode.instanceChildIndex(batch.instance(i));
+                    if (childIndex >= 0) {
+                        foundNode.node = splitNode.getChild(childIndex);
+                        foundNode.parent = splitNode;
+                        foundNode.parentBranch = childIndex;
+                        if (foundNode.node instanceof SplitNode) {
+                            pending[stillPending++] = i;
+                        }
+                    }
+                }
+            }
+            numPending = stillPending;
+        }
+    }
+
+    /**
+     * Trains on a batch, sorting all of its instances into the tree before
+     * learning from them in order. A split, or a new or replaced leaf, makes
+     * the remaining instances be sorted again, so the model is the same as
+     * with trainOnInstance.
+     *
+     * @param batch the instances to be used for training
+     */
+    @Override
+    public void trainOnInstances(Instances batch) {
+        if (!isBatchProcessingSupported()) {
+            super.trainOnInstances(batch);
+            return;
+        }
+        FoundNode[] foundNodes = new FoundNode[batch.numInstances()];
+        for (int i = 0; i < foundNodes.length; i++) {
+            Instance inst = batch.instance(i);
+            if (!isTrainingInstance(inst)) {
+                continue;
+            }
+            this.trainingWeightSeenByModel += inst.weight();
+            if (this.treeRoot == null) {
+                replaceNode(null, -1, newLearningNode());
+                this.activeLeafNodeCount = 1;
+            }
+            FoundNode foundNode = foundNodes[i];
+            if (foundNode == null || (foundNode.parent == null
+                    ? foundNode.node != this.treeRoot
+                    : foundNode.parent.getChild(foundNode.parentBranch) != foundNode.node)) {
+                filterInstancesToLeaves(batch, i, foundNodes);
+                foundNode = foundNodes[i];
+            }
+            trainOnFoundNode(inst, foundNode);
+        }
+    }
+
+    @Override
+    public double[][] getVotesForInstances(Instances batch) {
+        if (!isBatchProcessingSupported() || this.treeRoot == null
+                || isCompilingTree()) {
+            return super.getVotesForInstances(batch);
+        }
+        FoundNode[] foundNodes = new FoundNode[batch.numInstances()];
+        filterInstancesToLeaves(batch, 0, foundNodes);
+        double[][] votes = new double[foundNodes.length][];
+        for (int i = 0; i < votes.length; i++) {
+            Node leafNode = foundNodes[i].node;
+            if (leafNode == null) {
+                leafNode = foundNodes[i].parent;
+            }
+            votes[i] = leafNode.getClassVotes(batch.instance(i), this);
+        }
+        return votes;
+    }
+
     @Override
     public double[] getVotesForInstance(Instance inst) {
+        if (isCompilingTree()) {
+            return getCompiledTree().getVotesForInstance(inst);
+        }
         if (this.treeRoot != null) {
             FoundNode foundNode = this.treeRoot.filterInstanceToLeaf(inst,
                     null, -1);
@@ -557,6 +868,44 @@ public class HoeffdingTree extends AbstractClassifier {
           }
     }
 
+    @Override
+    public int getVotesForInstance(Instance inst, double[] out) {
+        if (isCompilingTree()) {
+            return getCompiledTree().getVotesForInstance(inst, out);
+        }
+        if (this.treeRoot != null) {
+            return findVotingNode(inst).getClassVotes(inst, this, out);
+        }
+        Arrays.fill(out, 0.0);
+        return inst.dataset().numClasses();
+    }
+
+    /**
+     * Finds the node whose class votes are those of the tree for an instance,
+     * as filterInstanceToLeaf does, without creating a FoundNode: the leaf
+     * the instance reaches, or the split node whose branch for the instance
+     * has no child.
+     *
+     * @param inst the instance
+     * @return the node
+     */
+    protected Node findVotingNode(Instance inst) {
+        Node node = this.treeRoot;
+        while (node instanceof SplitNode) {
+            SplitNode splitNode = (SplitNode) node;
+            int childIndex = splitNode.instanceChildIndex(inst);
+            if (childIndex < 0) {
+                break;
+            }
+            Node child = splitNode.getChild(childIndex);
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node;
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return new Measurement[]{
@@ -686,11 +1035,7 @@ public class HoeffdingTree extends AbstractClassifier {
                     this.activeLeafNodeCount--;
                     this.decisionNodeCount++;
                     this.activeLeafNodeCount += splitDecision.numSplits();
-                    if (parent == null) {
-                        this.treeRoot = newSplit;
-                    } else {
-                        parent.setChild(parentIndex, newSplit);
-                    }
+                    replaceNode(parent, parentIndex, newSplit);
                 }
                 // manage memory
                 enforceTrackerLimit();
@@ -747,13 +1092,14 @@ public class HoeffdingTree extends AbstractClassifier {
 
     public void estimateModelByteSizes() {
         FoundNode[] learningNodes = findLearningNodes();
+        releaseDetachedInactiveLeaves(learningNodes);
         long totalActiveSize = 0;
         long totalInactiveSize = 0;
         for (FoundNode foundNode : learningNodes) {
             if (foundNode.node instanceof ActiveLearningNode) {
-                totalActiveSize += SizeOf.fullSizeOf(foundNode.node);
+                totalActiveSize += foundNode.node.calcByteSize();
             } else {
-                totalInactiveSize += SizeOf.fullSizeOf(foundNode.node);
+                totalInactiveSize += foundNode.node.calcByteSize();
             }
         }
         if (totalActiveSize > 0) {
@@ -775,6 +1121,33 @@ public class HoeffdingTree extends AbstractClassifier {
         }
     }
 
+    /**
+     * Removes from the inactive leaf arena the rows of the leaves that are no
+     * longer in the tree, such as the leaves of a replaced subtree.
+     *
+     * @param learningNodes the learning nodes of the tree
+     */
+    protected void releaseDetachedInactiveLeaves(FoundNode[] learningNodes) {
+        if (this.inactiveLeafArena == null) {
+            return;
+        }
+        int numPacked = 0;
+        for (FoundNode foundNode : learningNodes) {
+            if (foundNode.node instanceof PackedInactiveLearningNode) {
+                numPacked++;
+            }
+        }
+        if (numPacked < this.inactiveLeafArena.numRowsInUse()) {
+            boolean[] live = new boolean[this.inactiveLeafArena.numRows()];
+            for (FoundNode foundNode : learningNodes) {
+                if (foundNode.node instanceof PackedInactiveLearningNode) {
+                    live[((PackedInactiveLearningNode) foundNode.node).getRow()] = true;
+                }
+            }
+            this.inactiveLeafArena.retainRows(live);
+        }
+    }
+
     public void deactivateAllLeaves() {
         FoundNode[] learningNodes = findLearningNodes();
         for (FoundNode learningNode : learningNodes)
@@ -787,11 +1160,12 @@ public class HoeffdingTree extends AbstractClassifier {
 
     protected void deactivateLearningNode(ActiveLearningNode toDeactivate,
             SplitNode parent, int parentBranch) {
-        Node newLeaf = new InactiveLearningNode(toDeactivate.getObservedClassDistribution());
-
-        if (parent == null) this.treeRoot = newLeaf;
-        else parent.setChild(parentBranch, newLeaf);
-
+        if (this.inactiveLeafArena == null) {
+            this.inactiveLeafArena = new ClassDistributionArena();
+        }
+        Node newLeaf = new PackedInactiveLearningNode(this.inactiveLeafArena,
+                toDeactivate.getObservedClassDistribution());
+        replaceNode(parent, parentBranch, newLeaf);
         this.activeLeafNodeCount--;
         this.inactiveLeafNodeCount++;
     }
@@ -799,15 +1173,71 @@ public class HoeffdingTree extends AbstractClassifier {
     protected void activateLearningNode(InactiveLearningNode toActivate,
             SplitNode parent, int parentBranch) {
         Node newLeaf = newLearningNode(toActivate.getObservedClassDistribution());
-        if (parent == null) {
-            this.treeRoot = newLeaf;
-        } else {
-            parent.setChild(parentBranch, newLeaf);
+        if (toActivate instanceof PackedInactiveLearningNode) {
+            ((PackedInactiveLearningNode) toActivate).release();
         }
+        replaceNode(parent, parentBranch, newLeaf);
         this.activeLeafNodeCount++;
         this.inactiveLeafNodeCount--;
     }
 
+    /**
+     * Puts a node in place of the root or of a child of a split node, and
+     * drops the compiled tree so that predictions no longer reach the node
+     * it replaces. Subclasses change the structure of the tree through this
+     * method.
+     *
+     * @param parent the split node holding the child, null for the root
+     * @param parentBranch the branch of the child in the parent
+     * @param newNode the node put in place
+     */
+    protected void replaceNode(SplitNode parent, int parentBranch, Node newNode) {
+        if (parent == null) {
+            this.treeRoot = newNode;
+        } else {
+            parent.setChild(parentBranch, newNode);
+        }
+        this.compiledTree = null;
+    }
+
+    /**
+     * Compiles the tree into flat arrays for fast predictions. The compiled
+     * tree predicts as this tree does until the structure of this tree
+     * changes, and can be kept to serve predictions of a tree that is no
+     * longer trained.
+     *
+     * @return the compiled tree
+     */
+    public CompiledHoeffdingTree compile() {
+        return new CompiledHoeffdingTree(this);
+    }
+
+    /**
+     * Checks whether predictions are served by a compiled tree. Subclasses
+     * that do not predict with the compiled tree hide the compile period.
+     *
+     * @return true if the compile period is set
+     */
+    protected boolean isCompilingTree() {
+        return this.compilePeriodOption != null
+                && this.compilePeriodOption.getValue() > 0;
+    }
+
+    /**
+     * Gets the compiled tree that serves predictions, compiling the tree
+     * again if its structure changed or the compile period has elapsed.
+     *
+     * @return the compiled tree
+     */
+    protected CompiledHoeffdingTree getCompiledTree() {
+        if (this.compiledTree == null || this.trainingWeightSeenByModel
+                - this.compiledTreeWeight >= this.compilePeriodOption.getValue()) {
+            this.compiledTree = compile();
+            this.compiledTreeWeight = this.trainingWeightSeenByModel;
+        }
+        return this.compiledTree;
+    }
+
     protected FoundNode[] findLearningNodes() {
         List<FoundNode> foundList = new LinkedList<FoundNode>();
         findLearningNodes(this.treeRoot, null, -1, foundList);
@@ -847,20 +1277,81 @@ public class HoeffdingTree extends AbstractClassifier {
 
         private static final long serialVersionUID = 1L;
 
+        /** Probability terms of the observers, rebuilt lazily per class. */
+        protected transient NaiveBayesCache naiveBayesCache;
+
         public LearningNodeNB(double[] initialClassObservations) {
             super(initialClassObservations);
         }
 
+        protected LearningNodeNB(LearningNodeNB toCopy, DeepCopier copier) {
+            super(toCopy, copier);
+        }
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            return new LearningNodeNB(this, copier);
+        }
+
+        @Override
+        public void learnFromInstance(Instance inst, HoeffdingTree ht) {
+            boolean wasInitialized = this.isInitialized;
+            super.learnFromInstance(inst, ht);
+            if (this.naiveBayesCache != null) {
+                if (wasInitialized) {
+                    this.naiveBayesCache.invalidateClass((int) inst.classValue());
+                } else {
+                    this.naiveBayesCache.invalidate();
+                }
+            }
+        }
+
+        /**
+         * Computes the votes of NaiveBayes.doNaiveBayesPrediction with the
+         * cached probability terms of the observers of this leaf.
+         *
+         * @param inst the instance
+         * @return the naive Bayes votes
+         */
+        protected double[] doNaiveBayesPrediction(Instance inst) {
+            if (this.naiveBayesCache == null) {
+                this.naiveBayesCache = new NaiveBayesCache();
+            }
+            return this.naiveBayesCache.getVotesForInstance(inst,
+                    this.observedClassDistribution, this.attributeObservers);
+        }
+
+        /**
+         * Computes the votes of doNaiveBayesPrediction into a buffer.
+         *
+         * @param inst the instance
+         * @param out the buffer for the votes
+         * @return the number of votes
+         */
+        protected int doNaiveBayesPrediction(Instance inst, double[] out) {
+            if (this.naiveBayesCache == null) {
+                this.naiveBayesCache = new NaiveBayesCache();
+            }
+            return this.naiveBayesCache.getVotesForInstance(inst,
+                    this.observedClassDistribution, this.attributeObservers, out);
+        }
+
         @Override
         public double[] getClassVotes(Instance inst, HoeffdingTree ht) {
             if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
-                return NaiveBayes.doNaiveBayesPrediction(inst,
-                        this.observedClassDistribution,
-                        this.attributeObservers);
+                return doNaiveBayesPrediction(inst);
             }
             return super.getClassVotes(inst, ht);
         }
 
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
+                return doNaiveBayesPrediction(inst, out);
+            }
+            return super.getClassVotes(inst, ht, out);
+        }
+
         @Override
         public void disableAttribute(int attIndex) {
             // should not disable poor atts - they are used in NB calc
@@ -879,14 +1370,24 @@ public class HoeffdingTree extends AbstractClassifier {
             super(initialClassObservations);
         }
 
+        protected LearningNodeNBAdaptive(LearningNodeNBAdaptive toCopy, DeepCopier copier) {
+            super(toCopy, copier);
+            this.mcCorrectWeight = toCopy.mcCorrectWeight;
+            this.nbCorrectWeight = toCopy.nbCorrectWeight;
+        }
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            return new LearningNodeNBAdaptive(this, copier);
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
             int trueClass = (int) inst.classValue();
             if (this.observedClassDistribution.maxIndex() == trueClass) {
                 this.mcCorrectWeight += inst.weight();
             }
-            if (Utils.maxIndex(NaiveBayes.doNaiveBayesPrediction(inst,
-                    this.observedClassDistribution, this.attributeObservers)) == trueClass) {
+            if (Utils.maxIndex(doNaiveBayesPrediction(inst)) == trueClass) {
                 this.nbCorrectWeight += inst.weight();
             }
             super.learnFromInstance(inst, ht);
@@ -897,8 +1398,16 @@ public class HoeffdingTree extends AbstractClassifier {
             if (this.mcCorrectWeight > this.nbCorrectWeight) {
                 return this.observedClassDistribution.getArrayCopy();
             }
-            return NaiveBayes.doNaiveBayesPrediction(inst,
-                    this.observedClassDistribution, this.attributeObservers);
+            return doNaiveBayesPrediction(inst);
+        }
+
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            if (this.mcCorrectWeight > this.nbCorrectWeight) {
+                return VoteBuffer.copyVotes(this.observedClassDistribution.getArrayRef(),
+                        this.observedClassDistribution.numValues(), out);
+            }
+            return doNaiveBayesPrediction(inst, out);
         }
     }
 
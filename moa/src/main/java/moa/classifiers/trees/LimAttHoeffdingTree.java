@@ -19,8 +19,12 @@
  */
 package moa.classifiers.trees;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.core.VoteBuffer;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.core.AutoExpandVector;
 import moa.core.Utils;
 import com.yahoo.labs.samoa.instances.Instance;
 
@@ -67,6 +71,122 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
         this.listAttributes = list;
     }
 
+    public int[] getlistAttributes() {
+        return this.listAttributes;
+    }
+
+    /**
+     * Attribute observers of the root, shared by trees that start learning
+     * together on the same instances, such as the trees of a LimAttClassifier.
+     * The owner observes each training instance once, for all the trees,
+     * instead of each tree observing it at its root. A tree uses the shared
+     * observers for the attributes in its list until its root is split.
+     */
+    public static class SharedRootObservers implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected LimAttHoeffdingTree observerFactory;
+
+        protected boolean[] isObserved = new boolean[0];
+
+        protected AutoExpandVector<AttributeClassObserver> attributeObservers = new AutoExpandVector<AttributeClassObserver>();
+
+        /**
+         * Creates shared observers.
+         *
+         * @param observerFactory a tree with the same options as the trees,
+         * that creates the observers
+         */
+        public SharedRootObservers(LimAttHoeffdingTree observerFactory) {
+            this.observerFactory = observerFactory;
+        }
+
+        /**
+         * Observes the attributes of a list from now on.
+         *
+         * @param list the indices of the attributes
+         */
+        public void addAttributes(int[] list) {
+            for (int i : list) {
+                if (i >= this.isObserved.length) {
+                    this.isObserved = Arrays.copyOf(this.isObserved, i + 1);
+                }
+                this.isObserved[i] = true;
+            }
+        }
+
+        public AttributeClassObserver getObserver(int attIndex) {
+            return this.attributeObservers.get(attIndex);
+        }
+
+        /**
+         * Observes an instance, as the root of each tree would.
+         *
+         * @param inst the instance
+         */
+        public void observe(Instance inst) {
+            for (int i = 0; i < this.isObserved.length; i++) {
+                if (this.isObserved[i]) {
+                    int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
+                    AttributeClassObserver obs = this.attributeObservers.get(i);
+                    if (obs == null) {
+                        obs = inst.attribute(instAttIndex).isNominal() ? this.observerFactory.newNominalClassObserver() : this.observerFactory.newNumericClassObserver();
+                        this.attributeObservers.set(i, obs);
+                    }
+                    obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+                }
+            }
+        }
+    }
+
+    /** The observers of the root, or null once the root no longer uses them. */
+    protected SharedRootObservers sharedRootObservers;
+
+    /**
+     * Makes the root of the tree use shared observers. It must be called
+     * before the tree learns, after setlistAttributes.
+     *
+     * @param observers the shared observers
+     */
+    public void setSharedRootObservers(SharedRootObservers observers) {
+        observers.addAttributes(this.listAttributes);
+        this.sharedRootObservers = observers;
+    }
+
+    /**
+     * Prepares the root to learn from an instance, if it uses shared
+     * observers. It must be called for every training instance before the
+     * shared observers observe it, so the root sees the observers as they
+     * were before the instance, like a root observing the instance itself.
+     *
+     * @param inst the instance
+     * @return true if the root uses the shared observers
+     */
+    public boolean prepareSharedRoot(Instance inst) {
+        if (this.sharedRootObservers == null) {
+            return false;
+        }
+        if (this.treeRoot == null) {
+            replaceNode(null, -1, newLearningNode());
+            this.activeLeafNodeCount = 1;
+        }
+        if (!(this.treeRoot instanceof LimAttLearningNode)
+                || ((LimAttLearningNode) this.treeRoot).sharedObservers == null) {
+            // the root was split or deactivated
+            this.sharedRootObservers = null;
+            return false;
+        }
+        ((LimAttLearningNode) this.treeRoot).prepareToLearnFromInstance(inst, this);
+        return true;
+    }
+
+    @Override
+    public void resetLearningImpl() {
+        this.sharedRootObservers = null;
+        super.resetLearningImpl();
+    }
+
     public static class LimAttLearningNode extends ActiveLearningNode {
 
         private static final long serialVersionUID = 1L;
@@ -77,6 +197,9 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
 
         protected int numAttributes;
 
+        /** The shared observers used by the node, or null. */
+        protected SharedRootObservers sharedObservers;
+
         public LimAttLearningNode(double[] initialClassObservations) {
             super(initialClassObservations);
         }
@@ -96,8 +219,15 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
 
             for (int j = 0; j < this.numAttributes; j++) {
                 int i = this.listAttributes[j];
-                int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
                 AttributeClassObserver obs = this.attributeObservers.get(i);
+                if (this.sharedObservers != null) {
+                    // already observed by the owner of the shared observers
+                    if (obs == null) {
+                        this.attributeObservers.set(i, this.sharedObservers.getObserver(i));
+                    }
+                    continue;
+                }
+                int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
                 if (obs == null) {
                     obs = inst.attribute(instAttIndex).isNominal() ? ht.newNominalClassObserver() : ht.newNumericClassObserver();
                     this.attributeObservers.set(i, obs);
@@ -105,6 +235,16 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
                 obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
             }
         }
+
+        /**
+         * Does the part of learning from an instance that must see the
+         * shared observers before they observe the instance.
+         *
+         * @param inst the instance
+         * @param ht the tree
+         */
+        public void prepareToLearnFromInstance(Instance inst, HoeffdingTree ht) {
+        }
     }
 
     public LimAttHoeffdingTree() {
@@ -129,6 +269,16 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
             return super.getClassVotes(inst, ht);
         }
 
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
+                return NaiveBayes.doNaiveBayesPrediction(inst,
+                        this.observedClassDistribution,
+                        this.attributeObservers, out);
+            }
+            return super.getClassVotes(inst, ht, out);
+        }
+
         @Override
         public void disableAttribute(int attIndex) {
             // should not disable poor atts - they are used in NB calc
@@ -149,6 +299,18 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
 
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
+            if (this.sharedObservers == null) {
+                updateCorrectWeights(inst);
+            }
+            super.learnFromInstance(inst, ht);
+        }
+
+        @Override
+        public void prepareToLearnFromInstance(Instance inst, HoeffdingTree ht) {
+            updateCorrectWeights(inst);
+        }
+
+        protected void updateCorrectWeights(Instance inst) {
             int trueClass = (int) inst.classValue();
             if (this.observedClassDistribution.maxIndex() == trueClass) {
                 this.mcCorrectWeight += inst.weight();
@@ -157,7 +319,6 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
                     this.observedClassDistribution, this.attributeObservers)) == trueClass) {
                 this.nbCorrectWeight += inst.weight();
             }
-            super.learnFromInstance(inst, ht);
         }
 
         @Override
@@ -172,6 +333,22 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
             }
             return ret;
         }
+
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            if (this.mcCorrectWeight > this.nbCorrectWeight) {
+                return VoteBuffer.copyVotes(this.observedClassDistribution.getArrayRef(),
+                        this.observedClassDistribution.numValues(), out);
+            }
+            int numVotes = NaiveBayes.doNaiveBayesPrediction(inst,
+                    this.observedClassDistribution, this.attributeObservers, out);
+            if (numVotes <= out.length) {
+                for (int i = 0; i < numVotes; i++) {
+                    out[i] *= this.observedClassDistribution.sumOfValues();
+                }
+            }
+            return numVotes;
+        }
     }
 
     @Override
@@ -185,6 +362,9 @@ public class LimAttHoeffdingTree extends HoeffdingTree {
         } else { //NBAdaptive
             ret = new LearningNodeNBAdaptive(initialClassObservations);
         }
+        if (this.treeRoot == null && this.sharedRootObservers != null) {
+            ((LimAttLearningNode) ret).sharedObservers = this.sharedRootObservers;
+        }
         return ret;
     }
 
@@ -20,6 +20,7 @@
 package moa.classifiers.trees;
 
 import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.core.VoteBuffer;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.core.Utils;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -104,6 +105,16 @@ public class RandomHoeffdingTree extends HoeffdingTree {
             return super.getClassVotes(inst, ht);
         }
 
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
+                return NaiveBayes.doNaiveBayesPrediction(inst,
+                        this.observedClassDistribution,
+                        this.attributeObservers, out);
+            }
+            return super.getClassVotes(inst, ht, out);
+        }
+
         @Override
         public void disableAttribute(int attIndex) {
             // should not disable poor atts - they are used in NB calc
@@ -143,6 +154,16 @@ public class RandomHoeffdingTree extends HoeffdingTree {
             return NaiveBayes.doNaiveBayesPrediction(inst,
                     this.observedClassDistribution, this.attributeObservers);
         }
+
+        @Override
+        public int getClassVotes(Instance inst, HoeffdingTree ht, double[] out) {
+            if (this.mcCorrectWeight > this.nbCorrectWeight) {
+                return VoteBuffer.copyVotes(this.observedClassDistribution.getArrayRef(),
+                        this.observedClassDistribution.numValues(), out);
+            }
+            return NaiveBayes.doNaiveBayesPrediction(inst,
+                    this.observedClassDistribution, this.attributeObservers, out);
+        }
     }
 
     public RandomHoeffdingTree() {
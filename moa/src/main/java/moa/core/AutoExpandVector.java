@@ -31,7 +31,7 @@ import moa.MOAObject;
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class AutoExpandVector<T> extends ArrayList<T> implements MOAObject {
+public class AutoExpandVector<T> extends ArrayList<T> implements MOAObject, DeepCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -120,9 +120,28 @@ public class AutoExpandVector<T> extends ArrayList<T> implements MOAObject {
         return AbstractMOAObject.copy(this);
     }
 
+    @Override
+    public Object deepCopy(DeepCopier copier) {
+        AutoExpandVector<T> copy = new AutoExpandVector<T>();
+        copier.register(this, copy);
+        ArrayList<T> elements = new ArrayList<T>(size());
+        for (T element : this) {
+            elements.add(copier.copy(element));
+        }
+        copy.addAll(elements);
+        return copy;
+    }
+
     @Override
     public int measureByteSize() {
-        return AbstractMOAObject.measureByteSize(this);
+        long byteSize = SizeOf.shallowSizeOf(this)
+                + SizeOf.sizeOfArray(size(), SizeOf.REFERENCE_SIZE);
+        for (T element : this) {
+            if (element instanceof MOAObject) {
+                byteSize += ((MOAObject) element).measureByteSize();
+            }
+        }
+        return (int) byteSize;
     }
 
     @Override
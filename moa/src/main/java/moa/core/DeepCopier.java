@@ -0,0 +1,433 @@
+/*
+ *    DeepCopier.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.Externalizable;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Deep copier of object graphs, producing the same copies as a round trip
+ * through Java serialization at a fraction of the cost.
+ *
+ * Objects implementing <code>DeepCopyable</code> copy themselves. Other
+ * objects are copied field by field, using field layouts cached per class.
+ * As with serialization, static and transient fields are not copied and
+ * shared references and cycles are preserved. The common collections of
+ * java.util are rebuilt with copied elements; other platform classes and
+ * classes that customize their serialization are copied by serialization.
+ *
+ * A copier keeps track of the objects it copied, so an instance must only
+ * be used for a single object graph. Use <code>copyObject</code> to copy
+ * a graph.
+ *
+ * Objects copied field by field are allocated without running a
+ * constructor, as serialization does, with <code>sun.misc.Unsafe</code>. It
+ * is only reached through reflection, and classes are copied by
+ * serialization when it is not available.
+ *
+ * @version $Revision: 7 $
+ */
+public class DeepCopier {
+
+    /** How the instances of a class are copied. */
+    protected enum Kind {
+        IMMUTABLE, PRIMITIVE_ARRAY, OBJECT_ARRAY, DEEP_COPYABLE, COLLECTION, MAP, FIELDS, SERIALIZED
+    }
+
+    protected static final int OBJECT = 0;
+
+    protected static final int BOOLEAN = 1;
+
+    protected static final int BYTE = 2;
+
+    protected static final int CHAR = 3;
+
+    protected static final int SHORT = 4;
+
+    protected static final int INT = 5;
+
+    protected static final int LONG = 6;
+
+    protected static final int FLOAT = 7;
+
+    protected static final int DOUBLE = 8;
+
+    /**
+     * Cached way to copy the instances of a class.
+     */
+    protected static class ClassLayout {
+
+        protected Kind kind;
+
+        /** The copied fields of the class and its superclasses. */
+        protected Field[] fields;
+
+        /** The type of each field, as one of the type constants. */
+        protected int[] fieldTypes;
+
+        public ClassLayout(Kind kind) {
+            this.kind = kind;
+        }
+    }
+
+    protected static final Set<Class<?>> IMMUTABLE_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Byte.class, Character.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class, Class.class, File.class));
+
+    protected static final Set<Class<?>> COLLECTION_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            ArrayList.class, LinkedList.class, ArrayDeque.class,
+            HashSet.class, LinkedHashSet.class, TreeSet.class));
+
+    protected static final Set<Class<?>> MAP_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            HashMap.class, TreeMap.class));
+
+    /** The sun.misc.Unsafe instance, or null if it is not available. */
+    protected static final Object UNSAFE;
+
+    /** The allocateInstance method of sun.misc.Unsafe. */
+    protected static final Method ALLOCATE_INSTANCE;
+
+    static {
+        Object unsafe = null;
+        Method allocateInstance = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+            unsafe = field.get(null);
+        } catch (Exception e) {
+            // copied by serialization
+        }
+        UNSAFE = unsafe;
+        ALLOCATE_INSTANCE = allocateInstance;
+    }
+
+    /** Marks a DeepCopyable object whose copy is being made. */
+    protected static final Object COPY_IN_PROGRESS = new Object();
+
+    protected static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<ClassLayout>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return createLayout(type);
+        }
+    };
+
+    /** The copies made so far, by original object. */
+    protected IdentityHashMap<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+    /**
+     * Returns a deep copy of an object graph.
+     *
+     * @param obj the object to copy
+     * @return the copy
+     */
+    public static <T> T copyObject(T obj) {
+        return new DeepCopier().copy(obj);
+    }
+
+    /**
+     * Returns the copy of an object of the graph being copied. An object that
+     * was already copied is not copied again.
+     *
+     * @param original the object to copy
+     * @return the copy
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copy(T original) {
+        if (original == null) {
+            return null;
+        }
+        ClassLayout layout = LAYOUTS.get(original.getClass());
+        if (layout.kind == Kind.IMMUTABLE) {
+            return original;
+        }
+        Object copy = this.copies.get(original);
+        if (copy == null) {
+            copy = createCopy(original, layout);
+        } else if (copy == COPY_IN_PROGRESS) {
+            throw new IllegalStateException("Object copy failed: "
+                    + original.getClass().getName()
+                    + " is referenced while it is copied, its deepCopy must register the copy first.");
+        }
+        return (T) copy;
+    }
+
+    /**
+     * Registers the copy of an object before the objects it references are
+     * copied. A <code>DeepCopyable</code> object that can be reached again
+     * from its references has to register its copy, so that the cycle is
+     * preserved.
+     *
+     * @param original the object being copied
+     * @param copy the copy
+     */
+    public void register(Object original, Object copy) {
+        this.copies.put(original, copy);
+    }
+
+    protected Object createCopy(Object original, ClassLayout layout) {
+        Object copy;
+        switch (layout.kind) {
+            case PRIMITIVE_ARRAY:
+                int length = Array.getLength(original);
+                copy = Array.newInstance(original.getClass().getComponentType(), length);
+                System.arraycopy(original, 0, copy, 0, length);
+                this.copies.put(original, copy);
+                return copy;
+            case OBJECT_ARRAY:
+                Object[] array = ((Object[]) original).clone();
+                this.copies.put(original, array);
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = copy(array[i]);
+                }
+                return array;
+            case DEEP_COPYABLE:
+                this.copies.put(original, COPY_IN_PROGRESS);
+                copy = ((DeepCopyable) original).deepCopy(this);
+                this.copies.put(original, copy);
+                return copy;
+            case COLLECTION:
+                return copyCollection((Collection<?>) original);
+            case MAP:
+                return copyMap((Map<?, ?>) original);
+            case FIELDS:
+                copy = allocateInstance(original.getClass());
+                this.copies.put(original, copy);
+                copyFields(original, copy, layout);
+                return copy;
+            default:
+                try {
+                    copy = SerializeUtils.copyObject((Serializable) original);
+                } catch (Exception e) {
+                    throw new RuntimeException("Object copy failed.", e);
+                }
+                this.copies.put(original, copy);
+                return copy;
+        }
+    }
+
+    protected static Object allocateInstance(Class<?> type) {
+        try {
+            return ALLOCATE_INSTANCE.invoke(UNSAFE, type);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Object copy failed.", e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Object copy failed.", e.getCause());
+        }
+    }
+
+    protected void copyFields(Object original, Object copy, ClassLayout layout) {
+        Field[] fields = layout.fields;
+        int[] fieldTypes = layout.fieldTypes;
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                switch (fieldTypes[i]) {
+                    case BOOLEAN:
+                        field.setBoolean(copy, field.getBoolean(original));
+                        break;
+                    case BYTE:
+                        field.setByte(copy, field.getByte(original));
+                        break;
+                    case CHAR:
+                        field.setChar(copy, field.getChar(original));
+                        break;
+                    case SHORT:
+                        field.setShort(copy, field.getShort(original));
+                        break;
+                    case INT:
+                        field.setInt(copy, field.getInt(original));
+                        break;
+                    case LONG:
+                        field.setLong(copy, field.getLong(original));
+                        break;
+                    case FLOAT:
+                        field.setFloat(copy, field.getFloat(original));
+                        break;
+                    case DOUBLE:
+                        field.setDouble(copy, field.getDouble(original));
+                        break;
+                    default:
+                        field.set(copy, copy(field.get(original)));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Object copy failed.", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Object copyCollection(Collection<?> original) {
+        Class<?> type = original.getClass();
+        Collection<Object> copy;
+        if (type == ArrayList.class) {
+            copy = new ArrayList<Object>(original.size());
+        } else if (type == LinkedList.class) {
+            copy = new LinkedList<Object>();
+        } else if (type == ArrayDeque.class) {
+            copy = new ArrayDeque<Object>(original.size());
+        } else if (type == HashSet.class) {
+            copy = new HashSet<Object>(Math.max(2 * original.size(), 16));
+        } else if (type == LinkedHashSet.class) {
+            copy = new LinkedHashSet<Object>(Math.max(2 * original.size(), 16));
+        } else {
+            copy = new TreeSet<Object>((Comparator<Object>) copy(((TreeSet<?>) original).comparator()));
+        }
+        this.copies.put(original, copy);
+        for (Object element : original) {
+            copy.add(copy(element));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Object copyMap(Map<?, ?> original) {
+        Map<Object, Object> copy;
+        if (original.getClass() == HashMap.class) {
+            copy = new HashMap<Object, Object>(Math.max(2 * original.size(), 16));
+        } else {
+            copy = new TreeMap<Object, Object>((Comparator<Object>) copy(((TreeMap<?, ?>) original).comparator()));
+        }
+        this.copies.put(original, copy);
+        for (Map.Entry<?, ?> entry : original.entrySet()) {
+            copy.put(copy(entry.getKey()), copy(entry.getValue()));
+        }
+        return copy;
+    }
+
+    protected static ClassLayout createLayout(Class<?> type) {
+        if (IMMUTABLE_CLASSES.contains(type) || type.isEnum()
+                || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+            return new ClassLayout(Kind.IMMUTABLE);
+        }
+        if (type.isArray()) {
+            return new ClassLayout(type.getComponentType().isPrimitive()
+                    ? Kind.PRIMITIVE_ARRAY : Kind.OBJECT_ARRAY);
+        }
+        if (COLLECTION_CLASSES.contains(type)) {
+            return new ClassLayout(Kind.COLLECTION);
+        }
+        if (MAP_CLASSES.contains(type)) {
+            return new ClassLayout(Kind.MAP);
+        }
+        if (DeepCopyable.class.isAssignableFrom(type)) {
+            try {
+                if (type.getMethod("deepCopy", DeepCopier.class).getDeclaringClass() == type) {
+                    return new ClassLayout(Kind.DEEP_COPYABLE);
+                }
+            } catch (NoSuchMethodException e) {
+                // cannot happen for an implementing class
+            }
+        }
+        if (UNSAFE == null || Externalizable.class.isAssignableFrom(type)) {
+            return new ClassLayout(Kind.SERIALIZED);
+        }
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            if (isPlatformClass(c) || hasCustomSerialization(c)) {
+                return new ClassLayout(Kind.SERIALIZED);
+            }
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        ClassLayout layout = new ClassLayout(Kind.FIELDS);
+        layout.fields = fields.toArray(new Field[fields.size()]);
+        layout.fieldTypes = new int[layout.fields.length];
+        for (int i = 0; i < layout.fields.length; i++) {
+            layout.fieldTypes[i] = getFieldType(layout.fields[i].getType());
+        }
+        return layout;
+    }
+
+    protected static int getFieldType(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return OBJECT;
+        } else if (type == boolean.class) {
+            return BOOLEAN;
+        } else if (type == byte.class) {
+            return BYTE;
+        } else if (type == char.class) {
+            return CHAR;
+        } else if (type == short.class) {
+            return SHORT;
+        } else if (type == int.class) {
+            return INT;
+        } else if (type == long.class) {
+            return LONG;
+        } else if (type == float.class) {
+            return FLOAT;
+        }
+        return DOUBLE;
+    }
+
+    protected static boolean isPlatformClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.")
+                || name.startsWith("jdk.");
+    }
+
+    protected static boolean hasCustomSerialization(Class<?> type) {
+        return hasDeclaredMethod(type, "writeObject", ObjectOutputStream.class)
+                || hasDeclaredMethod(type, "readObject", ObjectInputStream.class)
+                || hasDeclaredMethod(type, "readObjectNoData")
+                || hasDeclaredMethod(type, "writeReplace")
+                || hasDeclaredMethod(type, "readResolve");
+    }
+
+    protected static boolean hasDeclaredMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            type.getDeclaredMethod(name, parameterTypes);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
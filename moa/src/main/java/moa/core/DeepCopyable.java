@@ -0,0 +1,43 @@
+/*
+ *    DeepCopyable.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+/**
+ * Interface for objects that copy themselves for <code>DeepCopier</code>
+ * instead of being copied field by field.
+ *
+ * The copy is only used for objects whose class declares the
+ * <code>deepCopy</code> method itself, so a subclass that adds fields and
+ * does not override it is still copied correctly by the reflective copier.
+ *
+ * @version $Revision: 7 $
+ */
+public interface DeepCopyable {
+
+    /**
+     * Returns a copy of this object that shares no mutable state with it.
+     * Referenced objects that are not owned by this object alone have to be
+     * copied with the copier, so that shared references stay shared. If this
+     * object can be reached from them, the copy has to be registered with
+     * <code>DeepCopier.register</code> before they are copied.
+     *
+     * @param copier the copier of the object graph
+     * @return the copy
+     */
+    Object deepCopy(DeepCopier copier);
+}
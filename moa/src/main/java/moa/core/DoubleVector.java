@@ -27,7 +27,7 @@ import moa.AbstractMOAObject;
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class DoubleVector extends AbstractMOAObject {
+public class DoubleVector extends AbstractMOAObject implements DeepCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -46,6 +46,11 @@ public class DoubleVector extends AbstractMOAObject {
         this(toCopy.getArrayRef());
     }
 
+    @Override
+    public Object deepCopy(DeepCopier copier) {
+        return new DoubleVector(this);
+    }
+
     public int numValues() {
         return this.array.length;
     }
@@ -187,6 +192,11 @@ public class DoubleVector extends AbstractMOAObject {
         out.append("}");
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) (SizeOf.shallowSizeOf(this) + SizeOf.sizeOfArray(this.array.length, 8));
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         getSingleLineDescription(sb);
@@ -28,7 +28,7 @@ import moa.AbstractMOAObject;
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class GaussianEstimator extends AbstractMOAObject {
+public class GaussianEstimator extends AbstractMOAObject implements DeepCopyable {
 
     private static final long serialVersionUID = 1L;
 
@@ -40,6 +40,15 @@ public class GaussianEstimator extends AbstractMOAObject {
 
     public static final double NORMAL_CONSTANT = Math.sqrt(2 * Math.PI);
 
+    @Override
+    public Object deepCopy(DeepCopier copier) {
+        GaussianEstimator copy = new GaussianEstimator();
+        copy.weightSum = this.weightSum;
+        copy.mean = this.mean;
+        copy.varianceSum = this.varianceSum;
+        return copy;
+    }
+
     public void addObservation(double value, double weight) {
         if (Double.isInfinite(value) || Double.isNaN(value)) {
             return;
@@ -115,6 +124,11 @@ public class GaussianEstimator extends AbstractMOAObject {
         return new double[]{lessThanWeight, equalToWeight, greaterThanWeight};
     }
 
+    @Override
+    public int measureByteSize() {
+        return (int) SizeOf.shallowSizeOf(this);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -20,6 +20,9 @@
  */
 package moa.core;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import sizeof.agent.SizeOfAgent;
 
 /**
@@ -33,6 +36,31 @@ public class SizeOf {
     /** whether the agent is present. */
     protected static Boolean m_Present;
 
+    /** the estimated size of an object header, with compressed references. */
+    public static final int OBJECT_HEADER_SIZE = 12;
+
+    /** the estimated size of an array header, with compressed references. */
+    public static final int ARRAY_HEADER_SIZE = 16;
+
+    /** the estimated size of a reference, with compressed references. */
+    public static final int REFERENCE_SIZE = 4;
+
+    /** the estimated shallow sizes of the instances of each class. */
+    protected static final ClassValue<Long> m_ShallowSizes = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER_SIZE;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += sizeOfType(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
     /**
      * Checks whether the agent is present.
      *
@@ -65,6 +93,67 @@ public class SizeOf {
         }
     }
 
+    /**
+     * Returns the size of the object, without the objects it references.
+     * Unlike sizeOf, an estimate from the fields of the class is returned if
+     * the agent isn't present or not loaded as a Java agent. This is cheap enough to use for incremental
+     * size accounting of models.
+     *
+     * @param o	the object to get the size for
+     * @return the size of the object
+     */
+    public static long shallowSizeOf(Object o) {
+        long size = isPresent() ? SizeOfAgent.sizeOf(o) : 0;
+        if (size > 0) {
+            return size;
+        } else if (o.getClass().isArray()) {
+            return sizeOfArray(Array.getLength(o),
+                    sizeOfType(o.getClass().getComponentType()));
+        } else {
+            return m_ShallowSizes.get(o.getClass());
+        }
+    }
+
+    /**
+     * Returns the estimated size of an array.
+     *
+     * @param length	the length of the array
+     * @param elementSize	the size of an element in bytes
+     * @return the estimated size of the array
+     */
+    public static long sizeOfArray(int length, int elementSize) {
+        return align(ARRAY_HEADER_SIZE + (long) length * elementSize);
+    }
+
+    /**
+     * Returns the size of a field or array element of the given type.
+     *
+     * @param type	the type
+     * @return the size in bytes
+     */
+    protected static int sizeOfType(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return REFERENCE_SIZE;
+        } else if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Rounds a size up to the object alignment.
+     *
+     * @param size	the size
+     * @return the aligned size
+     */
+    protected static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
     /**
      * Returns the full size of the object.
      *
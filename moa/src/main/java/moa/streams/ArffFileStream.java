@@ -20,7 +20,11 @@
 package moa.streams;
 
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.ArffLoader;
+import com.yahoo.labs.samoa.instances.FastArffLoader;
+import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import java.io.BufferedReader;
@@ -29,9 +33,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader; 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import moa.core.InputStreamProgressMonitor;
 import moa.core.InstanceExample;
 import moa.core.ObjectRepository;
+import moa.core.StringUtils;
 import moa.options.AbstractOptionHandler;
 import moa.tasks.TaskMonitor;
 
@@ -42,7 +49,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class ArffFileStream extends AbstractOptionHandler implements
-        InstanceStream {
+        InstanceStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -60,10 +67,24 @@ public class ArffFileStream extends AbstractOptionHandler implements
             "Class index of data. 0 for none or -1 for last attribute in file.",
             -1, -1, Integer.MAX_VALUE);
 
+    public FlagOption fastParserOption = new FlagOption("fastParser", 'p',
+            "Parse the data with the byte-level FastArffLoader instead of a StreamTokenizer.");
+
+    public IntOption prefetchSizeOption = new IntOption("prefetchSize", 'b',
+            "Number of instances parsed ahead on a background thread, 0 to parse on the calling thread.",
+            0, 0, Integer.MAX_VALUE);
+
+    /** Marks the end of the file in the prefetch queue. */
+    protected static final InstanceExample END_OF_FILE = new InstanceExample(null);
+
     protected Instances instances;
 
     protected Reader fileReader;
 
+    protected FastArffLoader fastLoader;
+
+    protected ArffLoader arffLoader;
+
     protected boolean hitEndOfFile;
 
     protected InstanceExample lastInstanceRead;
@@ -72,6 +93,35 @@ public class ArffFileStream extends AbstractOptionHandler implements
 
     protected InputStreamProgressMonitor fileProgressMonitor;
 
+    /**
+     * Recyclers of the instances returned in reuse mode, used in turn since
+     * the stream reads one instance ahead.
+     */
+    protected InstanceRecycler[] recyclers = {new InstanceRecycler(), new InstanceRecycler()};
+
+    protected transient InstancesHeader recycledHeader;
+
+    protected transient ArrayBlockingQueue<InstanceExample> prefetchQueue;
+
+    protected transient Thread prefetchThread;
+
+    protected transient volatile Throwable prefetchError;
+
+    /**
+     * The error of the prefetch thread once the stream has reached it. It is
+     * thrown by every read until the stream is restarted.
+     */
+    protected transient Throwable readError;
+
+    /** Number of instances parsed by the prefetch thread. */
+    protected transient volatile int numInstancesParsed;
+
+    /** Number of times the prefetch thread waited for a free slot. */
+    protected transient AtomicLong producerStalls;
+
+    /** Number of times the stream waited for the prefetch thread. */
+    protected transient long consumerStalls;
+
     public ArffFileStream() {
     }
 
@@ -95,8 +145,11 @@ public class ArffFileStream extends AbstractOptionHandler implements
     @Override
     public long estimatedRemainingInstances() {
         double progressFraction = this.fileProgressMonitor.getProgressFraction();
-        if ((progressFraction > 0.0) && (this.numInstancesRead > 0)) {
-            return (long) ((this.numInstancesRead / progressFraction) - this.numInstancesRead);
+        // the progress monitor is ahead of the stream when prefetching
+        int numInstancesParsed = this.prefetchQueue != null
+                ? this.numInstancesParsed : this.numInstancesRead;
+        if ((progressFraction > 0.0) && (numInstancesParsed > 0)) {
+            return (long) ((numInstancesParsed / progressFraction) - this.numInstancesRead);
         }
         return -1;
     }
@@ -121,23 +174,33 @@ public class ArffFileStream extends AbstractOptionHandler implements
     @Override
     public void restart() {
         try {
-            if (this.fileReader != null) {
-                this.fileReader.close();
-            }
+            stopPrefetching();
+            closeFile();
             InputStream fileStream = new FileInputStream(this.arffFileOption.getFile());
             this.fileProgressMonitor = new InputStreamProgressMonitor(
                     fileStream);
-            this.fileReader = new BufferedReader(new InputStreamReader(
-                    this.fileProgressMonitor));
             int classIndex = this.classIndexOption.getValue();
-            this.instances = new Instances(this.fileReader, 1, classIndex);
+            if (this.fastParserOption.isSet()) {
+                this.fastLoader = new FastArffLoader(this.fileProgressMonitor, classIndex);
+                this.instances = new Instances(this.fastLoader);
+            } else {
+                this.fileReader = new BufferedReader(new InputStreamReader(
+                        this.fileProgressMonitor));
+                this.arffLoader = new ArffLoader(this.fileReader, classIndex);
+                this.instances = new Instances(this.arffLoader);
+            }
             if (classIndex < 0) {
 		this.instances.setClassIndex(this.instances.numAttributes() - 1);
             } else if (this.classIndexOption.getValue() > 0) {
                 this.instances.setClassIndex(this.classIndexOption.getValue() - 1);
 				}
+            this.recycledHeader = new InstancesHeader(this.instances);
             this.numInstancesRead = 0;
             this.lastInstanceRead = null;
+            this.readError = null;
+            if (this.prefetchSizeOption.getValue() > 0) {
+                startPrefetching(this.prefetchSizeOption.getValue());
+            }
             this.hitEndOfFile = !readNextInstanceFromFile();
         } catch (IOException ioe) {
             throw new RuntimeException("ArffFileStream restart failed.", ioe);
@@ -145,26 +208,230 @@ public class ArffFileStream extends AbstractOptionHandler implements
     }
 
     protected boolean readNextInstanceFromFile() {
+        if (this.readError != null) {
+            throw new RuntimeException(
+                    "ArffFileStream failed to read instance from stream.", this.readError);
+        }
+        InstanceExample example = this.prefetchQueue != null
+                ? takePrefetchedInstance() : parseNextInstance(this.instances);
+        if (example != null) {
+            this.lastInstanceRead = example;
+            this.numInstancesRead++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parses the next instance of the file, and closes the file when its end
+     * has been reached.
+     *
+     * @param parsed the instances the StreamTokenizer parser reads into
+     * @return the instance, or null at the end of the file
+     */
+    protected InstanceExample parseNextInstance(Instances parsed) {
+        if (this.fastLoader == null && this.fileReader == null) {
+            return null; // already closed
+        }
         try {
-            if (this.instances.readInstance(this.fileReader)) {
-                this.lastInstanceRead = new InstanceExample(this.instances.instance(0));
-                this.instances.delete(); // keep instances clean
-                this.numInstancesRead++;
-                return true;
-            }
-            if (this.fileReader != null) {
-                this.fileReader.close();
-                this.fileReader = null;
+            if (this.fastLoader != null) {
+                Instance inst;
+                if (isReusingInstances() && this.prefetchQueue == null) {
+                    InstanceRecycler recycler = this.recyclers[this.numInstancesRead % 2];
+                    Instance reusable = recycler.newInstance(this.recycledHeader);
+                    inst = this.fastLoader.readInstance(reusable);
+                    if (inst == reusable) {
+                        return recycler.newExample(inst);
+                    }
+                } else {
+                    inst = this.fastLoader.readInstance();
+                }
+                if (inst != null) {
+                    inst.setDataset(this.instances);
+                    return new InstanceExample(inst);
+                }
+            } else if (parsed.readInstance(this.fileReader)) {
+                InstanceExample example = new InstanceExample(parsed.instance(0));
+                parsed.delete(); // keep instances clean
+                return example;
             }
-            return false;
+            closeFile();
+            return null;
         } catch (IOException ioe) {
             throw new RuntimeException(
                     "ArffFileStream failed to read instance from stream.", ioe);
         }
     }
 
+    /**
+     * Starts a background thread that parses the file into a bounded queue.
+     *
+     * @param capacity the number of instances parsed ahead
+     */
+    protected void startPrefetching(int capacity) {
+        this.prefetchQueue = new ArrayBlockingQueue<InstanceExample>(capacity);
+        this.prefetchError = null;
+        this.numInstancesParsed = 0;
+        this.producerStalls = new AtomicLong();
+        this.consumerStalls = 0;
+        final ArrayBlockingQueue<InstanceExample> queue = this.prefetchQueue;
+        // the header read by getHeader is not parsed into by the thread
+        final Instances parsed = this.arffLoader != null
+                ? new Instances(this.arffLoader) : null;
+        this.prefetchThread = new Thread("ArffFileStream prefetch") {
+            @Override
+            public void run() {
+                boolean closed = false;
+                try {
+                    while (true) {
+                        InstanceExample example;
+                        try {
+                            example = parseNextInstance(parsed);
+                        } catch (Throwable t) {
+                            prefetchError = t;
+                            example = null;
+                        }
+                        if (example == null) {
+                            // closed before the stream sees the end and can restart
+                            closePrefetchedFile();
+                            closed = true;
+                            queue.put(END_OF_FILE);
+                            return;
+                        }
+                        numInstancesParsed++;
+                        if (!queue.offer(example)) {
+                            producerStalls.incrementAndGet();
+                            queue.put(example);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // stopped by restart
+                } finally {
+                    if (!closed) {
+                        closePrefetchedFile();
+                    }
+                }
+            }
+        };
+        this.prefetchThread.setDaemon(true);
+        this.prefetchThread.start();
+    }
+
+    /**
+     * Closes the file from the prefetch thread, once it stops reading it.
+     * An error is kept for the stream unless the thread already failed.
+     */
+    protected void closePrefetchedFile() {
+        try {
+            closeFile();
+        } catch (Throwable t) {
+            if (this.prefetchError == null) {
+                this.prefetchError = t;
+            }
+        }
+    }
+
+    /**
+     * Stops the prefetch thread, if any. The thread closes the file.
+     */
+    protected void stopPrefetching() {
+        if (this.prefetchThread != null) {
+            this.prefetchThread.interrupt();
+            try {
+                this.prefetchThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("ArffFileStream interrupted while stopping prefetch.", e);
+            }
+            this.prefetchThread = null;
+        }
+        this.prefetchQueue = null;
+    }
+
+    /**
+     * Sets whether this stream refills the same instances. Instances are only
+     * reused when parsing with the fast parser and without prefetching.
+     *
+     * @param reuse true to reuse instances
+     */
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        for (InstanceRecycler recycler : this.recyclers) {
+            recycler.setReuse(reuse);
+        }
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recyclers[0].isReusing();
+    }
+
+    protected InstanceExample takePrefetchedInstance() {
+        InstanceExample example = this.prefetchQueue.poll();
+        if (example == null) {
+            this.consumerStalls++;
+            try {
+                example = this.prefetchQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("ArffFileStream interrupted while waiting for prefetch.", e);
+            }
+        }
+        if (example == END_OF_FILE) {
+            // the thread has finished, later reads see the closed file
+            this.prefetchThread = null;
+            this.prefetchQueue = null;
+            if (this.prefetchError != null) {
+                this.readError = this.prefetchError;
+                throw new RuntimeException(
+                        "ArffFileStream failed to read instance from stream.", this.readError);
+            }
+            return null;
+        }
+        return example;
+    }
+
+    /**
+     * Gets the number of times the prefetch thread had to wait because the
+     * queue was full, i.e. the consumer of the stream is the bottleneck.
+     *
+     * @return the number of producer stalls
+     */
+    public long getPrefetchProducerStalls() {
+        return this.producerStalls == null ? 0 : this.producerStalls.get();
+    }
+
+    /**
+     * Gets the number of times the stream had to wait because the queue was
+     * empty, i.e. reading and parsing the file is the bottleneck.
+     *
+     * @return the number of consumer stalls
+     */
+    public long getPrefetchConsumerStalls() {
+        return this.consumerStalls;
+    }
+
+    protected void closeFile() throws IOException {
+        if (this.fileReader != null) {
+            this.fileReader.close();
+            this.fileReader = null;
+        }
+        if (this.fastLoader != null) {
+            this.fileProgressMonitor.close();
+            this.fastLoader = null;
+        }
+        this.arffLoader = null;
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
-        // TODO Auto-generated method stub
+        if (this.producerStalls != null) {
+            StringUtils.appendIndented(sb, indent, "Prefetch producer stalls: ");
+            sb.append(getPrefetchProducerStalls());
+            StringUtils.appendNewline(sb);
+            StringUtils.appendIndented(sb, indent, "Prefetch consumer stalls: ");
+            sb.append(getPrefetchConsumerStalls());
+            StringUtils.appendNewline(sb);
+        }
     }
 }
\ No newline at end of file
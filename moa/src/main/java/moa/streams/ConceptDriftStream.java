@@ -49,7 +49,7 @@ import com.yahoo.labs.samoa.instances.Instance;
  * @version $Revision: 7 $
  */
 public class ConceptDriftStream extends AbstractOptionHandler implements
-        ExampleStream {
+        ExampleStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -86,6 +86,8 @@ public class ConceptDriftStream extends AbstractOptionHandler implements
 
     protected int numberInstanceStream;
 
+    protected boolean reuseInstances;
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -114,6 +116,22 @@ public class ConceptDriftStream extends AbstractOptionHandler implements
         return (this.inputStream.hasMoreInstances() || this.driftStream.hasMoreInstances());
     }
 
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.reuseInstances = reuse;
+        if (this.inputStream instanceof ReusableInstanceStream) {
+            ((ReusableInstanceStream) this.inputStream).setReuseInstances(reuse);
+        }
+        if (this.driftStream instanceof ReusableInstanceStream) {
+            ((ReusableInstanceStream) this.driftStream).setReuseInstances(reuse);
+        }
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.reuseInstances;
+    }
+
     @Override
     public boolean isRestartable() {
         return (this.inputStream.isRestartable() && this.driftStream.isRestartable());
@@ -0,0 +1,87 @@
+/*
+ *    InstanceRecycler.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.io.Serializable;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import moa.core.InstanceExample;
+
+/**
+ * Hands out the dense instances of a stream. In reuse mode it always hands
+ * out the same instance and example, created again only when the header
+ * changes, otherwise a new instance for every call.
+ *
+ * @see ReusableInstanceStream
+ * @version $Revision: 7 $
+ */
+public class InstanceRecycler implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected boolean reuse;
+
+    protected transient InstancesHeader header;
+
+    protected transient InstanceExample example;
+
+    public void setReuse(boolean reuse) {
+        this.reuse = reuse;
+        this.example = null;
+    }
+
+    public boolean isReusing() {
+        return this.reuse;
+    }
+
+    /**
+     * Gets a dense instance with the given header and a weight of 1. In reuse
+     * mode the values are those of the previous instance and must all be set.
+     *
+     * @param header the header of the stream
+     * @return the instance
+     */
+    public Instance newInstance(InstancesHeader header) {
+        if (!this.reuse) {
+            Instance inst = new DenseInstance(header.numAttributes());
+            inst.setDataset(header);
+            return inst;
+        }
+        if (this.example == null || this.header != header) {
+            Instance inst = new DenseInstance(header.numAttributes());
+            inst.setDataset(header);
+            this.header = header;
+            this.example = new InstanceExample(inst);
+        }
+        Instance inst = this.example.getData();
+        inst.setWeight(1.0);
+        return inst;
+    }
+
+    /**
+     * Gets the example of an instance returned by newInstance.
+     *
+     * @param inst the instance
+     * @return the example
+     */
+    public InstanceExample newExample(Instance inst) {
+        return this.reuse ? this.example : new InstanceExample(inst);
+    }
+}
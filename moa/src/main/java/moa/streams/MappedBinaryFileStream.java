@@ -0,0 +1,438 @@
+/*
+ *    MappedBinaryFileStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import com.github.javacliparser.FileOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceImpl;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import moa.core.InstanceExample;
+import moa.core.ObjectRepository;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Stream reader of binary instance files written by
+ * <code>WriteStreamToBinaryFile</code>. The file is memory mapped and values
+ * are read directly from the mapping, so no text has to be parsed.
+ *
+ * <p>File layout (big endian):</p>
+ * <ul>
+ * <li>magic number, format version, bytes per value (8 for doubles, 4 for
+ * floats) and the number of instances;</li>
+ * <li>the serialized <code>InstancesHeader</code>, preceded by its length;</li>
+ * <li>one row per instance: the number of stored values (-1 for a dense
+ * row), the weight, and then either all attribute values or the index/value
+ * pairs of a sparse row.</li>
+ * </ul>
+ *
+ * @version $Revision: 7 $
+ */
+public class MappedBinaryFileStream extends AbstractOptionHandler implements
+        InstanceStream, ReusableInstanceStream {
+
+    @Override
+    public String getPurposeString() {
+        return "A stream read from a memory mapped binary instance file.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    /** "MOAB" */
+    public static final int MAGIC = 0x4D4F4142;
+
+    public static final int VERSION = 1;
+
+    /** Position of the number of instances in the file. */
+    public static final long NUM_INSTANCES_POSITION = 12;
+
+    /** Row tag of a dense row. */
+    public static final int DENSE_ROW = -1;
+
+    /** Maximum number of bytes mapped at once. */
+    protected static final long MAX_MAPPED_BYTES = 1L << 30;
+
+    public FileOption binaryFileOption = new FileOption("binaryFile", 'f',
+            "Binary instance file to load.", null, "bin", false);
+
+    protected InstancesHeader header;
+
+    protected int numAttributes;
+
+    protected boolean floatValues;
+
+    protected long numInstances;
+
+    protected long numInstancesRead;
+
+    protected InstanceRecycler recycler = new InstanceRecycler();
+
+    /** File position of the first row. */
+    protected long dataStart;
+
+    protected transient RandomAccessFile file;
+
+    protected transient MappedByteBuffer mapped;
+
+    /** File position of the start of the mapping. */
+    protected long mappedStart;
+
+    public MappedBinaryFileStream() {
+    }
+
+    public MappedBinaryFileStream(String binaryFileName) {
+        this.binaryFileOption.setValue(binaryFileName);
+        restart();
+    }
+
+    @Override
+    public void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        restart();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        return this.numInstances - this.numInstancesRead;
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        return this.numInstancesRead < this.numInstances;
+    }
+
+    @Override
+    public InstanceExample nextInstance() {
+        if (!hasMoreInstances()) {
+            // the file is closed after the last row, as ArffFileStream
+            return null;
+        }
+        try {
+            ensureMapped(12);
+            int numValues = this.mapped.getInt();
+            double weight = this.mapped.getDouble();
+            ensureMapped(rowBytes(numValues));
+            InstanceExample example;
+            if (numValues == DENSE_ROW && this.recycler.isReusing()) {
+                Instance inst = this.recycler.newInstance(this.header);
+                inst.setWeight(weight);
+                readValues(this.mapped, inst);
+                example = this.recycler.newExample(inst);
+            } else {
+                example = new InstanceExample(readRow(this.mapped, numValues, weight));
+            }
+            this.numInstancesRead++;
+            if (!hasMoreInstances()) {
+                closeFile();
+            }
+            return example;
+        } catch (IOException ioe) {
+            throw new RuntimeException(
+                    "MappedBinaryFileStream failed to read instance from file.", ioe);
+        }
+    }
+
+    /**
+     * Reads the values of a row whose number of values and weight have
+     * already been read.
+     */
+    protected Instance readRow(ByteBuffer buffer, int numValues, double weight) {
+        Instance inst;
+        if (numValues == DENSE_ROW) {
+            double[] values = new double[this.numAttributes];
+            readValues(buffer, values, this.numAttributes);
+            inst = new InstanceImpl(weight, this.header, values);
+        } else {
+            int[] indices = new int[numValues];
+            for (int i = 0; i < numValues; i++) {
+                indices[i] = buffer.getInt();
+            }
+            double[] values = new double[numValues];
+            readValues(buffer, values, numValues);
+            inst = new InstanceImpl(weight, values, indices, this.numAttributes);
+            inst.setDataset(this.header);
+        }
+        return inst;
+    }
+
+    protected void readValues(ByteBuffer buffer, double[] values, int numValues) {
+        if (this.floatValues) {
+            for (int i = 0; i < numValues; i++) {
+                values[i] = buffer.getFloat();
+            }
+        } else {
+            for (int i = 0; i < numValues; i++) {
+                values[i] = buffer.getDouble();
+            }
+        }
+    }
+
+    /**
+     * Reads the values of a dense row into an instance.
+     */
+    protected void readValues(ByteBuffer buffer, Instance inst) {
+        if (this.floatValues) {
+            for (int i = 0; i < this.numAttributes; i++) {
+                inst.setValue(i, buffer.getFloat());
+            }
+        } else {
+            for (int i = 0; i < this.numAttributes; i++) {
+                inst.setValue(i, buffer.getDouble());
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes of a row after its number of values and
+     * weight.
+     */
+    protected int rowBytes(int numValues) {
+        return numValues == DENSE_ROW ? this.numAttributes * valueBytes()
+                : numValues * (4 + valueBytes());
+    }
+
+    /**
+     * Gets the file positions of rows that split the first rows of the file
+     * in ranges of at most the given number of instances and bytes. Only the
+     * row lengths are read. The last position is the end of the last row.
+     *
+     * @param maxRows the number of rows to split, at most the number of
+     * instances of the file
+     * @param maxRowsPerRange the maximum number of rows in a range
+     * @param maxBytesPerRange the maximum number of bytes in a range
+     * @return the positions
+     */
+    public List<Long> getRangeOffsets(long maxRows, int maxRowsPerRange, long maxBytesPerRange) throws IOException {
+        long numRows = Math.min(maxRows, this.numInstances);
+        List<Long> offsets = new ArrayList<Long>();
+        RandomAccessFile rangeFile = new RandomAccessFile(this.binaryFileOption.getFile(), "r");
+        try {
+            FileChannel channel = rangeFile.getChannel();
+            long position = this.dataStart;
+            long rangeStart = position;
+            int rowsInRange = 0;
+            offsets.add(position);
+            MappedByteBuffer buffer = null;
+            long bufferStart = 0;
+            for (long row = 0; row < numRows; row++) {
+                if (buffer == null || position + 4 > bufferStart + buffer.limit()) {
+                    bufferStart = position;
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, bufferStart,
+                            Math.min(channel.size() - bufferStart, MAX_MAPPED_BYTES));
+                }
+                long rowLength = 12 + rowBytes(buffer.getInt((int) (position - bufferStart)));
+                if (rowsInRange == maxRowsPerRange
+                        || (rowsInRange > 0 && position + rowLength - rangeStart > maxBytesPerRange)) {
+                    offsets.add(position);
+                    rangeStart = position;
+                    rowsInRange = 0;
+                }
+                position += rowLength;
+                rowsInRange++;
+            }
+            if (numRows > 0) {
+                offsets.add(position);
+            }
+        } finally {
+            rangeFile.close();
+        }
+        return offsets;
+    }
+
+    /**
+     * Reads all instances stored between two row positions into a list. The
+     * range is mapped separately, so ranges can be read concurrently.
+     *
+     * @param start the position of the first row
+     * @param end the position after the last row
+     * @param instances the list to add the instances to
+     */
+    public void readRange(long start, long end, List<Instance> instances) throws IOException {
+        RandomAccessFile rangeFile = new RandomAccessFile(this.binaryFileOption.getFile(), "r");
+        try {
+            ByteBuffer buffer = rangeFile.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    start, end - start);
+            while (buffer.hasRemaining()) {
+                int numValues = buffer.getInt();
+                double weight = buffer.getDouble();
+                instances.add(readRow(buffer, numValues, weight));
+            }
+        } finally {
+            rangeFile.close();
+        }
+    }
+
+    protected int valueBytes() {
+        return this.floatValues ? 4 : 8;
+    }
+
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.recycler.setReuse(reuse);
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recycler.isReusing();
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    @Override
+    public void restart() {
+        try {
+            closeFile();
+            this.file = new RandomAccessFile(this.binaryFileOption.getFile(), "r");
+            mapFrom(0);
+            if (this.mapped.getInt() != MAGIC) {
+                throw new IOException("Not a binary instance file: " + this.binaryFileOption.getFile());
+            }
+            int version = this.mapped.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary instance file version: " + version);
+            }
+            this.floatValues = this.mapped.getInt() == 4;
+            this.numInstances = this.mapped.getLong();
+            byte[] headerBytes = new byte[this.mapped.getInt()];
+            this.mapped.get(headerBytes);
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(headerBytes));
+            this.header = (InstancesHeader) in.readObject();
+            in.close();
+            this.numAttributes = this.header.numAttributes();
+            this.dataStart = this.mappedStart + this.mapped.position();
+            this.numInstancesRead = 0;
+            if (!hasMoreInstances()) {
+                closeFile();
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("MappedBinaryFileStream restart failed.", ioe);
+        } catch (ClassNotFoundException cnfe) {
+            throw new RuntimeException("MappedBinaryFileStream restart failed.", cnfe);
+        }
+    }
+
+    /**
+     * Makes sure that the given number of bytes can be read from the mapping,
+     * mapping the next region of the file if necessary.
+     */
+    protected void ensureMapped(int numBytes) throws IOException {
+        if (this.mapped.remaining() < numBytes) {
+            mapFrom(this.mappedStart + this.mapped.position());
+        }
+    }
+
+    protected void mapFrom(long position) throws IOException {
+        FileChannel channel = this.file.getChannel();
+        long size = Math.min(channel.size() - position, MAX_MAPPED_BYTES);
+        this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        this.mappedStart = position;
+    }
+
+    protected void closeFile() throws IOException {
+        if (this.file != null) {
+            this.file.close();
+            this.file = null;
+        }
+    }
+
+    /**
+     * Writes the start of a binary instance file. The number of instances is
+     * written at <code>NUM_INSTANCES_POSITION</code> and can be updated once
+     * all instances have been written.
+     *
+     * @param out the output
+     * @param header the header of the stream
+     * @param floatValues whether values are stored as floats
+     * @param numInstances the number of instances
+     */
+    public static void writeFileHeader(DataOutputStream out, InstancesHeader header,
+            boolean floatValues, long numInstances) throws IOException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        ObjectOutputStream headerOut = new ObjectOutputStream(headerBytes);
+        headerOut.writeObject(header);
+        headerOut.close();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(floatValues ? 4 : 8);
+        out.writeLong(numInstances);
+        out.writeInt(headerBytes.size());
+        headerBytes.writeTo(out);
+    }
+
+    /**
+     * Writes one instance as a row of a binary instance file. Instances that
+     * store fewer values than attributes are written as sparse rows.
+     *
+     * @param out the output
+     * @param inst the instance
+     * @param floatValues whether values are stored as floats
+     */
+    public static void writeInstance(DataOutputStream out, Instance inst,
+            boolean floatValues) throws IOException {
+        int numValues = inst.numValues();
+        boolean sparse = numValues < inst.numAttributes();
+        out.writeInt(sparse ? numValues : DENSE_ROW);
+        out.writeDouble(inst.weight());
+        if (sparse) {
+            for (int i = 0; i < numValues; i++) {
+                out.writeInt(inst.index(i));
+            }
+            for (int i = 0; i < numValues; i++) {
+                writeValue(out, inst.valueSparse(i), floatValues);
+            }
+        } else {
+            for (int i = 0; i < inst.numAttributes(); i++) {
+                writeValue(out, inst.value(i), floatValues);
+            }
+        }
+    }
+
+    protected static void writeValue(DataOutputStream out, double value,
+            boolean floatValues) throws IOException {
+        if (floatValues) {
+            out.writeFloat((float) value);
+        } else {
+            out.writeDouble(value);
+        }
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        // TODO Auto-generated method stub
+    }
+}
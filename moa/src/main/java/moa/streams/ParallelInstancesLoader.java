@@ -0,0 +1,456 @@
+/*
+ *    ParallelInstancesLoader.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import com.yahoo.labs.samoa.instances.FastArffLoader;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceInformation;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Loads a whole ARFF or binary instance file into memory with several
+ * threads. The file is split into ranges of complete lines (or rows), the
+ * ranges are parsed concurrently on a fork-join pool and the resulting
+ * segments are concatenated in their original order, so the instances are
+ * the same and in the same order as when reading the file as a stream. A
+ * range stops being parsed once the ranges up to it hold the maximum number
+ * of instances, and all stop when the task monitor asks to abort.
+ *
+ * @version $Revision: 7 $
+ */
+public class ParallelInstancesLoader {
+
+    /** Number of ranges per thread, to balance uneven ranges. */
+    protected static final int RANGES_PER_THREAD = 4;
+
+    /** Maximum number of bytes of a binary range, which is mapped at once. */
+    protected static final long MAX_BINARY_RANGE_BYTES = 1L << 28;
+
+    /** Number of rows a range parses between checks of whether to stop. */
+    protected static final int ROWS_BETWEEN_CHECKS = 100;
+
+    /** Time between updates of the task monitor, in milliseconds. */
+    protected static final long MILLIS_BETWEEN_MONITOR_UPDATES = 100;
+
+    protected int numThreads;
+
+    /** Maximum number of bytes of a binary range. */
+    protected long maxBinaryRangeBytes = MAX_BINARY_RANGE_BYTES;
+
+    /** Monitor of the task loading the file, or null. */
+    protected TaskMonitor monitor;
+
+    public ParallelInstancesLoader(int numThreads) {
+        this(numThreads, null);
+    }
+
+    /**
+     * Creates a loader that reports its progress to a task monitor, and
+     * stops loading when the monitor asks the task to abort. The instances
+     * loaded until then are returned.
+     *
+     * @param numThreads the number of threads
+     * @param monitor the monitor of the task loading the file, or null
+     */
+    public ParallelInstancesLoader(int numThreads, TaskMonitor monitor) {
+        this.numThreads = Math.max(1, numThreads);
+        this.monitor = monitor;
+    }
+
+    /**
+     * Loads the instances of a stream read from a file, if the stream type is
+     * supported.
+     *
+     * @param stream the stream
+     * @param maxInstances the maximum number of instances to load
+     * @return the instances, or null if the stream is not read from a
+     * supported file
+     */
+    public Instances load(InstanceStream stream, int maxInstances) throws IOException {
+        if (stream instanceof ArffFileStream) {
+            ArffFileStream arffStream = (ArffFileStream) stream;
+            // the file is read again in ranges, the stream itself is not needed
+            arffStream.stopPrefetching();
+            arffStream.closeFile();
+            return loadArff(arffStream.arffFileOption.getFile(),
+                    arffStream.classIndexOption.getValue(), maxInstances);
+        }
+        if (stream instanceof MappedBinaryFileStream) {
+            return loadBinary((MappedBinaryFileStream) stream, maxInstances);
+        }
+        return null;
+    }
+
+    /**
+     * Loads the data section of an ARFF file.
+     *
+     * @param file the file
+     * @param classIndex the class index, as for <code>ArffFileStream</code>
+     * @param maxInstances the maximum number of instances to load
+     * @return the instances
+     */
+    public Instances loadArff(final File file, int classIndex, int maxInstances) throws IOException {
+        InputStream headerInput = new FileInputStream(file);
+        FastArffLoader headerLoader;
+        try {
+            headerLoader = new FastArffLoader(headerInput, classIndex);
+        } finally {
+            headerInput.close();
+        }
+        Instances dataset = new Instances(headerLoader);
+        if (classIndex < 0) {
+            dataset.setClassIndex(dataset.numAttributes() - 1);
+        } else if (classIndex > 0) {
+            dataset.setClassIndex(classIndex - 1);
+        }
+        final InstancesHeader header = new InstancesHeader(dataset);
+        final InstanceInformation structure = headerLoader.getStructure();
+
+        long[] bounds = getLineBounds(file, headerLoader.getDataOffset(),
+                this.numThreads * RANGES_PER_THREAD);
+        final LoadProgress progress = new LoadProgress(bounds.length - 1, maxInstances,
+                bounds[bounds.length - 1] - bounds[0]);
+        List<Callable<List<Instance>>> tasks = new ArrayList<Callable<List<Instance>>>();
+        for (int i = 0; i < bounds.length - 1; i++) {
+            final int range = i;
+            final long start = bounds[i];
+            final long end = bounds[i + 1];
+            tasks.add(new Callable<List<Instance>>() {
+                @Override
+                public List<Instance> call() throws IOException {
+                    List<Instance> segment = new ArrayList<Instance>();
+                    if (progress.shouldStop(range, 0)) {
+                        return segment;
+                    }
+                    InputStream input = new FileRangeInputStream(file, start, end, progress.bytesRead);
+                    try {
+                        FastArffLoader loader = new FastArffLoader(input, structure,
+                                FastArffLoader.DEFAULT_BUFFER_SIZE);
+                        Instance inst;
+                        while ((inst = loader.readInstance()) != null) {
+                            inst.setDataset(header);
+                            segment.add(inst);
+                            if (segment.size() % ROWS_BETWEEN_CHECKS == 0
+                                    && progress.shouldStop(range, segment.size())) {
+                                break;
+                            }
+                        }
+                    } finally {
+                        input.close();
+                    }
+                    progress.setNumRows(range, segment.size());
+                    return segment;
+                }
+            });
+        }
+        return concatenate(header, invokeAll(tasks, progress), maxInstances);
+    }
+
+    /**
+     * Loads the instances of a binary instance file.
+     *
+     * @param stream the prepared stream of the file
+     * @param maxInstances the maximum number of instances to load
+     * @return the instances
+     */
+    public Instances loadBinary(final MappedBinaryFileStream stream, int maxInstances) throws IOException {
+        long numInstances = Math.min(stream.numInstances, maxInstances);
+        int rowsPerRange = (int) Math.max(1,
+                (numInstances + this.numThreads * RANGES_PER_THREAD - 1) / (this.numThreads * RANGES_PER_THREAD));
+        // the ranges hold exactly the first numInstances rows, though the
+        // ranges cut at maxBinaryRangeBytes hold fewer than rowsPerRange
+        List<Long> offsets = stream.getRangeOffsets(numInstances, rowsPerRange, this.maxBinaryRangeBytes);
+        final LoadProgress progress = new LoadProgress(offsets.size() - 1,
+                (int) numInstances, 0);
+        List<Callable<List<Instance>>> tasks = new ArrayList<Callable<List<Instance>>>();
+        for (int i = 0; i < offsets.size() - 1; i++) {
+            final int range = i;
+            final long start = offsets.get(i);
+            final long end = offsets.get(i + 1);
+            tasks.add(new Callable<List<Instance>>() {
+                @Override
+                public List<Instance> call() throws IOException {
+                    List<Instance> segment = new ArrayList<Instance>();
+                    // the ranges already end at the maximum number of instances
+                    if (!progress.aborted) {
+                        stream.readRange(start, end, segment);
+                        progress.setNumRows(range, segment.size());
+                    }
+                    return segment;
+                }
+            });
+        }
+        return concatenate(stream.getHeader(), invokeAll(tasks, progress), maxInstances);
+    }
+
+    /**
+     * Runs the tasks parsing the ranges on a pool of the number of threads,
+     * updating the task monitor while waiting for them.
+     *
+     * @param tasks the tasks, in the order of the ranges
+     * @param progress the progress of the tasks
+     * @return the instances of each range
+     */
+    protected List<List<Instance>> invokeAll(List<Callable<List<Instance>>> tasks,
+            LoadProgress progress) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(this.numThreads);
+        try {
+            updateMonitor(progress);
+            List<Future<List<Instance>>> futures = new ArrayList<Future<List<Instance>>>(tasks.size());
+            for (Callable<List<Instance>> task : tasks) {
+                futures.add(pool.submit(task));
+            }
+            List<List<Instance>> segments = new ArrayList<List<Instance>>(tasks.size());
+            for (Future<List<Instance>> future : futures) {
+                while (true) {
+                    try {
+                        segments.add(future.get(MILLIS_BETWEEN_MONITOR_UPDATES, TimeUnit.MILLISECONDS));
+                        break;
+                    } catch (TimeoutException e) {
+                        updateMonitor(progress);
+                    }
+                }
+            }
+            updateMonitor(progress);
+            return segments;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading instances.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException("Failed loading instances.", e.getCause());
+        } finally {
+            // the remaining ranges are not needed after a failure
+            progress.aborted = true;
+            pool.shutdown();
+        }
+    }
+
+    protected void updateMonitor(LoadProgress progress) {
+        if (this.monitor != null) {
+            if (this.monitor.taskShouldAbort()) {
+                progress.aborted = true;
+            }
+            this.monitor.setCurrentActivityFractionComplete(progress.getFractionComplete());
+        }
+    }
+
+    protected static Instances concatenate(InstancesHeader header,
+            List<List<Instance>> segments, int maxInstances) {
+        int numInstances = 0;
+        for (List<Instance> segment : segments) {
+            numInstances += segment.size();
+        }
+        Instances result = new Instances(header, Math.min(numInstances, maxInstances));
+        for (List<Instance> segment : segments) {
+            int remaining = maxInstances - result.numInstances();
+            if (remaining <= 0) {
+                break;
+            }
+            result.addAll(segment.size() > remaining ? segment.subList(0, remaining) : segment);
+        }
+        return result;
+    }
+
+    /**
+     * Splits the data section of a text file into ranges of complete lines.
+     *
+     * @param file the file
+     * @param dataOffset the start of the data section
+     * @param numRanges the number of ranges wanted
+     * @return the bounds of the ranges, starting with dataOffset and ending
+     * with the file length
+     */
+    protected static long[] getLineBounds(File file, long dataOffset, int numRanges) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            long length = input.length();
+            List<Long> bounds = new ArrayList<Long>();
+            bounds.add(dataOffset);
+            byte[] buffer = new byte[8192];
+            for (int i = 1; i < numRanges; i++) {
+                long position = Math.max(dataOffset + (length - dataOffset) * i / numRanges,
+                        bounds.get(bounds.size() - 1));
+                // a range ends after the first line break at or after its nominal end
+                input.seek(position);
+                long lineStart = length;
+                int read;
+                search:
+                while ((read = input.read(buffer)) > 0) {
+                    for (int j = 0; j < read; j++) {
+                        if (buffer[j] == '\n' || buffer[j] == '\r') {
+                            lineStart = position + j + 1;
+                            break search;
+                        }
+                    }
+                    position += read;
+                }
+                if (lineStart > bounds.get(bounds.size() - 1) && lineStart < length) {
+                    bounds.add(lineStart);
+                }
+            }
+            bounds.add(length);
+            long[] result = new long[bounds.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = bounds.get(i);
+            }
+            return result;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Progress of the tasks parsing the ranges of a file, shared by the
+     * tasks and the thread waiting for them.
+     */
+    protected static class LoadProgress {
+
+        /** Number of rows parsed so far in each range. */
+        protected final AtomicIntegerArray numRows;
+
+        protected final int maxInstances;
+
+        /** Number of bytes of the data section, or 0 if not counted. */
+        protected final long numBytes;
+
+        protected final AtomicLong bytesRead = new AtomicLong();
+
+        protected volatile boolean aborted;
+
+        public LoadProgress(int numRanges, int maxInstances, long numBytes) {
+            this.numRows = new AtomicIntegerArray(numRanges);
+            this.maxInstances = maxInstances;
+            this.numBytes = numBytes;
+        }
+
+        /**
+         * Records the number of rows parsed in a range, and checks whether
+         * the range can stop. As the ranges before it can only grow, its
+         * next rows are past the maximum number of instances once the ranges
+         * up to it hold that number.
+         *
+         * @param range the range
+         * @param numRows the number of rows parsed in the range
+         * @return true if the range should stop
+         */
+        public boolean shouldStop(int range, int numRows) {
+            setNumRows(range, numRows);
+            if (this.aborted) {
+                return true;
+            }
+            long rowsUpToRange = 0;
+            for (int i = 0; i <= range; i++) {
+                rowsUpToRange += this.numRows.get(i);
+            }
+            return rowsUpToRange >= this.maxInstances;
+        }
+
+        public void setNumRows(int range, int numRows) {
+            this.numRows.set(range, numRows);
+        }
+
+        public double getFractionComplete() {
+            long rows = 0;
+            for (int i = 0; i < this.numRows.length(); i++) {
+                rows += this.numRows.get(i);
+            }
+            double fraction = this.maxInstances > 0 ? (double) rows / this.maxInstances : 1.0;
+            if (this.numBytes > 0) {
+                fraction = Math.max(fraction, (double) this.bytesRead.get() / this.numBytes);
+            }
+            return Math.min(1.0, fraction);
+        }
+    }
+
+    /**
+     * Input stream over a range of bytes of a file.
+     */
+    protected static class FileRangeInputStream extends InputStream {
+
+        protected RandomAccessFile file;
+
+        protected long remaining;
+
+        /** Counter of the bytes read, or null. */
+        protected AtomicLong bytesRead;
+
+        public FileRangeInputStream(File file, long start, long end) throws IOException {
+            this(file, start, end, null);
+        }
+
+        public FileRangeInputStream(File file, long start, long end,
+                AtomicLong bytesRead) throws IOException {
+            this.file = new RandomAccessFile(file, "r");
+            this.file.seek(start);
+            this.remaining = end - start;
+            this.bytesRead = bytesRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            this.remaining--;
+            if (this.bytesRead != null) {
+                this.bytesRead.incrementAndGet();
+            }
+            return this.file.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            int read = this.file.read(b, off, (int) Math.min(len, this.remaining));
+            if (read > 0) {
+                this.remaining -= read;
+                if (this.bytesRead != null) {
+                    this.bytesRead.addAndGet(read);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.file.close();
+        }
+    }
+}
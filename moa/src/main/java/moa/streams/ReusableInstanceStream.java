@@ -0,0 +1,44 @@
+/*
+ *    ReusableInstanceStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+/**
+ * Interface for streams that can refill the same instance on every call to
+ * nextInstance, instead of allocating a new one. In reuse mode, the example
+ * returned by nextInstance is only valid until the next call, so callers
+ * that keep instances must copy them. Reuse is a permission: a stream may
+ * still return new instances, for example for sparse rows.
+ *
+ * @version $Revision: 7 $
+ */
+public interface ReusableInstanceStream {
+
+    /**
+     * Sets whether this stream refills the same instance.
+     *
+     * @param reuse true to reuse instances
+     */
+    void setReuseInstances(boolean reuse);
+
+    /**
+     * Gets whether this stream refills the same instance.
+     *
+     * @return true if this stream reuses instances
+     */
+    boolean isReusingInstances();
+}
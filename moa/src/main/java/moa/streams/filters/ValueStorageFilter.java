@@ -0,0 +1,92 @@
+/*
+ *    ValueStorageFilter.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams.filters;
+
+import com.github.javacliparser.MultiChoiceOption;
+import com.yahoo.labs.samoa.instances.ByteDenseInstanceData;
+import com.yahoo.labs.samoa.instances.FloatDenseInstanceData;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceData;
+import com.yahoo.labs.samoa.instances.InstanceImpl;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import moa.core.InstanceExample;
+
+/**
+ * Stores the values of dense instances in single precision, or in one byte
+ * per value when all the attributes are nominal. Copies of the instances keep
+ * the same storage, so instances cached by a task or kept in the window of a
+ * learner use half the memory or less.
+ *
+ * @version $Revision: 7 $
+ */
+public class ValueStorageFilter extends AbstractStreamFilter {
+
+    @Override
+    public String getPurposeString() {
+        return "Stores the values of dense instances in single precision or in bytes, to reduce the memory of cached instances.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public MultiChoiceOption storageOption = new MultiChoiceOption(
+            "storage", 's', "Storage of the values.",
+            new String[]{"Float", "Compact"},
+            new String[]{"Single precision values.",
+                "One byte per value if all attributes are nominal with at most 255 values, single precision values otherwise."},
+            1);
+
+    protected transient InstancesHeader lastHeader;
+
+    protected transient boolean useBytes;
+
+    @Override
+    protected void restartImpl() {
+        this.lastHeader = null;
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.inputStream.getHeader();
+    }
+
+    @Override
+    public InstanceExample nextInstance() {
+        Instance inst = (Instance) this.inputStream.nextInstance().getData();
+        int numAttributes = inst.numAttributes();
+        if (inst.numValues() < numAttributes) {
+            // sparse instances are smaller as they are
+            return new InstanceExample(inst);
+        }
+        InstancesHeader header = (InstancesHeader) inst.dataset();
+        if (header != this.lastHeader) {
+            this.lastHeader = header;
+            this.useBytes = this.storageOption.getChosenIndex() == 1
+                    && ByteDenseInstanceData.canStore(header);
+        }
+        InstanceData data = this.useBytes ? new ByteDenseInstanceData(numAttributes)
+                : new FloatDenseInstanceData(numAttributes);
+        for (int i = 0; i < numAttributes; i++) {
+            data.setValue(i, inst.value(i));
+        }
+        return new InstanceExample(new InstanceImpl(inst.weight(), header, data));
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+}
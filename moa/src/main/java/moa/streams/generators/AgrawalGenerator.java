@@ -20,7 +20,6 @@
 package moa.streams.generators;
 
 import com.yahoo.labs.samoa.instances.Attribute;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import moa.core.FastVector;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -36,7 +35,9 @@ import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
+import moa.streams.InstanceRecycler;
 import moa.streams.InstanceStream;
+import moa.streams.ReusableInstanceStream;
 import moa.tasks.TaskMonitor;
 
 /**
@@ -60,7 +61,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class AgrawalGenerator extends AbstractOptionHandler implements
-        InstanceStream {
+        InstanceStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -274,6 +275,8 @@ public class AgrawalGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    protected InstanceRecycler recycler = new InstanceRecycler();
+
     protected boolean nextClassShouldBeZero;
 
     @Override
@@ -380,7 +383,7 @@ public class AgrawalGenerator extends AbstractOptionHandler implements
         }
         // construct instance
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
+        Instance inst = this.recycler.newInstance(header);
         inst.setValue(0, salary);
         inst.setValue(1, commission);
         inst.setValue(2, age);
@@ -390,9 +393,18 @@ public class AgrawalGenerator extends AbstractOptionHandler implements
         inst.setValue(6, hvalue);
         inst.setValue(7, hyears);
         inst.setValue(8, loan);
-        inst.setDataset(header);
         inst.setClassValue(group);
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
+    }
+
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.recycler.setReuse(reuse);
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recycler.isReusing();
     }
 
     protected double perturbValue(double val, double min, double max) {
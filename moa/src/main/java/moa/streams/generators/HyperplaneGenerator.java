@@ -26,10 +26,11 @@ import moa.core.FastVector;
 import moa.core.InstanceExample;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
+import moa.streams.InstanceRecycler;
 import moa.streams.InstanceStream;
+import moa.streams.ReusableInstanceStream;
 import moa.tasks.TaskMonitor;
 import com.yahoo.labs.samoa.instances.Attribute;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
@@ -41,7 +42,7 @@ import com.yahoo.labs.samoa.instances.InstancesHeader;
  * @version $Revision: 7 $
  */
 public class HyperplaneGenerator extends AbstractOptionHandler implements
-        InstanceStream {
+        InstanceStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -76,6 +77,8 @@ public class HyperplaneGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    protected InstanceRecycler recycler = new InstanceRecycler();
+
     protected double[] weights;
 
     protected int[] sigma;
@@ -130,12 +133,13 @@ public class HyperplaneGenerator extends AbstractOptionHandler implements
     public InstanceExample nextInstance() {
 
         int numAtts = this.numAttsOption.getValue();
-        double[] attVals = new double[numAtts + 1];
+        Instance inst = this.recycler.newInstance(getHeader());
         double sum = 0.0;
         double sumWeights = 0.0;
         for (int i = 0; i < numAtts; i++) {
-            attVals[i] = this.instanceRandom.nextDouble();
-            sum += this.weights[i] * attVals[i];
+            double attVal = this.instanceRandom.nextDouble();
+            inst.setValue(i, attVal);
+            sum += this.weights[i] * attVal;
             sumWeights += this.weights[i];
         }
         int classLabel;
@@ -149,11 +153,19 @@ public class HyperplaneGenerator extends AbstractOptionHandler implements
             classLabel = (classLabel == 0 ? 1 : 0);
         }
 
-        Instance inst = new DenseInstance(1.0, attVals);
-        inst.setDataset(getHeader());
         inst.setClassValue(classLabel);
         addDrift();
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
+    }
+
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.recycler.setReuse(reuse);
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recycler.isReusing();
     }
 
     private void addDrift() {
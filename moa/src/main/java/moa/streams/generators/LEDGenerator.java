@@ -20,7 +20,6 @@
 package moa.streams.generators;
 
 import com.yahoo.labs.samoa.instances.Attribute;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import moa.core.FastVector;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -33,7 +32,9 @@ import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import moa.streams.InstanceRecycler;
 import moa.streams.InstanceStream;
+import moa.streams.ReusableInstanceStream;
 import moa.tasks.TaskMonitor;
 
 /**
@@ -43,7 +44,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class LEDGenerator extends AbstractOptionHandler implements
-        InstanceStream {
+        InstanceStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -76,6 +77,8 @@ public class LEDGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    protected InstanceRecycler recycler = new InstanceRecycler();
+
     @Override
     protected void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -125,8 +128,7 @@ public class LEDGenerator extends AbstractOptionHandler implements
     @Override
     public InstanceExample nextInstance() {
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
-        inst.setDataset(header);
+        Instance inst = this.recycler.newInstance(header);
         int selected = this.instanceRandom.nextInt(10);
         for (int i = 0; i < 7; i++) {
             if ((1 + (this.instanceRandom.nextInt(100))) <= this.noisePercentageOption.getValue()) {
@@ -141,7 +143,17 @@ public class LEDGenerator extends AbstractOptionHandler implements
             }
         }
         inst.setClassValue(selected);
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
+    }
+
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.recycler.setReuse(reuse);
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recycler.isReusing();
     }
 
     @Override
@@ -20,7 +20,6 @@
 package moa.streams.generators;
 
 import moa.core.InstanceExample;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.ObjectRepository;
@@ -71,8 +70,7 @@ public class LEDGeneratorDrift extends LEDGenerator {
     @Override
     public InstanceExample nextInstance() {
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
-        inst.setDataset(header);
+        Instance inst = this.recycler.newInstance(header);
         int selected = this.instanceRandom.nextInt(10);
         for (int i = 0; i < 7; i++) {
             if ((1 + (this.instanceRandom.nextInt(100))) <= this.noisePercentageOption.getValue()) {
@@ -87,7 +85,7 @@ public class LEDGeneratorDrift extends LEDGenerator {
             }
         }
         inst.setClassValue(selected);
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
     }
 
     @Override
@@ -20,7 +20,6 @@
 package moa.streams.generators;
 
 import com.yahoo.labs.samoa.instances.Attribute;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import moa.core.FastVector;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -34,7 +33,9 @@ import moa.core.MiscUtils;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.IntOption;
+import moa.streams.InstanceRecycler;
 import moa.streams.InstanceStream;
+import moa.streams.ReusableInstanceStream;
 import moa.tasks.TaskMonitor;
 
 /**
@@ -44,7 +45,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class RandomRBFGenerator extends AbstractOptionHandler implements
-        InstanceStream {
+        InstanceStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -88,6 +89,8 @@ public class RandomRBFGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    protected InstanceRecycler recycler = new InstanceRecycler();
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -127,25 +130,32 @@ public class RandomRBFGenerator extends AbstractOptionHandler implements
         Centroid centroid = this.centroids[MiscUtils.chooseRandomIndexBasedOnWeights(this.centroidWeights,
                 this.instanceRandom)];
         int numAtts = this.numAttsOption.getValue();
-        double[] attVals = new double[numAtts + 1];
-        for (int i = 0; i < numAtts; i++) {
-            attVals[i] = (this.instanceRandom.nextDouble() * 2.0) - 1.0;
-        }
+        Instance inst = this.recycler.newInstance(getHeader());
         double magnitude = 0.0;
         for (int i = 0; i < numAtts; i++) {
-            magnitude += attVals[i] * attVals[i];
+            double attVal = (this.instanceRandom.nextDouble() * 2.0) - 1.0;
+            inst.setValue(i, attVal);
+            magnitude += attVal * attVal;
         }
         magnitude = Math.sqrt(magnitude);
         double desiredMag = this.instanceRandom.nextGaussian()
                 * centroid.stdDev;
         double scale = desiredMag / magnitude;
         for (int i = 0; i < numAtts; i++) {
-            attVals[i] = centroid.centre[i] + attVals[i] * scale;
+            inst.setValue(i, centroid.centre[i] + inst.value(i) * scale);
         }
-        Instance inst = new DenseInstance(1.0, attVals);
-        inst.setDataset(getHeader());
         inst.setClassValue(centroid.classLabel);
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
+    }
+
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.recycler.setReuse(reuse);
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recycler.isReusing();
     }
 
     protected void generateHeader() {
@@ -20,7 +20,6 @@
 package moa.streams.generators;
 
 import com.yahoo.labs.samoa.instances.Attribute;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import moa.core.FastVector;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -35,7 +34,9 @@ import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
+import moa.streams.InstanceRecycler;
 import moa.streams.InstanceStream;
+import moa.streams.ReusableInstanceStream;
 import moa.tasks.TaskMonitor;
 
 /**
@@ -45,7 +46,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class RandomTreeGenerator extends AbstractOptionHandler implements
-        InstanceStream {
+        InstanceStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -110,6 +111,11 @@ public class RandomTreeGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    protected InstanceRecycler recycler = new InstanceRecycler();
+
+    /** Attribute values of the last instance, reused for classifying. */
+    protected transient double[] attVals;
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -146,18 +152,31 @@ public class RandomTreeGenerator extends AbstractOptionHandler implements
 
     @Override
     public InstanceExample nextInstance() {
-        double[] attVals = new double[this.numNominalsOption.getValue()
-                + this.numNumericsOption.getValue()];
+        int numAtts = this.numNominalsOption.getValue()
+                + this.numNumericsOption.getValue();
+        if (this.attVals == null || this.attVals.length != numAtts) {
+            this.attVals = new double[numAtts];
+        }
+        double[] attVals = this.attVals;
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
+        Instance inst = this.recycler.newInstance(header);
         for (int i = 0; i < attVals.length; i++) {
             attVals[i] = i < this.numNominalsOption.getValue() ? this.instanceRandom.nextInt(this.numValsPerNominalOption.getValue())
                     : this.instanceRandom.nextDouble();
             inst.setValue(i, attVals[i]);
         }
-        inst.setDataset(header);
         inst.setClassValue(classifyInstance(this.treeRoot, attVals));
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
+    }
+
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.recycler.setReuse(reuse);
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recycler.isReusing();
     }
 
     protected int classifyInstance(Node node, double[] attVals) {
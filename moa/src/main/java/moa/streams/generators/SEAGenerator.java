@@ -20,7 +20,6 @@
 package moa.streams.generators;
 
 import com.yahoo.labs.samoa.instances.Attribute;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import moa.core.FastVector;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -33,7 +32,9 @@ import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import moa.streams.InstanceRecycler;
 import moa.streams.InstanceStream;
+import moa.streams.ReusableInstanceStream;
 import moa.tasks.TaskMonitor;
 
 /**
@@ -51,7 +52,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class SEAGenerator extends AbstractOptionHandler implements
-        InstanceStream {
+        InstanceStream, ReusableInstanceStream {
 
     @Override
     public String getPurposeString() {
@@ -120,6 +121,8 @@ public class SEAGenerator extends AbstractOptionHandler implements
 
     protected Random instanceRandom;
 
+    protected InstanceRecycler recycler = new InstanceRecycler();
+
     protected boolean nextClassShouldBeZero;
 
     @Override
@@ -192,13 +195,22 @@ public class SEAGenerator extends AbstractOptionHandler implements
 
         // construct instance
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
+        Instance inst = this.recycler.newInstance(header);
         inst.setValue(0, attrib1);
         inst.setValue(1, attrib2);
         inst.setValue(2, attrib3);
-        inst.setDataset(header);
         inst.setClassValue(group);
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
+    }
+
+    @Override
+    public void setReuseInstances(boolean reuse) {
+        this.recycler.setReuse(reuse);
+    }
+
+    @Override
+    public boolean isReusingInstances() {
+        return this.recycler.isReusing();
     }
 
     @Override
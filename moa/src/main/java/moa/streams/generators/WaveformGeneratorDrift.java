@@ -21,7 +21,6 @@
 package moa.streams.generators;
 
 import moa.core.InstanceExample;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.ObjectRepository;
@@ -72,8 +71,7 @@ public class WaveformGeneratorDrift extends WaveformGenerator {
     @Override
     public InstanceExample nextInstance() {
         InstancesHeader header = getHeader();
-        Instance inst = new DenseInstance(header.numAttributes());
-        inst.setDataset(header);
+        Instance inst = this.recycler.newInstance(header);
         int waveform = this.instanceRandom.nextInt(NUM_CLASSES);
         int choiceA = 0, choiceB = 0;
         switch (waveform) {
@@ -104,7 +102,7 @@ public class WaveformGeneratorDrift extends WaveformGenerator {
             }
         }
         inst.setClassValue(waveform);
-        return new InstanceExample(inst);
+        return this.recycler.newExample(inst);
     }
 
     @Override
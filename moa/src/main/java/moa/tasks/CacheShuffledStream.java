@@ -19,6 +19,7 @@
  */
 package moa.tasks;
 
+import java.io.IOException;
 import java.util.Random;
 
 import com.yahoo.labs.samoa.instances.Instances;
@@ -27,6 +28,7 @@ import moa.options.ClassOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.CachedInstancesStream;
 import moa.streams.InstanceStream;
+import moa.streams.ParallelInstancesLoader;
 
 /**
  * Task for storing and shuffling examples in memory.
@@ -55,29 +57,47 @@ public class CacheShuffledStream extends AbstractTask {
             "shuffleRandomSeed", 'r',
             "Seed for random shuffling of instances.", 1);
 
+    public IntOption loadingThreadsOption = new IntOption("loadingThreads",
+            't', "Number of threads loading an ARFF or binary file stream.",
+            1, 1, Integer.MAX_VALUE);
+
     @Override
     protected Object doTaskImpl(TaskMonitor monitor, ObjectRepository repository) {
         InstanceStream stream = (InstanceStream) getPreparedClassOption(this.streamOption);
-        Instances cache = new Instances(stream.getHeader(), 0);
+        Instances cache = null;
         monitor.setCurrentActivity("Caching instances...", -1.0);
-        while ((cache.numInstances() < this.maximumCacheSizeOption.getValue())
-                && stream.hasMoreInstances()) {
-            cache.add(stream.nextInstance().getData());
-            if (cache.numInstances()
-                    % MainTask.INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
-                if (monitor.taskShouldAbort()) {
-                    return null;
-                }
-                long estimatedRemainingInstances = stream.estimatedRemainingInstances();
-                long maxRemaining = this.maximumCacheSizeOption.getValue()
-                        - cache.numInstances();
-                if ((estimatedRemainingInstances < 0)
-                        || (maxRemaining < estimatedRemainingInstances)) {
-                    estimatedRemainingInstances = maxRemaining;
+        if (this.loadingThreadsOption.getValue() > 1) {
+            try {
+                cache = new ParallelInstancesLoader(this.loadingThreadsOption.getValue(), monitor).load(
+                        stream, this.maximumCacheSizeOption.getValue());
+            } catch (IOException ioe) {
+                throw new RuntimeException("Failed loading instances.", ioe);
+            }
+            if (monitor.taskShouldAbort()) {
+                return null;
+            }
+        }
+        if (cache == null) {
+            cache = new Instances(stream.getHeader(), 0);
+            while ((cache.numInstances() < this.maximumCacheSizeOption.getValue())
+                    && stream.hasMoreInstances()) {
+                cache.add(stream.nextInstance().getData());
+                if (cache.numInstances()
+                        % MainTask.INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                    if (monitor.taskShouldAbort()) {
+                        return null;
+                    }
+                    long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                    long maxRemaining = this.maximumCacheSizeOption.getValue()
+                            - cache.numInstances();
+                    if ((estimatedRemainingInstances < 0)
+                            || (maxRemaining < estimatedRemainingInstances)) {
+                        estimatedRemainingInstances = maxRemaining;
+                    }
+                    monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                            : (double) cache.numInstances()
+                            / (double) (cache.numInstances() + estimatedRemainingInstances));
                 }
-                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
-                        : (double) cache.numInstances()
-                        / (double) (cache.numInstances() + estimatedRemainingInstances));
             }
         }
         monitor.setCurrentActivity("Shuffling instances...", -1.0);
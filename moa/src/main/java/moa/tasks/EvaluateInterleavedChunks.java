@@ -196,10 +196,14 @@ public class EvaluateInterleavedChunks extends MainTask {
 			long testStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
 			if(!firstChunk)
 			{
+				double[][] predictions = null;
+				if (learner instanceof Classifier) {
+					predictions = ((Classifier) learner).getVotesForInstances(chunkInstances);
+				}
 				for (int i=0; i< chunkInstances.numInstances(); i++) {
 					Example testInst = new InstanceExample(chunkInstances.instance(i));
 					//testInst.setClassMissing();
-					double[] prediction = learner.getVotesForInstance(testInst);
+					double[] prediction = predictions != null ? predictions[i] : learner.getVotesForInstance(testInst);
 					evaluator.addResult(testInst, prediction);
 			    }
 			}
@@ -214,10 +218,15 @@ public class EvaluateInterleavedChunks extends MainTask {
 			//region Training
 			long trainStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
 			
-			for (int i=0; i< chunkInstances.numInstances(); i++) {
-				learner.trainOnInstance(new InstanceExample(chunkInstances.instance(i)));
-				instancesProcessed++;
-		    }
+			if (learner instanceof Classifier) {
+				((Classifier) learner).trainOnInstances(chunkInstances);
+				instancesProcessed += chunkInstances.numInstances();
+			} else {
+				for (int i=0; i< chunkInstances.numInstances(); i++) {
+					learner.trainOnInstance(new InstanceExample(chunkInstances.instance(i)));
+					instancesProcessed++;
+			    }
+			}
 			
 			sampleTrainTime += TimingUtils.getNanoCPUTimeOfCurrentThread() - trainStartTime;
 			//endregion
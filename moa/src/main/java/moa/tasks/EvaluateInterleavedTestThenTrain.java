@@ -27,6 +27,7 @@ import moa.classifiers.Classifier;
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
+import moa.core.SizeOf;
 import moa.core.TimingUtils;
 import moa.evaluation.LearningCurve;
 import moa.evaluation.LearningEvaluation;
@@ -34,6 +35,7 @@ import moa.evaluation.LearningPerformanceEvaluator;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
 import moa.streams.InstanceStream;
@@ -91,6 +93,12 @@ public class EvaluateInterleavedTestThenTrain extends MainTask {
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv reslts to.", null, "csv", true);
 
+    public FlagOption exactByteSizeOption = new FlagOption("exactByteSize", 'b',
+            "Measure the learner with the SizeOf agent for RAM-Hours, instead of using its size estimate.");
+
+    public FlagOption reuseInstancesOption = new FlagOption("reuseInstances", 'u',
+            "Let the stream refill the same instance instead of creating one per example.");
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
@@ -113,6 +121,11 @@ public class EvaluateInterleavedTestThenTrain extends MainTask {
         
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         learner.setModelContext(stream.getHeader());
+        if (this.reuseInstancesOption.isSet()) {
+            reuseStreamInstances(stream);
+        }
+        // reused for the votes of each instance, replaced when their number changes
+        double[] votes = new double[stream.getHeader().numClasses()];
         int maxInstances = this.instanceLimitOption.getValue();
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
@@ -148,18 +161,29 @@ public class EvaluateInterleavedTestThenTrain extends MainTask {
             Example testInst = trainInst; //.copy();
             //int trueClass = (int) trainInst.classValue();
             //testInst.setClassMissing();
-            double[] prediction = learner.getVotesForInstance(testInst);
+            double[] prediction;
+            if (learner instanceof Classifier) {
+                // a single call lets ensembles reuse the votes of their members
+                votes = ((Classifier) learner).testThenTrain(
+                        (Instance) trainInst.getData(), votes);
+                prediction = votes;
+            } else {
+                prediction = learner.getVotesForInstance(testInst);
+            }
             //evaluator.addClassificationAttempt(trueClass, prediction, testInst
             //		.weight());
             evaluator.addResult(testInst, prediction);
-            learner.trainOnInstance(trainInst);
+            if (!(learner instanceof Classifier)) {
+                learner.trainOnInstance(trainInst);
+            }
             instancesProcessed++;
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                   ||  stream.hasMoreInstances() == false) {
                 long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-                double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                double RAMHoursIncrement = (this.exactByteSizeOption.isSet() ? SizeOf.fullSizeOf(learner)
+                        : learner.measureByteSize()) / (1024.0 * 1024.0 * 1024.0); //GBs
                 RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
                 RAMHours += RAMHoursIncrement;
                 lastEvaluateStartTime = evaluateTime;
@@ -28,6 +28,7 @@ import java.util.List;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import moa.classifiers.Classifier;
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
@@ -92,6 +93,9 @@ public class EvaluatePeriodicHeldOutTest extends MainTask {
     public FlagOption cacheTestOption = new FlagOption("cacheTest", 'c',
             "Cache test instances in memory.");
 
+    /** Number of instances classifiers are trained on at once. */
+    protected static final int TRAINING_BATCH_SIZE = 1000;
+
     @Override
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
@@ -118,10 +122,11 @@ public class EvaluatePeriodicHeldOutTest extends MainTask {
         }
         boolean firstDump = true;
         ExampleStream testStream = null;
+        Instances testInstances = null;
         int testSize = this.testSizeOption.getValue();
         if (this.cacheTestOption.isSet()) {
             monitor.setCurrentActivity("Caching test examples...", -1.0);
-            Instances testInstances = new Instances(stream.getHeader(),
+            testInstances = new Instances(stream.getHeader(),
                     this.testSizeOption.getValue());
             while (testInstances.numInstances() < testSize) {
                 testInstances.add((Instance) stream.nextInstance().getData());
@@ -154,8 +159,18 @@ public class EvaluatePeriodicHeldOutTest extends MainTask {
                     + this.sampleFrequencyOption.getValue();
             long trainStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
             while (instancesProcessed < instancesTarget && stream.hasMoreInstances() == true) {
-                learner.trainOnInstance(stream.nextInstance());
-                instancesProcessed++;
+                if (learner instanceof Classifier) {
+                    Instances trainInstances = new Instances(stream.getHeader(), TRAINING_BATCH_SIZE);
+                    while (trainInstances.numInstances() < TRAINING_BATCH_SIZE
+                            && instancesProcessed < instancesTarget && stream.hasMoreInstances() == true) {
+                        trainInstances.add((Instance) stream.nextInstance().getData());
+                        instancesProcessed++;
+                    }
+                    ((Classifier) learner).trainOnInstances(trainInstances);
+                } else {
+                    learner.trainOnInstance(stream.nextInstance());
+                    instancesProcessed++;
+                }
                 if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
                     if (monitor.taskShouldAbort()) {
                         return null;
@@ -182,6 +197,11 @@ public class EvaluatePeriodicHeldOutTest extends MainTask {
                     + "% training)...");
             long testStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
             int instCount = 0 ;
+            double[][] predictions = null;
+            if (testInstances != null && learner instanceof Classifier
+                    && stream.hasMoreInstances() == true) {
+                predictions = ((Classifier) learner).getVotesForInstances(testInstances);
+            }
             for (instCount = 0; instCount < testSize; instCount++) {
 				if (stream.hasMoreInstances() == false) {
 					break;
@@ -189,7 +209,8 @@ public class EvaluatePeriodicHeldOutTest extends MainTask {
                 Example testInst = (Example) testStream.nextInstance(); //.copy();
                 double trueClass = ((Instance) testInst.getData()).classValue();
                 //testInst.setClassMissing();
-                double[] prediction = learner.getVotesForInstance(testInst);
+                double[] prediction = predictions != null
+                        ? predictions[instCount] : learner.getVotesForInstance(testInst);
                 //testInst.setClassValue(trueClass);
                 evaluator.addResult(testInst, prediction);
                 testInstancesProcessed++;
@@ -21,9 +21,11 @@
 package moa.tasks;
 
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.Classifier;
 import moa.core.*;
 import moa.evaluation.*;
 import moa.learners.Learner;
@@ -102,6 +104,12 @@ public class EvaluatePrequential extends MainTask {
             'a', "Fading factor or exponential smoothing factor", .01);
     //End New for prequential methods
 
+    public FlagOption exactByteSizeOption = new FlagOption("exactByteSize", 'b',
+            "Measure the learner with the SizeOf agent for RAM-Hours, instead of using its size estimate.");
+
+    public FlagOption reuseInstancesOption = new FlagOption("reuseInstances", 'u',
+            "Let the stream refill the same instance instead of creating one per example.");
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
@@ -140,6 +148,11 @@ public class EvaluatePrequential extends MainTask {
         //End New for prequential methods
 
         learner.setModelContext(stream.getHeader());
+        if (this.reuseInstancesOption.isSet()) {
+            reuseStreamInstances(stream);
+        }
+        // reused for the votes of each instance, replaced when their number changes
+        double[] votes = new double[stream.getHeader().numClasses()];
         int maxInstances = this.instanceLimitOption.getValue();
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
@@ -190,12 +203,15 @@ public class EvaluatePrequential extends MainTask {
             Example trainInst = stream.nextInstance();
             Example testInst = trainInst; //.copy();
             //testInst.setClassMissing();
-            double[] prediction = learner.getVotesForInstance(testInst);
-
-            String str = "";
-            for(double weight: prediction)
-                str += weight + ",";
-            System.out.println(str);
+            double[] prediction;
+            if (learner instanceof Classifier) {
+                // a single call lets ensembles reuse the votes of their members
+                votes = ((Classifier) learner).testThenTrain(
+                        (Instance) trainInst.getData(), votes);
+                prediction = votes;
+            } else {
+                prediction = learner.getVotesForInstance(testInst);
+            }
 
             Instance instance = (Instance)trainInst.getData();
 
@@ -207,14 +223,17 @@ public class EvaluatePrequential extends MainTask {
 
             //evaluator.addClassificationAttempt(trueClass, prediction, testInst.weight());
             evaluator.addResult(testInst, prediction);
-            learner.trainOnInstance(trainInst);
+            if (!(learner instanceof Classifier)) {
+                learner.trainOnInstance(trainInst);
+            }
             instancesProcessed++;
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                     || stream.hasMoreInstances() == false) {
                 long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-                double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                double RAMHoursIncrement = (this.exactByteSizeOption.isSet() ? SizeOf.fullSizeOf(learner)
+                        : learner.measureByteSize()) / (1024.0 * 1024.0 * 1024.0); //GBs
                 RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
                 RAMHours += RAMHoursIncrement;
                 lastEvaluateStartTime = evaluateTime;
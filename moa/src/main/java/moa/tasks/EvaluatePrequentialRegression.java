@@ -38,6 +38,7 @@ import moa.learners.Learner;
 import moa.options.ClassOption;
 
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 
@@ -110,6 +111,9 @@ public class EvaluatePrequentialRegression extends RegressionMainTask {
             'a', "Fading factor or exponential smoothing factor", .01);
     //End New for prequential methods
 
+    public FlagOption reuseInstancesOption = new FlagOption("reuseInstances", 'u',
+            "Let the stream refill the same instance instead of creating one per example.");
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
@@ -148,6 +152,9 @@ public class EvaluatePrequentialRegression extends RegressionMainTask {
         //End New for prequential methods
 
         learner.setModelContext(stream.getHeader());
+        if (this.reuseInstancesOption.isSet()) {
+            reuseStreamInstances(stream);
+        }
         int maxInstances = this.instanceLimitOption.getValue();
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
@@ -25,6 +25,7 @@ import java.io.Serializable;
 
 import moa.core.ObjectRepository;
 import moa.core.SerializeUtils;
+import moa.streams.ReusableInstanceStream;
 import com.github.javacliparser.FileOption;
 
 /**
@@ -87,4 +88,17 @@ public abstract class MainTask extends AbstractTask {
      */
     protected abstract Object doMainTask(TaskMonitor monitor,
             ObjectRepository repository);
+
+    /**
+     * Switches a stream to reuse its instances, if it can. Learners copy the
+     * instances they keep, as <code>Instances.add</code> does, so they can
+     * be trained on the reused instances.
+     *
+     * @param stream the stream
+     */
+    protected static void reuseStreamInstances(Object stream) {
+        if (stream instanceof ReusableInstanceStream) {
+            ((ReusableInstanceStream) stream).setReuseInstances(true);
+        }
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ *    WriteStreamToBinaryFile.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+import moa.core.ObjectRepository;
+import moa.options.ClassOption;
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.IntOption;
+import moa.streams.InstanceStream;
+import moa.streams.MappedBinaryFileStream;
+
+/**
+ * Task to output a stream to a binary instance file that can be read back
+ * with <code>MappedBinaryFileStream</code>.
+ *
+ * @version $Revision: 7 $
+ */
+public class WriteStreamToBinaryFile extends MainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Outputs a stream to a binary instance file.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to write.", InstanceStream.class,
+            "generators.RandomTreeGenerator");
+
+    public FileOption binaryFileOption = new FileOption("binaryFile", 'f',
+            "Destination binary file.", null, "bin", true);
+
+    public IntOption maxInstancesOption = new IntOption("maxInstances", 'm',
+            "Maximum number of instances to write to file.", 10000000, 0,
+            Integer.MAX_VALUE);
+
+    public FlagOption floatValuesOption = new FlagOption("floatValues",
+            'F', "Store values as floats instead of doubles.");
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        InstanceStream stream = (InstanceStream) getPreparedClassOption(this.streamOption);
+        File destFile = this.binaryFileOption.getFile();
+        if (destFile != null) {
+            try {
+                boolean floatValues = this.floatValuesOption.isSet();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(destFile)));
+                monitor.setCurrentActivityDescription("Writing stream to binary file");
+                MappedBinaryFileStream.writeFileHeader(out, stream.getHeader(), floatValues, 0);
+                long numWritten = 0;
+                while ((numWritten < this.maxInstancesOption.getValue())
+                        && stream.hasMoreInstances()) {
+                    MappedBinaryFileStream.writeInstance(out,
+                            stream.nextInstance().getData(), floatValues);
+                    numWritten++;
+                }
+                out.close();
+                RandomAccessFile file = new RandomAccessFile(destFile, "rw");
+                file.seek(MappedBinaryFileStream.NUM_INSTANCES_POSITION);
+                file.writeLong(numWritten);
+                file.close();
+            } catch (Exception ex) {
+                throw new RuntimeException(
+                        "Failed writing to file " + destFile, ex);
+            }
+            return "Stream written to binary file " + destFile;
+        }
+        throw new IllegalArgumentException("No destination file to write to.");
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return String.class;
+    }
+}
@@ -0,0 +1,102 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FastArffLoaderTest {
+
+	private static final String HEADER =
+			"% comment before the header\n"
+			+ "@relation test\n"
+			+ "\n"
+			+ "@attribute num1 numeric\n"
+			+ "@attribute 'nom 1' {a, 'b c', \"d\"}\n"
+			+ "@attribute num2 real\n"
+			+ "@attribute class {yes,no}\n"
+			+ "\n"
+			+ "@DATA\n";
+
+	private static void assertSameInstances(String arff, int classAttribute) {
+		ArffLoader reference = new ArffLoader(new StringReader(arff), classAttribute);
+		FastArffLoader fast = new FastArffLoader(new ByteArrayInputStream(arff.getBytes()), classAttribute, 16);
+
+		assertEquals(reference.getStructure().numAttributes(), fast.getStructure().numAttributes());
+		assertEquals(reference.getStructure().classIndex(), fast.getStructure().classIndex());
+		int count = 0;
+		while (true) {
+			Instance expected = reference.readInstance();
+			Instance actual = fast.readInstance();
+			if (expected == null || expected.numAttributes() == 0) {
+				assertNull("Additional instance after " + count, actual);
+				break;
+			}
+			assertNotNull("Missing instance " + count, actual);
+			assertEquals(expected.numValues(), actual.numValues());
+			for (int i = 0; i < expected.numValues(); i++) {
+				assertEquals(expected.index(i), actual.index(i));
+				assertEquals("Instance " + count + ", value " + i,
+						Double.doubleToLongBits(expected.valueSparse(i)),
+						Double.doubleToLongBits(actual.valueSparse(i)));
+			}
+			count++;
+		}
+	}
+
+	@Test
+	public void testDense() {
+		assertSameInstances(HEADER
+				+ "1.5,a,-2,yes\n"
+				+ "% a comment line\n"
+				+ "\n"
+				+ "  3e-2 , \"b c\" , 0.1 , no % trailing comment\r\n"
+				+ "?,\"d\",?,?\r"
+				+ "-0,a,1E+22,no\n"
+				+ "12345678901234567890,a,.5,yes\n"
+				+ "4.9e-324,a,1.7976931348623157E308,yes\n"
+				+ "NaN,a,-Infinity,no", -1);
+	}
+
+	@Test
+	public void testSparse() {
+		assertSameInstances(HEADER
+				+ "{0 1.5,1 a,3 yes}\n"
+				+ "{1 \"b c\", 2 -3.25}\n"
+				+ "{}\n"
+				+ "{3 no}\n", -1);
+	}
+
+	@Test
+	public void testClassIndex() {
+		assertSameInstances(HEADER + "1,a,2,no\n", 2);
+		assertSameInstances(HEADER + "1,a,2,no\n", 0);
+	}
+
+	@Test
+	public void testRandomNumbers() {
+		Random random = new Random(1);
+		StringBuilder arff = new StringBuilder("@relation numbers\n@attribute x numeric\n@attribute y numeric\n@data\n");
+		for (int i = 0; i < 5000; i++) {
+			double x = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+			arff.append(x).append(',');
+			arff.append(String.format("%." + random.nextInt(12) + "f", random.nextDouble() * 1000).replace(',', '.'));
+			arff.append('\n');
+		}
+		assertSameInstances(arff.toString(), -1);
+	}
+
+	@Test
+	public void testParseDouble() {
+		String[] values = {"0", "-0", "1", "+1", "0.1", "123.456", "1e10", "1.e3", ".25",
+				"9007199254740993", "0.30000000000000004", "2.2250738585072014E-308", "1e23", "1e-23"};
+		for (String value : values) {
+			byte[] bytes = value.getBytes();
+			assertEquals(value, Double.doubleToLongBits(Double.valueOf(value)),
+					Double.doubleToLongBits(FastArffLoader.parseDouble(bytes, 0, bytes.length)));
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class InstanceImplTest {
+
+	private static Instance createInstance() {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("a"));
+		attributes.add(new Attribute("b"));
+		attributes.add(new Attribute("class"));
+		Instances header = new Instances("test", attributes, 0);
+		header.setClassIndex(2);
+		Instance inst = new DenseInstance(2.0, new double[] {1.0, 2.0, 3.0});
+		inst.setDataset(header);
+		return inst;
+	}
+
+	@Test
+	public void testWeightedView() {
+		Instance inst = createInstance();
+		Instance view = inst.weightedView(6.0);
+		assertEquals(6.0, view.weight(), 0.0);
+		assertEquals(2.0, inst.weight(), 0.0);
+		assertArrayEquals(inst.toDoubleArray(), view.toDoubleArray(), 0.0);
+		assertSame(inst.dataset(), view.dataset());
+		assertEquals(3.0, view.classValue(), 0.0);
+
+		view.setWeight(1.0);
+		assertEquals(2.0, inst.weight(), 0.0);
+		// the values are shared with the instance
+		inst.setValue(0, 5.0);
+		assertEquals(5.0, view.value(0), 0.0);
+	}
+
+	@Test
+	public void testCopy() {
+		Instance inst = createInstance();
+		Instance copy = inst.copy();
+		inst.setValue(0, 5.0);
+		assertEquals(1.0, copy.value(0), 0.0);
+		assertEquals(2.0, copy.weight(), 0.0);
+	}
+
+	@Test
+	public void testFloatData() {
+		InstanceData data = new FloatDenseInstanceData(new double[] {0.1, Double.NaN, 3.0});
+		assertEquals(0.1, data.value(0), 1e-7);
+		assertTrue(data.isMissing(1));
+		assertEquals(3.0, data.value(2), 0.0);
+		InstanceData copy = data.copy();
+		data.setValue(2, 4.0);
+		assertEquals(3.0, copy.value(2), 0.0);
+		data.deleteAttributeAt(0);
+		assertEquals(2, data.numAttributes());
+		assertEquals(4.0, data.value(1), 0.0);
+	}
+
+	@Test
+	public void testByteData() {
+		InstanceData data = new ByteDenseInstanceData(new double[] {0.0, Double.NaN, 254.0});
+		assertEquals(0.0, data.value(0), 0.0);
+		assertTrue(data.isMissing(1));
+		assertTrue(Double.isNaN(data.value(1)));
+		assertEquals(254.0, data.value(2), 0.0);
+		assertArrayEquals(new double[] {0.0, Double.NaN, 254.0}, data.copy().toDoubleArray(), 0.0);
+		try {
+			data.setValue(0, 1.5);
+			fail("A fraction cannot be stored in a byte");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			data.setValue(0, 255.0);
+			fail("255 is the missing value code");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package moa.classifiers;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.meta.OzaBag;
+import moa.classifiers.trees.HoeffdingAdaptiveTree;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGenerator;
+import moa.streams.generators.STAGGERGenerator;
+
+import org.junit.Test;
+
+public class BatchTrainingTest {
+
+	private static void assertSameModels(AbstractClassifier sequential,
+			AbstractClassifier batched, InstanceStream stream, int batchSize) {
+		sequential.setModelContext(stream.getHeader());
+		sequential.prepareForUse();
+		batched.setModelContext(stream.getHeader());
+		batched.prepareForUse();
+		Random random = new Random(1);
+		for (int n = 0; n < 40; n++) {
+			Instances batch = new Instances(stream.getHeader(), batchSize);
+			for (int i = 0; i < batchSize; i++) {
+				Instance inst = stream.nextInstance().getData().copy();
+				if (random.nextDouble() < 0.05) {
+					inst.setValue(random.nextInt(inst.numAttributes() - 1), Double.NaN);
+				}
+				batch.add(inst);
+			}
+			double[][] votes = batched.getVotesForInstances(batch);
+			assertEquals(batchSize, votes.length);
+			for (int i = 0; i < batchSize; i++) {
+				assertArrayEquals(sequential.getVotesForInstance(batch.instance(i)), votes[i], 0.0);
+			}
+			for (int i = 0; i < batchSize; i++) {
+				sequential.trainOnInstance(batch.instance(i));
+			}
+			batched.trainOnInstances(batch);
+			assertEquals(sequential.trainingWeightSeenByModel(),
+					batched.trainingWeightSeenByModel(), 0.0);
+		}
+		StringBuilder sequentialDescription = new StringBuilder();
+		sequential.getModelDescription(sequentialDescription, 0);
+		StringBuilder batchedDescription = new StringBuilder();
+		batched.getModelDescription(batchedDescription, 0);
+		assertEquals(sequentialDescription.toString(), batchedDescription.toString());
+	}
+
+	private static HoeffdingTree createTree() {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		return tree;
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		HoeffdingTree sequential = createTree();
+		assertSameModels(sequential, createTree(), stream, 250);
+		assertTrue(sequential.measureTreeDepth() > 1);
+	}
+
+	@Test
+	public void testHoeffdingTreeNominal() {
+		STAGGERGenerator stream = new STAGGERGenerator();
+		stream.prepareForUse();
+		HoeffdingTree sequential = createTree();
+		assertSameModels(sequential, createTree(), stream, 100);
+		assertTrue(sequential.measureTreeDepth() > 0);
+	}
+
+	@Test
+	public void testOzaBag() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		OzaBag sequential = new OzaBag();
+		sequential.baseLearnerOption.setValueViaCLIString("trees.HoeffdingTree -g 50");
+		OzaBag batched = new OzaBag();
+		batched.baseLearnerOption.setValueViaCLIString("trees.HoeffdingTree -g 50");
+		assertSameModels(sequential, batched, stream, 100);
+	}
+
+	@Test
+	public void testPerInstanceFallback() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		assertSameModels(new HoeffdingAdaptiveTree(), new HoeffdingAdaptiveTree(), stream, 100);
+		stream.restart();
+		assertSameModels(new NaiveBayes(), new NaiveBayes(), stream, 100);
+	}
+}
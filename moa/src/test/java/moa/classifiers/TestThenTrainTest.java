@@ -0,0 +1,88 @@
+package moa.classifiers;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.meta.ADACC;
+import moa.classifiers.meta.DACC;
+import moa.classifiers.meta.LeveragingBag;
+import moa.classifiers.meta.OnlineAccuracyUpdatedEnsemble;
+import moa.classifiers.meta.OzaBagAdwin;
+import moa.classifiers.meta.OzaBoost;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+public class TestThenTrainTest {
+
+	private static void assertSameModels(AbstractClassifier separate,
+			AbstractClassifier fused, int numInstances) {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.01);
+		stream.prepareForUse();
+		assertSameModels(separate, fused, stream, numInstances);
+	}
+
+	private static void assertSameModels(AbstractClassifier separate,
+			AbstractClassifier fused, InstanceStream stream, int numInstances) {
+		separate.setModelContext(stream.getHeader());
+		separate.prepareForUse();
+		fused.setModelContext(stream.getHeader());
+		fused.prepareForUse();
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = stream.nextInstance().getData();
+			double[] votes = separate.getVotesForInstance(inst);
+			separate.trainOnInstance(inst);
+			assertArrayEquals(votes, fused.testThenTrain(inst), 0.0);
+		}
+		assertEquals(separate.trainingWeightSeenByModel(),
+				fused.trainingWeightSeenByModel(), 0.0);
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		assertSameModels(new HoeffdingTree(), new HoeffdingTree(), 5000);
+	}
+
+	@Test
+	public void testLeveragingBag() {
+		assertSameModels(new LeveragingBag(), new LeveragingBag(), 3000);
+		LeveragingBag separate = new LeveragingBag();
+		separate.leveraginBagAlgorithmOption.setChosenIndex(1);
+		LeveragingBag fused = new LeveragingBag();
+		fused.leveraginBagAlgorithmOption.setChosenIndex(1);
+		assertSameModels(separate, fused, 3000);
+		separate = new LeveragingBag();
+		separate.outputCodesOption.set();
+		fused = new LeveragingBag();
+		fused.outputCodesOption.set();
+		assertSameModels(separate, fused, 3000);
+	}
+
+	@Test
+	public void testOzaBagAdwin() {
+		assertSameModels(new OzaBagAdwin(), new OzaBagAdwin(), 5000);
+	}
+
+	@Test
+	public void testOzaBoost() {
+		assertSameModels(new OzaBoost(), new OzaBoost(), 5000);
+	}
+
+	@Test
+	public void testDACC() {
+		assertSameModels(new DACC(), new DACC(), 5000);
+		assertSameModels(new ADACC(), new ADACC(), 5000);
+	}
+
+	@Test
+	public void testOnlineAccuracyUpdatedEnsemble() {
+		OnlineAccuracyUpdatedEnsemble separate = new OnlineAccuracyUpdatedEnsemble();
+		separate.windowSizeOption.setValue(200);
+		OnlineAccuracyUpdatedEnsemble fused = new OnlineAccuracyUpdatedEnsemble();
+		fused.windowSizeOption.setValue(200);
+		assertSameModels(separate, fused, 5000);
+	}
+}
@@ -0,0 +1,148 @@
+package moa.classifiers;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.functions.Perceptron;
+import moa.classifiers.functions.SGD;
+import moa.classifiers.functions.SGDMultiClass;
+import moa.classifiers.functions.SPegasos;
+import moa.classifiers.meta.ADACC;
+import moa.classifiers.meta.DACC;
+import moa.classifiers.meta.LeveragingBag;
+import moa.classifiers.meta.OnlineAccuracyUpdatedEnsemble;
+import moa.classifiers.meta.OzaBag;
+import moa.classifiers.meta.OzaBagAdwin;
+import moa.classifiers.meta.OzaBoost;
+import moa.classifiers.meta.WeightedMajorityAlgorithm;
+import moa.classifiers.trees.HoeffdingAdaptiveTree;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+public class VotesBufferTest {
+
+	/**
+	 * Checks that the votes written to a buffer are those returned by
+	 * getVotesForInstance(Instance), with a buffer that is reused, one that
+	 * is too short, and one of the exact length.
+	 */
+	private static void assertSameVotes(AbstractClassifier classifier, int numInstances) {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.01);
+		stream.prepareForUse();
+		classifier.setModelContext(stream.getHeader());
+		classifier.prepareForUse();
+		double[] buffer = new double[20];
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = stream.nextInstance().getData();
+			double[] expected = classifier.getVotesForInstance(inst);
+			Arrays.fill(buffer, Double.NaN);
+			int n = classifier.getVotesForInstance(inst, buffer);
+			assertEquals(expected.length, n);
+			assertArrayEquals(expected, Arrays.copyOf(buffer, n), 0.0);
+			for (int j = n; j < buffer.length; j++) {
+				assertEquals(0.0, buffer[j], 0.0);
+			}
+			if (n > 0) {
+				assertEquals(n, classifier.getVotesForInstance(inst, new double[n - 1]));
+			}
+			double[] exact = new double[n];
+			assertEquals(n, classifier.getVotesForInstance(inst, exact));
+			assertArrayEquals(expected, exact, 0.0);
+			classifier.trainOnInstance(inst);
+		}
+	}
+
+	/**
+	 * Checks that testThenTrain into a buffer predicts and trains as
+	 * testThenTrain(Instance) does, replacing the buffer when the votes do
+	 * not have its length.
+	 */
+	private static void assertSameTestThenTrain(Classifier expected, Classifier actual, int numInstances) {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.01);
+		stream.prepareForUse();
+		for (Classifier classifier : new Classifier[]{expected, actual}) {
+			classifier.setModelContext(stream.getHeader());
+			classifier.prepareForUse();
+		}
+		double[] buffer = new double[0];
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = stream.nextInstance().getData();
+			double[] votes = expected.testThenTrain(inst);
+			if (i % 100 == 0) {
+				buffer = new double[i % 200 == 0 ? 0 : 20];
+			}
+			double[] previous = buffer;
+			buffer = actual.testThenTrain(inst, buffer);
+			if (previous.length == votes.length) {
+				assertSame(previous, buffer);
+			}
+			assertArrayEquals(votes, buffer, 0.0);
+		}
+	}
+
+	@Test
+	public void testTestThenTrainIntoBuffer() {
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		HoeffdingTree treeCopy = new HoeffdingTree();
+		treeCopy.gracePeriodOption.setValue(50);
+		assertSameTestThenTrain(tree, treeCopy, 3000);
+		assertSameTestThenTrain(new NaiveBayes(), new NaiveBayes(), 2000);
+		assertSameTestThenTrain(new OzaBagAdwin(), new OzaBagAdwin(), 2000);
+		assertSameTestThenTrain(new LeveragingBag(), new LeveragingBag(), 2000);
+		assertSameTestThenTrain(new OzaBoost(), new OzaBoost(), 2000);
+		assertSameTestThenTrain(new DACC(), new DACC(), 2000);
+		assertSameTestThenTrain(new OnlineAccuracyUpdatedEnsemble(), new OnlineAccuracyUpdatedEnsemble(), 2000);
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		for (int leafPrediction = 0; leafPrediction < 3; leafPrediction++) {
+			HoeffdingTree tree = new HoeffdingTree();
+			tree.gracePeriodOption.setValue(50);
+			tree.leafpredictionOption.setChosenIndex(leafPrediction);
+			assertSameVotes(tree, 3000);
+		}
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		tree.compilePeriodOption.setValue(100);
+		assertSameVotes(tree, 3000);
+	}
+
+	@Test
+	public void testHoeffdingAdaptiveTree() {
+		HoeffdingAdaptiveTree tree = new HoeffdingAdaptiveTree();
+		tree.gracePeriodOption.setValue(50);
+		assertSameVotes(tree, 5000);
+	}
+
+	@Test
+	public void testFunctions() {
+		assertSameVotes(new NaiveBayes(), 2000);
+		assertSameVotes(new Perceptron(), 2000);
+		assertSameVotes(new SGD(), 2000);
+		assertSameVotes(new SGDMultiClass(), 2000);
+		assertSameVotes(new SPegasos(), 2000);
+	}
+
+	@Test
+	public void testEnsembles() {
+		assertSameVotes(new OzaBag(), 2000);
+		assertSameVotes(new OzaBoost(), 2000);
+		assertSameVotes(new WeightedMajorityAlgorithm(), 2000);
+		assertSameVotes(new DACC(), 2000);
+		DACC dacc = new DACC();
+		dacc.combinationOption.setChosenIndex(1);
+		assertSameVotes(dacc, 2000);
+		assertSameVotes(new ADACC(), 2000);
+		OnlineAccuracyUpdatedEnsemble oaue = new OnlineAccuracyUpdatedEnsemble();
+		oaue.windowSizeOption.setValue(200);
+		assertSameVotes(oaue, 3000);
+	}
+}
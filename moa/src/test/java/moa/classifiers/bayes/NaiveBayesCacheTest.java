@@ -0,0 +1,89 @@
+package moa.classifiers.bayes;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import moa.classifiers.core.attributeclassobservers.ArrayGaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.core.AutoExpandVector;
+import moa.core.DoubleVector;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+public class NaiveBayesCacheTest {
+
+	private static Instances createHeader() {
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("nominal", Arrays.asList("a", "b", "c")));
+		attributes.add(new Attribute("class", Arrays.asList("x", "y", "z")));
+		attributes.add(new Attribute("gaussian"));
+		attributes.add(new Attribute("arrayGaussian"));
+		Instances header = new Instances("test", attributes, 0);
+		header.setClassIndex(1);
+		return header;
+	}
+
+	@Test
+	public void testSameVotesAsNaiveBayes() {
+		Instances header = createHeader();
+		DoubleVector classDistribution = new DoubleVector();
+		AutoExpandVector<AttributeClassObserver> observers = new AutoExpandVector<AttributeClassObserver>();
+		observers.set(0, new NominalAttributeClassObserver());
+		observers.set(1, new GaussianNumericAttributeClassObserver());
+		observers.set(2, new ArrayGaussianNumericAttributeClassObserver());
+		NaiveBayesCache cache = new NaiveBayesCache();
+		Random random = new Random(1);
+		for (int i = 0; i < 2000; i++) {
+			// the third class only appears later
+			int classVal = random.nextInt(i < 500 ? 2 : 3);
+			double[] values = new double[4];
+			values[0] = random.nextInt(classVal + 1);
+			values[1] = classVal;
+			values[2] = random.nextDouble() < 0.1 ? Double.NaN : random.nextGaussian() + classVal;
+			// constant for the first class
+			values[3] = classVal == 0 ? 1.0 : random.nextGaussian() * classVal;
+			Instance inst = new DenseInstance(1.0, values);
+			inst.setDataset(header);
+			if (i > 0) {
+				assertArrayEquals(NaiveBayes.doNaiveBayesPrediction(inst, classDistribution, observers),
+						cache.getVotesForInstance(inst, classDistribution, observers), 0.0);
+			}
+			classDistribution.addToValue(classVal, 1.0);
+			observers.get(0).observeAttributeClass(values[0], classVal, 1.0);
+			observers.get(1).observeAttributeClass(values[2], classVal, 1.0);
+			observers.get(2).observeAttributeClass(values[3], classVal, 1.0);
+			cache.invalidateClass(classVal);
+		}
+	}
+
+	@Test
+	public void testHoeffdingTreeLeaves() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.leafpredictionOption.setChosenIndex(2);
+		tree.setModelContext(stream.getHeader());
+		tree.prepareForUse();
+		int correct = 0;
+		for (int i = 0; i < 20000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			if (tree.correctlyClassifies(inst)) {
+				correct++;
+			}
+			tree.trainOnInstance(inst);
+		}
+		assertTrue(tree.measureTreeDepth() > 0);
+		assertTrue(correct > 15000);
+	}
+}
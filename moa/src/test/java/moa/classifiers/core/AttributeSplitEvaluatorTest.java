@@ -0,0 +1,71 @@
+package moa.classifiers.core;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.AbstractClassifier;
+import moa.classifiers.trees.HoeffdingOptionTree;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.classifiers.trees.RandomHoeffdingTree;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+public class AttributeSplitEvaluatorTest {
+
+	private static RandomRBFGenerator createStream() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.numAttsOption.setValue(60);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static void assertSameTrees(HoeffdingTree sequential, HoeffdingTree parallel) {
+		sequential.gracePeriodOption.setValue(50);
+		parallel.gracePeriodOption.setValue(50);
+		parallel.parallelSplitEvaluationOption.set();
+		assertSameModels(sequential, parallel);
+	}
+
+	private static void assertSameModels(AbstractClassifier sequential,
+			AbstractClassifier parallel) {
+		RandomRBFGenerator stream = createStream();
+		sequential.setModelContext(stream.getHeader());
+		sequential.prepareForUse();
+		parallel.setModelContext(stream.getHeader());
+		parallel.prepareForUse();
+		for (int i = 0; i < 5000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(sequential.getVotesForInstance(inst),
+					parallel.getVotesForInstance(inst), 0.0);
+			sequential.trainOnInstance(inst);
+			parallel.trainOnInstance(inst);
+		}
+		StringBuilder sequentialModel = new StringBuilder();
+		sequential.getModelDescription(sequentialModel, 0);
+		StringBuilder parallelModel = new StringBuilder();
+		parallel.getModelDescription(parallelModel, 0);
+		assertEquals(sequentialModel.toString(), parallelModel.toString());
+		assertTrue(sequentialModel.indexOf("if ") >= 0);
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		assertSameTrees(new HoeffdingTree(), new HoeffdingTree());
+	}
+
+	@Test
+	public void testRandomHoeffdingTree() {
+		assertSameTrees(new RandomHoeffdingTree(), new RandomHoeffdingTree());
+	}
+
+	@Test
+	public void testHoeffdingOptionTree() {
+		HoeffdingOptionTree sequential = new HoeffdingOptionTree();
+		HoeffdingOptionTree parallel = new HoeffdingOptionTree();
+		sequential.gracePeriodOption.setValue(50);
+		parallel.gracePeriodOption.setValue(50);
+		parallel.parallelSplitEvaluationOption.set();
+		assertSameModels(sequential, parallel);
+	}
+}
@@ -0,0 +1,101 @@
+package moa.classifiers.core.attributeclassobservers;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+public class ArrayGaussianNumericAttributeClassObserverTest {
+
+	private static void assertSameSuggestions(AttributeSplitSuggestion expected,
+			AttributeSplitSuggestion actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertEquals(expected.merit, actual.merit, 0.0);
+		assertEquals(((NumericAttributeBinaryTest) expected.splitTest).getSplitValue(),
+				((NumericAttributeBinaryTest) actual.splitTest).getSplitValue(), 0.0);
+		assertEquals(expected.resultingClassDistributions.length,
+				actual.resultingClassDistributions.length);
+		for (int i = 0; i < expected.resultingClassDistributions.length; i++) {
+			assertArrayEquals(expected.resultingClassDistributions[i],
+					actual.resultingClassDistributions[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testSameStatistics() {
+		GaussianNumericAttributeClassObserver expected = new GaussianNumericAttributeClassObserver();
+		ArrayGaussianNumericAttributeClassObserver actual = new ArrayGaussianNumericAttributeClassObserver();
+		InfoGainSplitCriterion criterion = new InfoGainSplitCriterion();
+		Random random = new Random(1);
+		double[] classDist = new double[4];
+		assertNull(actual.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, false));
+		for (int i = 0; i < 2000; i++) {
+			// class 1 is never seen
+			int classVal = random.nextInt(3);
+			if (classVal == 1) {
+				classVal = 3;
+			}
+			double attVal = random.nextGaussian() + classVal;
+			if (i % 50 == 0) {
+				attVal = Double.NaN;
+			}
+			double weight = 1 + random.nextInt(3);
+			expected.observeAttributeClass(attVal, classVal, weight);
+			actual.observeAttributeClass(attVal, classVal, weight);
+			if (!Double.isNaN(attVal)) {
+				classDist[classVal] += weight;
+			}
+			if (i % 100 == 0) {
+				assertSameSuggestions(
+						expected.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, false),
+						actual.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, false));
+			}
+			for (int c = 0; c < 5; c++) {
+				assertEquals(expected.probabilityOfAttributeValueGivenClass(attVal, c),
+						actual.probabilityOfAttributeValueGivenClass(attVal, c), 0.0);
+			}
+		}
+		ArrayGaussianNumericAttributeClassObserver copy = (ArrayGaussianNumericAttributeClassObserver) actual.copy();
+		actual.observeAttributeClass(10.0, 0, 1.0);
+		assertEquals(expected.probabilityOfAttributeValueGivenClass(1.0, 0),
+				copy.probabilityOfAttributeValueGivenClass(1.0, 0), 0.0);
+		assertTrue(copy.measureByteSize() > 0);
+	}
+
+	@Test
+	public void testSameTree() {
+		HoeffdingTree expected = new HoeffdingTree();
+		expected.numericEstimatorOption.setValueViaCLIString("GaussianNumericAttributeClassObserver");
+		HoeffdingTree actual = new HoeffdingTree();
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		for (HoeffdingTree tree : new HoeffdingTree[]{expected, actual}) {
+			tree.gracePeriodOption.setValue(50);
+			tree.setModelContext(stream.getHeader());
+			tree.prepareForUse();
+		}
+		for (int i = 0; i < 10000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(expected.getVotesForInstance(inst),
+					actual.getVotesForInstance(inst), 0.0);
+			expected.trainOnInstance(inst);
+			actual.trainOnInstance(inst);
+		}
+		StringBuilder expectedModel = new StringBuilder();
+		expected.getModelDescription(expectedModel, 0);
+		StringBuilder actualModel = new StringBuilder();
+		actual.getModelDescription(actualModel, 0);
+		assertEquals(expectedModel.toString(), actualModel.toString());
+	}
+}
@@ -0,0 +1,118 @@
+package moa.classifiers.core.attributeclassobservers;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.core.splitcriteria.VarianceReductionSplitCriterion;
+
+import org.junit.Test;
+
+public class BoundedValueBinsTest {
+
+	private static double splitValue(AttributeSplitSuggestion suggestion) {
+		return ((NumericAttributeBinaryTest) suggestion.splitTest).getSplitValue();
+	}
+
+	@Test
+	public void testBoundedExactStatistics() {
+		BoundedValueBins bins = new BoundedValueBins(50, 1);
+		List<Double> observed = new ArrayList<Double>();
+		Random random = new Random(1);
+		for (int i = 0; i < 5000; i++) {
+			double value = random.nextInt(1000) / 10.0;
+			observed.add(value);
+			int row = bins.binFor(value);
+			bins.statistics()[row] += 1;
+			assertTrue(bins.numBins() <= 50);
+		}
+		double cumulative = 0;
+		for (int bin = 0; bin < bins.numBins(); bin++) {
+			if (bin > 0) {
+				assertTrue(bins.value(bin) > bins.value(bin - 1));
+			}
+			cumulative += bins.statistics()[bin];
+			int expected = 0;
+			for (double value : observed) {
+				if (value <= bins.value(bin)) {
+					expected++;
+				}
+			}
+			assertEquals(expected, cumulative, 0.0);
+		}
+		assertEquals(observed.size(), cumulative, 0.0);
+	}
+
+	@Test
+	public void testClassificationUnderBudget() {
+		BinaryTreeNumericAttributeClassObserver expected = new BinaryTreeNumericAttributeClassObserver();
+		BoundedBinaryTreeNumericAttributeClassObserver actual = new BoundedBinaryTreeNumericAttributeClassObserver();
+		InfoGainSplitCriterion criterion = new InfoGainSplitCriterion();
+		Random random = new Random(2);
+		double[] classDist = new double[3];
+		for (int i = 0; i < 500; i++) {
+			int classVal = random.nextInt(3);
+			double value = random.nextGaussian() + classVal;
+			expected.observeAttributeClass(value, classVal, 1.0);
+			actual.observeAttributeClass(value, classVal, 1.0);
+			classDist[classVal]++;
+		}
+		AttributeSplitSuggestion expectedSuggestion = expected.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, false);
+		AttributeSplitSuggestion actualSuggestion = actual.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, false);
+		assertEquals(splitValue(expectedSuggestion), splitValue(actualSuggestion), 0.0);
+		assertEquals(expectedSuggestion.merit, actualSuggestion.merit, 1e-9);
+		for (int i = 0; i < 2; i++) {
+			for (int j = 0; j < 3; j++) {
+				assertEquals(expectedSuggestion.resultingClassDistributions[i][j],
+						actualSuggestion.resultingClassDistributions[i][j], 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testClassificationOverBudget() {
+		BoundedBinaryTreeNumericAttributeClassObserver observer = new BoundedBinaryTreeNumericAttributeClassObserver();
+		observer.maxNodesOption.setValue(100);
+		Random random = new Random(3);
+		double[] classDist = new double[2];
+		for (int i = 0; i < 100000; i++) {
+			int classVal = random.nextInt(2);
+			observer.observeAttributeClass(random.nextDouble() + classVal, classVal, 1.0);
+			classDist[classVal]++;
+		}
+		assertTrue(observer.bins.numBins() <= 100);
+		assertTrue(observer.bins.numBins() >= 75);
+		AttributeSplitSuggestion suggestion = observer.getBestEvaluatedSplitSuggestion(
+				new InfoGainSplitCriterion(), classDist, 0, false);
+		assertEquals(1.0, splitValue(suggestion), 0.05);
+		assertEquals(classDist[0], suggestion.resultingClassDistributions[0][0]
+				+ suggestion.resultingClassDistributions[1][0], 0.0);
+	}
+
+	@Test
+	public void testRegressionUnderBudget() {
+		FIMTDDNumericAttributeClassObserver expected = new FIMTDDNumericAttributeClassObserver();
+		BoundedFIMTDDNumericAttributeClassObserver actual = new BoundedFIMTDDNumericAttributeClassObserver(1000);
+		VarianceReductionSplitCriterion criterion = new VarianceReductionSplitCriterion();
+		Random random = new Random(4);
+		double[] targetDist = new double[3];
+		for (int i = 0; i < 500; i++) {
+			double value = random.nextDouble();
+			double target = value > 0.3 ? 5 + random.nextGaussian() : random.nextGaussian();
+			expected.observeAttributeClass(value, target, 1.0);
+			actual.observeAttributeClass(value, target, 1.0);
+			targetDist[0]++;
+			targetDist[1] += target;
+			targetDist[2] += target * target;
+		}
+		AttributeSplitSuggestion expectedSuggestion = expected.getBestEvaluatedSplitSuggestion(criterion, targetDist, 0, true);
+		AttributeSplitSuggestion actualSuggestion = actual.getBestEvaluatedSplitSuggestion(criterion, targetDist, 0, true);
+		assertEquals(splitValue(expectedSuggestion), splitValue(actualSuggestion), 0.0);
+		assertEquals(expectedSuggestion.merit, actualSuggestion.merit, 1e-6);
+	}
+}
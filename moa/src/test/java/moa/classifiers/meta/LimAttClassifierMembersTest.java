@@ -0,0 +1,102 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.Classifier;
+import moa.classifiers.trees.LimAttHoeffdingTree;
+import moa.streams.generators.RandomRBFGenerator;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+public class LimAttClassifierMembersTest {
+
+	@Test
+	public void testSharedRootObservers() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		LimAttClassifier classifier = new LimAttClassifier();
+		classifier.baseLearnerOption.setValueViaCLIString("trees.LimAttHoeffdingTree -g 50");
+		classifier.numAttributesOption.setValue(2);
+		classifier.deltaAdwinOption.setValue(1.0E-10);
+		classifier.setModelContext(stream.getHeader());
+		classifier.prepareForUse();
+		classifier.trainOnInstance(stream.nextInstance().getData());
+		assertNotNull(classifier.sharedRootObservers);
+
+		// trees that observe the instances at their own root
+		Classifier[] members = classifier.getSubClassifiers();
+		LimAttHoeffdingTree[] trees = new LimAttHoeffdingTree[members.length];
+		RandomRBFGenerator treeStream = new RandomRBFGenerator();
+		treeStream.prepareForUse();
+		Instance first = treeStream.nextInstance().getData();
+		for (int i = 0; i < trees.length; i++) {
+			trees[i] = (LimAttHoeffdingTree) classifier.memberFactory.newMember();
+			trees[i].setlistAttributes(((LimAttHoeffdingTree) members[i]).getlistAttributes());
+			trees[i].trainOnInstance(first);
+		}
+		for (int n = 0; n < 10000; n++) {
+			Instance inst = stream.nextInstance().getData();
+			classifier.trainOnInstance(inst);
+			inst = treeStream.nextInstance().getData();
+			for (LimAttHoeffdingTree tree : trees) {
+				tree.trainOnInstance(inst);
+			}
+		}
+		assertEquals(0, classifier.numberOfChangesDetected);
+		assertNull(classifier.sharedRootObservers);
+		members = classifier.getSubClassifiers();
+		for (int n = 0; n < 500; n++) {
+			Instance inst = stream.nextInstance().getData();
+			for (int i = 0; i < trees.length; i++) {
+				assertArrayEquals(trees[i].getVotesForInstance(inst),
+						members[i].getVotesForInstance(inst), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testLazyMembers() {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.numAttsOption.setValue(30);
+		stream.speedChangeOption.setValue(0.05);
+		stream.numDriftCentroidsOption.setValue(50);
+		stream.prepareForUse();
+		LimAttClassifier classifier = new LimAttClassifier();
+		classifier.numAttributesOption.setValue(2);
+		classifier.lazyMembersOption.set();
+		classifier.deltaAdwinOption.setValue(0.5);
+		classifier.setModelContext(stream.getHeader());
+		classifier.prepareForUse();
+		for (int n = 0; n < 5000; n++) {
+			Instance inst = stream.nextInstance().getData();
+			assertTrue(n == 0 || classifier.getVotesForInstance(inst).length == inst.numClasses());
+			classifier.trainOnInstance(inst);
+		}
+		assertTrue(classifier.numberOfChangesDetected > 0);
+		Classifier[] members = classifier.getSubClassifiers();
+		assertEquals(classifier.numEnsemblePruningOption.getValue(), members.length);
+		for (int i = 0; i < members.length; i++) {
+			int[] listAttributes = ((LimAttHoeffdingTree) members[i]).getlistAttributes();
+			assertEquals(2, listAttributes.length);
+			for (int j = 0; j < i; j++) {
+				assertFalse(Arrays.equals(listAttributes,
+						((LimAttHoeffdingTree) members[j]).getlistAttributes()));
+			}
+		}
+	}
+
+	@Test
+	public void testBestMembers() {
+		LimAttClassifier classifier = new LimAttClassifier();
+		classifier.ensemble = new Classifier[5];
+		classifier.weightAttribute = new double[][]{
+			{0.1, 0.5, -0.2, 0.3, 0.0, 1.0},
+			{0.2, 0.1, 0.0, 0.3, -0.1, 1.0}};
+		assertArrayEquals(new int[]{1, 3}, classifier.getBestMembers(2));
+		assertArrayEquals(new int[]{0, 1, 3}, classifier.getBestMembers(3));
+		assertEquals(2, classifier.getWeakestMember());
+	}
+}
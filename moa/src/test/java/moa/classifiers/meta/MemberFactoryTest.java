@@ -0,0 +1,86 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.Classifier;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.classifiers.trees.LimAttHoeffdingTree;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+public class MemberFactoryTest {
+
+	private static RandomRBFGeneratorDrift createStream() {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.05);
+		stream.numDriftCentroidsOption.setValue(50);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	@Test
+	public void testNewMembersAreUntrained() {
+		RandomRBFGeneratorDrift stream = createStream();
+		HoeffdingTree prototype = new HoeffdingTree();
+		prototype.prepareForUse();
+		MemberFactory factory = new MemberFactory(prototype, 0.01);
+		Classifier[] members = factory.newMembers(3);
+		HoeffdingTree reset = new HoeffdingTree();
+		reset.prepareForUse();
+		for (int i = 0; i < 2000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			members[0].trainOnInstance(inst);
+			reset.trainOnInstance(inst);
+		}
+		assertNotSame(members[1], members[2]);
+		assertEquals(0.0, members[1].trainingWeightSeenByModel(), 0.0);
+		assertEquals(0.0, factory.newMember().trainingWeightSeenByModel(), 0.0);
+		assertEquals(0.0, prototype.trainingWeightSeenByModel(), 0.0);
+		for (int i = 0; i < 500; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(reset.getVotesForInstance(inst), members[0].getVotesForInstance(inst), 0.0);
+		}
+		assertNotSame(factory.newDetector(), factory.newDetector());
+		assertEquals(3, factory.newDetectors(3).length);
+	}
+
+	@Test
+	public void testReplacedMembersKeepPrototypeUntrained() {
+		RandomRBFGeneratorDrift stream = createStream();
+		LeveragingBag bag = new LeveragingBag();
+		bag.baseLearnerOption.setValueViaCLIString("bayes.NaiveBayes");
+		bag.setModelContext(stream.getHeader());
+		bag.prepareForUse();
+		for (int i = 0; i < 6000; i++) {
+			bag.trainOnInstance(stream.nextInstance().getData());
+		}
+		assertTrue(bag.numberOfChangesDetected > 0);
+		assertEquals(0.0, bag.memberFactory.getPrototype().trainingWeightSeenByModel(), 0.0);
+		for (Classifier member : bag.getSubClassifiers()) {
+			assertNotSame(bag.memberFactory.getPrototype(), member);
+		}
+	}
+
+	@Test
+	public void testLimAttReplacedMembersKeepAttributes() {
+		RandomRBFGeneratorDrift stream = createStream();
+		LimAttClassifier classifier = new LimAttClassifier();
+		classifier.deltaAdwinOption.setValue(0.9);
+		classifier.setModelContext(stream.getHeader());
+		classifier.prepareForUse();
+		for (int i = 0; i < 6000; i++) {
+			classifier.trainOnInstance(stream.nextInstance().getData());
+		}
+		assertTrue(classifier.numberOfChangesDetected > 0);
+		Classifier[] members = classifier.getSubClassifiers();
+		for (int i = 0; i < members.length; i++) {
+			assertNotNull(((LimAttHoeffdingTree) members[i]).getlistAttributes());
+			for (int j = 0; j < i; j++) {
+				assertNotSame(((LimAttHoeffdingTree) members[i]).getlistAttributes(),
+						((LimAttHoeffdingTree) members[j]).getlistAttributes());
+			}
+		}
+	}
+}
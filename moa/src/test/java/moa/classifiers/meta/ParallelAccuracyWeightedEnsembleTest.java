@@ -0,0 +1,70 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+public class ParallelAccuracyWeightedEnsembleTest {
+
+	/** Tests then trains on each instance, returning the votes. */
+	private static double[][] testThenTrain(final AccuracyWeightedEnsemble classifier,
+			final List<Instance> instances, ForkJoinPool pool) throws Exception {
+		Callable<double[][]> run = new Callable<double[][]>() {
+			@Override
+			public double[][] call() {
+				double[][] votes = new double[instances.size()][];
+				for (int i = 0; i < votes.length; i++) {
+					votes[i] = classifier.getVotesForInstance(instances.get(i));
+					classifier.trainOnInstance(instances.get(i));
+				}
+				return votes;
+			}
+		};
+		if (pool == null) {
+			return run.call();
+		}
+		try {
+			return pool.submit(run).get();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSameAsSerial() throws Exception {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.01);
+		stream.prepareForUse();
+		List<Instance> instances = new ArrayList<Instance>();
+		for (int i = 0; i < 8000; i++) {
+			instances.add(stream.nextInstance().getData());
+		}
+		AccuracyWeightedEnsemble serial = new AccuracyWeightedEnsemble();
+		serial.storedCountOption.setValue(5);
+		serial.memberCountOption.setValue(3);
+		serial.setModelContext(stream.getHeader());
+		serial.prepareForUse();
+		double[][] expected = testThenTrain(serial, instances, null);
+		for (ForkJoinPool pool : new ForkJoinPool[]{null, new ForkJoinPool(1), new ForkJoinPool(4)}) {
+			AccuracyWeightedEnsemble parallel = new AccuracyWeightedEnsemble();
+			parallel.storedCountOption.setValue(5);
+			parallel.memberCountOption.setValue(3);
+			parallel.parallelOption.set();
+			parallel.setModelContext(stream.getHeader());
+			parallel.prepareForUse();
+			double[][] votes = testThenTrain(parallel, instances, pool);
+			for (int i = 0; i < votes.length; i++) {
+				assertArrayEquals(expected[i], votes[i], 0.0);
+			}
+			assertArrayEquals(serial.storedWeights, parallel.storedWeights);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import moa.classifiers.AbstractClassifier;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+public class ParallelBaggingTest {
+
+	private static interface Factory {
+
+		AbstractClassifier create();
+	}
+
+	private static RandomRBFGeneratorDrift createStream() {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.01);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	/** Tests then trains on each instance, returning the votes. */
+	private static double[][] testThenTrain(final AbstractClassifier classifier,
+			final List<Instance> instances, ForkJoinPool pool) throws Exception {
+		Callable<double[][]> run = new Callable<double[][]>() {
+			@Override
+			public double[][] call() {
+				double[][] votes = new double[instances.size()][];
+				for (int i = 0; i < votes.length; i++) {
+					votes[i] = classifier.getVotesForInstance(instances.get(i));
+					classifier.trainOnInstance(instances.get(i));
+				}
+				return votes;
+			}
+		};
+		if (pool == null) {
+			return run.call();
+		}
+		try {
+			return pool.submit(run).get();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void assertSameForAnyThreadCount(Factory factory, int numInstances)
+			throws Exception {
+		RandomRBFGeneratorDrift stream = createStream();
+		List<Instance> instances = new ArrayList<Instance>();
+		for (int i = 0; i < numInstances; i++) {
+			instances.add(stream.nextInstance().getData());
+		}
+		double[][] expected = null;
+		for (ForkJoinPool pool : new ForkJoinPool[]{null, new ForkJoinPool(1), new ForkJoinPool(4)}) {
+			AbstractClassifier classifier = factory.create();
+			classifier.setModelContext(stream.getHeader());
+			classifier.prepareForUse();
+			double[][] votes = testThenTrain(classifier, instances, pool);
+			if (expected == null) {
+				expected = votes;
+			} else {
+				for (int i = 0; i < votes.length; i++) {
+					assertArrayEquals(expected[i], votes[i], 0.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOzaBag() throws Exception {
+		assertSameForAnyThreadCount(new Factory() {
+			@Override
+			public AbstractClassifier create() {
+				OzaBag bag = new OzaBag();
+				bag.parallelOption.set();
+				return bag;
+			}
+		}, 3000);
+	}
+
+	@Test
+	public void testOzaBagBatches() {
+		RandomRBFGeneratorDrift stream = createStream();
+		OzaBag sequential = new OzaBag();
+		OzaBag batched = new OzaBag();
+		for (OzaBag bag : new OzaBag[]{sequential, batched}) {
+			bag.parallelOption.set();
+			bag.setModelContext(stream.getHeader());
+			bag.prepareForUse();
+		}
+		for (int n = 0; n < 20; n++) {
+			Instances batch = new Instances(stream.getHeader(), 100);
+			for (int i = 0; i < 100; i++) {
+				batch.add(stream.nextInstance().getData());
+			}
+			double[][] votes = batched.getVotesForInstances(batch);
+			for (int i = 0; i < batch.numInstances(); i++) {
+				assertArrayEquals(sequential.getVotesForInstance(batch.instance(i)), votes[i], 0.0);
+			}
+			for (int i = 0; i < batch.numInstances(); i++) {
+				sequential.trainOnInstance(batch.instance(i));
+			}
+			batched.trainOnInstances(batch);
+		}
+		assertEquals(sequential.trainingWeightSeenByModel(),
+				batched.trainingWeightSeenByModel(), 0.0);
+	}
+
+	@Test
+	public void testOzaBagAdwin() throws Exception {
+		assertSameForAnyThreadCount(new Factory() {
+			@Override
+			public AbstractClassifier create() {
+				OzaBagAdwin bag = new OzaBagAdwin();
+				bag.parallelOption.set();
+				return bag;
+			}
+		}, 3000);
+	}
+
+	@Test
+	public void testLeveragingBag() throws Exception {
+		assertSameForAnyThreadCount(new Factory() {
+			@Override
+			public AbstractClassifier create() {
+				LeveragingBag bag = new LeveragingBag();
+				bag.parallelOption.set();
+				return bag;
+			}
+		}, 2000);
+		assertSameForAnyThreadCount(new Factory() {
+			@Override
+			public AbstractClassifier create() {
+				LeveragingBag bag = new LeveragingBag();
+				bag.parallelOption.set();
+				bag.leveraginBagAlgorithmOption.setChosenIndex(1);
+				return bag;
+			}
+		}, 2000);
+		assertSameForAnyThreadCount(new Factory() {
+			@Override
+			public AbstractClassifier create() {
+				LeveragingBag bag = new LeveragingBag();
+				bag.parallelOption.set();
+				bag.outputCodesOption.set();
+				return bag;
+			}
+		}, 2000);
+	}
+
+	@Test
+	public void testOzaBagASHT() throws Exception {
+		assertSameForAnyThreadCount(new Factory() {
+			@Override
+			public AbstractClassifier create() {
+				OzaBagASHT bag = new OzaBagASHT();
+				bag.baseLearnerOption.setValueViaCLIString("trees.ASHoeffdingTree");
+				bag.useWeightOption.set();
+				bag.parallelOption.set();
+				return bag;
+			}
+		}, 3000);
+	}
+}
@@ -0,0 +1,203 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.core.DoubleVector;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+public class ClassDistributionArenaTest {
+
+	/** Keeps the inactive leaves as InactiveLearningNodes, as before the arena. */
+	private static class UnpackedHoeffdingTree extends HoeffdingTree {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void deactivateLearningNode(ActiveLearningNode toDeactivate,
+				SplitNode parent, int parentBranch) {
+			Node newLeaf = new InactiveLearningNode(toDeactivate.getObservedClassDistribution());
+			if (parent == null) {
+				this.treeRoot = newLeaf;
+			} else {
+				parent.setChild(parentBranch, newLeaf);
+			}
+			this.activeLeafNodeCount--;
+			this.inactiveLeafNodeCount++;
+			this.compiledTree = null;
+		}
+	}
+
+	private static class UnpackedHoeffdingOptionTree extends HoeffdingOptionTree {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void deactivateLearningNode(ActiveLearningNode toDeactivate,
+				SplitNode parent, int parentBranch) {
+			Node newLeaf = new InactiveLearningNode(toDeactivate.getObservedClassDistribution());
+			if (parent == null) {
+				this.treeRoot = newLeaf;
+			} else if (parentBranch != -999) {
+				parent.setChild(parentBranch, newLeaf);
+			} else {
+				parent.nextOption = newLeaf;
+			}
+			this.activeLeafNodeCount--;
+			this.inactiveLeafNodeCount++;
+		}
+	}
+
+	@Test
+	public void testSameAsDoubleVector() {
+		Random random = new Random(1);
+		ClassDistributionArena arena = new ClassDistributionArena();
+		DoubleVector[] vectors = new DoubleVector[50];
+		int[] rows = new int[vectors.length];
+		for (int step = 0; step < 20000; step++) {
+			int i = random.nextInt(vectors.length);
+			if (vectors[i] == null) {
+				double[] values = new double[random.nextInt(4)];
+				for (int j = 0; j < values.length; j++) {
+					values[j] = random.nextInt(3);
+				}
+				vectors[i] = new DoubleVector(values);
+				rows[i] = arena.add(values);
+			} else if (random.nextInt(10) == 0) {
+				arena.remove(rows[i]);
+				vectors[i] = null;
+				continue;
+			} else {
+				// classes up to 6 widen the rows
+				int index = random.nextInt(step < 10000 ? 4 : 7);
+				vectors[i].addToValue(index, 1.0);
+				arena.addToValue(rows[i], index, 1.0);
+			}
+			int row = rows[i];
+			assertArrayEquals(vectors[i].getArrayCopy(), arena.getArrayCopy(row), 0.0);
+			assertEquals(vectors[i].numValues(), arena.numValues(row));
+			assertEquals(vectors[i].sumOfValues(), arena.sumOfValues(row), 0.0);
+			assertEquals(vectors[i].maxIndex(), arena.maxIndex(row));
+			assertEquals(vectors[i].numNonZeroEntries(), arena.numNonZeroEntries(row));
+			StringBuilder expected = new StringBuilder();
+			vectors[i].getSingleLineDescription(expected, 7);
+			StringBuilder actual = new StringBuilder();
+			arena.getSingleLineDescription(row, actual, 7);
+			assertEquals(expected.toString(), actual.toString());
+		}
+		int inUse = 0;
+		boolean[] live = new boolean[arena.numRows()];
+		for (int i = 0; i < vectors.length; i += 2) {
+			if (vectors[i] != null) {
+				live[rows[i]] = true;
+				inUse++;
+			}
+		}
+		arena.retainRows(live);
+		assertEquals(inUse, arena.numRowsInUse());
+		assertTrue(arena.numRows() <= vectors.length);
+	}
+
+	private static void train(InstanceStream stream, int numInstances,
+			HoeffdingTree... trees) {
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = stream.nextInstance().getData();
+			for (HoeffdingTree tree : trees) {
+				tree.trainOnInstance(inst);
+			}
+		}
+	}
+
+	private static void assertSameTrees(HoeffdingTree expected,
+			HoeffdingTree actual, InstanceStream stream) {
+		for (int i = 0; i < 500; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(expected.getVotesForInstance(inst),
+					actual.getVotesForInstance(inst), 0.0);
+		}
+		StringBuilder expectedModel = new StringBuilder();
+		expected.getModelDescription(expectedModel, 0);
+		StringBuilder actualModel = new StringBuilder();
+		actual.getModelDescription(actualModel, 0);
+		assertEquals(expectedModel.toString(), actualModel.toString());
+	}
+
+	private static void activateAllLeaves(HoeffdingTree tree) {
+		for (HoeffdingTree.FoundNode foundNode : tree.findLearningNodes()) {
+			if (foundNode.node instanceof HoeffdingTree.InactiveLearningNode) {
+				tree.activateLearningNode((HoeffdingTree.InactiveLearningNode) foundNode.node,
+						foundNode.parent, foundNode.parentBranch);
+			}
+		}
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		HoeffdingTree expected = new UnpackedHoeffdingTree();
+		HoeffdingTree actual = new HoeffdingTree();
+		for (HoeffdingTree tree : new HoeffdingTree[]{expected, actual}) {
+			tree.gracePeriodOption.setValue(50);
+			tree.setModelContext(stream.getHeader());
+			tree.prepareForUse();
+		}
+		train(stream, 10000, expected, actual);
+		expected.deactivateAllLeaves();
+		actual.deactivateAllLeaves();
+		assertTrue(actual.inactiveLeafNodeCount > 1);
+		assertEquals(actual.inactiveLeafNodeCount, actual.inactiveLeafArena.numRowsInUse());
+		train(stream, 3000, expected, actual);
+		assertSameTrees(expected, actual, stream);
+
+		// the copy has its own arena
+		HoeffdingTree copy = (HoeffdingTree) actual.copy();
+		train(stream, 1000, copy);
+		assertSameTrees(expected, actual, stream);
+
+		activateAllLeaves(expected);
+		activateAllLeaves(actual);
+		assertEquals(0, actual.inactiveLeafArena.numRowsInUse());
+		train(stream, 3000, expected, actual);
+		assertSameTrees(expected, actual, stream);
+	}
+
+	@Test
+	public void testHoeffdingOptionTree() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		HoeffdingOptionTree expected = new UnpackedHoeffdingOptionTree();
+		HoeffdingOptionTree actual = new HoeffdingOptionTree();
+		for (HoeffdingOptionTree tree : new HoeffdingOptionTree[]{expected, actual}) {
+			tree.gracePeriodOption.setValue(50);
+			tree.secondarySplitConfidenceOption.setValue(0.5);
+			tree.setModelContext(stream.getHeader());
+			tree.prepareForUse();
+		}
+		for (int i = 0; i < 10000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			expected.trainOnInstance(inst);
+			actual.trainOnInstance(inst);
+			if (i == 5000) {
+				expected.deactivateAllLeaves();
+				actual.deactivateAllLeaves();
+				assertTrue(actual.inactiveLeafNodeCount > 1);
+			}
+		}
+		assertEquals(actual.inactiveLeafNodeCount, actual.inactiveLeafArena.numRowsInUse());
+		for (int i = 0; i < 500; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(expected.getVotesForInstance(inst),
+					actual.getVotesForInstance(inst), 0.0);
+		}
+		StringBuilder expectedModel = new StringBuilder();
+		expected.getModelDescription(expectedModel, 0);
+		StringBuilder actualModel = new StringBuilder();
+		actual.getModelDescription(actualModel, 0);
+		assertEquals(expectedModel.toString(), actualModel.toString());
+	}
+}
@@ -0,0 +1,136 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.multilabel.HoeffdingTreeClassifLeaves;
+import moa.streams.InstanceStream;
+import moa.streams.generators.STAGGERGenerator;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+public class CompiledHoeffdingTreeTest {
+
+	private static HoeffdingTree train(HoeffdingTree tree, InstanceStream stream, int numInstances) {
+		tree.gracePeriodOption.setValue(50);
+		tree.setModelContext(stream.getHeader());
+		tree.prepareForUse();
+		for (int i = 0; i < numInstances; i++) {
+			tree.trainOnInstance(stream.nextInstance().getData());
+		}
+		return tree;
+	}
+
+	private static void assertSameVotes(HoeffdingTree tree, InstanceStream stream) {
+		CompiledHoeffdingTree compiled = tree.compile();
+		assertTrue(compiled.numNodes() > 1);
+		for (int i = 0; i < 1000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(tree.getVotesForInstance(inst),
+					compiled.getVotesForInstance(inst), 0.0);
+			// missing values stop at the split node testing them
+			Instance missing = inst.copy();
+			missing.setValue(i % (inst.numAttributes() - 1), Double.NaN);
+			assertArrayEquals(tree.getVotesForInstance(missing),
+					compiled.getVotesForInstance(missing), 0.0);
+		}
+	}
+
+	@Test
+	public void testNumeric() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		assertSameVotes(train(new HoeffdingTree(), stream, 5000), stream);
+	}
+
+	@Test
+	public void testNominal() {
+		STAGGERGenerator stream = new STAGGERGenerator();
+		stream.prepareForUse();
+		assertSameVotes(train(new HoeffdingTree(), stream, 20000), stream);
+		HoeffdingTree binaryTree = new HoeffdingTree();
+		binaryTree.binarySplitsOption.set();
+		assertSameVotes(train(binaryTree, stream, 20000), stream);
+	}
+
+	@Test
+	public void testCompilePeriod() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		HoeffdingTree tree = new HoeffdingTree();
+		HoeffdingTree compiledTree = new HoeffdingTree();
+		compiledTree.compilePeriodOption.setValue(1000);
+		for (HoeffdingTree t : new HoeffdingTree[]{tree, compiledTree}) {
+			t.gracePeriodOption.setValue(50);
+			t.setModelContext(stream.getHeader());
+			t.prepareForUse();
+		}
+		for (int i = 0; i < 5000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(tree.getVotesForInstance(inst),
+					compiledTree.getVotesForInstance(inst), 0.0);
+			tree.trainOnInstance(inst);
+			compiledTree.trainOnInstance(inst);
+		}
+	}
+
+	private static void assertSameVotesWhileTraining(HoeffdingTree tree,
+			HoeffdingTree compiledTree, InstanceStream stream, int numInstances) {
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(tree.getVotesForInstance(inst),
+					compiledTree.getVotesForInstance(inst), 0.0);
+			tree.trainOnInstance(inst);
+			compiledTree.trainOnInstance(inst);
+		}
+	}
+
+	@Test
+	public void testASHoeffdingTreeCompilePeriod() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		for (boolean resetTree : new boolean[]{false, true}) {
+			ASHoeffdingTree tree = new ASHoeffdingTree();
+			ASHoeffdingTree compiledTree = new ASHoeffdingTree();
+			compiledTree.compilePeriodOption.setValue(1000);
+			for (ASHoeffdingTree t : new ASHoeffdingTree[]{tree, compiledTree}) {
+				t.gracePeriodOption.setValue(50);
+				t.setMaxSize(3);
+				if (resetTree) {
+					t.setResetTree();
+				}
+				t.setModelContext(stream.getHeader());
+				t.prepareForUse();
+			}
+			// the tree is resized or reset as it grows
+			assertSameVotesWhileTraining(tree, compiledTree, stream, 5000);
+			tree.resetLearning();
+			compiledTree.resetLearning();
+			assertSameVotesWhileTraining(tree, compiledTree, stream, 2000);
+		}
+	}
+
+	@Test
+	public void testClassifierLeavesCompilePeriod() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		HoeffdingTree tree = new HoeffdingTreeClassifLeaves();
+		HoeffdingTree compiledTree = new HoeffdingTreeClassifLeaves();
+		compiledTree.compilePeriodOption.setValue(1000);
+		for (HoeffdingTree t : new HoeffdingTree[]{tree, compiledTree}) {
+			t.gracePeriodOption.setValue(50);
+			t.setModelContext(stream.getHeader());
+			t.prepareForUse();
+		}
+		// the leaves are replaced by the splits of the subclass
+		assertSameVotesWhileTraining(tree, compiledTree, stream, 5000);
+	}
+
+	@Test
+	public void testHoeffdingAdaptiveTreeHidesCompilePeriod() {
+		HoeffdingAdaptiveTree tree = new HoeffdingAdaptiveTree();
+		assertNull(tree.compilePeriodOption);
+		assertNull(tree.getOptions().getOption('C'));
+	}
+}
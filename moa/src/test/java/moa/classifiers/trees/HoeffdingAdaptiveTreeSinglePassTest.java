@@ -0,0 +1,120 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
+import moa.core.Measurement;
+import moa.core.MiscUtils;
+import moa.core.Utils;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+import org.junit.Test;
+
+public class HoeffdingAdaptiveTreeSinglePassTest {
+
+	/**
+	 * Tree whose nodes learn as before the prediction was passed down the
+	 * path: every split node draws an unused weight, copies the instance and
+	 * finds the leaf of its path again, and every leaf predicts itself.
+	 */
+	private static class TwoPassTree extends HoeffdingAdaptiveTree {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected LearningNode newLearningNode(double[] initialClassObservations) {
+			return new TwoPassLearningNode(initialClassObservations);
+		}
+
+		@Override
+		protected SplitNode newSplitNode(InstanceConditionalTest splitTest,
+				double[] classObservations, int size) {
+			return new TwoPassSplitNode(splitTest, classObservations, size);
+		}
+
+		@Override
+		protected SplitNode newSplitNode(InstanceConditionalTest splitTest,
+				double[] classObservations) {
+			return new TwoPassSplitNode(splitTest, classObservations);
+		}
+	}
+
+	private static class TwoPassSplitNode extends HoeffdingAdaptiveTree.AdaSplitNode {
+
+		private static final long serialVersionUID = 1L;
+
+		public TwoPassSplitNode(InstanceConditionalTest splitTest,
+				double[] classObservations, int size) {
+			super(splitTest, classObservations, size);
+		}
+
+		public TwoPassSplitNode(InstanceConditionalTest splitTest,
+				double[] classObservations) {
+			super(splitTest, classObservations);
+		}
+
+		@Override
+		public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht,
+				HoeffdingTree.SplitNode parent, int parentBranch, int classPrediction) {
+			MiscUtils.poisson(1.0, this.classifierRandom);
+			Instance weightedInst = inst.copy();
+			classPrediction = 0;
+			if (filterInstanceToLeaf(inst, parent, parentBranch).node != null) {
+				classPrediction = Utils.maxIndex(filterInstanceToLeaf(inst, parent, parentBranch).node.getClassVotes(inst, ht));
+			}
+			super.learnFromInstance(weightedInst, ht, parent, parentBranch, classPrediction);
+		}
+	}
+
+	private static class TwoPassLearningNode extends HoeffdingAdaptiveTree.AdaLearningNode {
+
+		private static final long serialVersionUID = 1L;
+
+		public TwoPassLearningNode(double[] initialClassObservations) {
+			super(initialClassObservations);
+		}
+
+		@Override
+		public void learnFromInstance(Instance inst, HoeffdingAdaptiveTree ht,
+				HoeffdingTree.SplitNode parent, int parentBranch, int classPrediction) {
+			super.learnFromInstance(inst, ht, parent, parentBranch,
+					Utils.maxIndex(getClassVotes(inst, ht)));
+		}
+	}
+
+	@Test
+	public void testSameAsTwoPasses() {
+		RandomRBFGeneratorDrift stream = new RandomRBFGeneratorDrift();
+		stream.speedChangeOption.setValue(0.001);
+		stream.instanceRandomSeedOption.setValue(3);
+		stream.prepareForUse();
+		HoeffdingAdaptiveTree expected = new TwoPassTree();
+		HoeffdingAdaptiveTree actual = new HoeffdingAdaptiveTree();
+		for (HoeffdingAdaptiveTree tree : new HoeffdingAdaptiveTree[]{expected, actual}) {
+			tree.gracePeriodOption.setValue(50);
+			tree.setModelContext(stream.getHeader());
+			tree.prepareForUse();
+		}
+		for (int i = 0; i < 30000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(expected.getVotesForInstance(inst),
+					actual.getVotesForInstance(inst), 0.0);
+			expected.trainOnInstance(inst);
+			actual.trainOnInstance(inst);
+		}
+		Measurement[] expectedMeasurements = expected.getModelMeasurements();
+		Measurement[] actualMeasurements = actual.getModelMeasurements();
+		assertEquals(expectedMeasurements.length, actualMeasurements.length);
+		for (int i = 0; i < expectedMeasurements.length; i++) {
+			assertEquals(expectedMeasurements[i].getName(), actualMeasurements[i].getName());
+			assertEquals(expectedMeasurements[i].getName(), expectedMeasurements[i].getValue(),
+					actualMeasurements[i].getValue(), 0.0);
+		}
+		// the tree adapted to the drift
+		assertTrue(expected.alternateTrees > 0);
+		assertEquals(expected.alternateTrees, actual.alternateTrees);
+		assertEquals(expected.switchedAlternateTrees, actual.switchedAlternateTrees);
+		assertEquals(expected.prunedAlternateTrees, actual.prunedAlternateTrees);
+	}
+}
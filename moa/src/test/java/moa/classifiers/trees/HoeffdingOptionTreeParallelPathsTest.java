@@ -0,0 +1,64 @@
+package moa.classifiers.trees;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.streams.InstanceStream;
+import moa.streams.generators.RandomRBFGenerator;
+import moa.streams.generators.STAGGERGenerator;
+
+import org.junit.Test;
+
+public class HoeffdingOptionTreeParallelPathsTest {
+
+	private static void assertSameTrees(HoeffdingOptionTree sequential,
+			HoeffdingOptionTree parallel, InstanceStream stream, int numInstances) {
+		for (HoeffdingOptionTree tree : new HoeffdingOptionTree[]{sequential, parallel}) {
+			tree.gracePeriodOption.setValue(50);
+			tree.secondarySplitConfidenceOption.setValue(0.5);
+			tree.setModelContext(stream.getHeader());
+			tree.prepareForUse();
+		}
+		parallel.parallelOptionPathsOption.set();
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(sequential.getVotesForInstance(inst),
+					parallel.getVotesForInstance(inst), 0.0);
+			sequential.trainOnInstance(inst);
+			parallel.trainOnInstance(inst);
+		}
+		StringBuilder sequentialModel = new StringBuilder();
+		sequential.getModelDescription(sequentialModel, 0);
+		StringBuilder parallelModel = new StringBuilder();
+		parallel.getModelDescription(parallelModel, 0);
+		assertEquals(sequentialModel.toString(), parallelModel.toString());
+		assertTrue(sequentialModel.indexOf("if ") >= 0);
+	}
+
+	private static RandomRBFGenerator createStream() {
+		RandomRBFGenerator stream = new RandomRBFGenerator();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	@Test
+	public void testNumeric() {
+		HoeffdingOptionTree sequential = new HoeffdingOptionTree();
+		assertSameTrees(sequential, new HoeffdingOptionTree(), createStream(), 20000);
+		assertTrue(sequential.maxPredictionPaths > 1);
+	}
+
+	@Test
+	public void testNominal() {
+		STAGGERGenerator stream = new STAGGERGenerator();
+		stream.prepareForUse();
+		assertSameTrees(new HoeffdingOptionTree(), new HoeffdingOptionTree(),
+				stream, 5000);
+	}
+
+	@Test
+	public void testAdaHoeffdingOptionTree() {
+		assertSameTrees(new AdaHoeffdingOptionTree(), new AdaHoeffdingOptionTree(),
+				createStream(), 20000);
+	}
+}
@@ -0,0 +1,158 @@
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.core.driftdetection.ADWIN;
+import moa.classifiers.meta.OzaBagAdwin;
+import moa.classifiers.trees.HoeffdingAdaptiveTree;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+public class DeepCopierTest {
+
+	private static List<Instance> createInstances(int numInstances) {
+		RandomRBFGenerator generator = new RandomRBFGenerator();
+		generator.prepareForUse();
+		List<Instance> instances = new ArrayList<Instance>();
+		for (int i = 0; i < numInstances; i++) {
+			instances.add(generator.nextInstance().getData());
+		}
+		return instances;
+	}
+
+	private static void train(Classifier classifier, List<Instance> instances) {
+		for (Instance inst : instances) {
+			classifier.trainOnInstance(inst);
+		}
+	}
+
+	private static void assertSameVotes(Classifier expected, Classifier actual, List<Instance> instances) {
+		for (Instance inst : instances) {
+			assertArrayEquals(expected.getVotesForInstance(inst), actual.getVotesForInstance(inst), 0.0);
+		}
+	}
+
+	private void checkClassifier(Classifier classifier) throws Exception {
+		List<Instance> instances = createInstances(3000);
+		classifier.prepareForUse();
+		classifier.setModelContext(new InstancesHeader(instances.get(0).dataset()));
+		train(classifier, instances.subList(0, 1000));
+
+		Classifier copy = DeepCopier.copyObject(classifier);
+		Classifier serialized = (Classifier) SerializeUtils.copyObject(classifier);
+		assertNotSame(classifier, copy);
+		assertSameVotes(serialized, copy, instances.subList(1000, 1200));
+
+		// training the copy must not change the original
+		train(copy, instances.subList(1000, 3000));
+		train(serialized, instances.subList(1000, 3000));
+		assertSameVotes(serialized, copy, instances.subList(0, 500));
+		Classifier untouched = (Classifier) SerializeUtils.copyObject(classifier);
+		assertSameVotes(untouched, classifier, instances.subList(0, 500));
+		assertEquals(serialized.toString(), copy.toString());
+	}
+
+	@Test
+	public void testHoeffdingTree() throws Exception {
+		checkClassifier(new HoeffdingTree());
+	}
+
+	@Test
+	public void testHoeffdingAdaptiveTree() throws Exception {
+		checkClassifier(new HoeffdingAdaptiveTree());
+	}
+
+	@Test
+	public void testOzaBagAdwin() throws Exception {
+		checkClassifier(new OzaBagAdwin());
+	}
+
+	@Test
+	public void testADWIN() {
+		ADWIN adwin = new ADWIN();
+		Random random = new Random(1);
+		for (int i = 0; i < 5000; i++) {
+			adwin.setInput(i < 2500 ? random.nextDouble() : 0.5 + random.nextDouble());
+		}
+		ADWIN copy = DeepCopier.copyObject(adwin);
+		assertEquals(adwin.getWidth(), copy.getWidth());
+		assertEquals(adwin.getEstimation(), copy.getEstimation(), 0.0);
+		for (int i = 0; i < 1000; i++) {
+			double value = random.nextDouble();
+			assertEquals(adwin.setInput(value), copy.setInput(value));
+			assertEquals(adwin.getEstimation(), copy.getEstimation(), 0.0);
+		}
+	}
+
+	@Test
+	public void testSharedReferences() {
+		DoubleVector shared = new DoubleVector(new double[]{1, 2});
+		Object[] graph = new Object[3];
+		graph[0] = shared;
+		graph[1] = shared;
+		graph[2] = graph;
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("graph", graph);
+		Map<String, Object> copy = DeepCopier.copyObject(map);
+		Object[] graphCopy = (Object[]) copy.get("graph");
+		assertNotSame(graph, graphCopy);
+		assertNotSame(shared, graphCopy[0]);
+		assertSame(graphCopy[0], graphCopy[1]);
+		assertSame(graphCopy, graphCopy[2]);
+		assertArrayEquals(shared.getArrayRef(), ((DoubleVector) graphCopy[0]).getArrayRef(), 0.0);
+	}
+
+	/** Copyable object whose copy is reached again from its references. */
+	private static class CyclicNode implements DeepCopyable {
+
+		private Object next;
+
+		private boolean registering;
+
+		@Override
+		public Object deepCopy(DeepCopier copier) {
+			CyclicNode copy = new CyclicNode();
+			copy.registering = this.registering;
+			if (this.registering) {
+				copier.register(this, copy);
+			}
+			copy.next = copier.copy(this.next);
+			return copy;
+		}
+	}
+
+	@Test
+	public void testCycleThroughDeepCopyable() {
+		CyclicNode node = new CyclicNode();
+		node.registering = true;
+		node.next = new Object[]{node};
+		CyclicNode copy = DeepCopier.copyObject(node);
+		assertNotSame(node, copy);
+		assertSame(copy, ((Object[]) copy.next)[0]);
+
+		AutoExpandVector<Object> vector = new AutoExpandVector<Object>();
+		vector.add(vector);
+		AutoExpandVector<Object> vectorCopy = DeepCopier.copyObject(vector);
+		assertNotSame(vector, vectorCopy);
+		assertSame(vectorCopy, vectorCopy.get(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnregisteredCycleThroughDeepCopyable() {
+		CyclicNode node = new CyclicNode();
+		node.next = new Object[]{node};
+		DeepCopier.copyObject(node);
+	}
+}
@@ -0,0 +1,53 @@
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import moa.classifiers.meta.OzaBag;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+public class SizeOfTest {
+
+	@Test
+	public void testShallowSizeOf() {
+		assertEquals(96, SizeOf.shallowSizeOf(new double[10]));
+		assertEquals(SizeOf.sizeOfArray(3, SizeOf.REFERENCE_SIZE), SizeOf.shallowSizeOf(new Object[3]));
+		assertTrue(SizeOf.shallowSizeOf(new GaussianEstimator()) >= SizeOf.OBJECT_HEADER_SIZE + 24);
+		DoubleVector vector = new DoubleVector(new double[]{1, 2, 3});
+		assertEquals(SizeOf.shallowSizeOf(vector) + 40, vector.measureByteSize());
+	}
+
+	@Test
+	public void testModelGrowth() {
+		RandomRBFGenerator generator = new RandomRBFGenerator();
+		generator.prepareForUse();
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		tree.prepareForUse();
+		tree.setModelContext(generator.getHeader());
+		OzaBag bag = new OzaBag();
+		bag.prepareForUse();
+		bag.setModelContext(generator.getHeader());
+
+		int initialTreeSize = tree.measureByteSize();
+		int previousTreeSize = initialTreeSize;
+		int previousBagSize = bag.measureByteSize();
+		assertTrue(initialTreeSize > 0);
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 2000; i++) {
+				tree.trainOnInstance(generator.nextInstance().getData());
+				bag.trainOnInstance(generator.nextInstance().getData());
+			}
+			int treeSize = tree.measureByteSize();
+			int bagSize = bag.measureByteSize();
+			assertTrue(treeSize >= previousTreeSize);
+			assertTrue(bagSize >= previousBagSize);
+			previousTreeSize = treeSize;
+			previousBagSize = bagSize;
+		}
+		assertTrue(previousTreeSize > initialTreeSize);
+		assertTrue(tree.measureTreeDepth() > 1);
+	}
+}
@@ -0,0 +1,152 @@
+package moa.streams;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+public class ArffFileStreamTest {
+
+	private static String getFile() {
+		return ClassLoader.getSystemResource("moa/classifiers/data/regression.arff").getPath();
+	}
+
+	private static List<Instance> readAll(ArffFileStream stream) {
+		List<Instance> result = new ArrayList<Instance>();
+		while (stream.hasMoreInstances()) {
+			result.add(stream.nextInstance().getData());
+		}
+		return result;
+	}
+
+	private static ArffFileStream createStream(boolean fastParser, int prefetchSize) {
+		ArffFileStream stream = new ArffFileStream();
+		stream.arffFileOption.setValue(getFile());
+		stream.prefetchSizeOption.setValue(prefetchSize);
+		if (fastParser) {
+			stream.fastParserOption.set();
+		}
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static void assertSameInstances(List<Instance> expected, List<Instance> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(expected.get(i).toDoubleArray(), actual.get(i).toDoubleArray(), 0.0);
+			assertEquals(expected.get(i).classIndex(), actual.get(i).classIndex());
+		}
+	}
+
+	@Test
+	public void testFastParser() {
+		List<Instance> expected = readAll(createStream(false, 0));
+		assertFalse(expected.isEmpty());
+		assertSameInstances(expected, readAll(createStream(true, 0)));
+	}
+
+	@Test
+	public void testPrefetch() {
+		List<Instance> expected = readAll(createStream(false, 0));
+		ArffFileStream stream = createStream(true, 2);
+		assertSameInstances(expected, readAll(stream));
+		assertFalse(stream.hasMoreInstances());
+		assertEquals(0, stream.estimatedRemainingInstances());
+
+		stream.restart();
+		assertTrue(stream.hasMoreInstances());
+		stream.nextInstance();
+		stream.restart();
+		assertSameInstances(expected, readAll(stream));
+	}
+
+	@Test(timeout = 10000)
+	public void testReadPastEnd() {
+		for (int prefetchSize : new int[] {0, 2}) {
+			for (boolean fastParser : new boolean[] {false, true}) {
+				ArffFileStream stream = createStream(fastParser, prefetchSize);
+				List<Instance> expected = readAll(stream);
+				stream.nextInstance();
+				stream.nextInstance();
+				assertFalse(stream.hasMoreInstances());
+				stream.restart();
+				assertSameInstances(expected, readAll(stream));
+			}
+		}
+	}
+
+	private static int readUntilFailure(ArffFileStream stream) {
+		int numRead = 0;
+		try {
+			while (stream.hasMoreInstances()) {
+				stream.nextInstance();
+				numRead++;
+			}
+		} catch (RuntimeException e) {
+			return numRead;
+		}
+		fail("the malformed row was read");
+		return numRead;
+	}
+
+	@Test(timeout = 10000)
+	public void testPrefetchError() throws IOException {
+		File file = File.createTempFile("malformed", ".arff");
+		file.deleteOnExit();
+		Writer writer = new FileWriter(file);
+		writer.write("@relation malformed\n@attribute a numeric\n@attribute c {x,y}\n@data\n");
+		writer.write("1,x\n2,y\n3,x\nabc,x\n4,y\n5,x\n");
+		writer.close();
+		for (boolean fastParser : new boolean[] {false, true}) {
+			ArffFileStream stream = new ArffFileStream();
+			stream.arffFileOption.setValue(file.getPath());
+			stream.prefetchSizeOption.setValue(2);
+			if (fastParser) {
+				stream.fastParserOption.set();
+			}
+			stream.prepareForUse();
+			int numRead = readUntilFailure(stream);
+			assertEquals(2, numRead);
+			// the file is closed and the stream keeps failing until restarted
+			assertNull(stream.fileReader);
+			assertNull(stream.fastLoader);
+			for (int i = 0; i < 3; i++) {
+				assertTrue(stream.hasMoreInstances());
+				try {
+					stream.nextInstance();
+					fail("the stream continued after the malformed row");
+				} catch (RuntimeException e) {
+					assertNotNull(e.getCause());
+				}
+			}
+			stream.restart();
+			assertEquals(numRead, readUntilFailure(stream));
+		}
+	}
+
+	@Test
+	public void testReuseInstances() {
+		List<Instance> expected = readAll(createStream(false, 0));
+		ArffFileStream stream = createStream(true, 0);
+		stream.setReuseInstances(true);
+		List<Instance> actual = new ArrayList<Instance>();
+		List<Instance> returned = new ArrayList<Instance>();
+		while (stream.hasMoreInstances()) {
+			Instance inst = stream.nextInstance().getData();
+			returned.add(inst);
+			actual.add(inst.copy());
+		}
+		assertSameInstances(expected, actual);
+		// the stream reads one instance ahead, so two instances are used in turn
+		assertSame(returned.get(1), returned.get(3));
+		assertNotSame(returned.get(1), returned.get(2));
+	}
+}
@@ -0,0 +1,138 @@
+package moa.streams;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import moa.streams.generators.RandomRBFGenerator;
+import moa.tasks.WriteStreamToBinaryFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.SparseInstance;
+
+public class MappedBinaryFileStreamTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("moa", ".bin");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	private void write(InstanceStream stream, int maxInstances, boolean floatValues) {
+		WriteStreamToBinaryFile task = new WriteStreamToBinaryFile();
+		task.streamOption.setCurrentObject(stream);
+		task.binaryFileOption.setValue(file.getPath());
+		task.maxInstancesOption.setValue(maxInstances);
+		if (floatValues) {
+			task.floatValuesOption.set();
+		}
+		task.prepareForUse();
+		task.doTask();
+	}
+
+	private static RandomRBFGenerator createGenerator() {
+		RandomRBFGenerator generator = new RandomRBFGenerator();
+		generator.prepareForUse();
+		return generator;
+	}
+
+	@Test
+	public void testDense() {
+		write(createGenerator(), 500, false);
+		MappedBinaryFileStream stream = new MappedBinaryFileStream(file.getPath());
+		RandomRBFGenerator expected = createGenerator();
+		assertEquals(expected.getHeader().numAttributes(), stream.getHeader().numAttributes());
+		assertEquals(expected.getHeader().classIndex(), stream.getHeader().classIndex());
+		for (int pass = 0; pass < 2; pass++) {
+			expected.restart();
+			stream.restart();
+			int count = 0;
+			while (stream.hasMoreInstances()) {
+				assertEquals(500 - count, stream.estimatedRemainingInstances());
+				Instance inst = stream.nextInstance().getData();
+				Instance expectedInst = expected.nextInstance().getData();
+				assertArrayEquals(expectedInst.toDoubleArray(), inst.toDoubleArray(), 0.0);
+				assertEquals(expectedInst.classValue(), inst.classValue(), 0.0);
+				count++;
+			}
+			assertEquals(500, count);
+		}
+	}
+
+	@Test
+	public void testReadPastEnd() {
+		write(createGenerator(), 10, false);
+		MappedBinaryFileStream stream = new MappedBinaryFileStream(file.getPath());
+		for (int i = 0; i < 10; i++) {
+			assertNotNull(stream.nextInstance());
+		}
+		assertFalse(stream.hasMoreInstances());
+		assertNull(stream.nextInstance());
+		assertNull(stream.nextInstance());
+		assertFalse(stream.hasMoreInstances());
+		stream.restart();
+		int count = 0;
+		while (stream.hasMoreInstances()) {
+			stream.nextInstance();
+			count++;
+		}
+		assertEquals(10, count);
+	}
+
+	@Test
+	public void testFloatValues() {
+		write(createGenerator(), 100, true);
+		MappedBinaryFileStream stream = new MappedBinaryFileStream(file.getPath());
+		RandomRBFGenerator expected = createGenerator();
+		while (stream.hasMoreInstances()) {
+			double[] values = expected.nextInstance().getData().toDoubleArray();
+			double[] actual = stream.nextInstance().getData().toDoubleArray();
+			for (int i = 0; i < values.length; i++) {
+				assertEquals((float) values[i], actual[i], 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testSparse() {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (int i = 0; i < 5; i++) {
+			attributes.add(new Attribute("att" + i));
+		}
+		Instances data = new Instances(new Instances("sparse", attributes, 0), 2);
+		data.setClassIndex(4);
+		data.add(new SparseInstance(1.0, new double[]{1.5, Double.NaN, 3}, new int[]{0, 2, 4}, 5));
+		data.add(new SparseInstance(2.0, new double[]{}, new int[]{}, 5));
+		for (int i = 0; i < data.numInstances(); i++) {
+			data.instance(i).setDataset(data);
+		}
+		write(new CachedInstancesStream(data), 10, false);
+
+		MappedBinaryFileStream stream = new MappedBinaryFileStream(file.getPath());
+		InstancesHeader header = stream.getHeader();
+		assertEquals(4, header.classIndex());
+		for (int i = 0; i < data.numInstances(); i++) {
+			Instance expected = data.instance(i);
+			Instance actual = stream.nextInstance().getData();
+			assertEquals(expected.weight(), actual.weight(), 0.0);
+			assertEquals(expected.numValues(), actual.numValues());
+			assertArrayEquals(expected.toDoubleArray(), actual.toDoubleArray(), 0.0);
+		}
+		assertFalse(stream.hasMoreInstances());
+	}
+}
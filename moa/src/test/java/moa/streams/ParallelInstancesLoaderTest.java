@@ -0,0 +1,126 @@
+package moa.streams;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+
+import moa.streams.generators.RandomRBFGenerator;
+import moa.tasks.CacheShuffledStream;
+import moa.tasks.StandardTaskMonitor;
+import moa.tasks.TaskMonitor;
+import moa.tasks.WriteStreamToBinaryFile;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+public class ParallelInstancesLoaderTest {
+
+	private static void assertSameInstances(InstanceStream expected, Instances actual) {
+		int count = 0;
+		while (expected.hasMoreInstances()) {
+			Instance expectedInst = expected.nextInstance().getData();
+			Instance inst = actual.instance(count);
+			assertArrayEquals(expectedInst.toDoubleArray(), inst.toDoubleArray(), 0.0);
+			assertEquals(expectedInst.weight(), inst.weight(), 0.0);
+			assertEquals(expectedInst.classIndex(), inst.classIndex());
+			count++;
+		}
+		assertEquals(count, actual.numInstances());
+	}
+
+	@Test
+	public void testArff() throws Exception {
+		File file = new File(ClassLoader.getSystemResource("moa/classifiers/data/regression.arff").getPath());
+		for (int numThreads = 1; numThreads <= 8; numThreads *= 2) {
+			Instances loaded = new ParallelInstancesLoader(numThreads).loadArff(file, -1, Integer.MAX_VALUE);
+			ArffFileStream expected = new ArffFileStream(file.getPath(), -1);
+			assertEquals(expected.getHeader().classIndex(), loaded.classIndex());
+			assertSameInstances(expected, loaded);
+		}
+		Instances loaded = new ParallelInstancesLoader(4).loadArff(file, -1, 10);
+		assertEquals(10, loaded.numInstances());
+	}
+
+	@Test
+	public void testArffStopsAtMaxInstances() throws Exception {
+		File file = File.createTempFile("moa", ".arff");
+		try {
+			Writer writer = new FileWriter(file);
+			writer.write("@relation test\n@attribute a numeric\n@attribute c {x,y}\n@data\n");
+			for (int i = 0; i < 4000; i++) {
+				writer.write(i + "," + (i % 2 == 0 ? "x" : "y") + "\n");
+			}
+			// parsing the end of the file fails
+			for (int i = 0; i < 1000; i++) {
+				writer.write("abc,x\n");
+			}
+			writer.close();
+			for (int numThreads = 1; numThreads <= 4; numThreads *= 2) {
+				Instances loaded = new ParallelInstancesLoader(numThreads).loadArff(file, -1, 150);
+				assertEquals(150, loaded.numInstances());
+				for (int i = 0; i < 150; i++) {
+					assertEquals(i, loaded.instance(i).value(0), 0.0);
+				}
+			}
+			try {
+				new ParallelInstancesLoader(4).loadArff(file, -1, Integer.MAX_VALUE);
+				fail("the malformed rows were not parsed");
+			} catch (Exception e) {
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testAbort() throws Exception {
+		File file = new File(ClassLoader.getSystemResource("moa/classifiers/data/regression.arff").getPath());
+		TaskMonitor monitor = new StandardTaskMonitor();
+		Instances loaded = new ParallelInstancesLoader(2, monitor).loadArff(file, -1, Integer.MAX_VALUE);
+		assertEquals(1.0, monitor.getCurrentActivityFractionComplete(), 0.0);
+		monitor.requestCancel();
+		loaded = new ParallelInstancesLoader(2, monitor).loadArff(file, -1, Integer.MAX_VALUE);
+		assertEquals(0, loaded.numInstances());
+
+		CacheShuffledStream task = new CacheShuffledStream();
+		task.streamOption.setCurrentObject(new ArffFileStream(file.getPath(), -1));
+		task.loadingThreadsOption.setValue(2);
+		task.prepareForUse();
+		assertNull(task.doTask(monitor, null));
+	}
+
+	@Test
+	public void testBinary() throws Exception {
+		File file = File.createTempFile("moa", ".bin");
+		try {
+			RandomRBFGenerator generator = new RandomRBFGenerator();
+			WriteStreamToBinaryFile task = new WriteStreamToBinaryFile();
+			task.streamOption.setCurrentObject(generator);
+			task.binaryFileOption.setValue(file.getPath());
+			task.maxInstancesOption.setValue(1000);
+			task.prepareForUse();
+			task.doTask();
+
+			Instances loaded = new ParallelInstancesLoader(3).loadBinary(
+					new MappedBinaryFileStream(file.getPath()), Integer.MAX_VALUE);
+			assertSameInstances(new MappedBinaryFileStream(file.getPath()), loaded);
+			loaded = new ParallelInstancesLoader(3).loadBinary(
+					new MappedBinaryFileStream(file.getPath()), 123);
+			assertEquals(123, loaded.numInstances());
+
+			// ranges cut by size hold fewer rows than the loader asks for
+			ParallelInstancesLoader loader = new ParallelInstancesLoader(3);
+			loader.maxBinaryRangeBytes = 1000;
+			loaded = loader.loadBinary(new MappedBinaryFileStream(file.getPath()), Integer.MAX_VALUE);
+			assertSameInstances(new MappedBinaryFileStream(file.getPath()), loaded);
+			loaded = loader.loadBinary(new MappedBinaryFileStream(file.getPath()), 500);
+			assertEquals(500, loaded.numInstances());
+		} finally {
+			file.delete();
+		}
+	}
+}
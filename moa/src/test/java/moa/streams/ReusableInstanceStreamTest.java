@@ -0,0 +1,87 @@
+package moa.streams;
+
+import static org.junit.Assert.*;
+
+import moa.classifiers.Classifier;
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+public class ReusableInstanceStreamTest {
+
+	private static InstanceStream createStream(String cliString) throws Exception {
+		InstanceStream stream = (InstanceStream) ClassOption.cliStringToObject(cliString, InstanceStream.class, null);
+		((OptionHandler) stream).prepareForUse();
+		return stream;
+	}
+
+	private static void assertSameStream(String cliString) throws Exception {
+		InstanceStream expected = createStream(cliString);
+		InstanceStream actual = createStream(cliString);
+		((ReusableInstanceStream) actual).setReuseInstances(true);
+		assertTrue(((ReusableInstanceStream) actual).isReusingInstances());
+		Instance first = null;
+		for (int i = 0; i < 1000; i++) {
+			Instance expectedInst = expected.nextInstance().getData();
+			Instance inst = actual.nextInstance().getData();
+			if (first == null) {
+				first = inst;
+			}
+			assertSame(cliString, first, inst);
+			assertArrayEquals(cliString, expectedInst.toDoubleArray(), inst.toDoubleArray(), 0.0);
+			assertEquals(expectedInst.weight(), inst.weight(), 0.0);
+			assertEquals(expectedInst.classIndex(), inst.classIndex());
+		}
+	}
+
+	@Test
+	public void testGenerators() throws Exception {
+		assertSameStream("generators.RandomRBFGenerator");
+		assertSameStream("generators.RandomRBFGeneratorDrift -s 0.01");
+		assertSameStream("generators.RandomTreeGenerator");
+		assertSameStream("generators.HyperplaneGenerator");
+		assertSameStream("generators.AgrawalGenerator");
+		assertSameStream("generators.SEAGenerator");
+		assertSameStream("generators.STAGGERGenerator");
+		assertSameStream("generators.LEDGenerator");
+		assertSameStream("generators.LEDGeneratorDrift -d 3");
+		assertSameStream("generators.WaveformGenerator -n");
+		assertSameStream("generators.WaveformGeneratorDrift -d 5");
+	}
+
+	private static void assertSameLearning(String learnerCliString) throws Exception {
+		String streamCliString = "generators.RandomRBFGeneratorDrift -s 0.01";
+		InstanceStream expectedStream = createStream(streamCliString);
+		InstanceStream actualStream = createStream(streamCliString);
+		((ReusableInstanceStream) actualStream).setReuseInstances(true);
+		Classifier expected = (Classifier) ClassOption.cliStringToObject(learnerCliString, Classifier.class, null);
+		Classifier actual = (Classifier) ClassOption.cliStringToObject(learnerCliString, Classifier.class, null);
+		for (Classifier learner : new Classifier[]{expected, actual}) {
+			learner.setModelContext(expectedStream.getHeader());
+			learner.prepareForUse();
+		}
+		for (int i = 0; i < 3000; i++) {
+			assertArrayEquals(learnerCliString,
+					expected.testThenTrain(expectedStream.nextInstance().getData()),
+					actual.testThenTrain(actualStream.nextInstance().getData()), 0.0);
+		}
+	}
+
+	@Test
+	public void testLearnersKeepingInstances() throws Exception {
+		assertSameLearning("meta.ADACC -t 100");
+		assertSameLearning("lazy.kNN -w 200");
+		assertSameLearning("meta.AccuracyWeightedEnsemble -c 250");
+		assertSameLearning("meta.AccuracyUpdatedEnsemble -c 250");
+	}
+
+	@Test
+	public void testNewInstancesByDefault() throws Exception {
+		InstanceStream stream = createStream("generators.RandomRBFGenerator");
+		assertFalse(((ReusableInstanceStream) stream).isReusingInstances());
+		assertNotSame(stream.nextInstance().getData(), stream.nextInstance().getData());
+	}
+}
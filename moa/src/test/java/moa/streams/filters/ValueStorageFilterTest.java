@@ -0,0 +1,51 @@
+package moa.streams.filters;
+
+import static org.junit.Assert.*;
+
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+import moa.streams.InstanceStream;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+public class ValueStorageFilterTest {
+
+	private static InstanceStream createStream(String cliString) throws Exception {
+		InstanceStream stream = (InstanceStream) ClassOption.cliStringToObject(cliString, InstanceStream.class, null);
+		((OptionHandler) stream).prepareForUse();
+		return stream;
+	}
+
+	private static void assertSameValues(String cliString, int storage, double delta) throws Exception {
+		InstanceStream expected = createStream(cliString);
+		ValueStorageFilter filter = new ValueStorageFilter();
+		filter.storageOption.setChosenIndex(storage);
+		filter.setInputStream(createStream(cliString));
+		Instances cache = new Instances(filter.getHeader(), 0);
+		for (int i = 0; i < 100; i++) {
+			Instance expectedInst = expected.nextInstance().getData();
+			Instance inst = filter.nextInstance().getData();
+			cache.add(inst);
+			assertEquals(expectedInst.weight(), inst.weight(), 0.0);
+			assertEquals(expectedInst.classValue(), inst.classValue(), 0.0);
+			assertArrayEquals(expectedInst.toDoubleArray(), inst.toDoubleArray(), delta);
+			assertArrayEquals(expectedInst.toDoubleArray(), cache.instance(i).toDoubleArray(), delta);
+		}
+	}
+
+	@Test
+	public void testFloat() throws Exception {
+		assertSameValues("generators.RandomRBFGenerator", 0, 1e-6);
+		assertSameValues("generators.LEDGenerator", 0, 0.0);
+	}
+
+	@Test
+	public void testCompact() throws Exception {
+		assertSameValues("generators.RandomTreeGenerator", 1, 1e-6);
+		assertSameValues("generators.LEDGenerator", 1, 0.0);
+		assertSameValues("generators.STAGGERGenerator", 1, 0.0);
+	}
+}
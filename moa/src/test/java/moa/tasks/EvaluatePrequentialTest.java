@@ -0,0 +1,77 @@
+package moa.tasks;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.classifiers.Classifier;
+import moa.core.InstanceExample;
+import moa.core.Measurement;
+import moa.evaluation.BasicRegressionPerformanceEvaluator;
+import moa.evaluation.LearningCurve;
+import moa.options.ClassOption;
+import moa.streams.ArffFileStream;
+import moa.streams.InstanceStream;
+
+import org.junit.Test;
+
+public class EvaluatePrequentialTest {
+
+	// the bagged trees have no votes when all predict a negative target
+	private static final String LEARNER = "moa.classifiers.meta.OzaBag -l trees.FIMTDD";
+
+	private static final int SAMPLE_FREQUENCY = 100;
+
+	private static String getStreamCliString() {
+		return "moa.streams.ArffFileStream -c -1 -f "
+				+ ClassLoader.getSystemResource("moa/classifiers/data/regression.arff").getPath();
+	}
+
+	/**
+	 * Checks that the curve of the task is that of the votes of
+	 * getVotesForInstance, without a buffer, on a regression stream.
+	 */
+	private static void assertSameCurve(LearningCurve curve) throws Exception {
+		InstanceStream stream = (InstanceStream) ClassOption.cliStringToObject(
+				getStreamCliString(), InstanceStream.class, null);
+		((ArffFileStream) stream).prepareForUse();
+		Classifier learner = (Classifier) ClassOption.cliStringToObject(LEARNER, Classifier.class, null);
+		learner.prepareForUse();
+		learner.setModelContext(stream.getHeader());
+		BasicRegressionPerformanceEvaluator evaluator = new BasicRegressionPerformanceEvaluator();
+		int numEntries = 0;
+		int numInstances = 0;
+		while (stream.hasMoreInstances()) {
+			Instance inst = stream.nextInstance().getData();
+			evaluator.addResult(new InstanceExample(inst), learner.getVotesForInstance(inst));
+			learner.trainOnInstance(inst);
+			numInstances++;
+			if (numInstances % SAMPLE_FREQUENCY == 0 || !stream.hasMoreInstances()) {
+				for (Measurement measurement : evaluator.getPerformanceMeasurements()) {
+					assertEquals(measurement.getName(), measurement.getValue(),
+							curve.getMeasurement(numEntries, getMeasurementIndex(curve, measurement.getName())), 0.0);
+				}
+				numEntries++;
+			}
+		}
+		assertEquals(numEntries, curve.numEntries());
+	}
+
+	private static int getMeasurementIndex(LearningCurve curve, String name) {
+		for (int i = 0; ; i++) {
+			if (curve.getMeasurementName(i).equals(name)) {
+				return i;
+			}
+		}
+	}
+
+	@Test
+	public void testPrequentialRegression() throws Exception {
+		EvaluatePrequential task = new EvaluatePrequential();
+		task.learnerOption.setValueViaCLIString(LEARNER);
+		task.streamOption.setValueViaCLIString(getStreamCliString());
+		task.evaluatorOption.setValueViaCLIString("moa.evaluation.BasicRegressionPerformanceEvaluator");
+		task.sampleFrequencyOption.setValue(SAMPLE_FREQUENCY);
+		task.prepareForUse();
+		assertSameCurve((LearningCurve) task.doTask());
+	}
+}